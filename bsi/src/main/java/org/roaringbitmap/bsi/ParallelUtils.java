@@ -0,0 +1,78 @@
+package org.roaringbitmap.bsi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers for the parallel operations of the bsi implementations: the columns are split in chunks
+ * holding about the same number of values, every chunk is processed by a task of the supplied
+ * executor, and the results of the tasks are merged.
+ */
+public final class ParallelUtils {
+
+  private ParallelUtils() {}
+
+  /**
+   * Splits a set of columns in at most parallelism chunks of about the same cardinality.
+   *
+   * @param cardinality the number of columns
+   * @param parallelism the maximum number of chunks
+   * @return the rank of the first column of every chunk, empty when there is no column
+   */
+  public static long[] chunkRanks(long cardinality, int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    int chunks = (int) Math.min(parallelism, cardinality);
+    long[] ranks = new long[chunks];
+    long chunkSize = chunks == 0 ? 0 : cardinality / chunks;
+    long remainder = chunks == 0 ? 0 : cardinality % chunks;
+    for (int i = 1; i < chunks; ++i) {
+      ranks[i] = ranks[i - 1] + chunkSize + (i <= remainder ? 1 : 0);
+    }
+    return ranks;
+  }
+
+  /**
+   * Turns the first column of every chunk of a 32-bit set into bounds of container key ranges, so
+   * that every container belongs to a single chunk.
+   *
+   * @param starts the first column of every chunk, in increasing unsigned order
+   * @return the increasing bounds of the ranges, from 0 to 2^32 included
+   */
+  public static long[] containerBounds(int[] starts) {
+    long[] bounds = new long[starts.length + 2];
+    int count = 1;
+    for (int start : starts) {
+      long bound = Integer.toUnsignedLong(start) & ~0xFFFFL;
+      if (bound > bounds[count - 1]) {
+        bounds[count++] = bound;
+      }
+    }
+    bounds[count++] = 1L << 32;
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * Runs the tasks on the executor and waits for all of them.
+   *
+   * @param tasks the tasks to run
+   * @param pool the executor running the tasks
+   * @return the results of the tasks, in the order of the tasks
+   * @throws ExecutionException if a task failed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public static <T> List<T> invokeAll(List<Callable<T>> tasks, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    List<T> results = new ArrayList<>(tasks.size());
+    for (Future<T> future : pool.invokeAll(tasks)) {
+      results.add(future.get());
+    }
+    return results;
+  }
+}
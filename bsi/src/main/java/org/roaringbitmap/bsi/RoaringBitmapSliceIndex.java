@@ -1,13 +1,21 @@
 package org.roaringbitmap.bsi;
 
+import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 
 /**
@@ -347,6 +355,131 @@ public class RoaringBitmapSliceIndex implements BitmapSliceIndex {
     }
   }
 
+  /**
+   * Sets a batch of values given as a column of ids and a column of values, without boxing them
+   * into pairs. When the column ids are strictly increasing, the values are transposed 64 rows at a
+   * time into one word per slice and every slice is built by appending to a
+   * {@link RoaringBitmapWriter}; otherwise the values are set one by one, the last value of a
+   * column id winning.
+   *
+   * @param columnIds the column ids
+   * @param values the values, values[i] being the value of columnIds[i]
+   */
+  public void setValues(int[] columnIds, int[] values) {
+    if (columnIds.length != values.length) {
+      throw new IllegalArgumentException(
+          "columnIds and values should have the same length: "
+              + columnIds.length
+              + " != "
+              + values.length);
+    }
+    if (columnIds.length == 0) {
+      return;
+    }
+    int minValue = values[0];
+    int maxValue = values[0];
+    boolean sorted = true;
+    for (int i = 1; i < values.length; i++) {
+      minValue = Math.min(minValue, values[i]);
+      maxValue = Math.max(maxValue, values[i]);
+      sorted &= Integer.compareUnsigned(columnIds[i - 1], columnIds[i]) < 0;
+    }
+    ensureCapacityInternal(minValue, maxValue);
+    if (!sorted) {
+      for (int i = 0; i < columnIds.length; i++) {
+        setValueInternal(columnIds[i], values[i]);
+      }
+      return;
+    }
+
+    int bitCount = this.bitCount();
+    RoaringBitmapWriter<RoaringBitmap> columns = RoaringBitmapWriter.writer().get();
+    List<RoaringBitmapWriter<RoaringBitmap>> slices = new ArrayList<>(bitCount);
+    for (int i = 0; i < bitCount; i++) {
+      slices.add(RoaringBitmapWriter.writer().get());
+    }
+    // bit r of planes[i] is bit i of the value of the row r of the current block
+    long[] planes = new long[Integer.SIZE];
+    for (int start = 0; start < columnIds.length; start += Long.SIZE) {
+      int end = Math.min(start + Long.SIZE, columnIds.length);
+      Arrays.fill(planes, 0L);
+      for (int row = start; row < end; row++) {
+        columns.add(columnIds[row]);
+        for (int value = values[row]; value != 0; value &= value - 1) {
+          planes[Integer.numberOfTrailingZeros(value)] |= 1L << (row - start);
+        }
+      }
+      for (int i = 0; i < bitCount; i++) {
+        for (long plane = planes[i]; plane != 0; plane &= plane - 1) {
+          slices.get(i).add(columnIds[start + Long.numberOfTrailingZeros(plane)]);
+        }
+      }
+    }
+
+    RoaringBitmap loaded = columns.get();
+    for (int i = 0; i < bitCount; i++) {
+      RoaringBitmap slice = slices.get(i).get();
+      if (this.bA[i].isEmpty()) {
+        this.bA[i] = slice;
+      } else {
+        this.bA[i].andNot(loaded);
+        this.bA[i].or(slice);
+      }
+    }
+    this.ebM.or(loaded);
+  }
+
+  /**
+   * Sets a batch of values like {@link #setValues(List)}, loading the slices in parallel: every
+   * slice is written by a single task of the pool.
+   *
+   * @param values the (columnId, value) pairs
+   * @param parallelism the number of tasks
+   * @param pool the executor running the tasks
+   */
+  public void parallelSetValues(
+      List<Pair<Integer, Integer>> values, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    int maxValue =
+        values.stream().mapToInt(Pair::getRight).filter(Objects::nonNull).max().getAsInt();
+    int minValue =
+        values.stream().mapToInt(Pair::getRight).filter(Objects::nonNull).min().getAsInt();
+    ensureCapacityInternal(minValue, maxValue);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < parallelism; t++) {
+      final int task = t;
+      tasks.add(
+          () -> {
+            // slice bitCount() stands for the existence bitmap
+            for (int i = task; i <= this.bitCount(); i += parallelism) {
+              if (i == this.bitCount()) {
+                for (Pair<Integer, Integer> pair : values) {
+                  this.ebM.add(pair.getKey());
+                }
+              } else {
+                setSlice(values, i);
+              }
+            }
+            return null;
+          });
+    }
+    ParallelUtils.invokeAll(tasks, pool);
+  }
+
+  private void setSlice(List<Pair<Integer, Integer>> values, int i) {
+    RoaringBitmap slice = this.bA[i];
+    for (Pair<Integer, Integer> pair : values) {
+      if ((pair.getValue() & (1 << i)) > 0) {
+        slice.add(pair.getKey());
+      } else {
+        slice.remove(pair.getKey());
+      }
+    }
+  }
+
   /**
    * Replaced by {@code setValues(values)}
    */
@@ -597,4 +730,206 @@ public class RoaringBitmapSliceIndex implements BitmapSliceIndex {
 
     return Pair.newPair(sum, count);
   }
+
+  /**
+   * Sums in parallel, see {@link #sum(RoaringBitmap)}. The found set is split in parallelism
+   * ranges of containers, summed by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to sum
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the sum and the count of the values
+   */
+  public Pair<Long, Long> parallelSum(
+      RoaringBitmap foundSet, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return Pair.newPair(0L, 0L);
+    }
+    long[] bounds = chunkBounds(foundSet, parallelism);
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      final long start = bounds[i];
+      final long end = bounds[i + 1];
+      tasks.add(() -> sum(foundSet.selectRange(start, end)).getKey());
+    }
+    long sum = ParallelUtils.invokeAll(tasks, pool).stream().mapToLong(Long::longValue).sum();
+    return Pair.newPair(sum, foundSet.getLongCardinality());
+  }
+
+  /**
+   * Compares in parallel, see {@link #compare}. The found set (or the existence bitmap when the
+   * found set is null) is split in parallelism ranges of containers, compared by the tasks of the
+   * pool.
+   *
+   * @param operation the comparison
+   * @param startOrValue the start or value of comparison
+   * @param end the end value of comparison, when the comparison operation is range
+   * @param foundSet columnId set we want compare, null for all the columns
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return columnId set we found in this bsi with giving conditions
+   */
+  public RoaringBitmap parallelCompare(
+      BitmapSliceIndex.Operation operation,
+      int startOrValue,
+      int end,
+      RoaringBitmap foundSet,
+      int parallelism,
+      ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    RoaringBitmap result = compareUsingMinMax(operation, startOrValue, end, foundSet);
+    if (result != null) {
+      return result;
+    }
+    long[] bounds = chunkBounds(foundSet == null ? this.ebM : foundSet, parallelism);
+    List<Callable<RoaringBitmap>> tasks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      final long rangeStart = bounds[i];
+      final long rangeEnd = bounds[i + 1];
+      tasks.add(
+          () ->
+              selectRange(rangeStart, rangeEnd)
+                  .compare(
+                      operation,
+                      startOrValue,
+                      end,
+                      foundSet == null ? null : foundSet.selectRange(rangeStart, rangeEnd)));
+    }
+    return RoaringBitmap.or(ParallelUtils.invokeAll(tasks, pool).iterator());
+  }
+
+  // ------------------------------------------------------------------------------------------------------------
+  // See Bit-Sliced Index Arithmetic, Algorithm 4.1. Find k rows with largest values in a BSI.
+  // ------------------------------------------------------------------------------------------------------------
+  public RoaringBitmap topK(RoaringBitmap foundSet, int k) {
+    RoaringBitmap fixedFoundSet = foundSet == null ? this.ebM : foundSet;
+    if (k > fixedFoundSet.getLongCardinality() || k < 0) {
+      throw new IllegalArgumentException(
+          "TopK param error,cardinality:" + fixedFoundSet.getLongCardinality() + " k:" + k);
+    }
+
+    if (k == 0) {
+      return new RoaringBitmap();
+    }
+
+    RoaringBitmap G = new RoaringBitmap();
+    RoaringBitmap E = fixedFoundSet;
+
+    for (int i = this.bitCount() - 1; i >= 0; i--) {
+      RoaringBitmap X = RoaringBitmap.or(G, RoaringBitmap.and(E, this.bA[i]));
+      long n = X.getLongCardinality();
+      if (n > k) {
+        E = RoaringBitmap.and(E, this.bA[i]);
+      } else if (n < k) {
+        G = X;
+        E = RoaringBitmap.andNot(E, this.bA[i]);
+      } else {
+        E = RoaringBitmap.and(E, this.bA[i]);
+        break;
+      }
+    }
+
+    return trimTopK(G, E, k);
+  }
+
+  /**
+   * Finds the k columns with the largest values in parallel, see {@link #topK}. Every step of the
+   * algorithm is run on parallelism ranges of containers of the found set by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to search, null for all the columns
+   * @param k the number of columns to find
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the k columns with the largest values
+   */
+  public RoaringBitmap parallelTopK(
+      RoaringBitmap foundSet, int k, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    RoaringBitmap fixedFoundSet = foundSet == null ? this.ebM : foundSet;
+    if (k > fixedFoundSet.getLongCardinality() || k < 0) {
+      throw new IllegalArgumentException(
+          "TopK param error,cardinality:" + fixedFoundSet.getLongCardinality() + " k:" + k);
+    }
+
+    if (k == 0) {
+      return new RoaringBitmap();
+    }
+
+    long[] bounds = chunkBounds(fixedFoundSet, parallelism);
+    int chunks = bounds.length - 1;
+    RoaringBitmap[] G = new RoaringBitmap[chunks];
+    RoaringBitmap[] E = new RoaringBitmap[chunks];
+    for (int c = 0; c < chunks; c++) {
+      G[c] = new RoaringBitmap();
+      E[c] = fixedFoundSet.selectRange(bounds[c], bounds[c + 1]);
+    }
+
+    for (int i = this.bitCount() - 1; i >= 0; i--) {
+      final RoaringBitmap slice = this.bA[i];
+      List<RoaringBitmap> X =
+          ParallelUtils.invokeAll(
+              chunkTasks(chunks, c -> RoaringBitmap.or(G[c], RoaringBitmap.and(E[c], slice))),
+              pool);
+      long n = X.stream().mapToLong(RoaringBitmap::getLongCardinality).sum();
+      if (n < k) {
+        X.toArray(G);
+        ParallelUtils.invokeAll(chunkTasks(chunks, c -> RoaringBitmap.andNot(E[c], slice)), pool)
+            .toArray(E);
+      } else {
+        ParallelUtils.invokeAll(chunkTasks(chunks, c -> RoaringBitmap.and(E[c], slice)), pool)
+            .toArray(E);
+        if (n == k) {
+          break;
+        }
+      }
+    }
+
+    return trimTopK(
+        RoaringBitmap.or(Arrays.asList(G).iterator()),
+        RoaringBitmap.or(Arrays.asList(E).iterator()),
+        k);
+  }
+
+  private static List<Callable<RoaringBitmap>> chunkTasks(
+      int chunks, IntFunction<RoaringBitmap> task) {
+    List<Callable<RoaringBitmap>> tasks = new ArrayList<>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int chunk = c;
+      tasks.add(() -> task.apply(chunk));
+    }
+    return tasks;
+  }
+
+  // the columns of G and of E, turning off the extra columns of E (ties) to return k columns
+  private static RoaringBitmap trimTopK(RoaringBitmap G, RoaringBitmap E, int k) {
+    RoaringBitmap F = RoaringBitmap.or(G, E);
+    long n = F.getLongCardinality() - k;
+    if (n > 0) {
+      IntIterator iterator = E.getIntIterator();
+      while (iterator.hasNext() && n > 0) {
+        F.remove(iterator.next());
+        n--;
+      }
+    }
+    return F;
+  }
+
+  // splits the columns of set in ranges of containers holding about the same number of columns
+  private static long[] chunkBounds(RoaringBitmap set, int parallelism) {
+    long[] ranks = ParallelUtils.chunkRanks(set.getLongCardinality(), parallelism);
+    int[] starts = new int[ranks.length];
+    set.select(Arrays.stream(ranks).mapToInt(rank -> (int) rank).toArray(), starts);
+    return ParallelUtils.containerBounds(starts);
+  }
+
+  // a bsi sharing the slices of this bsi, restricted to the columns in [rangeStart, rangeEnd)
+  private RoaringBitmapSliceIndex selectRange(long rangeStart, long rangeEnd) {
+    RoaringBitmapSliceIndex bsi = new RoaringBitmapSliceIndex();
+    bsi.minValue = this.minValue;
+    bsi.maxValue = this.maxValue;
+    bsi.bA = this.bA;
+    bsi.ebM = this.ebM.selectRange(rangeStart, rangeEnd);
+    return bsi;
+  }
 }
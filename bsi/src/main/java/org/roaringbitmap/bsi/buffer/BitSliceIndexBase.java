@@ -6,18 +6,22 @@ import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.bsi.BitmapSliceIndex;
 import org.roaringbitmap.bsi.BitmapSliceIndex.Operation;
 import org.roaringbitmap.bsi.Pair;
+import org.roaringbitmap.bsi.ParallelUtils;
 import org.roaringbitmap.buffer.BufferFastAggregation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -550,6 +554,199 @@ public class BitSliceIndexBase {
     return Pair.newPair(sum, count);
   }
 
+  /**
+   * Sums in parallel, see {@link #sum(ImmutableRoaringBitmap)}. The found set is split in
+   * parallelism ranges of containers, summed by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to sum
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the sum and the count of the values
+   */
+  public Pair<Long, Long> parallelSum(
+      ImmutableRoaringBitmap foundSet, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return Pair.newPair(0L, 0L);
+    }
+    long[] bounds = chunkBounds(foundSet, parallelism);
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      final long start = bounds[i];
+      final long end = bounds[i + 1];
+      tasks.add(() -> sum(foundSet.selectRange(start, end)).getKey());
+    }
+    long sum = ParallelUtils.invokeAll(tasks, pool).stream().mapToLong(Long::longValue).sum();
+    return Pair.newPair(sum, foundSet.getLongCardinality());
+  }
+
+  /**
+   * Compares in parallel, see {@link #compare}. The found set (or the existence bitmap when the
+   * found set is null) is split in parallelism ranges of containers, compared by the tasks of the
+   * pool.
+   *
+   * @param operation the comparison
+   * @param startOrValue the start or value of comparison
+   * @param end the end value of comparison, when the comparison operation is range
+   * @param foundSet columnId set we want compare, null for all the columns
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return columnId set we found in this bsi with giving conditions
+   */
+  public ImmutableRoaringBitmap parallelCompare(
+      BitmapSliceIndex.Operation operation,
+      int startOrValue,
+      int end,
+      ImmutableRoaringBitmap foundSet,
+      int parallelism,
+      ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    ImmutableRoaringBitmap result = compareUsingMinMax(operation, startOrValue, end, foundSet);
+    if (result != null) {
+      return result;
+    }
+    long[] bounds = chunkBounds(foundSet == null ? this.ebM : foundSet, parallelism);
+    List<Callable<ImmutableRoaringBitmap>> tasks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      final long rangeStart = bounds[i];
+      final long rangeEnd = bounds[i + 1];
+      tasks.add(
+          () ->
+              selectRange(rangeStart, rangeEnd)
+                  .compareChunk(
+                      operation,
+                      startOrValue,
+                      end,
+                      foundSet == null ? null : foundSet.selectRange(rangeStart, rangeEnd)));
+    }
+    return ImmutableRoaringBitmap.or(ParallelUtils.invokeAll(tasks, pool).iterator());
+  }
+
+  // Owen's GE is not restricted to the existence bitmap, chunks use O'Neil's GE instead
+  private ImmutableRoaringBitmap compareChunk(
+      BitmapSliceIndex.Operation operation,
+      int startOrValue,
+      int end,
+      ImmutableRoaringBitmap foundSet) {
+    switch (operation) {
+      case GE:
+        return oNeilGreatEqual(startOrValue, foundSet);
+      case RANGE:
+        {
+          ImmutableRoaringBitmap left = oNeilGreatEqual(Math.max(startOrValue, minValue), foundSet);
+          ImmutableRoaringBitmap right =
+              oNeilCompare(BitmapSliceIndex.Operation.LE, Math.min(end, maxValue), foundSet);
+          return ImmutableRoaringBitmap.and(left, right);
+        }
+      default:
+        return compare(operation, startOrValue, end, foundSet);
+    }
+  }
+
+  private ImmutableRoaringBitmap oNeilGreatEqual(int predicate, ImmutableRoaringBitmap foundSet) {
+    ImmutableRoaringBitmap result =
+        oNeilCompare(BitmapSliceIndex.Operation.GE, predicate, foundSet);
+    return foundSet == null ? result : ImmutableRoaringBitmap.and(result, foundSet);
+  }
+
+  /**
+   * Finds the k columns with the largest values in parallel, see {@link #topK}. Every step of the
+   * algorithm is run on parallelism ranges of containers of the found set by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to search, null for all the columns
+   * @param k the number of columns to find
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the k columns with the largest values
+   */
+  public MutableRoaringBitmap parallelTopK(
+      ImmutableRoaringBitmap foundSet, int k, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    ImmutableRoaringBitmap fixedFoundSet = foundSet == null ? this.ebM : foundSet;
+    if (k > fixedFoundSet.getLongCardinality() || k < 0) {
+      throw new IllegalArgumentException(
+          "TopK param error,cardinality:" + fixedFoundSet.getLongCardinality() + " k:" + k);
+    }
+
+    if (k == 0) {
+      return new MutableRoaringBitmap();
+    }
+
+    long[] bounds = chunkBounds(fixedFoundSet, parallelism);
+    int chunks = bounds.length - 1;
+    ImmutableRoaringBitmap[] G = new ImmutableRoaringBitmap[chunks];
+    ImmutableRoaringBitmap[] E = new ImmutableRoaringBitmap[chunks];
+    for (int c = 0; c < chunks; c++) {
+      G[c] = new MutableRoaringBitmap();
+      E[c] = fixedFoundSet.selectRange(bounds[c], bounds[c + 1]);
+    }
+
+    for (int i = this.bitCount() - 1; i >= 0; i--) {
+      final ImmutableRoaringBitmap slice = this.bA[i];
+      List<ImmutableRoaringBitmap> X =
+          ParallelUtils.invokeAll(
+              chunkTasks(
+                  chunks,
+                  c -> ImmutableRoaringBitmap.or(G[c], ImmutableRoaringBitmap.and(E[c], slice))),
+              pool);
+      long n = X.stream().mapToLong(ImmutableRoaringBitmap::getLongCardinality).sum();
+      if (n < k) {
+        X.toArray(G);
+        ParallelUtils.invokeAll(
+                chunkTasks(chunks, c -> ImmutableRoaringBitmap.andNot(E[c], slice)), pool)
+            .toArray(E);
+      } else {
+        ParallelUtils.invokeAll(
+                chunkTasks(chunks, c -> ImmutableRoaringBitmap.and(E[c], slice)), pool)
+            .toArray(E);
+        if (n == k) {
+          break;
+        }
+      }
+    }
+
+    MutableRoaringBitmap F =
+        ImmutableRoaringBitmap.or(
+            ImmutableRoaringBitmap.or(Arrays.asList(G).iterator()),
+            ImmutableRoaringBitmap.or(Arrays.asList(E).iterator()));
+    long n = F.getLongCardinality() - k;
+    if (n > 0) {
+      // turn off n bits from E in F
+      for (int c = 0; c < chunks && n > 0; c++) {
+        IntIterator iterator = E[c].getIntIterator();
+        while (iterator.hasNext() && n > 0) {
+          F.remove(iterator.next());
+          n--;
+        }
+      }
+    }
+    return F;
+  }
+
+  private static List<Callable<ImmutableRoaringBitmap>> chunkTasks(
+      int chunks, IntFunction<ImmutableRoaringBitmap> task) {
+    List<Callable<ImmutableRoaringBitmap>> tasks = new ArrayList<>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int chunk = c;
+      tasks.add(() -> task.apply(chunk));
+    }
+    return tasks;
+  }
+
+  // splits the columns of set in ranges of containers holding about the same number of columns
+  private static long[] chunkBounds(ImmutableRoaringBitmap set, int parallelism) {
+    long[] ranks = ParallelUtils.chunkRanks(set.getLongCardinality(), parallelism);
+    int[] starts = new int[ranks.length];
+    set.select(Arrays.stream(ranks).mapToInt(rank -> (int) rank).toArray(), starts);
+    return ParallelUtils.containerBounds(starts);
+  }
+
+  // a bsi sharing the slices of this bsi, restricted to the columns in [rangeStart, rangeEnd)
+  private BitSliceIndexBase selectRange(long rangeStart, long rangeEnd) {
+    return new ImmutableBitSliceIndex(
+        this.maxValue, this.minValue, this.bA, this.ebM.selectRange(rangeStart, rangeEnd));
+  }
+
   public List<Pair<Integer, Integer>> toPairList() {
     List<Pair<Integer, Integer>> pairList = new ArrayList<>();
     this.ebM.forEach(
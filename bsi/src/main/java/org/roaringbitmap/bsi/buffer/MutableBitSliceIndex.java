@@ -2,6 +2,7 @@ package org.roaringbitmap.bsi.buffer;
 
 import org.roaringbitmap.bsi.BitmapSliceIndex;
 import org.roaringbitmap.bsi.Pair;
+import org.roaringbitmap.bsi.ParallelUtils;
 import org.roaringbitmap.bsi.WritableUtils;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
@@ -10,9 +11,13 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * MutableBSI
@@ -196,6 +201,57 @@ public class MutableBitSliceIndex extends BitSliceIndexBase implements BitmapSli
     }
   }
 
+  /**
+   * Set a batch of values like {@link #setValues(List)}, loading the slices in parallel: every
+   * slice is written by a single task of the pool.
+   *
+   * @param values the (columnId, value) pairs
+   * @param parallelism the number of tasks
+   * @param pool the executor running the tasks
+   */
+  public void parallelSetValues(
+      List<Pair<Integer, Integer>> values, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    int maxValue =
+        values.stream().mapToInt(Pair::getRight).filter(Objects::nonNull).max().getAsInt();
+    int minValue =
+        values.stream().mapToInt(Pair::getRight).filter(Objects::nonNull).min().getAsInt();
+    ensureCapacityInternal(minValue, maxValue);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < parallelism; t++) {
+      final int task = t;
+      tasks.add(
+          () -> {
+            // slice bitCount() stands for the existence bitmap
+            for (int i = task; i <= this.bitCount(); i += parallelism) {
+              if (i == this.bitCount()) {
+                for (Pair<Integer, Integer> pair : values) {
+                  this.getExistenceBitmap().add(pair.getKey());
+                }
+              } else {
+                setSlice(values, i);
+              }
+            }
+            return null;
+          });
+    }
+    ParallelUtils.invokeAll(tasks, pool);
+  }
+
+  private void setSlice(List<Pair<Integer, Integer>> values, int i) {
+    MutableRoaringBitmap slice = this.getMutableSlice(i);
+    for (Pair<Integer, Integer> pair : values) {
+      if ((pair.getValue() & (1 << i)) > 0) {
+        slice.add(pair.getKey());
+      } else {
+        slice.remove(pair.getKey());
+      }
+    }
+  }
+
   /**
    * add tow bsi index
    *
@@ -2,6 +2,7 @@ package org.roaringbitmap.bsi.longlong;
 
 import org.roaringbitmap.bsi.BitmapSliceIndex;
 import org.roaringbitmap.bsi.Pair;
+import org.roaringbitmap.bsi.ParallelUtils;
 import org.roaringbitmap.bsi.WritableUtils;
 import org.roaringbitmap.longlong.Roaring64Bitmap;
 
@@ -9,9 +10,14 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 
 public class Roaring64BitmapSliceIndex {
@@ -341,6 +347,60 @@ public class Roaring64BitmapSliceIndex {
     }
   }
 
+  /**
+   * Sets a batch of values like {@link #setValues(List)}, loading the slices in parallel: every
+   * slice is written by a single task of the pool.
+   *
+   * @param values the (columnId, value) pairs
+   * @param parallelism the number of tasks
+   * @param pool the executor running the tasks
+   */
+  public void parallelSetValues(
+      List<Pair<Long, Long>> values, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    if (values == null || values.isEmpty()) {
+      return;
+    }
+    long maxValue =
+        values.stream().mapToLong(Pair::getRight).filter(Objects::nonNull).max().getAsLong();
+    long minValue =
+        values.stream().mapToLong(Pair::getRight).filter(Objects::nonNull).min().getAsLong();
+    ensureCapacityInternal(minValue, maxValue);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < parallelism; t++) {
+      final int task = t;
+      tasks.add(
+          () -> {
+            // slice bitCount() stands for the existence bitmap
+            for (int i = task; i <= this.bitCount(); i += parallelism) {
+              if (i == this.bitCount()) {
+                for (Pair<Long, Long> pair : values) {
+                  this.ebM.addLong(pair.getKey());
+                }
+              } else {
+                setSlice(values, i);
+              }
+            }
+            return null;
+          });
+    }
+    ParallelUtils.invokeAll(tasks, pool);
+  }
+
+  private void setSlice(List<Pair<Long, Long>> values, int i) {
+    Roaring64Bitmap slice = this.bA[i];
+    for (Pair<Long, Long> pair : values) {
+      if ((pair.getValue() & (1L << i)) != 0) {
+        slice.addLong(pair.getKey());
+      } else {
+        slice.removeLong(pair.getKey());
+      }
+    }
+  }
+
   /**
    * merge will merge 2 bsi into current
    * merge API was designed for distributed computing
@@ -574,6 +634,64 @@ public class Roaring64BitmapSliceIndex {
     return Pair.newPair(sum, count);
   }
 
+  /**
+   * Sums in parallel, see {@link #sum(Roaring64Bitmap)}. The found set is split in parallelism
+   * ranges of containers, summed by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to sum
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the sum and the count of the values
+   */
+  public Pair<Long, Long> parallelSum(
+      Roaring64Bitmap foundSet, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return Pair.newPair(0L, 0L);
+    }
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (Roaring64Bitmap chunk : foundSet.split(parallelism)) {
+      tasks.add(() -> sum(chunk).getKey());
+    }
+    long sum = ParallelUtils.invokeAll(tasks, pool).stream().mapToLong(Long::longValue).sum();
+    return Pair.newPair(sum, foundSet.getLongCardinality());
+  }
+
+  /**
+   * Compares in parallel, see {@link #compare}. The found set (or the existence bitmap when the
+   * found set is null) is split in parallelism ranges of containers, compared by the tasks of the
+   * pool.
+   *
+   * @param operation the comparison
+   * @param startOrValue the start or value of comparison
+   * @param end the end value of comparison, when the comparison operation is range
+   * @param foundSet columnId set we want compare, null for all the columns
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return columnId set we found in this bsi with giving conditions
+   */
+  public Roaring64Bitmap parallelCompare(
+      BitmapSliceIndex.Operation operation,
+      long startOrValue,
+      long end,
+      Roaring64Bitmap foundSet,
+      int parallelism,
+      ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    Roaring64Bitmap result = compareUsingMinMax(operation, startOrValue, end, foundSet);
+    if (result != null) {
+      return result;
+    }
+    List<Callable<Roaring64Bitmap>> tasks = new ArrayList<>();
+    for (Roaring64Bitmap chunk : (foundSet == null ? this.ebM : foundSet).split(parallelism)) {
+      tasks.add(
+          () ->
+              restrict(foundSet == null ? chunk : Roaring64Bitmap.and(chunk, this.ebM))
+                  .compare(operation, startOrValue, end, foundSet == null ? null : chunk));
+    }
+    return union(ParallelUtils.invokeAll(tasks, pool));
+  }
+
   public Roaring64Bitmap topK(Roaring64Bitmap foundSet, long k) {
     if (null == foundSet || foundSet.isEmpty()) {
       return new Roaring64Bitmap();
@@ -598,6 +716,51 @@ public class Roaring64BitmapSliceIndex {
     return re;
   }
 
+  /**
+   * Finds the top k columns in parallel, see {@link #topK}. Every step of the algorithm is run on
+   * parallelism ranges of containers of the found set by the tasks of the pool.
+   *
+   * @param foundSet the columnIds needs to be checked
+   * @param k top k
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the top k columnIds found in BSI
+   */
+  public Roaring64Bitmap parallelTopK(
+      Roaring64Bitmap foundSet, long k, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return new Roaring64Bitmap();
+    }
+    long candidatesCardinality = foundSet.getLongCardinality();
+    if (k >= candidatesCardinality) {
+      return foundSet;
+    }
+    List<Roaring64Bitmap> re = new ArrayList<>();
+    List<Roaring64Bitmap> candidates = foundSet.split(parallelism);
+    int chunks = candidates.size();
+    for (int x = this.bitCount() - 1; x >= 0 && candidatesCardinality > 0 && k > 0; x--) {
+      final Roaring64Bitmap slice = this.bA[x];
+      final List<Roaring64Bitmap> current = candidates;
+      List<Roaring64Bitmap> X =
+          ParallelUtils.invokeAll(
+              chunkTasks(chunks, c -> Roaring64Bitmap.and(current.get(c), slice)), pool);
+      long cardinality = X.stream().mapToLong(Roaring64Bitmap::getLongCardinality).sum();
+      if (cardinality > k) {
+        candidates = X;
+        candidatesCardinality = cardinality;
+      } else {
+        re.addAll(X);
+        candidates =
+            ParallelUtils.invokeAll(
+                chunkTasks(chunks, c -> Roaring64Bitmap.andNot(current.get(c), slice)), pool);
+        candidatesCardinality -= cardinality;
+        k -= cardinality;
+      }
+    }
+    return union(re);
+  }
+
   public Roaring64Bitmap transpose(Roaring64Bitmap foundSet) {
     Roaring64Bitmap re = new Roaring64Bitmap();
     Roaring64Bitmap fixedFoundSet =
@@ -621,4 +784,32 @@ public class Roaring64BitmapSliceIndex {
         });
     return re;
   }
+
+  private static List<Callable<Roaring64Bitmap>> chunkTasks(
+      int chunks, IntFunction<Roaring64Bitmap> task) {
+    List<Callable<Roaring64Bitmap>> tasks = new ArrayList<>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int chunk = c;
+      tasks.add(() -> task.apply(chunk));
+    }
+    return tasks;
+  }
+
+  private static Roaring64Bitmap union(List<Roaring64Bitmap> bitmaps) {
+    Roaring64Bitmap result = new Roaring64Bitmap();
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      result.or(bitmap);
+    }
+    return result;
+  }
+
+  // a bsi sharing the slices of this bsi, with the given existence bitmap
+  private Roaring64BitmapSliceIndex restrict(Roaring64Bitmap ebM) {
+    Roaring64BitmapSliceIndex bsi = new Roaring64BitmapSliceIndex();
+    bsi.minValue = this.minValue;
+    bsi.maxValue = this.maxValue;
+    bsi.bA = this.bA;
+    bsi.ebM = ebM;
+    return bsi;
+  }
 }
@@ -2,6 +2,7 @@ package org.roaringbitmap.bsi.longlong;
 
 import org.roaringbitmap.bsi.BitmapSliceIndex;
 import org.roaringbitmap.bsi.Pair;
+import org.roaringbitmap.bsi.ParallelUtils;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.io.DataInput;
@@ -14,6 +15,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 
 /**
@@ -393,6 +398,60 @@ public class Roaring64NavigableMapSliceIndex {
     }
   }
 
+  /**
+   * Sets a batch of values like {@link #setValues(List)}, loading the slices in parallel: every
+   * slice is written by a single task of the pool.
+   *
+   * @param values the (columnId, value) pairs
+   * @param parallelism the number of tasks
+   * @param pool the executor running the tasks
+   */
+  public void parallelSetValues(
+      List<Pair<Long, Long>> values, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    if (values == null || values.isEmpty()) {
+      return;
+    }
+    long maxValue =
+        values.stream().mapToLong(Pair::getRight).filter(Objects::nonNull).max().getAsLong();
+    long minValue =
+        values.stream().mapToLong(Pair::getRight).filter(Objects::nonNull).min().getAsLong();
+    ensureCapacityInternal(minValue, maxValue);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < parallelism; t++) {
+      final int task = t;
+      tasks.add(
+          () -> {
+            // slice bitCount() stands for the existence bitmap
+            for (int i = task; i <= this.bitCount(); i += parallelism) {
+              if (i == this.bitCount()) {
+                for (Pair<Long, Long> pair : values) {
+                  this.ebM.addLong(pair.getKey());
+                }
+              } else {
+                setSlice(values, i);
+              }
+            }
+            return null;
+          });
+    }
+    ParallelUtils.invokeAll(tasks, pool);
+  }
+
+  private void setSlice(List<Pair<Long, Long>> values, int i) {
+    Roaring64NavigableMap slice = this.bA[i];
+    for (Pair<Long, Long> pair : values) {
+      if ((pair.getValue() & (1L << i)) != 0) {
+        slice.addLong(pair.getKey());
+      } else {
+        slice.removeLong(pair.getKey());
+      }
+    }
+  }
+
   /**
    * merge will merge 2 bsi into current
    * merge API was designed for distributed computing
@@ -641,6 +700,65 @@ public class Roaring64NavigableMapSliceIndex {
     return Pair.newPair(sum, count);
   }
 
+  /**
+   * Sums in parallel, see {@link #sum(Roaring64NavigableMap)}. The found set is split in
+   * parallelism ranges of containers, summed by the tasks of the pool.
+   *
+   * @param foundSet columnId set we want to sum
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the sum and the count of the values
+   */
+  public Pair<Long, Long> parallelSum(
+      Roaring64NavigableMap foundSet, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return Pair.newPair(0L, 0L);
+    }
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (Roaring64NavigableMap chunk : foundSet.split(parallelism)) {
+      tasks.add(() -> sum(chunk).getKey());
+    }
+    long sum = ParallelUtils.invokeAll(tasks, pool).stream().mapToLong(Long::longValue).sum();
+    return Pair.newPair(sum, foundSet.getLongCardinality());
+  }
+
+  /**
+   * Compares in parallel, see {@link #compare}. The found set (or the existence bitmap when the
+   * found set is null) is split in parallelism ranges of containers, compared by the tasks of the
+   * pool.
+   *
+   * @param operation the comparison
+   * @param startOrValue the start or value of comparison
+   * @param end the end value of comparison, when the comparison operation is range
+   * @param foundSet columnId set we want compare, null for all the columns
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return columnId set we found in this bsi with giving conditions
+   */
+  public Roaring64NavigableMap parallelCompare(
+      BitmapSliceIndex.Operation operation,
+      long startOrValue,
+      long end,
+      Roaring64NavigableMap foundSet,
+      int parallelism,
+      ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    Roaring64NavigableMap result = compareUsingMinMax(operation, startOrValue, end, foundSet);
+    if (result != null) {
+      return result;
+    }
+    List<Callable<Roaring64NavigableMap>> tasks = new ArrayList<>();
+    for (Roaring64NavigableMap chunk :
+        (foundSet == null ? this.ebM : foundSet).split(parallelism)) {
+      tasks.add(
+          () ->
+              restrict(foundSet == null ? chunk : Roaring64NavigableMap.and(chunk, this.ebM))
+                  .compare(operation, startOrValue, end, foundSet == null ? null : chunk));
+    }
+    return union(ParallelUtils.invokeAll(tasks, pool));
+  }
+
   /**
    * given columns in foundSet, return the top k columnId found in BSI
    * @param foundSet the columnIds needs to be checked (represent as Roaring64NavigableMap)
@@ -689,6 +807,71 @@ public class Roaring64NavigableMapSliceIndex {
     return Roaring64NavigableMap.or(re, candidates);
   }
 
+  /**
+   * Finds the top k columns in parallel, see {@link #topK}. Every step of the algorithm is run on
+   * parallelism ranges of containers of the found set by the tasks of the pool.
+   *
+   * @param foundSet the columnIds needs to be checked
+   * @param k top k
+   * @param parallelism the maximum number of tasks
+   * @param pool the executor running the tasks
+   * @return the top k columnIds found in BSI
+   */
+  public Roaring64NavigableMap parallelTopK(
+      Roaring64NavigableMap foundSet, long k, int parallelism, ExecutorService pool)
+      throws ExecutionException, InterruptedException {
+    if (null == foundSet || foundSet.isEmpty()) {
+      return new Roaring64NavigableMap();
+    }
+    long candidatesCardinality = foundSet.getLongCardinality();
+    if (k >= candidatesCardinality) {
+      return foundSet;
+    }
+    List<Roaring64NavigableMap> re = new ArrayList<>();
+    List<Roaring64NavigableMap> candidates = foundSet.split(parallelism);
+    int chunks = candidates.size();
+    // keep target K value
+    long originalTargetTopK = k;
+    for (int x = this.bitCount() - 1; x >= 0 && candidatesCardinality > 0 && k > 0; x--) {
+      final Roaring64NavigableMap slice = this.bA[x];
+      final List<Roaring64NavigableMap> current = candidates;
+      List<Roaring64NavigableMap> X =
+          ParallelUtils.invokeAll(
+              chunkTasks(chunks, c -> Roaring64NavigableMap.and(current.get(c), slice)), pool);
+      long cardinality = X.stream().mapToLong(Roaring64NavigableMap::getLongCardinality).sum();
+      if (cardinality > k) {
+        candidates = X;
+        candidatesCardinality = cardinality;
+      } else {
+        re.addAll(X);
+        candidates =
+            ParallelUtils.invokeAll(
+                chunkTasks(chunks, c -> Roaring64NavigableMap.andNot(current.get(c), slice)), pool);
+        candidatesCardinality -= cardinality;
+        k -= cardinality;
+      }
+    }
+
+    // check whether we get enough items in 're'
+    Roaring64NavigableMap result = union(re);
+    long reCardinality = result.getLongCardinality();
+    if (reCardinality < originalTargetTopK) {
+      // 're' has not enough items, pick some items from candidates, then merge re&candidates
+      long dismissCandidatesCnt = candidatesCardinality + reCardinality - originalTargetTopK;
+      Roaring64NavigableMap picked = union(candidates);
+      for (int c = 0; c < chunks && dismissCandidatesCnt > 0; c++) {
+        Iterator<Long> iterator = candidates.get(c).iterator();
+        while (iterator.hasNext() && dismissCandidatesCnt > 0) {
+          // remove some items from candidates
+          picked.removeLong(iterator.next());
+          dismissCandidatesCnt--;
+        }
+      }
+      result.or(picked);
+    }
+    return result;
+  }
+
   /**
    * given columns in foundSet,
    * 1. if one columnId of foundSet is in the bsi, then get the associated value
@@ -724,4 +907,32 @@ public class Roaring64NavigableMapSliceIndex {
         });
     return re;
   }
+
+  private static List<Callable<Roaring64NavigableMap>> chunkTasks(
+      int chunks, IntFunction<Roaring64NavigableMap> task) {
+    List<Callable<Roaring64NavigableMap>> tasks = new ArrayList<>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int chunk = c;
+      tasks.add(() -> task.apply(chunk));
+    }
+    return tasks;
+  }
+
+  private static Roaring64NavigableMap union(List<Roaring64NavigableMap> bitmaps) {
+    Roaring64NavigableMap result = new Roaring64NavigableMap();
+    for (Roaring64NavigableMap bitmap : bitmaps) {
+      result.or(bitmap);
+    }
+    return result;
+  }
+
+  // a bsi sharing the slices of this bsi, with the given existence bitmap
+  private Roaring64NavigableMapSliceIndex restrict(Roaring64NavigableMap ebM) {
+    Roaring64NavigableMapSliceIndex bsi = new Roaring64NavigableMapSliceIndex();
+    bsi.minValue = this.minValue;
+    bsi.maxValue = this.maxValue;
+    bsi.bA = this.bA;
+    bsi.ebM = ebM;
+    return bsi;
+  }
 }
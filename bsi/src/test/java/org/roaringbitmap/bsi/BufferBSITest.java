@@ -1,5 +1,6 @@
 package org.roaringbitmap.bsi;
 
+import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.bsi.buffer.ImmutableBitSliceIndex;
 import org.roaringbitmap.bsi.buffer.MutableBitSliceIndex;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
@@ -19,6 +20,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -454,4 +456,100 @@ public class BufferBSITest {
     Assertions.assertEquals(bsi.topK(null, 4), MutableRoaringBitmap.bitmapOf(5, 6, 8, 9));
     Assertions.assertEquals(bsi.topK(null, 0), MutableRoaringBitmap.bitmapOf());
   }
+
+  private static final BitmapSliceIndex.Operation[] OPERATIONS = {
+    BitmapSliceIndex.Operation.EQ,
+    BitmapSliceIndex.Operation.NEQ,
+    BitmapSliceIndex.Operation.GT,
+    BitmapSliceIndex.Operation.GE,
+    BitmapSliceIndex.Operation.LT,
+    BitmapSliceIndex.Operation.LE,
+    BitmapSliceIndex.Operation.RANGE
+  };
+
+  private static boolean matches(
+      BitmapSliceIndex.Operation operation, long value, long startOrValue, long end) {
+    switch (operation) {
+      case EQ:
+        return value == startOrValue;
+      case NEQ:
+        return value != startOrValue;
+      case GT:
+        return value > startOrValue;
+      case GE:
+        return value >= startOrValue;
+      case LT:
+        return value < startOrValue;
+      case LE:
+        return value <= startOrValue;
+      default:
+        return startOrValue <= value && value <= end;
+    }
+  }
+
+  @Test
+  public void testParallelOperations() throws ExecutionException, InterruptedException {
+    Random random = new Random(42);
+    List<Pair<Integer, Integer>> values =
+        IntStream.range(0, 20_000)
+            .mapToObj(i -> Pair.newPair(random.nextInt(10 << 16), random.nextInt(1000)))
+            .collect(Collectors.toList());
+    MutableBitSliceIndex sequential = new MutableBitSliceIndex();
+    sequential.setValues(values);
+    MutableBitSliceIndex parallel = new MutableBitSliceIndex();
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      parallel.parallelSetValues(values, 3, pool);
+      ImmutableRoaringBitmap columns = parallel.getExistenceBitmap();
+      Assertions.assertEquals(sequential.getExistenceBitmap(), columns);
+      columns.forEach(
+          (IntConsumer) x -> Assertions.assertEquals(sequential.getValue(x), parallel.getValue(x)));
+
+      ImmutableBitSliceIndex bsi = parallel.toImmutableBitSliceIndex();
+      MutableRoaringBitmap foundSet = new MutableRoaringBitmap();
+      columns.forEach(
+          (IntConsumer)
+              x -> {
+                if (random.nextInt(4) == 0) {
+                  foundSet.add(x);
+                }
+              });
+      for (ImmutableRoaringBitmap found : new ImmutableRoaringBitmap[] {null, foundSet}) {
+        for (BitmapSliceIndex.Operation operation : OPERATIONS) {
+          for (int value : new int[] {0, 1, 250, 500, 999, 1000}) {
+            int end = value + 200;
+            MutableRoaringBitmap expected = new MutableRoaringBitmap();
+            columns.forEach(
+                (IntConsumer)
+                    x -> {
+                      if ((found == null || found.contains(x))
+                          && matches(operation, bsi.getValue(x).getKey(), value, end)) {
+                        expected.add(x);
+                      }
+                    });
+            // NEQ and LE do not restrict their result to the found set
+            ImmutableRoaringBitmap reference =
+                found != null
+                        && (operation == BitmapSliceIndex.Operation.NEQ
+                            || operation == BitmapSliceIndex.Operation.LE)
+                    ? bsi.compare(operation, value, end, found)
+                    : expected;
+            for (int parallelism : new int[] {1, 4, 100}) {
+              Assertions.assertEquals(
+                  reference, bsi.parallelCompare(operation, value, end, found, parallelism, pool));
+            }
+          }
+        }
+      }
+      for (int parallelism : new int[] {1, 4, 100}) {
+        Assertions.assertEquals(bsi.sum(foundSet), bsi.parallelSum(foundSet, parallelism, pool));
+        for (int k : new int[] {0, 1, 10, 1000, 4000}) {
+          Assertions.assertEquals(
+              bsi.topK(foundSet, k), bsi.parallelTopK(foundSet, k, parallelism, pool));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
@@ -16,6 +16,10 @@ import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -449,4 +453,101 @@ public class R64BSITest {
     Assertions.assertEquals(
         bsi.getValue(2L).getKey(), (long) Integer.MAX_VALUE + 23456); // {-2147460193,true}
   }
+
+  private static final BitmapSliceIndex.Operation[] OPERATIONS = {
+    BitmapSliceIndex.Operation.EQ,
+    BitmapSliceIndex.Operation.NEQ,
+    BitmapSliceIndex.Operation.GT,
+    BitmapSliceIndex.Operation.GE,
+    BitmapSliceIndex.Operation.LT,
+    BitmapSliceIndex.Operation.LE,
+    BitmapSliceIndex.Operation.RANGE
+  };
+
+  private static boolean matches(
+      BitmapSliceIndex.Operation operation, long value, long startOrValue, long end) {
+    switch (operation) {
+      case EQ:
+        return value == startOrValue;
+      case NEQ:
+        return value != startOrValue;
+      case GT:
+        return value > startOrValue;
+      case GE:
+        return value >= startOrValue;
+      case LT:
+        return value < startOrValue;
+      case LE:
+        return value <= startOrValue;
+      default:
+        return startOrValue <= value && value <= end;
+    }
+  }
+
+  @Test
+  public void testParallelOperations() throws ExecutionException, InterruptedException {
+    Random random = new Random(42);
+    long[] highs = {0L, 1L << 32, 1L << 40, 5L << 48};
+    List<Pair<Long, Long>> values =
+        IntStream.range(0, 20_000)
+            .mapToObj(
+                i ->
+                    Pair.newPair(
+                        highs[random.nextInt(highs.length)] + random.nextInt(3 << 16),
+                        (long) random.nextInt(1000)))
+            .collect(Collectors.toList());
+    Roaring64BitmapSliceIndex sequential = new Roaring64BitmapSliceIndex();
+    sequential.setValues(values);
+    Roaring64BitmapSliceIndex bsi = new Roaring64BitmapSliceIndex();
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      bsi.parallelSetValues(values, 3, pool);
+      Roaring64Bitmap columns = bsi.getExistenceBitmap();
+      Assertions.assertEquals(sequential.getExistenceBitmap(), columns);
+      columns.forEach(x -> Assertions.assertEquals(sequential.getValue(x), bsi.getValue(x)));
+
+      Roaring64Bitmap foundSet = new Roaring64Bitmap();
+      columns.forEach(
+          x -> {
+            if (random.nextInt(4) == 0) {
+              foundSet.addLong(x);
+            }
+          });
+      for (Roaring64Bitmap found : new Roaring64Bitmap[] {null, foundSet}) {
+        for (BitmapSliceIndex.Operation operation : OPERATIONS) {
+          for (long value : new long[] {0, 1, 250, 500, 999, 1000}) {
+            long end = value + 200;
+            Roaring64Bitmap expected = new Roaring64Bitmap();
+            columns.forEach(
+                x -> {
+                  if ((found == null || found.contains(x))
+                      && matches(operation, bsi.getValue(x).getKey(), value, end)) {
+                    expected.addLong(x);
+                  }
+                });
+            for (int parallelism : new int[] {1, 4, 100}) {
+              Assertions.assertEquals(
+                  expected, bsi.parallelCompare(operation, value, end, found, parallelism, pool));
+            }
+          }
+        }
+      }
+      for (int parallelism : new int[] {1, 4, 100}) {
+        Assertions.assertEquals(bsi.sum(foundSet), bsi.parallelSum(foundSet, parallelism, pool));
+        for (long k : new long[] {0, 1, 10, 1000, 19_000}) {
+          Roaring64Bitmap top = bsi.parallelTopK(columns, k, parallelism, pool);
+          Assertions.assertTrue(top.getLongCardinality() <= k);
+          long smallest = 1000;
+          for (long x : top.toArray()) {
+            smallest = Math.min(smallest, bsi.getValue(x).getKey());
+          }
+          for (long x : Roaring64Bitmap.andNot(columns, top).toArray()) {
+            Assertions.assertTrue(bsi.getValue(x).getKey() <= smallest);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
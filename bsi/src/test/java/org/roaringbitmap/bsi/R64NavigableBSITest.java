@@ -15,6 +15,10 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -447,4 +451,103 @@ public class R64NavigableBSITest {
     Assertions.assertEquals(
         bsi.getValue(2L).getKey(), (long) Integer.MAX_VALUE + 23456); // {-2147460193,true}
   }
+
+  private static final BitmapSliceIndex.Operation[] OPERATIONS = {
+    BitmapSliceIndex.Operation.EQ,
+    BitmapSliceIndex.Operation.NEQ,
+    BitmapSliceIndex.Operation.GT,
+    BitmapSliceIndex.Operation.GE,
+    BitmapSliceIndex.Operation.LT,
+    BitmapSliceIndex.Operation.LE,
+    BitmapSliceIndex.Operation.RANGE
+  };
+
+  private static boolean matches(
+      BitmapSliceIndex.Operation operation, long value, long startOrValue, long end) {
+    switch (operation) {
+      case EQ:
+        return value == startOrValue;
+      case NEQ:
+        return value != startOrValue;
+      case GT:
+        return value > startOrValue;
+      case GE:
+        return value >= startOrValue;
+      case LT:
+        return value < startOrValue;
+      case LE:
+        return value <= startOrValue;
+      default:
+        return startOrValue <= value && value <= end;
+    }
+  }
+
+  @Test
+  public void testParallelOperations() throws ExecutionException, InterruptedException {
+    Random random = new Random(42);
+    long[] highs = {0L, 1L << 32, 1L << 40, 5L << 48};
+    List<Pair<Long, Long>> values =
+        IntStream.range(0, 20_000)
+            .mapToObj(
+                i ->
+                    Pair.newPair(
+                        highs[random.nextInt(highs.length)] + random.nextInt(3 << 16),
+                        (long) random.nextInt(1000)))
+            .collect(Collectors.toList());
+    Roaring64NavigableMapSliceIndex sequential = new Roaring64NavigableMapSliceIndex();
+    sequential.setValues(values);
+    Roaring64NavigableMapSliceIndex bsi = new Roaring64NavigableMapSliceIndex();
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      bsi.parallelSetValues(values, 3, pool);
+      Roaring64NavigableMap columns = bsi.getExistenceBitmap();
+      Assertions.assertArrayEquals(sequential.getExistenceBitmap().toArray(), columns.toArray());
+      columns.forEach(x -> Assertions.assertEquals(sequential.getValue(x), bsi.getValue(x)));
+
+      Roaring64NavigableMap foundSet = new Roaring64NavigableMap();
+      columns.forEach(
+          x -> {
+            if (random.nextInt(4) == 0) {
+              foundSet.addLong(x);
+            }
+          });
+      for (Roaring64NavigableMap found : new Roaring64NavigableMap[] {null, foundSet}) {
+        for (BitmapSliceIndex.Operation operation : OPERATIONS) {
+          for (long value : new long[] {0, 1, 250, 500, 999, 1000}) {
+            long end = value + 200;
+            Roaring64NavigableMap expected = new Roaring64NavigableMap();
+            columns.forEach(
+                x -> {
+                  if ((found == null || found.contains(x))
+                      && matches(operation, bsi.getValue(x).getKey(), value, end)) {
+                    expected.addLong(x);
+                  }
+                });
+            for (int parallelism : new int[] {1, 4, 100}) {
+              Assertions.assertArrayEquals(
+                  expected.toArray(),
+                  bsi.parallelCompare(operation, value, end, found, parallelism, pool).toArray());
+            }
+          }
+        }
+      }
+      for (int parallelism : new int[] {1, 4, 100}) {
+        Assertions.assertEquals(bsi.sum(foundSet), bsi.parallelSum(foundSet, parallelism, pool));
+        for (long k : new long[] {0, 1, 10, 1000, 19_000}) {
+          Roaring64NavigableMap top = bsi.parallelTopK(columns, k, parallelism, pool);
+          Assertions.assertEquals(
+              Math.min(k, columns.getLongCardinality()), top.getLongCardinality());
+          long smallest = 1000;
+          for (long x : top.toArray()) {
+            smallest = Math.min(smallest, bsi.getValue(x).getKey());
+          }
+          for (long x : Roaring64NavigableMap.andNot(columns, top).toArray()) {
+            Assertions.assertTrue(bsi.getValue(x).getKey() <= smallest);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package org.roaringbitmap.bsi;
 
+import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.RoaringBitmap;
 
 import org.junit.jupiter.api.Assertions;
@@ -15,6 +16,10 @@ import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -425,4 +430,147 @@ public class RBBsiTest {
     Assertions.assertEquals(
         bsi.compare(BitmapSliceIndex.Operation.RANGE, 129, 2000, null).getCardinality(), 0);
   }
+
+  private static void assertSameValues(
+      RoaringBitmapSliceIndex expected, RoaringBitmapSliceIndex actual) {
+    Assertions.assertEquals(expected.getExistenceBitmap(), actual.getExistenceBitmap());
+    expected
+        .getExistenceBitmap()
+        .forEach(
+            (IntConsumer) x -> Assertions.assertEquals(expected.getValue(x), actual.getValue(x)));
+  }
+
+  @Test
+  public void testSetValuesFromArrays() {
+    Random random = new Random(7);
+    // unsigned strictly increasing column ids, spanning several containers and the sign bit
+    int[] columnIds =
+        IntStream.iterate(Integer.MAX_VALUE - (1 << 18), x -> x + 1 + random.nextInt(1000))
+            .limit(1000)
+            .toArray();
+    int[] values = IntStream.range(0, 1000).map(i -> random.nextInt(1 << 20)).toArray();
+    RoaringBitmapSliceIndex expected = new RoaringBitmapSliceIndex();
+    RoaringBitmapSliceIndex actual = new RoaringBitmapSliceIndex();
+    for (int i = 0; i < columnIds.length; i++) {
+      expected.setValue(columnIds[i], values[i]);
+    }
+    actual.setValues(columnIds, values);
+    assertSameValues(expected, actual);
+
+    // overwrites some of the values and adds new columns
+    int[] sortedIds = IntStream.range(0, 300).map(i -> columnIds[i * 3] + i % 2).toArray();
+    int[] sortedValues = IntStream.range(0, 300).map(i -> random.nextInt(1 << 25)).toArray();
+    for (int i = 0; i < sortedIds.length; i++) {
+      expected.setValue(sortedIds[i], sortedValues[i]);
+    }
+    actual.setValues(sortedIds, sortedValues);
+    assertSameValues(expected, actual);
+
+    // unsorted ids with duplicates, the last value wins
+    int[] unsortedIds = IntStream.range(0, 500).map(i -> columnIds[random.nextInt(100)]).toArray();
+    int[] unsortedValues = IntStream.range(0, 500).map(i -> random.nextInt(1 << 10)).toArray();
+    for (int i = 0; i < unsortedIds.length; i++) {
+      expected.setValue(unsortedIds[i], unsortedValues[i]);
+    }
+    actual.setValues(unsortedIds, unsortedValues);
+    assertSameValues(expected, actual);
+
+    actual.setValues(new int[0], new int[0]);
+    assertSameValues(expected, actual);
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> actual.setValues(new int[] {1, 2}, new int[] {1}));
+  }
+
+  private static final BitmapSliceIndex.Operation[] OPERATIONS = {
+    BitmapSliceIndex.Operation.EQ,
+    BitmapSliceIndex.Operation.NEQ,
+    BitmapSliceIndex.Operation.GT,
+    BitmapSliceIndex.Operation.GE,
+    BitmapSliceIndex.Operation.LT,
+    BitmapSliceIndex.Operation.LE,
+    BitmapSliceIndex.Operation.RANGE
+  };
+
+  private static boolean matches(
+      BitmapSliceIndex.Operation operation, long value, long startOrValue, long end) {
+    switch (operation) {
+      case EQ:
+        return value == startOrValue;
+      case NEQ:
+        return value != startOrValue;
+      case GT:
+        return value > startOrValue;
+      case GE:
+        return value >= startOrValue;
+      case LT:
+        return value < startOrValue;
+      case LE:
+        return value <= startOrValue;
+      default:
+        return startOrValue <= value && value <= end;
+    }
+  }
+
+  @Test
+  public void testParallelOperations() throws ExecutionException, InterruptedException {
+    Random random = new Random(42);
+    List<Pair<Integer, Integer>> values =
+        IntStream.range(0, 20_000)
+            .mapToObj(i -> Pair.newPair(random.nextInt(10 << 16), random.nextInt(1000)))
+            .collect(Collectors.toList());
+    RoaringBitmapSliceIndex sequential = new RoaringBitmapSliceIndex();
+    sequential.setValues(values);
+    RoaringBitmapSliceIndex bsi = new RoaringBitmapSliceIndex();
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      bsi.parallelSetValues(values, 3, pool);
+      RoaringBitmap columns = bsi.getExistenceBitmap();
+      Assertions.assertEquals(sequential.getExistenceBitmap(), columns);
+      columns.forEach(
+          (IntConsumer) x -> Assertions.assertEquals(sequential.getValue(x), bsi.getValue(x)));
+
+      RoaringBitmap foundSet = new RoaringBitmap();
+      columns.forEach(
+          (IntConsumer)
+              x -> {
+                if (random.nextInt(4) == 0) {
+                  foundSet.add(x);
+                }
+              });
+      for (RoaringBitmap found : new RoaringBitmap[] {null, foundSet}) {
+        for (BitmapSliceIndex.Operation operation : OPERATIONS) {
+          for (int value : new int[] {0, 1, 250, 500, 999, 1000}) {
+            int end = value + 200;
+            RoaringBitmap expected = new RoaringBitmap();
+            columns.forEach(
+                (IntConsumer)
+                    x -> {
+                      if ((found == null || found.contains(x))
+                          && matches(operation, bsi.getValue(x).getKey(), value, end)) {
+                        expected.add(x);
+                      }
+                    });
+            for (int parallelism : new int[] {1, 4, 100}) {
+              Assertions.assertEquals(
+                  expected, bsi.parallelCompare(operation, value, end, found, parallelism, pool));
+            }
+          }
+        }
+      }
+      for (int parallelism : new int[] {1, 4, 100}) {
+        Assertions.assertEquals(bsi.sum(foundSet), bsi.parallelSum(foundSet, parallelism, pool));
+        for (int k : new int[] {0, 1, 10, 1000, 19_000}) {
+          RoaringBitmap top = bsi.topK(columns, k);
+          Assertions.assertEquals(top, bsi.parallelTopK(columns, k, parallelism, pool));
+          Assertions.assertEquals(Math.min(k, columns.getCardinality()), top.getCardinality());
+          int smallest = top.stream().map(x -> bsi.getValue(x).getKey()).min().orElse(1000);
+          RoaringBitmap.andNot(columns, top)
+              .forEach(
+                  (IntConsumer) x -> Assertions.assertTrue(bsi.getValue(x).getKey() <= smallest));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
@@ -0,0 +1,132 @@
+package org.roaringbitmap.bitmapcontainer;
+
+import org.roaringbitmap.BitmapContainer;
+import org.roaringbitmap.BitmapShim;
+import org.roaringbitmap.Container;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar word loops with the multi-release BitmapShim kernels. Requires JDK17+ and
+ * the shaded benchmark jar, which is multi-release; drop the jvm argument to measure the fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class WordKernelBenchmark {
+
+  @Param({"0.1", "0.5"})
+  double density;
+
+  private long[] x;
+  private long[] y;
+  private long[] out;
+  private BitmapContainer left;
+  private BitmapContainer right;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    x = randomWords(random);
+    y = randomWords(random);
+    out = new long[1024];
+    left = new BitmapContainer(x.clone(), -1).repairAfterLazy().toBitmapContainer();
+    right = new BitmapContainer(y.clone(), -1).repairAfterLazy().toBitmapContainer();
+  }
+
+  private long[] randomWords(SplittableRandom random) {
+    long[] words = new long[1024];
+    for (int i = 0; i < 0x10000; ++i) {
+      if (random.nextDouble() < density) {
+        words[i >>> 6] |= 1L << i;
+      }
+    }
+    return words;
+  }
+
+  @Benchmark
+  public long[] scalarAnd() {
+    for (int k = 0; k < out.length; ++k) {
+      out[k] = x[k] & y[k];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] shimAnd() {
+    BitmapShim.and(x, y, out, out.length);
+    return out;
+  }
+
+  @Benchmark
+  public long[] scalarAndNot() {
+    for (int k = 0; k < out.length; ++k) {
+      out[k] = x[k] & ~y[k];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] shimAndNot() {
+    BitmapShim.andNot(x, y, out, out.length);
+    return out;
+  }
+
+  @Benchmark
+  public long[] scalarOr() {
+    for (int k = 0; k < out.length; ++k) {
+      out[k] = x[k] | y[k];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] shimOr() {
+    BitmapShim.or(x, y, out, out.length);
+    return out;
+  }
+
+  @Benchmark
+  public long[] scalarXor() {
+    for (int k = 0; k < out.length; ++k) {
+      out[k] = x[k] ^ y[k];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] shimXor() {
+    BitmapShim.xor(x, y, out, out.length);
+    return out;
+  }
+
+  @Benchmark
+  public Container containerLazyOr() {
+    return left.lazyOR(right);
+  }
+
+  @Benchmark
+  public Container containerAnd() {
+    return left.and(right);
+  }
+
+  @Benchmark
+  public Container containerXor() {
+    return left.xor(right);
+  }
+}
@@ -0,0 +1,157 @@
+package org.roaringbitmap.concurrent;
+
+import org.roaringbitmap.ConcurrentRoaringBitmap;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writers and readers sharing a bitmap: a {@link ConcurrentRoaringBitmap} against a
+ * {@link RoaringBitmap} behind a global lock.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class ConcurrentRoaringBitmapBenchmark {
+
+  // the values are drawn from [0, range): 1 << 16 makes all the threads hit the same container
+  @Param({"65536", "16777216"})
+  public int range;
+
+  @Param({"64"})
+  public int stripes;
+
+  ConcurrentRoaringBitmap concurrent;
+  RoaringBitmap locked;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final SplittableRandom random = new SplittableRandom();
+  }
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(0);
+    concurrent = new ConcurrentRoaringBitmap(stripes);
+    locked = new RoaringBitmap();
+    for (int i = 0; i < range / 4; ++i) {
+      int value = random.nextInt(range);
+      concurrent.add(value);
+      locked.add(value);
+    }
+  }
+
+  @Benchmark
+  @Group("concurrentMixed")
+  @GroupThreads(2)
+  public void concurrentMixedAdd(ThreadState thread) {
+    concurrent.add(thread.random.nextInt(range));
+  }
+
+  @Benchmark
+  @Group("concurrentMixed")
+  @GroupThreads(6)
+  public boolean concurrentMixedContains(ThreadState thread) {
+    return concurrent.contains(thread.random.nextInt(range));
+  }
+
+  @Benchmark
+  @Group("globalLockMixed")
+  @GroupThreads(2)
+  public void globalLockMixedAdd(ThreadState thread) {
+    int value = thread.random.nextInt(range);
+    synchronized (locked) {
+      locked.add(value);
+    }
+  }
+
+  @Benchmark
+  @Group("globalLockMixed")
+  @GroupThreads(6)
+  public boolean globalLockMixedContains(ThreadState thread) {
+    int value = thread.random.nextInt(range);
+    synchronized (locked) {
+      return locked.contains(value);
+    }
+  }
+
+  @Benchmark
+  @Group("concurrentWrites")
+  @GroupThreads(8)
+  public void concurrentWritesAdd(ThreadState thread) {
+    int value = thread.random.nextInt(range);
+    if (thread.random.nextBoolean()) {
+      concurrent.add(value);
+    } else {
+      concurrent.remove(value);
+    }
+  }
+
+  @Benchmark
+  @Group("globalLockWrites")
+  @GroupThreads(8)
+  public void globalLockWritesAdd(ThreadState thread) {
+    int value = thread.random.nextInt(range);
+    boolean add = thread.random.nextBoolean();
+    synchronized (locked) {
+      if (add) {
+        locked.add(value);
+      } else {
+        locked.remove(value);
+      }
+    }
+  }
+
+  @Benchmark
+  @Group("concurrentSnapshots")
+  @GroupThreads(4)
+  public void concurrentSnapshotsAdd(ThreadState thread) {
+    concurrent.add(thread.random.nextInt(range));
+  }
+
+  @Benchmark
+  @Group("concurrentSnapshots")
+  @GroupThreads(1)
+  public ImmutableRoaringBitmap concurrentSnapshotsTake() {
+    return concurrent.snapshot();
+  }
+
+  @Benchmark
+  @Group("globalLockSnapshots")
+  @GroupThreads(4)
+  public void globalLockSnapshotsAdd(ThreadState thread) {
+    int value = thread.random.nextInt(range);
+    synchronized (locked) {
+      locked.add(value);
+    }
+  }
+
+  @Benchmark
+  @Group("globalLockSnapshots")
+  @GroupThreads(1)
+  public ImmutableRoaringBitmap globalLockSnapshotsTake() {
+    synchronized (locked) {
+      return locked.toMutableRoaringBitmap();
+    }
+  }
+}
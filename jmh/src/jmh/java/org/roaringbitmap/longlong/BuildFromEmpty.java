@@ -60,4 +60,19 @@ public class BuildFromEmpty {
     return bitmap;
   }
 
+  @Benchmark()
+  public Roaring64Bitmap writer(BenchmarkState state) {
+    Roaring64BitmapWriter<Roaring64Bitmap> writer = Roaring64BitmapWriter.writer().get();
+    writer.addMany(state.indexes);
+    return writer.get();
+  }
+
+  @Benchmark()
+  public Roaring64Bitmap constantMemoryWriter(BenchmarkState state) {
+    Roaring64BitmapWriter<Roaring64Bitmap> writer =
+        Roaring64BitmapWriter.writer().constantMemory().get();
+    writer.addMany(state.indexes);
+    return writer.get();
+  }
+
 }
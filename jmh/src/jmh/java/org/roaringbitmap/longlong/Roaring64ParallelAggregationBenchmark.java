@@ -0,0 +1,133 @@
+package org.roaringbitmap.longlong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class Roaring64ParallelAggregationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int count;
+
+  // the number of distinct high keys the bitmaps draw their containers from
+  @Param({"64", "4096"})
+  public int keys;
+
+  @Param({"4"})
+  public int parallelism;
+
+  Roaring64Bitmap[] bitmaps;
+  Roaring64NavigableMap[] maps;
+  ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(0L);
+    bitmaps = new Roaring64Bitmap[count];
+    maps = new Roaring64NavigableMap[count];
+    for (int i = 0; i < count; ++i) {
+      bitmaps[i] = new Roaring64Bitmap();
+      maps[i] = new Roaring64NavigableMap();
+      for (int j = 0; j < 64; ++j) {
+        // event ids: a random high key spread over the whole 64-bit range
+        long base = (random.nextInt(keys) * 0x9E3779B97F4A7C15L) & 0xFFFFFFFFFFFF0000L;
+        for (int k = 0; k < 256; ++k) {
+          long value = base + random.nextInt(1 << 16);
+          bitmaps[i].addLong(value);
+          maps[i].addLong(value);
+        }
+      }
+      bitmaps[i].runOptimize();
+      maps[i].runOptimize();
+    }
+    pool = new ForkJoinPool(parallelism);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Benchmark
+  public Roaring64Bitmap orPairwise() {
+    Roaring64Bitmap result = new Roaring64Bitmap();
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      result.or(bitmap);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Roaring64Bitmap orFast() {
+    return Roaring64FastAggregation.or(bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64Bitmap orParallel() {
+    return Roaring64ParallelAggregation.or(pool, bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64Bitmap xorFast() {
+    return Roaring64FastAggregation.xor(bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64Bitmap xorParallel() {
+    return Roaring64ParallelAggregation.xor(pool, bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64Bitmap andFast() {
+    return Roaring64FastAggregation.and(bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64Bitmap andParallel() {
+    return Roaring64ParallelAggregation.and(pool, bitmaps);
+  }
+
+  @Benchmark
+  public Roaring64NavigableMap orNavigableMapPairwise() {
+    Roaring64NavigableMap result = new Roaring64NavigableMap();
+    for (Roaring64NavigableMap map : maps) {
+      result.or(map);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Roaring64NavigableMap orNavigableMapParallel() {
+    return Roaring64ParallelAggregation.or(pool, maps);
+  }
+
+  @Benchmark
+  public Roaring64NavigableMap xorNavigableMapParallel() {
+    return Roaring64ParallelAggregation.xor(pool, maps);
+  }
+
+  @Benchmark
+  public Roaring64NavigableMap andNavigableMapParallel() {
+    return Roaring64ParallelAggregation.and(pool, maps);
+  }
+}
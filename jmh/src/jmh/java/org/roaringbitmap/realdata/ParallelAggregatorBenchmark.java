@@ -93,6 +93,21 @@ public class ParallelAggregatorBenchmark {
     return ParallelAggregation.xor(bitmaps);
   }
 
+  @Benchmark
+  public RoaringBitmap parallelAnd() {
+    return ParallelAggregation.and(bitmaps);
+  }
+
+  @Benchmark
+  public int parallelAndCardinality() {
+    return ParallelAggregation.andCardinality(bitmaps);
+  }
+
+  @Benchmark
+  public RoaringBitmap parallelAndNot() {
+    return ParallelAggregation.andNot(bitmaps[0], Arrays.copyOfRange(bitmaps, 1, bitmaps.length));
+  }
+
   @Benchmark
   public Object groupByKey() {
     return ParallelAggregation.groupByKey(bitmaps);
@@ -108,6 +123,11 @@ public class ParallelAggregatorBenchmark {
     return FastAggregation.and(bitmaps);
   }
 
+  @Benchmark
+  public int fastAndCardinality() {
+    return FastAggregation.andCardinality(bitmaps);
+  }
+
   @Benchmark
   public RoaringBitmap fastXor() {
     return FastAggregation.xor(bitmaps);
@@ -123,6 +143,16 @@ public class ParallelAggregatorBenchmark {
     return BufferParallelAggregation.xor(immutableRoaringBitmaps);
   }
 
+  @Benchmark
+  public MutableRoaringBitmap bufferParallelAnd() {
+    return BufferParallelAggregation.and(immutableRoaringBitmaps);
+  }
+
+  @Benchmark
+  public int bufferParallelAndCardinality() {
+    return BufferParallelAggregation.andCardinality(immutableRoaringBitmaps);
+  }
+
   @Benchmark
   public Object bufferGroupByKey() {
     return BufferParallelAggregation.groupByKey(immutableRoaringBitmaps);
@@ -133,6 +163,11 @@ public class ParallelAggregatorBenchmark {
     return BufferFastAggregation.or(immutableRoaringBitmaps);
   }
 
+  @Benchmark
+  public MutableRoaringBitmap bufferFastAnd() {
+    return BufferFastAggregation.and(immutableRoaringBitmaps);
+  }
+
   @Benchmark
   public MutableRoaringBitmap bufferFastXor() {
     return BufferFastAggregation.xor(immutableRoaringBitmaps);
@@ -0,0 +1,179 @@
+package org.roaringbitmap.realdata;
+
+import org.roaringbitmap.ContainerPointer;
+import org.roaringbitmap.PeekableCharIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.SortedArraysShim;
+import org.roaringbitmap.Util;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.realdata.state.RealDataRoaringOnlyBenchmarkState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intersections of array containers only. The fork resolves jdk.incubator.vector so that
+ * {@link SortedArraysShim} takes the vectorized path on JDK17+, the scalar benchmarks measure the
+ * merge it replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class RealDataBenchmarkArrayIntersection {
+
+  @State(Scope.Benchmark)
+  public static class ArrayPairs {
+
+    /** contents of the array containers with equal keys in consecutive bitmaps */
+    char[][] left;
+
+    char[][] right;
+
+    @Setup
+    public void setup(RealDataRoaringOnlyBenchmarkState bs) {
+      List<char[]> l = new ArrayList<>();
+      List<char[]> r = new ArrayList<>();
+      for (int k = 0; k + 1 < bs.onlyArrayContainers.size(); ++k) {
+        ContainerPointer p1 = bs.onlyArrayContainers.get(k).getContainerPointer();
+        ContainerPointer p2 = bs.onlyArrayContainers.get(k + 1).getContainerPointer();
+        while (p1.getContainer() != null && p2.getContainer() != null) {
+          if (p1.key() < p2.key()) {
+            p1.advance();
+          } else if (p2.key() < p1.key()) {
+            p2.advance();
+          } else {
+            l.add(toArray(p1.getContainer().getCharIterator(), p1.getCardinality()));
+            r.add(toArray(p2.getContainer().getCharIterator(), p2.getCardinality()));
+            p1.advance();
+            p2.advance();
+          }
+        }
+      }
+      left = l.toArray(new char[0][]);
+      right = r.toArray(new char[0][]);
+    }
+
+    private static char[] toArray(PeekableCharIterator it, int cardinality) {
+      char[] values = new char[cardinality];
+      for (int i = 0; i < cardinality; ++i) {
+        values[i] = it.next();
+      }
+      return values;
+    }
+  }
+
+  @Benchmark
+  public int pairwiseAnd(RealDataRoaringOnlyBenchmarkState bs) {
+    int total = 0;
+    for (int k = 0; k + 1 < bs.onlyArrayContainers.size(); ++k) {
+      total +=
+          RoaringBitmap.and(bs.onlyArrayContainers.get(k), bs.onlyArrayContainers.get(k + 1))
+              .getCardinality();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int pairwiseAndCardinality(RealDataRoaringOnlyBenchmarkState bs) {
+    int total = 0;
+    for (int k = 0; k + 1 < bs.onlyArrayContainers.size(); ++k) {
+      total +=
+          RoaringBitmap.andCardinality(
+              bs.onlyArrayContainers.get(k), bs.onlyArrayContainers.get(k + 1));
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int pairwiseIntersects(RealDataRoaringOnlyBenchmarkState bs) {
+    int total = 0;
+    for (int k = 0; k + 1 < bs.onlyArrayContainers.size(); ++k) {
+      if (RoaringBitmap.intersects(
+          bs.onlyArrayContainers.get(k), bs.onlyArrayContainers.get(k + 1))) {
+        ++total;
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int immutablePairwiseAndCardinality(RealDataRoaringOnlyBenchmarkState bs) {
+    int total = 0;
+    for (int k = 0; k + 1 < bs.immutableOnlyArrayContainers.size(); ++k) {
+      total +=
+          ImmutableRoaringBitmap.andCardinality(
+              bs.immutableOnlyArrayContainers.get(k), bs.immutableOnlyArrayContainers.get(k + 1));
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int scalarIntersectCardinality(ArrayPairs pairs) {
+    int total = 0;
+    for (int i = 0; i < pairs.left.length; ++i) {
+      total +=
+          Util.unsignedLocalIntersect2by2Cardinality(
+              pairs.left[i], pairs.left[i].length, pairs.right[i], pairs.right[i].length);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int shimIntersectCardinality(ArrayPairs pairs) {
+    int total = 0;
+    for (int i = 0; i < pairs.left.length; ++i) {
+      total +=
+          SortedArraysShim.intersectCardinality(
+              pairs.left[i], pairs.left[i].length, pairs.right[i], pairs.right[i].length);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int scalarIntersects(ArrayPairs pairs) {
+    int total = 0;
+    for (int i = 0; i < pairs.left.length; ++i) {
+      if (Util.unsignedIntersects(
+          pairs.left[i], pairs.left[i].length, pairs.right[i], pairs.right[i].length)) {
+        ++total;
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int shimIntersects(ArrayPairs pairs) {
+    int total = 0;
+    for (int i = 0; i < pairs.left.length; ++i) {
+      if (SortedArraysShim.intersects(
+          pairs.left[i], pairs.left[i].length, pairs.right[i], pairs.right[i].length)) {
+        ++total;
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int shimIntersect(ArrayPairs pairs) {
+    int total = 0;
+    char[] buffer = new char[4096];
+    for (int i = 0; i < pairs.left.length; ++i) {
+      total +=
+          SortedArraysShim.intersect(
+              pairs.left[i], pairs.left[i].length, pairs.right[i], pairs.right[i].length, buffer);
+    }
+    return total;
+  }
+}
@@ -1,5 +1,6 @@
 package org.roaringbitmap.writer;
 
+import org.roaringbitmap.InsertBufferedRoaringBitmap;
 import org.roaringbitmap.RoaringBitmap;
 import org.roaringbitmap.Util;
 
@@ -89,4 +90,22 @@ public class WriteUnordered {
     Util.partialRadixSort(copy);
     return RoaringBitmap.bitmapOf(copy);
   }
+
+  @Benchmark
+  public RoaringBitmap addOneByOne() {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int value : data) {
+      bitmap.add(value);
+    }
+    return bitmap;
+  }
+
+  @Benchmark
+  public RoaringBitmap insertBufferedOneByOne() {
+    InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap();
+    for (int value : data) {
+      bitmap.add(value);
+    }
+    return bitmap.getBitmap();
+  }
 }
@@ -64,6 +64,28 @@ sourceSets {
             srcDir("src/java11/main")
         }
     }
+    create("java17") {
+        java {
+            srcDir("src/java17/main")
+        }
+        // the shims fall back to the scalar implementations in the main source set
+        compileClasspath += sourceSets.named("main").get().output
+    }
+    create("java17Test") {
+        // the java17 shims come first, so that they replace the scalar shims of the main source set
+        val shims = sourceSets.named("java17").get().output
+        val scalar = sourceSets.named("main").get().output
+        compileClasspath += shims + scalar
+        runtimeClasspath += shims + scalar
+    }
+}
+
+configurations.named("java17TestImplementation") {
+    extendsFrom(configurations.named("testImplementation").get())
+}
+
+configurations.named("java17TestRuntimeOnly") {
+    extendsFrom(configurations.named("testRuntimeOnly").get())
 }
 
 tasks.named<JavaCompile>("compileJava11Java") {
@@ -72,16 +94,39 @@ tasks.named<JavaCompile>("compileJava11Java") {
     options.release.set(9)
 }
 
+tasks.named<JavaCompile>("compileJava17Java") {
+    // the Vector API is still incubating, so it has to be resolved explicitly at compile time;
+    // at runtime the shim falls back to scalar loops unless the module has been added
+    val javaToolchains = project.extensions.getByType<JavaToolchainService>()
+    javaCompiler.set(javaToolchains.compilerFor {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    })
+    options.release.set(17)
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
+tasks.named<JavaCompile>("compileJava17TestJava") {
+    val javaToolchains = project.extensions.getByType<JavaToolchainService>()
+    javaCompiler.set(javaToolchains.compilerFor {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    })
+    options.release.set(17)
+}
+
 tasks.named<Jar>("jar") {
     into("META-INF/versions/11") {
         from(sourceSets.named("java11").get().output)
     }
+    into("META-INF/versions/17") {
+        from(sourceSets.named("java17").get().output)
+    }
     manifest.attributes(
             Pair("Multi-Release", "true")
     )
 
-    // normally jar is just main classes but we also have another sourceset
+    // normally jar is just main classes but we also have other sourcesets
     dependsOn(tasks.named("compileJava11Java"))
+    dependsOn(tasks.named("compileJava17Java"))
 }
 
 tasks.named<Jar>("sourcesJar") {
@@ -108,3 +153,46 @@ tasks.test {
         // showStandardStreams = true
     }
 }
+
+// The instrumentation is read once per JVM, so its tests run in their own task, leaving the
+// other tests on the default configuration
+val instrumentationTest = tasks.register<Test>("instrumentationTest") {
+    description = "Runs the tests of the instrumentation, with the instrumentation enabled."
+    group = "verification"
+    testClassesDirs = sourceSets.named("test").get().output.classesDirs
+    classpath = sourceSets.named("test").get().runtimeClasspath
+    extensions.findByType(org.javamodularity.moduleplugin.extensions.TestModuleOptions::class)?.run {
+        // Avoid modules in tests so we can test against Java/JDK 8.
+        setRunOnClasspath(true)
+    }
+    systemProperty("org.roaringbitmap.instrumentation", "true")
+    useJUnitPlatform()
+    filter {
+        includeTestsMatching("org.roaringbitmap.insights.OperationRecorderTest")
+    }
+}
+
+// The Vector API kernels of the java17 shims are only used when the incubating module is resolved,
+// so they are tested on their own, against the java17 classes and with the module added
+val java17Test = tasks.register<Test>("java17Test") {
+    description = "Runs the tests of the java17 shims, with the Vector API enabled."
+    group = "verification"
+    testClassesDirs = sourceSets.named("java17Test").get().output.classesDirs
+    classpath = sourceSets.named("java17Test").get().runtimeClasspath
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    useJUnitPlatform()
+}
+
+tasks.named<Test>("java17Test") {
+    // after the launcher chosen for all the test tasks, which may be older
+    val javaToolchains = project.extensions.getByType<JavaToolchainService>()
+    javaLauncher.set(javaToolchains.launcherFor {
+        val currentVersion = JavaVersion.current().majorVersion.toInt()
+        languageVersion.set(JavaLanguageVersion.of(maxOf(17, currentVersion)))
+    })
+}
+
+tasks.named("check") {
+    dependsOn(instrumentationTest)
+    dependsOn(java17Test)
+}
@@ -0,0 +1,136 @@
+package org.roaringbitmap;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Optional;
+
+/**
+ * Shim over the word-wise logical operations of bitmap containers to support multi-release.
+ * The Vector API kernels are only used when the incubating jdk.incubator.vector module has been
+ * resolved (e.g. with --add-modules jdk.incubator.vector), otherwise the scalar loops are used.
+ */
+public class BitmapShim {
+
+  private static final boolean VECTORIZED = isVectorApiAvailable();
+
+  private static boolean isVectorApiAvailable() {
+    Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+    if (!vector.isPresent()) {
+      return false;
+    }
+    // a named roaringbitmap module does not declare the dependency, so it must be added
+    BitmapShim.class.getModule().addReads(vector.get());
+    return true;
+  }
+
+  /**
+   * Computes the bitwise AND of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void and(long[] x, long[] y, long[] out, int length) {
+    int k = VECTORIZED ? Kernels.and(x, y, out, length) : 0;
+    for (; k < length; ++k) {
+      out[k] = x[k] & y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise ANDNOT of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the array of words to clear from the first
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void andNot(long[] x, long[] y, long[] out, int length) {
+    int k = VECTORIZED ? Kernels.andNot(x, y, out, length) : 0;
+    for (; k < length; ++k) {
+      out[k] = x[k] & ~y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise OR of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void or(long[] x, long[] y, long[] out, int length) {
+    int k = VECTORIZED ? Kernels.or(x, y, out, length) : 0;
+    for (; k < length; ++k) {
+      out[k] = x[k] | y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise XOR of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void xor(long[] x, long[] y, long[] out, int length) {
+    int k = VECTORIZED ? Kernels.xor(x, y, out, length) : 0;
+    for (; k < length; ++k) {
+      out[k] = x[k] ^ y[k];
+    }
+  }
+
+  /**
+   * Only loaded once the Vector API is known to be available. Each kernel processes whole
+   * vectors and returns the index of the first word left for the scalar tail loop.
+   */
+  private static final class Kernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    static int and(long[] x, long[] y, long[] out, int length) {
+      int bound = SPECIES.loopBound(length);
+      for (int k = 0; k < bound; k += SPECIES.length()) {
+        LongVector.fromArray(SPECIES, x, k)
+            .and(LongVector.fromArray(SPECIES, y, k))
+            .intoArray(out, k);
+      }
+      return bound;
+    }
+
+    static int andNot(long[] x, long[] y, long[] out, int length) {
+      int bound = SPECIES.loopBound(length);
+      for (int k = 0; k < bound; k += SPECIES.length()) {
+        LongVector.fromArray(SPECIES, x, k)
+            .lanewise(VectorOperators.AND_NOT, LongVector.fromArray(SPECIES, y, k))
+            .intoArray(out, k);
+      }
+      return bound;
+    }
+
+    static int or(long[] x, long[] y, long[] out, int length) {
+      int bound = SPECIES.loopBound(length);
+      for (int k = 0; k < bound; k += SPECIES.length()) {
+        LongVector.fromArray(SPECIES, x, k)
+            .or(LongVector.fromArray(SPECIES, y, k))
+            .intoArray(out, k);
+      }
+      return bound;
+    }
+
+    static int xor(long[] x, long[] y, long[] out, int length) {
+      int bound = SPECIES.loopBound(length);
+      for (int k = 0; k < bound; k += SPECIES.length()) {
+        LongVector.fromArray(SPECIES, x, k)
+            .lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, y, k))
+            .intoArray(out, k);
+      }
+      return bound;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package org.roaringbitmap;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Optional;
+
+/**
+ * Shim over the intersection of sorted arrays of 16-bit values to support multi-release.
+ * When the incubating jdk.incubator.vector module has been resolved, blocks of eight values
+ * are compared all against all, as in CRoaring's intersect_vector16, before the scalar merge
+ * finishes the tails. Otherwise the scalar algorithms in {@link Util} are used.
+ */
+public class SortedArraysShim {
+
+  private static final boolean VECTORIZED = isVectorApiAvailable();
+
+  private static boolean isVectorApiAvailable() {
+    Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+    if (!vector.isPresent()) {
+      return false;
+    }
+    // a named roaringbitmap module does not declare the dependency, so it must be added
+    SortedArraysShim.class.getModule().addReads(vector.get());
+    return true;
+  }
+
+  /**
+   * Intersect two sorted lists and write the result to the provided output array
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @param buffer output array
+   * @return cardinality of the intersection
+   */
+  public static int intersect(
+      char[] set1, int length1, char[] set2, int length2, char[] buffer) {
+    if (VECTORIZED) {
+      return Kernels.intersect(set1, length1, set2, length2, buffer);
+    }
+    return Util.unsignedLocalIntersect2by2(set1, length1, set2, length2, buffer);
+  }
+
+  /**
+   * Compute the cardinality of the intersection of two sorted lists
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @return cardinality of the intersection
+   */
+  public static int intersectCardinality(char[] set1, int length1, char[] set2, int length2) {
+    if (VECTORIZED) {
+      return Kernels.intersectCardinality(set1, length1, set2, length2);
+    }
+    return Util.unsignedLocalIntersect2by2Cardinality(set1, length1, set2, length2);
+  }
+
+  /**
+   * Checks if two sorted lists intersect
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @return true if they intersect
+   */
+  public static boolean intersects(char[] set1, int length1, char[] set2, int length2) {
+    if (VECTORIZED) {
+      return Kernels.intersects(set1, length1, set2, length2);
+    }
+    return Util.unsignedIntersects(set1, length1, set2, length2);
+  }
+
+  /**
+   * Only loaded once the Vector API is known to be available. The block loops stop as soon as
+   * either array has no complete block left, and the scalar merge resumes from there: every
+   * value before the resumption points has already been compared with every value it could
+   * match.
+   */
+  private static final class Kernels {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_128;
+    private static final int LANES = 8;
+    private static final VectorShuffle<Short> ROTATE_1 = VectorShuffle.iota(SPECIES, 1, 1, true);
+    private static final VectorShuffle<Short> ROTATE_2 = VectorShuffle.iota(SPECIES, 2, 1, true);
+    private static final VectorShuffle<Short> ROTATE_3 = VectorShuffle.iota(SPECIES, 3, 1, true);
+    private static final VectorShuffle<Short> ROTATE_4 = VectorShuffle.iota(SPECIES, 4, 1, true);
+    private static final VectorShuffle<Short> ROTATE_5 = VectorShuffle.iota(SPECIES, 5, 1, true);
+    private static final VectorShuffle<Short> ROTATE_6 = VectorShuffle.iota(SPECIES, 6, 1, true);
+    private static final VectorShuffle<Short> ROTATE_7 = VectorShuffle.iota(SPECIES, 7, 1, true);
+
+    /**
+     * @return a bitset of the lanes of x which are equal to any lane of y
+     */
+    private static long matches(ShortVector x, ShortVector y) {
+      VectorMask<Short> mask = x.eq(y);
+      mask = mask.or(x.eq(y.rearrange(ROTATE_1)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_2)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_3)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_4)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_5)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_6)));
+      mask = mask.or(x.eq(y.rearrange(ROTATE_7)));
+      return mask.toLong();
+    }
+
+    static int intersect(char[] set1, int length1, char[] set2, int length2, char[] buffer) {
+      int k1 = 0;
+      int k2 = 0;
+      int pos = 0;
+      int blocks1 = length1 & -LANES;
+      int blocks2 = length2 & -LANES;
+      if (blocks1 != 0 && blocks2 != 0) {
+        ShortVector v1 = ShortVector.fromCharArray(SPECIES, set1, 0);
+        ShortVector v2 = ShortVector.fromCharArray(SPECIES, set2, 0);
+        while (true) {
+          for (long bits = matches(v1, v2); bits != 0; bits &= (bits - 1)) {
+            buffer[pos++] = set1[k1 + Long.numberOfTrailingZeros(bits)];
+          }
+          char max1 = set1[k1 + LANES - 1];
+          char max2 = set2[k2 + LANES - 1];
+          if (max1 <= max2) {
+            k1 += LANES;
+            if (k1 == blocks1) {
+              break;
+            }
+            v1 = ShortVector.fromCharArray(SPECIES, set1, k1);
+          }
+          if (max2 <= max1) {
+            k2 += LANES;
+            if (k2 == blocks2) {
+              break;
+            }
+            v2 = ShortVector.fromCharArray(SPECIES, set2, k2);
+          }
+        }
+      }
+      while (k1 < length1 && k2 < length2) {
+        char s1 = set1[k1];
+        char s2 = set2[k2];
+        if (s1 < s2) {
+          ++k1;
+        } else if (s2 < s1) {
+          ++k2;
+        } else {
+          buffer[pos++] = s1;
+          ++k1;
+          ++k2;
+        }
+      }
+      return pos;
+    }
+
+    static int intersectCardinality(char[] set1, int length1, char[] set2, int length2) {
+      int k1 = 0;
+      int k2 = 0;
+      int cardinality = 0;
+      int blocks1 = length1 & -LANES;
+      int blocks2 = length2 & -LANES;
+      if (blocks1 != 0 && blocks2 != 0) {
+        ShortVector v1 = ShortVector.fromCharArray(SPECIES, set1, 0);
+        ShortVector v2 = ShortVector.fromCharArray(SPECIES, set2, 0);
+        while (true) {
+          cardinality += Long.bitCount(matches(v1, v2));
+          char max1 = set1[k1 + LANES - 1];
+          char max2 = set2[k2 + LANES - 1];
+          if (max1 <= max2) {
+            k1 += LANES;
+            if (k1 == blocks1) {
+              break;
+            }
+            v1 = ShortVector.fromCharArray(SPECIES, set1, k1);
+          }
+          if (max2 <= max1) {
+            k2 += LANES;
+            if (k2 == blocks2) {
+              break;
+            }
+            v2 = ShortVector.fromCharArray(SPECIES, set2, k2);
+          }
+        }
+      }
+      while (k1 < length1 && k2 < length2) {
+        char s1 = set1[k1];
+        char s2 = set2[k2];
+        if (s1 < s2) {
+          ++k1;
+        } else if (s2 < s1) {
+          ++k2;
+        } else {
+          ++cardinality;
+          ++k1;
+          ++k2;
+        }
+      }
+      return cardinality;
+    }
+
+    static boolean intersects(char[] set1, int length1, char[] set2, int length2) {
+      int k1 = 0;
+      int k2 = 0;
+      int blocks1 = length1 & -LANES;
+      int blocks2 = length2 & -LANES;
+      if (blocks1 != 0 && blocks2 != 0) {
+        ShortVector v1 = ShortVector.fromCharArray(SPECIES, set1, 0);
+        ShortVector v2 = ShortVector.fromCharArray(SPECIES, set2, 0);
+        while (true) {
+          if (matches(v1, v2) != 0) {
+            return true;
+          }
+          char max1 = set1[k1 + LANES - 1];
+          char max2 = set2[k2 + LANES - 1];
+          if (max1 <= max2) {
+            k1 += LANES;
+            if (k1 == blocks1) {
+              break;
+            }
+            v1 = ShortVector.fromCharArray(SPECIES, set1, k1);
+          }
+          if (max2 <= max1) {
+            k2 += LANES;
+            if (k2 == blocks2) {
+              break;
+            }
+            v2 = ShortVector.fromCharArray(SPECIES, set2, k2);
+          }
+        }
+      }
+      while (k1 < length1 && k2 < length2) {
+        char s1 = set1[k1];
+        char s2 = set2[k2];
+        if (s1 < s2) {
+          ++k1;
+        } else if (s2 < s1) {
+          ++k2;
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongBinaryOperator;
+
+public class TestBitmapShim {
+
+  @FunctionalInterface
+  private interface Kernel {
+    void apply(long[] x, long[] y, long[] out, int length);
+  }
+
+  private static long[] words(Random random, int length) {
+    long[] words = new long[length];
+    for (int i = 0; i < length; ++i) {
+      switch (random.nextInt(4)) {
+        case 0:
+          words[i] = 0L;
+          break;
+        case 1:
+          words[i] = -1L;
+          break;
+        default:
+          words[i] = random.nextLong();
+      }
+    }
+    return words;
+  }
+
+  // the words from length on must be left untouched
+  private static void check(Kernel kernel, LongBinaryOperator scalar, int length) {
+    Random random = new Random(length);
+    long[] x = words(random, length + 3);
+    long[] y = words(random, length + 3);
+    long[] expected = words(random, length + 3);
+    long[] out = expected.clone();
+    for (int i = 0; i < length; ++i) {
+      expected[i] = scalar.applyAsLong(x[i], y[i]);
+    }
+    kernel.apply(x, y, out, length);
+    assertArrayEquals(expected, out);
+
+    // the output may alias either input
+    long[] left = x.clone();
+    kernel.apply(left, y, left, length);
+    assertArrayEquals(Arrays.copyOf(expected, length), Arrays.copyOf(left, length));
+    long[] right = y.clone();
+    kernel.apply(x, right, right, length);
+    assertArrayEquals(Arrays.copyOf(expected, length), Arrays.copyOf(right, length));
+  }
+
+  @Test
+  public void vectorApiIsAvailable() {
+    // otherwise the tests below only cover the scalar loops
+    assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 1023, 1024})
+  public void and(int length) {
+    check(BitmapShim::and, (x, y) -> x & y, length);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 1023, 1024})
+  public void andNot(int length) {
+    check(BitmapShim::andNot, (x, y) -> x & ~y, length);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 1023, 1024})
+  public void or(int length) {
+    check(BitmapShim::or, (x, y) -> x | y, length);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 33, 63, 65, 1023, 1024})
+  public void xor(int length) {
+    check(BitmapShim::xor, (x, y) -> x ^ y, length);
+  }
+}
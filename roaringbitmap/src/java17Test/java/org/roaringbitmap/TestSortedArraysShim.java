@@ -0,0 +1,113 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class TestSortedArraysShim {
+
+  private static final int[] LENGTHS = {0, 1, 7, 8, 9, 15, 16, 17, 63, 100, 1001};
+
+  public static Stream<Arguments> params() {
+    // the narrower the span of the values, the more the arrays intersect
+    return IntStream.of(LENGTHS)
+        .boxed()
+        .flatMap(
+            length1 ->
+                IntStream.of(LENGTHS)
+                    .boxed()
+                    .flatMap(
+                        length2 ->
+                            IntStream.of(16, 2048, 1 << 16)
+                                .mapToObj(span -> Arguments.of(length1, length2, span))));
+  }
+
+  // the narrower spans are at the top of the range, where the values are negative as shorts
+  private static char[] sortedValues(Random random, int length, int span) {
+    int base = span == 1 << 16 ? 0 : 0xFFFF - span;
+    return random
+        .ints(base, base + span)
+        .distinct()
+        .limit(Math.min(length, span))
+        .sorted()
+        .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+        .toString()
+        .toCharArray();
+  }
+
+  private static char[] scalarIntersection(char[] set1, char[] set2) {
+    char[] buffer = new char[Math.min(set1.length, set2.length)];
+    int pos = 0;
+    for (int i = 0, j = 0; i < set1.length && j < set2.length; ) {
+      if (set1[i] < set2[j]) {
+        ++i;
+      } else if (set2[j] < set1[i]) {
+        ++j;
+      } else {
+        buffer[pos++] = set1[i++];
+        ++j;
+      }
+    }
+    return Arrays.copyOf(buffer, pos);
+  }
+
+  @Test
+  public void vectorApiIsAvailable() {
+    // otherwise the tests below only cover the scalar merges
+    assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void intersect(int length1, int length2, int span) {
+    Random random = new Random(31L * length1 + length2 + span);
+    char[] set1 = sortedValues(random, length1, span);
+    char[] set2 = sortedValues(random, length2, span);
+    char[] expected = scalarIntersection(set1, set2);
+
+    char[] buffer = new char[Math.min(set1.length, set2.length)];
+    int cardinality = SortedArraysShim.intersect(set1, set1.length, set2, set2.length, buffer);
+    assertArrayEquals(expected, Arrays.copyOf(buffer, cardinality));
+    assertEquals(
+        expected.length,
+        SortedArraysShim.intersectCardinality(set1, set1.length, set2, set2.length));
+    assertEquals(
+        expected.length != 0, SortedArraysShim.intersects(set1, set1.length, set2, set2.length));
+    // the lengths may be shorter than the arrays
+    int length = set1.length / 2;
+    assertEquals(
+        scalarIntersection(Arrays.copyOf(set1, length), set2).length,
+        SortedArraysShim.intersectCardinality(set1, length, set2, set2.length));
+  }
+
+  @Test
+  public void matchesInTheTails() {
+    // two blocks of disjoint values, then a match in the tails
+    char[] set1 = new char[17];
+    char[] set2 = new char[17];
+    for (int i = 0; i < 16; ++i) {
+      set1[i] = (char) (2 * i);
+      set2[i] = (char) (2 * i + 1);
+    }
+    set1[16] = 0xFFFF;
+    set2[16] = 0xFFFF;
+    char[] buffer = new char[17];
+    assertEquals(1, SortedArraysShim.intersect(set1, 17, set2, 17, buffer));
+    assertEquals(0xFFFF, buffer[0]);
+    assertEquals(1, SortedArraysShim.intersectCardinality(set1, 17, set2, 17));
+    assertTrue(SortedArraysShim.intersects(set1, 17, set2, 17));
+    assertFalse(SortedArraysShim.intersects(set1, 16, set2, 17));
+    assertEquals(0, SortedArraysShim.intersectCardinality(set1, 17, set2, 16));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+/**
+ * The settings of the re-encoding of the containers of an {@link AdaptiveRoaringBitmap}, by the
+ * operations they are accessed with.
+ *
+ * The serialization format, {@link RoaringBitmap#equals(Object)} and most operations rely on
+ * containers holding at most 4096 values being arrays, and on larger ones being bitmaps, unless
+ * they are run containers. The only free choice is thus between the run encoding and the array or
+ * bitmap encoding, which {@link RoaringBitmap#runOptimize()} makes by size alone. A policy makes it
+ * by the accesses instead:
+ *
+ * <ul>
+ *   <li>the run containers accessed often enough by {@link Operation#CONTAINS},
+ *   {@link Operation#AND} or {@link Operation#OR}, and more than they are iterated over, are
+ *   decoded to an array or a bitmap, even when it takes more memory, where these operations are
+ *   faster. The hottest containers are decoded first, as long as the memory they take beyond their
+ *   run encoding stays within the budget.</li>
+ *   <li>the other containers are encoded in their most compact representation, like
+ *   {@link Container#runOptimize()} does.</li>
+ * </ul>
+ */
+public final class AdaptiveContainerPolicy {
+
+  /**
+   * The operations recorded for each container.
+   */
+  public enum Operation {
+    CONTAINS,
+    AND,
+    OR,
+    ITERATION
+  }
+
+  /**
+   * The change of the encoding of a container.
+   */
+  public static final class Decision {
+
+    private final char key;
+    private final ContainerType from;
+    private final ContainerType to;
+    private final long accesses;
+    private final int sizeChange;
+
+    Decision(char key, ContainerType from, ContainerType to, long accesses, int sizeChange) {
+      this.key = key;
+      this.from = from;
+      this.to = to;
+      this.accesses = accesses;
+      this.sizeChange = sizeChange;
+    }
+
+    /**
+     * @return the 16 high bits of the values of the container
+     */
+    public char getKey() {
+      return key;
+    }
+
+    /**
+     * @return the previous encoding of the container
+     */
+    public ContainerType getFrom() {
+      return from;
+    }
+
+    /**
+     * @return the new encoding of the container
+     */
+    public ContainerType getTo() {
+      return to;
+    }
+
+    /**
+     * @return the recent number of contains, and, or accesses to the container
+     */
+    public long getAccesses() {
+      return accesses;
+    }
+
+    /**
+     * @return the number of bytes the container takes more, negative when it takes less
+     */
+    public int getSizeChange() {
+      return sizeChange;
+    }
+
+    @Override
+    public String toString() {
+      return "Decision{"
+          + "key="
+          + (int) key
+          + ", from="
+          + from
+          + ", to="
+          + to
+          + ", accesses="
+          + accesses
+          + ", sizeChange="
+          + sizeChange
+          + '}';
+    }
+  }
+
+  // searching fewer runs costs about as much as testing a bit of a bitmap
+  static final int MIN_DECODED_RUNS = 16;
+
+  private static final long DEFAULT_MEMORY_BUDGET = 1 << 20;
+  private static final int DEFAULT_MIN_ACCESSES = 64;
+
+  private final long memoryBudget;
+  private final int minAccesses;
+
+  /**
+   * Creates a policy re-encoding the containers within a memory budget of 1 MiB, and decoding the
+   * run containers accessed at least 64 times.
+   */
+  public AdaptiveContainerPolicy() {
+    this(DEFAULT_MEMORY_BUDGET, DEFAULT_MIN_ACCESSES);
+  }
+
+  /**
+   * Creates a policy.
+   *
+   * @param memoryBudget the number of bytes the decoded containers can take beyond their run
+   *     encoding, over the whole bitmap
+   * @param minAccesses the number of recent contains, and, or accesses from which a container is
+   *     considered hot. The counts are halved after each re-encoding.
+   */
+  public AdaptiveContainerPolicy(long memoryBudget, int minAccesses) {
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("memoryBudget should not be negative: " + memoryBudget);
+    }
+    if (minAccesses <= 0) {
+      throw new IllegalArgumentException("minAccesses should be positive: " + minAccesses);
+    }
+    this.memoryBudget = memoryBudget;
+    this.minAccesses = minAccesses;
+  }
+
+  /**
+   * @return the number of bytes the decoded containers can take beyond their run encoding
+   */
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @return the number of recent accesses from which a container is considered hot
+   */
+  public int getMinAccesses() {
+    return minAccesses;
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveContainerPolicy{"
+        + "memoryBudget="
+        + memoryBudget
+        + ", minAccesses="
+        + minAccesses
+        + '}';
+  }
+}
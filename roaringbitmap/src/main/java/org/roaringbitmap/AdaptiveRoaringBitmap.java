@@ -0,0 +1,308 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import org.roaringbitmap.AdaptiveContainerPolicy.Decision;
+import org.roaringbitmap.AdaptiveContainerPolicy.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This extends {@link RoaringBitmap} to choose the encoding of its containers by the operations
+ * they are accessed with, see {@link AdaptiveContainerPolicy}.
+ *
+ * The operations on this bitmap record, for each container they access, a count per
+ * {@link Operation}: {@link #contains(int)}, the in-place {@link #and(RoaringBitmap)} and
+ * {@link #or(RoaringBitmap)} for the containers whose key is in both bitmaps, and the iterations
+ * over the whole bitmap ({@link #getIntIterator()}, {@link #iterator()},
+ * {@link #forEach(IntConsumer)}, {@link #getBatchIterator()}). The static operations taking this
+ * bitmap as an argument are not recorded. The containers are only re-encoded when
+ * {@link #adapt()} is called, typically periodically by the owner of the bitmap, which also halves
+ * the counts so that they follow the recent accesses.
+ *
+ * The reads never change the encodings, so, like after {@link #runOptimize()} on a
+ * {@link RoaringBitmap}, only {@link #adapt()} can change the hash code of the bitmap. As the reads
+ * update the counts, this bitmap should not be read concurrently by several threads. The values
+ * are never changed by a re-encoding, and the bitmap stays equal to, and serializes like, a
+ * {@link RoaringBitmap} with the same values and encodings.
+ */
+public class AdaptiveRoaringBitmap extends RoaringBitmap {
+
+  private static final int OPERATIONS = Operation.values().length;
+
+  private final AdaptiveContainerPolicy policy;
+  // accesses[key >>> 8][(key & 0xFF) * OPERATIONS + operation], a page is null until it is used
+  private int[][] accesses = new int[1 << 8][];
+  private long adaptations;
+  // the keys of the containers decoded from runs, with the bytes they take beyond their runs
+  private RoaringBitmap decoded = new RoaringBitmap();
+  private long extraBytes;
+  private List<Decision> lastDecisions = Collections.emptyList();
+
+  /**
+   * Creates an empty bitmap with the default policy.
+   */
+  public AdaptiveRoaringBitmap() {
+    this(new AdaptiveContainerPolicy());
+  }
+
+  /**
+   * Creates an empty bitmap.
+   *
+   * @param policy the settings of the re-encoding of the containers
+   */
+  public AdaptiveRoaringBitmap(AdaptiveContainerPolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * @return the settings of the re-encoding of the containers
+   */
+  public AdaptiveContainerPolicy getPolicy() {
+    return policy;
+  }
+
+  private void record(char key, Operation operation) {
+    int[] page = accesses[key >>> 8];
+    if (page == null) {
+      page = new int[(1 << 8) * OPERATIONS];
+      accesses[key >>> 8] = page;
+    }
+    int index = (key & 0xFF) * OPERATIONS + operation.ordinal();
+    if (page[index] != Integer.MAX_VALUE) {
+      ++page[index];
+    }
+  }
+
+  // records the containers of this bitmap with a key in the other bitmap
+  private void recordShared(RoaringBitmap other, Operation operation) {
+    RoaringArray mine = highLowContainer;
+    RoaringArray theirs = other.highLowContainer;
+    int i = 0;
+    int j = 0;
+    while (i < mine.size() && j < theirs.size()) {
+      char key = mine.getKeyAtIndex(i);
+      char otherKey = theirs.getKeyAtIndex(j);
+      if (key == otherKey) {
+        record(key, operation);
+        ++i;
+        ++j;
+      } else if (key < otherKey) {
+        ++i;
+      } else {
+        ++j;
+      }
+    }
+  }
+
+  private void recordAll(Operation operation) {
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      record(highLowContainer.getKeyAtIndex(i), operation);
+    }
+  }
+
+  /**
+   * Returns the recent number of accesses to a container by an operation.
+   *
+   * @param key the 16 high bits of the values of the container
+   * @param operation the operation
+   * @return the number of accesses, halved at each re-encoding
+   */
+  public int getAccesses(char key, Operation operation) {
+    int[] page = accesses[key >>> 8];
+    return page == null ? 0 : page[(key & 0xFF) * OPERATIONS + operation.ordinal()];
+  }
+
+  /**
+   * Returns the recent number of accesses to all the containers by an operation.
+   *
+   * @param operation the operation
+   * @return the number of accesses, halved at each re-encoding
+   */
+  public long getAccesses(Operation operation) {
+    long total = 0;
+    for (int[] page : accesses) {
+      if (page != null) {
+        for (int i = operation.ordinal(); i < page.length; i += OPERATIONS) {
+          total += page[i];
+        }
+      }
+    }
+    return total;
+  }
+
+  private long randomAccesses(char key) {
+    return (long) getAccesses(key, Operation.CONTAINS)
+        + getAccesses(key, Operation.AND)
+        + getAccesses(key, Operation.OR);
+  }
+
+  /**
+   * @return the number of containers decoded from runs at the last re-encoding
+   */
+  public int getDecodedContainerCount() {
+    return decoded.getCardinality();
+  }
+
+  /**
+   * @return the number of bytes the decoded containers took beyond their runs at the last
+   *     re-encoding
+   */
+  public long getExtraBytes() {
+    return extraBytes;
+  }
+
+  /**
+   * @return the number of re-encodings
+   */
+  public long getAdaptationCount() {
+    return adaptations;
+  }
+
+  /**
+   * @return the changes of encoding made by the last re-encoding
+   */
+  public List<Decision> getLastDecisions() {
+    return lastDecisions;
+  }
+
+  /**
+   * Re-encodes the containers by their recent accesses, see {@link AdaptiveContainerPolicy}, then
+   * halves the counts of accesses.
+   *
+   * @return the changes of encoding
+   */
+  public List<Decision> adapt() {
+    ++adaptations;
+    List<Decision> decisions = new ArrayList<>();
+    RoaringBitmap stillDecoded = new RoaringBitmap();
+    long used = 0;
+    // the hot run containers, as their accesses in the high bits and their index in the low bits
+    long[] candidates = new long[highLowContainer.size()];
+    int candidateCount = 0;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      char key = highLowContainer.getKeyAtIndex(i);
+      Container container = highLowContainer.getContainerAtIndex(i);
+      long random = randomAccesses(key);
+      boolean hot =
+          random >= policy.getMinAccesses() && random > getAccesses(key, Operation.ITERATION);
+      if (!hot) {
+        Container compact = container.runOptimize();
+        if (compact != container) {
+          highLowContainer.setContainerAtIndex(i, compact);
+          decisions.add(decision(key, container, compact, random));
+        }
+      } else if (container instanceof RunContainer) {
+        if (container.numberOfRuns() >= AdaptiveContainerPolicy.MIN_DECODED_RUNS) {
+          candidates[candidateCount++] = random << 16 | i;
+        }
+      } else if (decoded.contains(key)) {
+        int extra =
+            container.getArraySizeInBytes()
+                - RunContainer.serializedSizeInBytes(container.numberOfRuns());
+        if (extra > 0) {
+          used += extra;
+          stillDecoded.add(key);
+        }
+      }
+    }
+    // decodes the hottest containers first
+    Arrays.sort(candidates, 0, candidateCount);
+    for (int c = candidateCount - 1; c >= 0; --c) {
+      int i = (int) (candidates[c] & 0xFFFF);
+      RunContainer run = (RunContainer) highLowContainer.getContainerAtIndex(i);
+      Container container = run.toBitmapOrArrayContainer(run.getCardinality());
+      int extra = container.getArraySizeInBytes() - run.getArraySizeInBytes();
+      if (used + extra <= policy.getMemoryBudget()) {
+        char key = highLowContainer.getKeyAtIndex(i);
+        highLowContainer.setContainerAtIndex(i, container);
+        decisions.add(decision(key, run, container, candidates[c] >>> 16));
+        if (extra > 0) {
+          used += extra;
+          stillDecoded.add(key);
+        }
+      }
+    }
+    decoded = stillDecoded;
+    extraBytes = used;
+    for (int[] page : accesses) {
+      if (page != null) {
+        for (int i = 0; i < page.length; ++i) {
+          page[i] >>>= 1;
+        }
+      }
+    }
+    lastDecisions = Collections.unmodifiableList(decisions);
+    return lastDecisions;
+  }
+
+  private static Decision decision(char key, Container from, Container to, long accesses) {
+    return new Decision(
+        key,
+        ContainerType.of(from),
+        ContainerType.of(to),
+        accesses,
+        to.getArraySizeInBytes() - from.getArraySizeInBytes());
+  }
+
+  @Override
+  public boolean contains(int x) {
+    record(Util.highbits(x), Operation.CONTAINS);
+    return super.contains(x);
+  }
+
+  @Override
+  public void and(RoaringBitmap x2) {
+    recordShared(x2, Operation.AND);
+    super.and(x2);
+  }
+
+  @Override
+  public void or(RoaringBitmap x2) {
+    recordShared(x2, Operation.OR);
+    super.or(x2);
+  }
+
+  @Override
+  public PeekableIntIterator getIntIterator() {
+    recordAll(Operation.ITERATION);
+    return super.getIntIterator();
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    recordAll(Operation.ITERATION);
+    return super.iterator();
+  }
+
+  @Override
+  public void forEach(IntConsumer ic) {
+    recordAll(Operation.ITERATION);
+    super.forEach(ic);
+  }
+
+  @Override
+  public RoaringBatchIterator getBatchIterator() {
+    recordAll(Operation.ITERATION);
+    return super.getBatchIterator();
+  }
+
+  @Override
+  public AdaptiveRoaringBitmap clone() {
+    AdaptiveRoaringBitmap x = (AdaptiveRoaringBitmap) super.clone();
+    x.accesses = new int[accesses.length][];
+    for (int p = 0; p < accesses.length; ++p) {
+      if (accesses[p] != null) {
+        x.accesses[p] = accesses[p].clone();
+      }
+    }
+    x.decoded = decoded.clone();
+    return x;
+  }
+}
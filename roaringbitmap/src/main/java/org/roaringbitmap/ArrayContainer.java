@@ -206,7 +206,7 @@ public final class ArrayContainer extends Container implements Cloneable {
 
   @Override
   public int andCardinality(final ArrayContainer value2) {
-    return Util.unsignedLocalIntersect2by2Cardinality(
+    return SortedArraysShim.intersectCardinality(
         content, cardinality, value2.content, value2.getCardinality());
   }
 
@@ -618,6 +618,70 @@ public final class ArrayContainer extends Container implements Cloneable {
     return this;
   }
 
+  /**
+   * Adds the low 16 bits of values sorted by their low 16 bits, possibly with duplicates. Each
+   * value of the container is moved at most once, instead of once per added value as when calling
+   * {@link #add(char)} for each of them.
+   *
+   * @param values the values
+   * @param from the index of the first value to add
+   * @param to the index after the last value to add
+   * @return the container with the values added, which may be this one
+   */
+  Container iaddSorted(int[] values, int from, int to) {
+    // counts the values to insert
+    int added = 0;
+    int position = 0;
+    for (int i = from; i < to; ++i) {
+      char x = Util.lowbits(values[i]);
+      if (i > from && x == Util.lowbits(values[i - 1])) {
+        continue;
+      }
+      int loc = Util.unsignedBinarySearch(content, position, cardinality, x);
+      if (loc < 0) {
+        ++added;
+        position = -loc - 1;
+      } else {
+        position = loc;
+      }
+    }
+    if (added == 0) {
+      return this;
+    }
+    int newCardinality = cardinality + added;
+    if (newCardinality > DEFAULT_MAX_SIZE) {
+      Container answer = toBitmapContainer();
+      for (int i = from; i < to; ++i) {
+        answer = answer.add(Util.lowbits(values[i]));
+      }
+      return answer;
+    }
+    char[] destination =
+        newCardinality > content.length ? new char[calculateCapacity(newCardinality)] : content;
+    // moves the segments between the inserted values from the last one, so that none is overwritten
+    int end = cardinality;
+    for (int i = to - 1; i >= from && added > 0; --i) {
+      char x = Util.lowbits(values[i]);
+      if (i > from && x == Util.lowbits(values[i - 1])) {
+        continue;
+      }
+      int loc = Util.unsignedBinarySearch(content, 0, end, x);
+      if (loc < 0) {
+        loc = -loc - 1;
+        System.arraycopy(content, loc, destination, loc + added, end - loc);
+        destination[loc + added - 1] = x;
+        --added;
+        end = loc;
+      }
+    }
+    if (destination != content) {
+      System.arraycopy(content, 0, destination, 0, end);
+      content = destination;
+    }
+    cardinality = newCardinality;
+    return this;
+  }
+
   private void increaseCapacity() {
     increaseCapacity(false);
   }
@@ -718,7 +782,7 @@ public final class ArrayContainer extends Container implements Cloneable {
   @Override
   public boolean intersects(ArrayContainer value2) {
     ArrayContainer value1 = this;
-    return Util.unsignedIntersects(
+    return SortedArraysShim.intersects(
         value1.content, value1.getCardinality(), value2.content, value2.getCardinality());
   }
 
@@ -1128,6 +1192,10 @@ public final class ArrayContainer extends Container implements Cloneable {
     int numRuns = numberOfRuns();
     int sizeAsRunContainer = RunContainer.serializedSizeInBytes(numRuns);
     if (getArraySizeInBytes() > sizeAsRunContainer) {
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.ARRAY, ContainerType.RUN);
+      }
       return new RunContainer(this, numRuns); // this could be maybe
       // faster if initial
       // container is a bitmap
@@ -1164,6 +1232,10 @@ public final class ArrayContainer extends Container implements Cloneable {
   public BitmapContainer toBitmapContainer() {
     BitmapContainer bc = new BitmapContainer();
     bc.loadData(this);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.ARRAY, ContainerType.BITMAP);
+    }
     return bc;
   }
 
@@ -0,0 +1,130 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Publishes the successive versions of a {@link PersistentRoaringBitmap} to concurrent readers.
+ *
+ * Readers get the current version without any lock, and can keep using it for as long as they
+ * want: versions are immutable. Writers build a new version, sharing all the unchanged containers
+ * with the current one, and publish it with a compare-and-set, so that an update only costs the
+ * containers it changes. Concurrent writers are supported: an update is applied again to the newer
+ * version when another writer published first, so updates should be free of side effects.
+ *
+ * <pre>
+ * {@code
+ *   AtomicRoaringBitmap filter = new AtomicRoaringBitmap();
+ *   // writer
+ *   filter.or(newValues);
+ *   // readers
+ *   PersistentRoaringBitmap current = filter.get();
+ *   if (current.contains(x)) {...}
+ * }
+ * </pre>
+ */
+public class AtomicRoaringBitmap {
+
+  private final AtomicReference<PersistentRoaringBitmap> current;
+
+  /**
+   * Creates a reference to the empty bitmap.
+   */
+  public AtomicRoaringBitmap() {
+    this(PersistentRoaringBitmap.empty());
+  }
+
+  /**
+   * Creates a reference to a version.
+   *
+   * @param initial the initial version
+   */
+  public AtomicRoaringBitmap(PersistentRoaringBitmap initial) {
+    this.current = new AtomicReference<>(initial);
+  }
+
+  /**
+   * Returns the current version, without locking.
+   *
+   * @return the last published version
+   */
+  public PersistentRoaringBitmap get() {
+    return current.get();
+  }
+
+  /**
+   * Publishes a version, replacing the current one.
+   *
+   * @param version the new version
+   */
+  public void set(PersistentRoaringBitmap version) {
+    current.set(version);
+  }
+
+  /**
+   * Publishes the result of an update of the current version. The update may be called several
+   * times when other writers publish concurrently.
+   *
+   * @param update builds the new version from the current one
+   * @return the published version
+   */
+  public PersistentRoaringBitmap update(UnaryOperator<PersistentRoaringBitmap> update) {
+    return current.updateAndGet(update);
+  }
+
+  /**
+   * Checks whether the value is included in the current version.
+   *
+   * @param x the value
+   * @return whether the value is in the current version
+   */
+  public boolean contains(int x) {
+    return current.get().contains(x);
+  }
+
+  /**
+   * Publishes a version with values added.
+   *
+   * @param values the values to add
+   * @return the published version
+   */
+  public PersistentRoaringBitmap add(int... values) {
+    return or(RoaringBitmap.bitmapOf(values));
+  }
+
+  /**
+   * Publishes a version with values removed.
+   *
+   * @param values the values to remove
+   * @return the published version
+   */
+  public PersistentRoaringBitmap remove(int... values) {
+    return andNot(RoaringBitmap.bitmapOf(values));
+  }
+
+  /**
+   * Publishes a version with the values of a bitmap added. The bitmap should not be modified
+   * during the call.
+   *
+   * @param other the values to add
+   * @return the published version
+   */
+  public PersistentRoaringBitmap or(RoaringBitmap other) {
+    return update(version -> version.or(other));
+  }
+
+  /**
+   * Publishes a version with the values of a bitmap removed. The bitmap should not be modified
+   * during the call.
+   *
+   * @param other the values to remove
+   * @return the published version
+   */
+  public PersistentRoaringBitmap andNot(RoaringBitmap other) {
+    return update(version -> version.andNot(other));
+  }
+}
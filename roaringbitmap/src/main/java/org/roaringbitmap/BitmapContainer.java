@@ -171,9 +171,7 @@ public final class BitmapContainer extends Container implements Cloneable {
     int newCardinality = andCardinality(value2);
     if (newCardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
       final BitmapContainer answer = new BitmapContainer();
-      for (int k = 0; k < answer.bitmap.length; ++k) {
-        answer.bitmap[k] = this.bitmap[k] & value2.bitmap[k];
-      }
+      BitmapShim.and(this.bitmap, value2.bitmap, answer.bitmap, answer.bitmap.length);
       answer.cardinality = newCardinality;
       return answer;
     }
@@ -239,9 +237,7 @@ public final class BitmapContainer extends Container implements Cloneable {
     }
     if (newCardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
       final BitmapContainer answer = new BitmapContainer();
-      for (int k = 0; k < answer.bitmap.length; ++k) {
-        answer.bitmap[k] = this.bitmap[k] & (~value2.bitmap[k]);
-      }
+      BitmapShim.andNot(this.bitmap, value2.bitmap, answer.bitmap, answer.bitmap.length);
       answer.cardinality = newCardinality;
       return answer;
     }
@@ -547,16 +543,12 @@ public final class BitmapContainer extends Container implements Cloneable {
   public Container iand(final BitmapContainer b2) {
     if (-1 == cardinality) {
       // in lazy mode, just intersect the bitmaps, can repair afterwards
-      for (int i = 0; i < bitmap.length; ++i) {
-        bitmap[i] &= b2.bitmap[i];
-      }
+      BitmapShim.and(bitmap, b2.bitmap, bitmap, bitmap.length);
       return this;
     } else {
       int newCardinality = andCardinality(b2);
       if (newCardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
-        for (int k = 0; k < this.bitmap.length; ++k) {
-          this.bitmap[k] = this.bitmap[k] & b2.bitmap[k];
-        }
+        BitmapShim.and(this.bitmap, b2.bitmap, this.bitmap, this.bitmap.length);
         this.cardinality = newCardinality;
         return this;
       }
@@ -629,9 +621,7 @@ public final class BitmapContainer extends Container implements Cloneable {
       newCardinality += Long.bitCount(this.bitmap[k] & (~b2.bitmap[k]));
     }
     if (newCardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
-      for (int k = 0; k < this.bitmap.length; ++k) {
-        this.bitmap[k] = this.bitmap[k] & (~b2.bitmap[k]);
-      }
+      BitmapShim.andNot(this.bitmap, b2.bitmap, this.bitmap, this.bitmap.length);
       this.cardinality = newCardinality;
       return this;
     }
@@ -671,9 +661,7 @@ public final class BitmapContainer extends Container implements Cloneable {
 
   Container ilazyor(BitmapContainer x) {
     this.cardinality = -1; // invalid
-    for (int k = 0; k < this.bitmap.length; k++) {
-      this.bitmap[k] |= x.bitmap[k];
-    }
+    BitmapShim.or(this.bitmap, x.bitmap, this.bitmap, this.bitmap.length);
     return this;
   }
 
@@ -771,9 +759,8 @@ public final class BitmapContainer extends Container implements Cloneable {
 
   @Override
   public Container ior(final BitmapContainer b2) {
-    for (int k = 0; k < this.bitmap.length & k < b2.bitmap.length; k++) {
-      this.bitmap[k] |= b2.bitmap[k];
-    }
+    BitmapShim.or(
+        this.bitmap, b2.bitmap, this.bitmap, Math.min(this.bitmap.length, b2.bitmap.length));
     computeCardinality();
     if (isFull()) {
       return RunContainer.full();
@@ -859,9 +846,8 @@ public final class BitmapContainer extends Container implements Cloneable {
   public Container ixor(BitmapContainer b2) {
     // do this first because we have to compute the xor no matter what, and this loop gets
     // vectorized and is faster than computing the cardinality or filling the array
-    for (int k = 0; k < this.bitmap.length & k < b2.bitmap.length; ++k) {
-      this.bitmap[k] ^= b2.bitmap[k];
-    }
+    BitmapShim.xor(
+        this.bitmap, b2.bitmap, this.bitmap, Math.min(this.bitmap.length, b2.bitmap.length));
     // now count the bits
     computeCardinality();
     if (cardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
@@ -902,9 +888,7 @@ public final class BitmapContainer extends Container implements Cloneable {
   protected Container lazyor(BitmapContainer x) {
     BitmapContainer answer = new BitmapContainer();
     answer.cardinality = -1; // invalid
-    for (int k = 0; k < this.bitmap.length; k++) {
-      answer.bitmap[k] = this.bitmap[k] | x.bitmap[k];
-    }
+    BitmapShim.or(this.bitmap, x.bitmap, answer.bitmap, this.bitmap.length);
     return answer;
   }
 
@@ -1239,6 +1223,10 @@ public final class BitmapContainer extends Container implements Cloneable {
     int sizeAsRunContainer = RunContainer.serializedSizeInBytes(numRuns);
 
     if (getArraySizeInBytes() > sizeAsRunContainer) {
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.BITMAP, ContainerType.RUN);
+      }
       return new RunContainer(this, numRuns);
     } else {
       return this;
@@ -1319,6 +1307,10 @@ public final class BitmapContainer extends Container implements Cloneable {
     if (ac.getCardinality() != cardinality) {
       throw new RuntimeException("Internal error.");
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.BITMAP, ContainerType.ARRAY);
+    }
     return ac;
   }
 
@@ -1403,9 +1395,7 @@ public final class BitmapContainer extends Container implements Cloneable {
     }
     if (newCardinality > ArrayContainer.DEFAULT_MAX_SIZE) {
       final BitmapContainer answer = new BitmapContainer();
-      for (int k = 0; k < answer.bitmap.length; ++k) {
-        answer.bitmap[k] = this.bitmap[k] ^ value2.bitmap[k];
-      }
+      BitmapShim.xor(this.bitmap, value2.bitmap, answer.bitmap, answer.bitmap.length);
       answer.cardinality = newCardinality;
       return answer;
     }
@@ -0,0 +1,73 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+/**
+ * Receives the operations of the bitmaps, once registered with
+ * {@link BitmapListeners#register(BitmapListener)}. The methods are called synchronously by the
+ * thread performing the operation, possibly by several threads at once, so an implementation
+ * should be thread-safe and fast. All the methods do nothing by default.
+ *
+ * @see org.roaringbitmap.insights.OperationRecorder
+ */
+public interface BitmapListener {
+
+  /**
+   * The operations reported to a listener.
+   */
+  enum Operation {
+    AND,
+    OR,
+    XOR,
+    /**
+     * A query of a {@link RangeBitmap}.
+     */
+    RANGE
+  }
+
+  /**
+   * Called once an operation is done.
+   *
+   * @param source the class which performed the operation, e.g. {@link RoaringBitmap} or
+   *     {@link FastAggregation}
+   * @param operation the operation
+   * @param nanos the time the operation took, in nanoseconds
+   */
+  default void onOperation(Class<?> source, Operation operation, long nanos) {}
+
+  /**
+   * Called for each pair of containers with the same key combined by an operation between two
+   * bitmaps.
+   *
+   * @param operation the operation
+   * @param left the type of the container of the first bitmap
+   * @param right the type of the container of the second bitmap
+   */
+  default void onContainerPair(Operation operation, ContainerType left, ContainerType right) {}
+
+  /**
+   * Called when a container is converted to another type.
+   *
+   * @param from the previous type of the container
+   * @param to the new type of the container
+   */
+  default void onConversion(ContainerType from, ContainerType to) {}
+
+  /**
+   * Called once a bitmap is serialized.
+   *
+   * @param source the class of the bitmap
+   * @param bytes the number of bytes written
+   */
+  default void onSerialization(Class<?> source, long bytes) {}
+
+  /**
+   * Called once a bitmap is deserialized.
+   *
+   * @param source the class of the bitmap
+   * @param bytes the number of bytes read
+   */
+  default void onDeserialization(Class<?> source, long bytes) {}
+}
@@ -0,0 +1,48 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+/**
+ * The switch and the registry of the {@link BitmapListener}.
+ *
+ * The listener is only called when the JVM is started with
+ * {@code -Dorg.roaringbitmap.instrumentation=true}. Otherwise {@link #ENABLED} is false, which the
+ * JIT compiler folds: {@link #get()} is then the constant null and the instrumented operations run
+ * as if they were not instrumented. When it is enabled, but no listener is registered, each
+ * instrumented operation costs a volatile read.
+ */
+public final class BitmapListeners {
+
+  /**
+   * Whether the operations may be reported to a listener, set by the system property
+   * {@code org.roaringbitmap.instrumentation}.
+   */
+  public static final boolean ENABLED = Boolean.getBoolean("org.roaringbitmap.instrumentation");
+
+  private static volatile BitmapListener listener;
+
+  private BitmapListeners() {}
+
+  /**
+   * Registers the listener of the operations of all the bitmaps, in place of the previous one.
+   *
+   * @param listener the listener, null to unregister the previous one
+   * @throws IllegalStateException if the instrumentation is not {@link #ENABLED}
+   */
+  public static void register(BitmapListener listener) {
+    if (!ENABLED) {
+      throw new IllegalStateException(
+          "the instrumentation is disabled, set -Dorg.roaringbitmap.instrumentation=true");
+    }
+    BitmapListeners.listener = listener;
+  }
+
+  /**
+   * @return the registered listener, null if there is none or if the instrumentation is disabled
+   */
+  public static BitmapListener get() {
+    return ENABLED ? listener : null;
+  }
+}
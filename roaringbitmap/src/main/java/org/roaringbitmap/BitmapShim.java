@@ -0,0 +1,64 @@
+package org.roaringbitmap;
+
+/**
+ * Shim over the word-wise logical operations of bitmap containers to support multi-release.
+ * On JDK17+ these loops may be replaced by kernels written with the Vector API.
+ */
+public class BitmapShim {
+
+  /**
+   * Computes the bitwise AND of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void and(long[] x, long[] y, long[] out, int length) {
+    for (int k = 0; k < length; ++k) {
+      out[k] = x[k] & y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise ANDNOT of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the array of words to clear from the first
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void andNot(long[] x, long[] y, long[] out, int length) {
+    for (int k = 0; k < length; ++k) {
+      out[k] = x[k] & ~y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise OR of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void or(long[] x, long[] y, long[] out, int length) {
+    for (int k = 0; k < length; ++k) {
+      out[k] = x[k] | y[k];
+    }
+  }
+
+  /**
+   * Computes the bitwise XOR of two word arrays. The output may alias either input.
+   *
+   * @param x the first array
+   * @param y the second array
+   * @param out the array to write the result to
+   * @param length the number of words to combine
+   */
+  public static void xor(long[] x, long[] y, long[] out, int length) {
+    for (int k = 0; k < length; ++k) {
+      out[k] = x[k] ^ y[k];
+    }
+  }
+}
@@ -0,0 +1,403 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe bitmap of 32-bit integers, for bitmaps which are written by some threads while
+ * others read them.
+ *
+ * The containers are spread over a number of stripes by their key (the 16 high bits of the
+ * values), each stripe being a {@link RoaringBitmap} guarded by its own {@link StampedLock}. Writes
+ * only lock the stripe of the values they change, so that writers to different containers do not
+ * contend. {@link #contains(int)} first tries an optimistic read, which takes no lock at all, and
+ * only falls back to the read lock when a write to the same stripe happened concurrently.
+ *
+ * Operations over the whole bitmap ({@link #getLongCardinality()}, {@link #toRoaringBitmap()},
+ * {@link #snapshot()}, iteration...) read lock all the stripes at once, so that they see a state of
+ * the bitmap which actually existed. Iteration is done over such a copy, and is never affected by
+ * the writes done meanwhile.
+ *
+ * <pre>
+ * {@code
+ *   ConcurrentRoaringBitmap bitmap = new ConcurrentRoaringBitmap();
+ *   // from any thread
+ *   bitmap.add(x);
+ *   // from any other thread
+ *   if (bitmap.contains(x)) {...}
+ *   ImmutableRoaringBitmap view = bitmap.snapshot();
+ * }
+ * </pre>
+ */
+public class ConcurrentRoaringBitmap implements Iterable<Integer> {
+
+  private static final int DEFAULT_STRIPES = 64;
+  // the operations over the whole bitmap lock every stripe
+  private static final int MAX_STRIPES = 1 << 10;
+
+  private static final class Stripe {
+    final StampedLock lock = new StampedLock();
+    final RoaringBitmap bitmap = new RoaringBitmap();
+  }
+
+  private final Stripe[] stripes;
+
+  /**
+   * Creates an empty bitmap with the default number of stripes.
+   */
+  public ConcurrentRoaringBitmap() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates an empty bitmap.
+   *
+   * @param stripes the number of independently locked parts of the bitmap, rounded up to a power of
+   *     two and at most 1024. More stripes mean less contention between writers, but slower
+   *     operations over the whole bitmap.
+   */
+  public ConcurrentRoaringBitmap(int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes should be positive: " + stripes);
+    }
+    int count = Math.min(stripes, MAX_STRIPES);
+    this.stripes = new Stripe[count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1];
+    for (int i = 0; i < this.stripes.length; ++i) {
+      this.stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Creates a bitmap holding the values of a bitmap.
+   *
+   * @param bitmap the values to add
+   * @return a new bitmap
+   */
+  public static ConcurrentRoaringBitmap of(RoaringBitmap bitmap) {
+    ConcurrentRoaringBitmap result = new ConcurrentRoaringBitmap();
+    RoaringArray highLowContainer = bitmap.highLowContainer;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      char key = highLowContainer.getKeyAtIndex(i);
+      result
+          .stripe(key)
+          .bitmap
+          .highLowContainer
+          .append(key, highLowContainer.getContainerAtIndex(i).clone());
+    }
+    return result;
+  }
+
+  private Stripe stripe(char key) {
+    return stripes[key & (stripes.length - 1)];
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param x the value to add
+   */
+  public void add(int x) {
+    Stripe stripe = stripe(Util.highbits(x));
+    long stamp = stripe.lock.writeLock();
+    try {
+      stripe.bitmap.add(x);
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param x the value to add
+   * @return true if the value was not already in the bitmap
+   */
+  public boolean checkedAdd(int x) {
+    Stripe stripe = stripe(Util.highbits(x));
+    long stamp = stripe.lock.writeLock();
+    try {
+      return stripe.bitmap.checkedAdd(x);
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Adds values, locking each stripe once per run of values sharing the same 16 high bits: sorted
+   * values are added faster.
+   *
+   * @param values the values to add
+   * @param offset the index of the first value to add
+   * @param n the number of values to add
+   */
+  public void addN(int[] values, int offset, int n) {
+    if (offset < 0 || n < 0 || offset > values.length - n) {
+      throw new IllegalArgumentException(
+          "offset " + offset + " and n " + n + " out of bounds of " + values.length + " values");
+    }
+    int end = offset + n;
+    for (int i = offset; i < end; ) {
+      char key = Util.highbits(values[i]);
+      int j = i + 1;
+      while (j < end && Util.highbits(values[j]) == key) {
+        ++j;
+      }
+      Stripe stripe = stripe(key);
+      long stamp = stripe.lock.writeLock();
+      try {
+        stripe.bitmap.addN(values, i, j - i);
+      } finally {
+        stripe.lock.unlockWrite(stamp);
+      }
+      i = j;
+    }
+  }
+
+  /**
+   * Adds values.
+   *
+   * @param values the values to add
+   */
+  public void add(int... values) {
+    addN(values, 0, values.length);
+  }
+
+  /**
+   * Removes a value.
+   *
+   * @param x the value to remove
+   */
+  public void remove(int x) {
+    Stripe stripe = stripe(Util.highbits(x));
+    long stamp = stripe.lock.writeLock();
+    try {
+      stripe.bitmap.remove(x);
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes a value.
+   *
+   * @param x the value to remove
+   * @return true if the value was in the bitmap
+   */
+  public boolean checkedRemove(int x) {
+    Stripe stripe = stripe(Util.highbits(x));
+    long stamp = stripe.lock.writeLock();
+    try {
+      return stripe.bitmap.checkedRemove(x);
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Checks whether the value is included. This takes no lock unless the stripe of the value is
+   * written concurrently.
+   *
+   * @param x the value to check
+   * @return whether the value is in the bitmap
+   */
+  public boolean contains(int x) {
+    Stripe stripe = stripe(Util.highbits(x));
+    long stamp = stripe.lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        boolean result = stripe.bitmap.contains(x);
+        if (stripe.lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // a concurrent write left the stripe inconsistent, retry under the read lock
+      }
+    }
+    stamp = stripe.lock.readLock();
+    try {
+      return stripe.bitmap.contains(x);
+    } finally {
+      stripe.lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Removes all the values.
+   */
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      long stamp = stripe.lock.writeLock();
+      try {
+        stripe.bitmap.clear();
+      } finally {
+        stripe.lock.unlockWrite(stamp);
+      }
+    }
+  }
+
+  /**
+   * Converts the containers of every stripe to their most compact representation, see
+   * {@link RoaringBitmap#runOptimize()}.
+   *
+   * @return whether a container was changed
+   */
+  public boolean runOptimize() {
+    boolean changed = false;
+    for (Stripe stripe : stripes) {
+      long stamp = stripe.lock.writeLock();
+      try {
+        changed |= stripe.bitmap.runOptimize();
+      } finally {
+        stripe.lock.unlockWrite(stamp);
+      }
+    }
+    return changed;
+  }
+
+  // the stripes are locked in order, and writers only ever hold a single lock: no deadlock
+  private long[] readLockAll() {
+    long[] stamps = new long[stripes.length];
+    for (int i = 0; i < stripes.length; ++i) {
+      stamps[i] = stripes[i].lock.readLock();
+    }
+    return stamps;
+  }
+
+  private void unlockReadAll(long[] stamps) {
+    for (int i = 0; i < stripes.length; ++i) {
+      stripes[i].lock.unlockRead(stamps[i]);
+    }
+  }
+
+  /**
+   * Returns the number of values in the bitmap at some point during the call.
+   *
+   * @return the cardinality
+   */
+  public long getLongCardinality() {
+    long[] stamps = readLockAll();
+    try {
+      long cardinality = 0;
+      for (Stripe stripe : stripes) {
+        cardinality += stripe.bitmap.getLongCardinality();
+      }
+      return cardinality;
+    } finally {
+      unlockReadAll(stamps);
+    }
+  }
+
+  /**
+   * Returns the number of values in the bitmap at some point during the call.
+   *
+   * @return the cardinality, as an int
+   */
+  public int getCardinality() {
+    return (int) getLongCardinality();
+  }
+
+  /**
+   * Checks whether the bitmap was empty at some point during the call.
+   *
+   * @return true if there was no value
+   */
+  public boolean isEmpty() {
+    long[] stamps = readLockAll();
+    try {
+      for (Stripe stripe : stripes) {
+        if (!stripe.bitmap.isEmpty()) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      unlockReadAll(stamps);
+    }
+  }
+
+  /**
+   * Copies the bitmap. All the stripes are read locked while the containers are copied, so the
+   * copy holds the values of the bitmap at some point during the call.
+   *
+   * @return a new bitmap, independent of this one
+   */
+  public RoaringBitmap toRoaringBitmap() {
+    long[] stamps = readLockAll();
+    try {
+      int size = 0;
+      for (Stripe stripe : stripes) {
+        size += stripe.bitmap.highLowContainer.size();
+      }
+      // the keys of the stripes are distinct, so sorting them once with the index of their
+      // container in the copy gives the order of the result
+      long[] keys = new long[size];
+      Container[] containers = new Container[size];
+      int n = 0;
+      for (Stripe stripe : stripes) {
+        RoaringArray highLowContainer = stripe.bitmap.highLowContainer;
+        for (int i = 0; i < highLowContainer.size(); ++i, ++n) {
+          keys[n] = (long) highLowContainer.getKeyAtIndex(i) << 32 | n;
+          containers[n] = highLowContainer.getContainerAtIndex(i).clone();
+        }
+      }
+      Arrays.sort(keys);
+      RoaringBitmap result = new RoaringBitmap();
+      for (long key : keys) {
+        result.highLowContainer.append((char) (key >>> 32), containers[(int) key]);
+      }
+      return result;
+    } finally {
+      unlockReadAll(stamps);
+    }
+  }
+
+  /**
+   * Takes a snapshot of the bitmap, see {@link #toRoaringBitmap()}. The snapshot is not affected by
+   * the later writes to this bitmap, and can be shared between threads.
+   *
+   * @return the values of the bitmap at some point during the call
+   */
+  public ImmutableRoaringBitmap snapshot() {
+    return toRoaringBitmap().toMutableRoaringBitmap();
+  }
+
+  /**
+   * Iterates over a snapshot of the bitmap, see {@link #toRoaringBitmap()}.
+   *
+   * @return an iterator over the values of the bitmap at some point during the call
+   */
+  public PeekableIntIterator getIntIterator() {
+    return toRoaringBitmap().getIntIterator();
+  }
+
+  /**
+   * Iterates over a snapshot of the bitmap, see {@link #toRoaringBitmap()}.
+   *
+   * @return an iterator over the values of the bitmap at some point during the call
+   */
+  @Override
+  public Iterator<Integer> iterator() {
+    return toRoaringBitmap().iterator();
+  }
+
+  /**
+   * Visits the values of a snapshot of the bitmap, see {@link #toRoaringBitmap()}.
+   *
+   * @param ic the consumer of the values
+   */
+  public void forEach(IntConsumer ic) {
+    toRoaringBitmap().forEach(ic);
+  }
+
+  @Override
+  public String toString() {
+    return toRoaringBitmap().toString();
+  }
+}
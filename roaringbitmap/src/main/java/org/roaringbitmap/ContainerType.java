@@ -0,0 +1,53 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import org.roaringbitmap.buffer.MappeableBitmapContainer;
+import org.roaringbitmap.buffer.MappeableContainer;
+import org.roaringbitmap.buffer.MappeableRunContainer;
+
+/**
+ * The encodings of the containers of the 16 low bits of the values sharing the same 16 high bits.
+ */
+public enum ContainerType {
+  /**
+   * A sorted array of the values, for at most 4096 values.
+   */
+  ARRAY,
+  /**
+   * A bitmap of 65536 bits, for more than 4096 values.
+   */
+  BITMAP,
+  /**
+   * A sorted array of the runs of consecutive values.
+   */
+  RUN;
+
+  /**
+   * Returns the type of a container.
+   *
+   * @param container the container
+   * @return its encoding
+   */
+  public static ContainerType of(Container container) {
+    if (container instanceof RunContainer) {
+      return RUN;
+    }
+    return container instanceof BitmapContainer ? BITMAP : ARRAY;
+  }
+
+  /**
+   * Returns the type of a container.
+   *
+   * @param container the container
+   * @return its encoding
+   */
+  public static ContainerType of(MappeableContainer container) {
+    if (container instanceof MappeableRunContainer) {
+      return RUN;
+    }
+    return container instanceof MappeableBitmapContainer ? BITMAP : ARRAY;
+  }
+}
@@ -4,6 +4,8 @@
 
 package org.roaringbitmap;
 
+import org.roaringbitmap.BitmapListener.Operation;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -28,7 +30,9 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap and(Iterator<? extends RoaringBitmap> bitmaps) {
-    return naive_and(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.AND, start, naive_and(bitmaps));
   }
 
   /**
@@ -39,10 +43,12 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap and(RoaringBitmap... bitmaps) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     if (bitmaps.length > 10) {
-      return workShyAnd(new long[1024], bitmaps);
+      return reported(listener, Operation.AND, start, workShyAnd(new long[1024], bitmaps));
     }
-    return naive_and(bitmaps);
+    return reported(listener, Operation.AND, start, naive_and(bitmaps));
   }
 
   /**
@@ -53,17 +59,19 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap and(long[] aggregationBuffer, RoaringBitmap... bitmaps) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     if (bitmaps.length > 10) {
       if (aggregationBuffer.length < 1024) {
         throw new IllegalArgumentException("buffer should have at least 1024 elements.");
       }
       try {
-        return workShyAnd(aggregationBuffer, bitmaps);
+        return reported(listener, Operation.AND, start, workShyAnd(aggregationBuffer, bitmaps));
       } finally {
         Arrays.fill(aggregationBuffer, 0L);
       }
     }
-    return naive_and(bitmaps);
+    return reported(listener, Operation.AND, start, naive_and(bitmaps));
   }
 
   /**
@@ -583,7 +591,9 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap or(Iterator<? extends RoaringBitmap> bitmaps) {
-    return naive_or(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.OR, start, naive_or(bitmaps));
   }
 
   /**
@@ -594,7 +604,9 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap or(RoaringBitmap... bitmaps) {
-    return naive_or(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.OR, start, naive_or(bitmaps));
   }
 
   /**
@@ -761,7 +773,9 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap xor(Iterator<? extends RoaringBitmap> bitmaps) {
-    return naive_xor(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.XOR, start, naive_xor(bitmaps));
   }
 
   /**
@@ -772,7 +786,17 @@ public final class FastAggregation {
    * @return aggregated bitmap
    */
   public static RoaringBitmap xor(RoaringBitmap... bitmaps) {
-    return naive_xor(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.XOR, start, naive_xor(bitmaps));
+  }
+
+  private static RoaringBitmap reported(
+      BitmapListener listener, Operation operation, long start, RoaringBitmap answer) {
+    if (listener != null) {
+      listener.onOperation(FastAggregation.class, operation, System.nanoTime() - start);
+    }
+    return answer;
   }
 
   /**
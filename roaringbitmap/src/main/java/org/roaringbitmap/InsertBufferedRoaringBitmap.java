@@ -0,0 +1,311 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A bitmap of 32-bit integers for high rates of insertions in random order.
+ *
+ * Adding values in random order to a {@link RoaringBitmap} mostly costs shifting the contents of
+ * array containers to insert each value at its place, and converting the containers as they grow.
+ * This bitmap instead appends the added values to an unsorted buffer. When the buffer is full, or
+ * before any read, the buffered values are sorted by their key with
+ * {@link Util#partialRadixSort(int[])}, and each group of values sharing the same key is merged
+ * into its container at once.
+ *
+ * The buffered values are visible to all the reads: {@link #contains(int)} only merges the buffer
+ * when the value is not already in the bitmap, and the other reads always merge it first. Like
+ * {@link RoaringBitmap}, this class is not thread-safe.
+ *
+ * <pre>
+ * {@code
+ *   InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap();
+ *   for (int x : events) {
+ *     bitmap.add(x);
+ *   }
+ *   RoaringBitmap result = bitmap.getBitmap();
+ * }
+ * </pre>
+ */
+public class InsertBufferedRoaringBitmap implements Iterable<Integer> {
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private final RoaringBitmap bitmap;
+  private final int[] buffer;
+  private int buffered;
+
+  /**
+   * Creates an empty bitmap with the default buffer size.
+   */
+  public InsertBufferedRoaringBitmap() {
+    this(new RoaringBitmap(), DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates an empty bitmap.
+   *
+   * @param bufferSize the number of values buffered before they are merged into the bitmap
+   */
+  public InsertBufferedRoaringBitmap(int bufferSize) {
+    this(new RoaringBitmap(), bufferSize);
+  }
+
+  /**
+   * Buffers the insertions into a bitmap. The bitmap should only be accessed through
+   * {@link #getBitmap()} from now on, or it may miss the buffered values.
+   *
+   * @param bitmap the bitmap receiving the values
+   * @param bufferSize the number of values buffered before they are merged into the bitmap
+   */
+  public InsertBufferedRoaringBitmap(RoaringBitmap bitmap, int bufferSize) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize should be positive: " + bufferSize);
+    }
+    this.bitmap = bitmap;
+    this.buffer = new int[bufferSize];
+  }
+
+  /**
+   * Adds a value. The value is only buffered, and merged into the bitmap when the buffer is full or
+   * before the next read.
+   *
+   * @param x the value to add
+   */
+  public void add(int x) {
+    buffer[buffered++] = x;
+    if (buffered == buffer.length) {
+      flush();
+    }
+  }
+
+  /**
+   * Adds values, in any order.
+   *
+   * @param values the values to add
+   */
+  public void add(int... values) {
+    addN(values, 0, values.length);
+  }
+
+  /**
+   * Adds values, in any order.
+   *
+   * @param values the values to add
+   * @param offset the index of the first value to add
+   * @param n the number of values to add
+   */
+  public void addN(int[] values, int offset, int n) {
+    if (offset < 0 || n < 0 || offset > values.length - n) {
+      throw new IllegalArgumentException(
+          "offset " + offset + " and n " + n + " out of bounds of " + values.length + " values");
+    }
+    while (n > 0) {
+      int length = Math.min(n, buffer.length - buffered);
+      System.arraycopy(values, offset, buffer, buffered, length);
+      buffered += length;
+      offset += length;
+      n -= length;
+      if (buffered == buffer.length) {
+        flush();
+      }
+    }
+  }
+
+  /**
+   * Removes a value, after merging the buffered values.
+   *
+   * @param x the value to remove
+   */
+  public void remove(int x) {
+    flush();
+    bitmap.remove(x);
+  }
+
+  /**
+   * Checks whether the value is included, either in the bitmap or in the buffer. The buffer is only
+   * merged when the bitmap does not already contain the value.
+   *
+   * @param x the value to check
+   * @return whether the value is included
+   */
+  public boolean contains(int x) {
+    if (bitmap.contains(x)) {
+      return true;
+    }
+    if (buffered == 0) {
+      return false;
+    }
+    flush();
+    return bitmap.contains(x);
+  }
+
+  /**
+   * Returns the number of values, after merging the buffered values.
+   *
+   * @return the cardinality
+   */
+  public long getLongCardinality() {
+    return getBitmap().getLongCardinality();
+  }
+
+  /**
+   * Returns the number of values, after merging the buffered values.
+   *
+   * @return the cardinality, as an int
+   */
+  public int getCardinality() {
+    return getBitmap().getCardinality();
+  }
+
+  /**
+   * Checks whether the bitmap is empty.
+   *
+   * @return true if there is no value, neither in the bitmap nor in the buffer
+   */
+  public boolean isEmpty() {
+    return buffered == 0 && bitmap.isEmpty();
+  }
+
+  /**
+   * Removes all the values, including the buffered ones.
+   */
+  public void clear() {
+    buffered = 0;
+    bitmap.clear();
+  }
+
+  /**
+   * Merges the buffered values, and converts the containers to their most compact representation,
+   * see {@link RoaringBitmap#runOptimize()}.
+   *
+   * @return whether a container was changed
+   */
+  public boolean runOptimize() {
+    return getBitmap().runOptimize();
+  }
+
+  /**
+   * Merges the buffered values and returns the underlying bitmap, which can then be read or
+   * modified directly until the next insertion into this bitmap.
+   *
+   * @return the bitmap holding all the added values
+   */
+  public RoaringBitmap getBitmap() {
+    flush();
+    return bitmap;
+  }
+
+  /**
+   * Merges the buffered values into the bitmap.
+   */
+  public void flush() {
+    if (buffered == 0) {
+      return;
+    }
+    int[] values = buffered == buffer.length ? buffer : Arrays.copyOf(buffer, buffered);
+    int n = buffered;
+    buffered = 0;
+    // groups the values by key, in increasing order of the keys
+    Util.partialRadixSort(values);
+    RoaringArray highLowContainer = bitmap.highLowContainer;
+    for (int i = 0; i < n; ) {
+      char key = Util.highbits(values[i]);
+      int j = i + 1;
+      while (j < n && Util.highbits(values[j]) == key) {
+        ++j;
+      }
+      int index = highLowContainer.getIndex(key);
+      if (index < 0) {
+        highLowContainer.insertNewKeyValueAt(-index - 1, key, toContainer(values, i, j));
+      } else {
+        Container container = highLowContainer.getContainerAtIndex(index);
+        Container updated = merge(container, values, i, j);
+        if (updated != container) {
+          highLowContainer.setContainerAtIndex(index, updated);
+        }
+      }
+      i = j;
+    }
+  }
+
+  private static Container merge(Container container, int[] values, int from, int to) {
+    if (container instanceof BitmapContainer) {
+      for (int i = from; i < to; ++i) {
+        container = container.add(Util.lowbits(values[i]));
+      }
+      return container;
+    }
+    if (container instanceof ArrayContainer) {
+      Arrays.sort(values, from, to);
+      return ((ArrayContainer) container).iaddSorted(values, from, to);
+    }
+    return container.ior(toContainer(values, from, to));
+  }
+
+  // builds the container of values sharing the same key, which may be unsorted and duplicated
+  private static Container toContainer(int[] values, int from, int to) {
+    if (to - from <= ArrayContainer.DEFAULT_MAX_SIZE) {
+      // the values share their high bits: they sort like their low bits
+      Arrays.sort(values, from, to);
+      char[] content = new char[to - from];
+      int cardinality = 0;
+      for (int i = from; i < to; ++i) {
+        char low = Util.lowbits(values[i]);
+        if (cardinality == 0 || content[cardinality - 1] != low) {
+          content[cardinality++] = low;
+        }
+      }
+      return new ArrayContainer(cardinality, content);
+    }
+    long[] words = new long[BitmapContainer.MAX_CAPACITY / 64];
+    for (int i = from; i < to; ++i) {
+      words[Util.lowbits(values[i]) >>> 6] |= 1L << values[i];
+    }
+    int cardinality = 0;
+    for (long word : words) {
+      cardinality += Long.bitCount(word);
+    }
+    BitmapContainer container = new BitmapContainer(words, cardinality);
+    return cardinality > ArrayContainer.DEFAULT_MAX_SIZE ? container : container.toArrayContainer();
+  }
+
+  /**
+   * Iterates over the values, after merging the buffered values. The bitmap should not be modified
+   * during the iteration.
+   *
+   * @return an iterator over the values
+   */
+  public PeekableIntIterator getIntIterator() {
+    return getBitmap().getIntIterator();
+  }
+
+  /**
+   * Iterates over the values, after merging the buffered values. The bitmap should not be modified
+   * during the iteration.
+   *
+   * @return an iterator over the values
+   */
+  @Override
+  public Iterator<Integer> iterator() {
+    return getBitmap().iterator();
+  }
+
+  /**
+   * Visits the values, after merging the buffered values.
+   *
+   * @param ic the consumer of the values
+   */
+  public void forEach(IntConsumer ic) {
+    getBitmap().forEach(ic);
+  }
+
+  @Override
+  public String toString() {
+    return getBitmap().toString();
+  }
+}
@@ -1,6 +1,8 @@
 package org.roaringbitmap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -20,8 +22,9 @@ import java.util.stream.IntStream;
 /**
  *
  * These utility methods provide parallel implementations of
- * logical aggregation operators. AND is not implemented
- * because it is unlikely to be profitable.
+ * logical aggregation operators. Intersections and differences
+ * are partitioned by key: each key present in the result is
+ * computed independently of the others.
  *
  * There is a temporary memory overhead in using these methods,
  * since a materialisation of the rotated containers grouped by key
@@ -42,6 +45,9 @@ import java.util.stream.IntStream;
  *       RoaringBitmap result = executor.submit(() -> ParallelAggregation.or(bitmaps)).get();
  * }
  * </pre>
+ *
+ * The AND, ANDNOT and AND cardinality operators also accept a {@link ForkJoinPool}
+ * directly, in which case the aggregation runs on the supplied pool.
  */
 public class ParallelAggregation {
 
@@ -187,6 +193,155 @@ public class ParallelAggregation {
     return groupByKey(bitmaps).entrySet().parallelStream().collect(XOR);
   }
 
+  /**
+   * Computes the intersection of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static RoaringBitmap and(RoaringBitmap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return new RoaringBitmap();
+    }
+    if (bitmaps.length == 1) {
+      return bitmaps[0].clone();
+    }
+    char[] keys = Util.intersectKeys(new long[1 << 10], bitmaps);
+    Container[] values = new Container[keys.length];
+    IntStream.range(0, keys.length)
+        .parallel()
+        .forEach(position -> values[position] = and(keys[position], bitmaps));
+    return new RoaringBitmap(new RoaringArray(keys, values, compact(keys, values)));
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static RoaringBitmap and(ForkJoinPool pool, RoaringBitmap... bitmaps) {
+    return pool.submit(() -> and(bitmaps)).join();
+  }
+
+  /**
+   * Computes the cardinality of the intersection of the input bitmaps,
+   * without materialising the last intersection of each key.
+   * @param bitmaps the input bitmaps
+   * @return the cardinality of the intersection of the bitmaps
+   */
+  public static int andCardinality(RoaringBitmap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return 0;
+    }
+    if (bitmaps.length == 1) {
+      return bitmaps[0].getCardinality();
+    }
+    char[] keys = Util.intersectKeys(new long[1 << 10], bitmaps);
+    return IntStream.range(0, keys.length)
+        .parallel()
+        .map(position -> andCardinality(keys[position], bitmaps))
+        .sum();
+  }
+
+  /**
+   * Computes the cardinality of the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the cardinality of the intersection of the bitmaps
+   */
+  public static int andCardinality(ForkJoinPool pool, RoaringBitmap... bitmaps) {
+    return pool.submit(() -> andCardinality(bitmaps)).join();
+  }
+
+  /**
+   * Computes the difference between the base bitmap and the union of the subtrahends
+   * @param base the bitmap to subtract from
+   * @param subtrahends the bitmaps to subtract
+   * @return the difference of the bitmaps
+   */
+  public static RoaringBitmap andNot(RoaringBitmap base, RoaringBitmap... subtrahends) {
+    RoaringArray ra = base.highLowContainer;
+    char[] keys = Arrays.copyOf(ra.keys, ra.size);
+    Container[] values = new Container[ra.size];
+    IntStream.range(0, ra.size)
+        .parallel()
+        .forEach(
+            position ->
+                values[position] = andNot(keys[position], ra.values[position], subtrahends));
+    return new RoaringBitmap(new RoaringArray(keys, values, compact(keys, values)));
+  }
+
+  /**
+   * Computes the difference between the base bitmap and the union of the subtrahends
+   * on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param base the bitmap to subtract from
+   * @param subtrahends the bitmaps to subtract
+   * @return the difference of the bitmaps
+   */
+  public static RoaringBitmap andNot(
+      ForkJoinPool pool, RoaringBitmap base, RoaringBitmap... subtrahends) {
+    return pool.submit(() -> andNot(base, subtrahends)).join();
+  }
+
+  private static Container[] slice(char key, RoaringBitmap[] bitmaps) {
+    Container[] slice = new Container[bitmaps.length];
+    for (int i = 0; i < bitmaps.length; ++i) {
+      RoaringArray ra = bitmaps[i].highLowContainer;
+      slice[i] = ra.values[ra.getIndex(key)];
+    }
+    // intersecting the smallest containers first shrinks the intermediate results quickly
+    Arrays.sort(slice, Comparator.comparingInt(Container::getCardinality));
+    return slice;
+  }
+
+  private static Container and(char key, RoaringBitmap[] bitmaps) {
+    Container[] slice = slice(key, bitmaps);
+    Container result = slice[0].and(slice[1]);
+    for (int i = 2; i < slice.length && !result.isEmpty(); ++i) {
+      result = result.iand(slice[i]);
+    }
+    return result;
+  }
+
+  private static int andCardinality(char key, RoaringBitmap[] bitmaps) {
+    Container[] slice = slice(key, bitmaps);
+    if (slice.length == 2) {
+      return slice[0].andCardinality(slice[1]);
+    }
+    Container result = slice[0].and(slice[1]);
+    for (int i = 2; i < slice.length - 1 && !result.isEmpty(); ++i) {
+      result = result.iand(slice[i]);
+    }
+    return result.andCardinality(slice[slice.length - 1]);
+  }
+
+  private static Container andNot(char key, Container container, RoaringBitmap[] subtrahends) {
+    Container result = container;
+    for (int i = 0; i < subtrahends.length && !result.isEmpty(); ++i) {
+      RoaringArray ra = subtrahends[i].highLowContainer;
+      int index = ra.getIndex(key);
+      if (index >= 0) {
+        result =
+            result == container
+                ? result.andNot(ra.values[index])
+                : result.iandNot(ra.values[index]);
+      }
+    }
+    return result == container ? container.clone() : result;
+  }
+
+  private static int compact(char[] keys, Container[] values) {
+    int size = 0;
+    for (int i = 0; i < keys.length; ++i) {
+      if (!values[i].isEmpty()) {
+        keys[size] = keys[i];
+        values[size++] = values[i];
+      }
+    }
+    return size;
+  }
+
   private static Container xor(List<Container> containers) {
     Container result = containers.get(0).clone();
     for (int i = 1; i < containers.size(); ++i) {
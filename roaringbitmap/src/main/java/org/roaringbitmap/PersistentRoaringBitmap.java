@@ -0,0 +1,362 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+/**
+ * An immutable bitmap of 32-bit integers, whose updates return new versions sharing with the
+ * previous one all the containers they do not change.
+ *
+ * The containers are held in a two-level table indexed by the high and the low byte of their key,
+ * so that a version changing n containers only allocates these n containers, at most n pages of
+ * 256 references and a root of 256 references, whatever the size of the bitmap. Neither the
+ * containers nor the tables of a version are ever modified once it is built: a version can be read
+ * by any number of threads without synchronization, and stays valid while newer versions are
+ * built. See {@link AtomicRoaringBitmap} to publish the versions to concurrent readers.
+ *
+ * <pre>
+ * {@code
+ *   PersistentRoaringBitmap v1 = PersistentRoaringBitmap.of(bitmap);
+ *   PersistentRoaringBitmap v2 = v1.add(1, 2, 3);
+ *   // v1 is unchanged, and shares all the containers but the first one with v2
+ * }
+ * </pre>
+ */
+public final class PersistentRoaringBitmap {
+
+  private static final int PAGE_BITS = 8;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private static final PersistentRoaringBitmap EMPTY =
+      new PersistentRoaringBitmap(new Container[PAGE_SIZE][], 0L);
+
+  // pages[key >>> 8][key & 0xFF] is the container of the key, a page is null when it is empty
+  private final Container[][] pages;
+  private final long cardinality;
+
+  private PersistentRoaringBitmap(Container[][] pages, long cardinality) {
+    this.pages = pages;
+    this.cardinality = cardinality;
+  }
+
+  /**
+   * Returns the empty bitmap.
+   *
+   * @return a bitmap without values
+   */
+  public static PersistentRoaringBitmap empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a version holding the values of a bitmap, which is copied.
+   *
+   * @param bitmap the values
+   * @return a new version
+   */
+  public static PersistentRoaringBitmap of(RoaringBitmap bitmap) {
+    return EMPTY.or(bitmap);
+  }
+
+  /**
+   * Creates a version holding some values.
+   *
+   * @param values the values
+   * @return a new version
+   */
+  public static PersistentRoaringBitmap bitmapOf(int... values) {
+    return EMPTY.or(RoaringBitmap.bitmapOf(values));
+  }
+
+  Container getContainer(char key) {
+    Container[] page = pages[key >>> PAGE_BITS];
+    return page == null ? null : page[key & PAGE_MASK];
+  }
+
+  /**
+   * Checks whether the value is included.
+   *
+   * @param x the value
+   * @return whether the value is in the bitmap
+   */
+  public boolean contains(int x) {
+    Container container = getContainer(Util.highbits(x));
+    return container != null && container.contains(Util.lowbits(x));
+  }
+
+  /**
+   * Returns the number of values.
+   *
+   * @return the cardinality
+   */
+  public long getLongCardinality() {
+    return cardinality;
+  }
+
+  /**
+   * Returns the number of values.
+   *
+   * @return the cardinality, as an int
+   */
+  public int getCardinality() {
+    return (int) cardinality;
+  }
+
+  /**
+   * Checks whether the bitmap is empty.
+   *
+   * @return true if there is no value
+   */
+  public boolean isEmpty() {
+    return cardinality == 0;
+  }
+
+  /**
+   * Returns a version with a value added, sharing all the other containers with this one.
+   *
+   * @param x the value to add
+   * @return a new version, or this one if the value was already included
+   */
+  public PersistentRoaringBitmap add(int x) {
+    char key = Util.highbits(x);
+    Container container = getContainer(key);
+    if (container != null && container.contains(Util.lowbits(x))) {
+      return this;
+    }
+    Container updated = container == null ? new ArrayContainer() : container.clone();
+    Editor editor = new Editor(this);
+    editor.set(key, updated.add(Util.lowbits(x)));
+    return editor.build();
+  }
+
+  /**
+   * Returns a version with values added, sharing all the containers without new values with this
+   * one.
+   *
+   * @param values the values to add
+   * @return a new version, or this one if all the values were already included
+   */
+  public PersistentRoaringBitmap add(int... values) {
+    return or(RoaringBitmap.bitmapOf(values));
+  }
+
+  /**
+   * Returns a version with a value removed, sharing all the other containers with this one.
+   *
+   * @param x the value to remove
+   * @return a new version, or this one if the value was not included
+   */
+  public PersistentRoaringBitmap remove(int x) {
+    char key = Util.highbits(x);
+    Container container = getContainer(key);
+    if (container == null || !container.contains(Util.lowbits(x))) {
+      return this;
+    }
+    Editor editor = new Editor(this);
+    editor.set(key, container.clone().remove(Util.lowbits(x)));
+    return editor.build();
+  }
+
+  /**
+   * Returns a version with values removed, sharing all the containers without removed values with
+   * this one.
+   *
+   * @param values the values to remove
+   * @return a new version, or this one if none of the values was included
+   */
+  public PersistentRoaringBitmap remove(int... values) {
+    return andNot(RoaringBitmap.bitmapOf(values));
+  }
+
+  /**
+   * Returns the union of this version and a bitmap, only building the containers which gain values.
+   * The bitmap is not modified, and the new version shares no container with it.
+   *
+   * @param other the values to add
+   * @return a new version, or this one if all the values of the bitmap were already included
+   */
+  public PersistentRoaringBitmap or(RoaringBitmap other) {
+    Editor editor = new Editor(this);
+    RoaringArray highLowContainer = other.highLowContainer;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      char key = highLowContainer.getKeyAtIndex(i);
+      Container container = highLowContainer.getContainerAtIndex(i);
+      Container previous = getContainer(key);
+      if (previous == null) {
+        editor.set(key, container.clone());
+      } else {
+        Container updated = previous.or(container);
+        if (updated.getCardinality() != previous.getCardinality()) {
+          editor.set(key, updated == container ? container.clone() : updated);
+        }
+      }
+    }
+    return editor.build();
+  }
+
+  /**
+   * Returns the difference of this version and a bitmap, only building the containers which lose
+   * values. The bitmap is not modified.
+   *
+   * @param other the values to remove
+   * @return a new version, or this one if none of the values of the bitmap was included
+   */
+  public PersistentRoaringBitmap andNot(RoaringBitmap other) {
+    Editor editor = new Editor(this);
+    RoaringArray highLowContainer = other.highLowContainer;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      char key = highLowContainer.getKeyAtIndex(i);
+      Container previous = getContainer(key);
+      if (previous != null) {
+        Container updated = previous.andNot(highLowContainer.getContainerAtIndex(i));
+        if (updated.getCardinality() != previous.getCardinality()) {
+          editor.set(key, updated);
+        }
+      }
+    }
+    return editor.build();
+  }
+
+  /**
+   * Computes the intersection of this version and a bitmap, which is not modified.
+   *
+   * @param other the other bitmap
+   * @return a new bitmap, sharing no container with this version
+   */
+  public RoaringBitmap and(RoaringBitmap other) {
+    RoaringBitmap result = new RoaringBitmap();
+    RoaringArray highLowContainer = other.highLowContainer;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      char key = highLowContainer.getKeyAtIndex(i);
+      Container container = getContainer(key);
+      if (container != null) {
+        Container and = container.and(highLowContainer.getContainerAtIndex(i));
+        if (!and.isEmpty()) {
+          result.highLowContainer.append(key, and == container ? and.clone() : and);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the cardinality of the intersection of this version and a bitmap.
+   *
+   * @param other the other bitmap
+   * @return the number of values in both bitmaps
+   */
+  public long andCardinality(RoaringBitmap other) {
+    long cardinality = 0;
+    RoaringArray highLowContainer = other.highLowContainer;
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      Container container = getContainer(highLowContainer.getKeyAtIndex(i));
+      if (container != null) {
+        cardinality += container.andCardinality(highLowContainer.getContainerAtIndex(i));
+      }
+    }
+    return cardinality;
+  }
+
+  /**
+   * Visits the values in increasing unsigned order.
+   *
+   * @param ic the consumer of the values
+   */
+  public void forEach(IntConsumer ic) {
+    for (int p = 0; p < PAGE_SIZE; ++p) {
+      Container[] page = pages[p];
+      if (page != null) {
+        for (int i = 0; i < PAGE_SIZE; ++i) {
+          if (page[i] != null) {
+            page[i].forEach((char) (p << PAGE_BITS | i), ic);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies the values into a mutable bitmap.
+   *
+   * @return a new bitmap, sharing no container with this version
+   */
+  public RoaringBitmap toRoaringBitmap() {
+    RoaringBitmap result = new RoaringBitmap();
+    for (int p = 0; p < PAGE_SIZE; ++p) {
+      Container[] page = pages[p];
+      if (page != null) {
+        for (int i = 0; i < PAGE_SIZE; ++i) {
+          if (page[i] != null) {
+            result.highLowContainer.append((char) (p << PAGE_BITS | i), page[i].clone());
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return toRoaringBitmap().toString();
+  }
+
+  // builds a version from another one, copying the root and each changed page at most once
+  private static final class Editor {
+
+    private final PersistentRoaringBitmap base;
+    // null until the first change
+    private Container[][] pages;
+    private long cardinality;
+
+    Editor(PersistentRoaringBitmap base) {
+      this.base = base;
+      this.cardinality = base.cardinality;
+    }
+
+    // the container must not be shared with a mutable bitmap
+    void set(char key, Container container) {
+      if (pages == null) {
+        pages = base.pages.clone();
+      }
+      int p = key >>> PAGE_BITS;
+      Container[] page = pages[p];
+      if (page == base.pages[p]) {
+        page = page == null ? new Container[PAGE_SIZE] : page.clone();
+        pages[p] = page;
+      }
+      Container previous = page[key & PAGE_MASK];
+      if (previous != null) {
+        cardinality -= previous.getCardinality();
+      }
+      if (container.isEmpty()) {
+        page[key & PAGE_MASK] = null;
+      } else {
+        page[key & PAGE_MASK] = container;
+        cardinality += container.getCardinality();
+      }
+    }
+
+    PersistentRoaringBitmap build() {
+      if (pages == null) {
+        return base;
+      }
+      for (int p = 0; p < PAGE_SIZE; ++p) {
+        if (pages[p] != base.pages[p] && isEmpty(pages[p])) {
+          pages[p] = null;
+        }
+      }
+      return new PersistentRoaringBitmap(pages, cardinality);
+    }
+
+    private static boolean isEmpty(Container[] page) {
+      for (Container container : page) {
+        if (container != null) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
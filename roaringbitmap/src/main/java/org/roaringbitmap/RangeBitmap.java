@@ -5,6 +5,7 @@ import static org.roaringbitmap.Util.cardinalityInBitmapRange;
 import static org.roaringbitmap.Util.resetBitmapRange;
 import static org.roaringbitmap.Util.setBitmapRange;
 
+import org.roaringbitmap.BitmapListener.Operation;
 import org.roaringbitmap.buffer.MappeableArrayContainer;
 import org.roaringbitmap.buffer.MappeableBitmapContainer;
 import org.roaringbitmap.buffer.MappeableContainer;
@@ -13,9 +14,16 @@ import org.roaringbitmap.buffer.MappeableRunContainer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.LongBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
 
 /**
  * A 2D bitmap which associates values with a row index and can perform range queries.
@@ -27,6 +35,9 @@ public final class RangeBitmap {
   private static final int RUN = 1;
   private static final int ARRAY = 2;
   private static final int BITMAP_SIZE = 8192;
+  private static final int HEADER_SIZE = 10;
+  // 16 chunks are 1M rows, too few rows do not amortize the cost of scheduling a task
+  private static final int MIN_CHUNKS_PER_TASK = 16;
 
   /**
    * Append values to the RangeBitmap before sealing it.
@@ -53,6 +64,116 @@ public final class RangeBitmap {
         maxValue, capacity -> ByteBuffer.allocate(capacity).order(LITTLE_ENDIAN), b -> {});
   }
 
+  /**
+   * Builds a RangeBitmap in parallel: ranges of rows aligned on chunks of 65536 rows are appended
+   * by separate tasks on the executor, and the partitions are then merged.
+   *
+   * @param maxValue the maximum value to be appended, values larger than this
+   *                 value will be rejected.
+   * @param rowCount the number of rows.
+   * @param values   provides the value of each row, must be safe to call from several threads.
+   * @param executor runs the appender of each range of rows.
+   * @return a queriable RangeBitmap
+   */
+  public static RangeBitmap build(
+      long maxValue, int rowCount, IntToLongFunction values, Executor executor) {
+    int chunks = (rowCount + 0xFFFF) >>> 16;
+    long rowsPerTask = (long) chunksPerTask(chunks) << 16;
+    List<CompletableFuture<Appender>> futures = new ArrayList<>();
+    for (long fromRow = 0; fromRow < rowCount; fromRow += rowsPerTask) {
+      int from = (int) fromRow;
+      int to = (int) Math.min(rowCount, fromRow + rowsPerTask);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                Appender appender = appender(maxValue);
+                for (int row = from; row < to; ++row) {
+                  appender.add(values.applyAsLong(row));
+                }
+                return appender;
+              },
+              executor));
+    }
+    if (futures.isEmpty()) {
+      return appender(maxValue).build();
+    }
+    return merge(joinAll(futures));
+  }
+
+  /**
+   * Merges appenders into a RangeBitmap, defaults to on heap ByteBuffers.
+   *
+   * @param partitions appenders created with the same maximum value, in row order.
+   * @return a queriable RangeBitmap
+   * @see #merge(List, IntFunction)
+   */
+  public static RangeBitmap merge(List<Appender> partitions) {
+    return merge(partitions, capacity -> ByteBuffer.allocate(capacity).order(LITTLE_ENDIAN));
+  }
+
+  /**
+   * Merges appenders which were filled independently, for instance by different threads, each
+   * with a contiguous range of rows: the first row of each partition follows the last row of the
+   * previous partition. All partitions but the last must hold a multiple of 65536 rows, so that
+   * the chunks of 65536 rows of each partition are copied as they are, without being decoded.
+   * The appenders are not modified and can be cleared for reuse.
+   *
+   * @param partitions appenders created with the same maximum value, in row order.
+   * @param supplier   provides an appropriate ByteBuffer to store into.
+   * @return a queriable RangeBitmap
+   */
+  public static RangeBitmap merge(List<Appender> partitions, IntFunction<ByteBuffer> supplier) {
+    if (partitions.isEmpty()) {
+      throw new IllegalArgumentException("There are no partitions to merge");
+    }
+    long rangeMask = partitions.get(0).rangeMask;
+    long rows = 0;
+    int keys = 0;
+    long size = HEADER_SIZE;
+    for (int i = 0; i < partitions.size(); ++i) {
+      Appender partition = partitions.get(i);
+      if (partition.rangeMask != rangeMask) {
+        throw new IllegalArgumentException("All partitions must have the same maximum value");
+      }
+      partition.flush();
+      if (i < partitions.size() - 1 && (partition.rid & 0xFFFF) != 0) {
+        throw new IllegalArgumentException(
+            "Partition "
+                + i
+                + " holds "
+                + partition.rid
+                + " rows, which is not a multiple of 65536");
+      }
+      rows += partition.rid;
+      keys += partition.key;
+      size += (long) partition.key * partition.bytesPerMask + partition.serializedContainerSize;
+    }
+    if (rows > Integer.MAX_VALUE || size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many rows: " + rows);
+    }
+    ByteBuffer buffer = supplier.apply((int) size);
+    ByteBuffer target =
+        buffer.order() == LITTLE_ENDIAN ? buffer : buffer.slice().order(LITTLE_ENDIAN);
+    target.putChar((char) COOKIE);
+    target.put((byte) 2);
+    target.put((byte) Long.bitCount(rangeMask));
+    target.putChar((char) keys);
+    target.putInt((int) rows);
+    for (Appender partition : partitions) {
+      int spaceForKeys = partition.key * partition.bytesPerMask;
+      target.put(((ByteBuffer) partition.maskBuffer.slice().limit(spaceForKeys)));
+    }
+    for (Appender partition : partitions) {
+      target.put(
+          ((ByteBuffer) partition.containers.slice().limit(partition.serializedContainerSize)));
+    }
+    if (buffer != target) {
+      buffer.position(target.position());
+    }
+    buffer.flip();
+    return map(buffer);
+  }
+
   /**
    * Maps the RangeBitmap from the buffer with minimal allocation.
    * The buffer must not be reused while the mapped RangeBitmap is live.
@@ -93,6 +214,8 @@ public final class RangeBitmap {
   private final long mask;
   private final long max;
   private final byte bytesPerMask;
+  // the position of the first container of each chunk, computed on the first parallel query
+  private volatile int[] containerOffsets;
 
   RangeBitmap(
       long mask,
@@ -447,14 +570,696 @@ public final class RangeBitmap {
     return new SingleEvaluation().countPoint(value, true, context);
   }
 
-  private final class SingleEvaluation {
+  /**
+   * Returns the k rows with the largest values. Ties between rows with the same value go to the
+   * smallest rows. The rows are narrowed down slice by slice from the most significant one,
+   * without decoding the values.
+   *
+   * @param k the number of rows, all the rows are returned if there are fewer.
+   * @return a bitmap of k rows.
+   */
+  public RoaringBitmap topK(int k) {
+    return selectK(k, null, true);
+  }
+
+  /**
+   * Returns the k rows of the context with the largest values. Ties between rows with the same
+   * value go to the smallest rows. The rows are narrowed down slice by slice from the most
+   * significant one, without decoding the values.
+   *
+   * @param k       the number of rows, all the rows of the context are returned if there are fewer.
+   * @param context to select rows from, which will not be modified.
+   * @return a bitmap of k rows of the context.
+   */
+  public RoaringBitmap topK(int k, RoaringBitmap context) {
+    return selectK(k, context, true);
+  }
+
+  /**
+   * Returns the k rows with the smallest values. Ties between rows with the same value go to the
+   * smallest rows. The rows are narrowed down slice by slice from the most significant one,
+   * without decoding the values.
+   *
+   * @param k the number of rows, all the rows are returned if there are fewer.
+   * @return a bitmap of k rows.
+   */
+  public RoaringBitmap bottomK(int k) {
+    return selectK(k, null, false);
+  }
+
+  /**
+   * Returns the k rows of the context with the smallest values. Ties between rows with the same
+   * value go to the smallest rows. The rows are narrowed down slice by slice from the most
+   * significant one, without decoding the values.
+   *
+   * @param k       the number of rows, all the rows of the context are returned if there are fewer.
+   * @param context to select rows from, which will not be modified.
+   * @return a bitmap of k rows of the context.
+   */
+  public RoaringBitmap bottomK(int k, RoaringBitmap context) {
+    return selectK(k, context, false);
+  }
+
+  /**
+   * Returns the value at the quantile, which is the value of rank floor(q * (n - 1)) among the
+   * n values sorted in ascending order. The value is determined slice by slice from the most
+   * significant one, by counting rows rather than by decoding the values.
+   *
+   * @param q the quantile, between 0 and 1.
+   * @return the value at the quantile.
+   * @throws NoSuchElementException if the bitmap is empty.
+   */
+  public long quantile(double q) {
+    return select(q, null);
+  }
+
+  /**
+   * Returns the value at the quantile among the rows of the context, which is the value of rank
+   * floor(q * (n - 1)) among the n values sorted in ascending order. The value is determined
+   * slice by slice from the most significant one, by counting rows rather than by decoding the
+   * values.
+   *
+   * @param q       the quantile, between 0 and 1.
+   * @param context the rows to consider, which will not be modified.
+   * @return the value at the quantile.
+   * @throws NoSuchElementException if no row of the context has a value.
+   */
+  public long quantile(double q, RoaringBitmap context) {
+    return select(q, context);
+  }
+
+  /**
+   * Returns the sum of the values, computed modulo 2^64 like long additions. The sum is computed
+   * from the number of rows in each slice, without decoding the values.
+   *
+   * @return the sum of the values.
+   */
+  public long sum() {
+    return sum(null);
+  }
+
+  /**
+   * Returns the sum of the values of the rows of the context, computed modulo 2^64 like long
+   * additions. The sum is computed from the number of rows of the context in each slice, without
+   * decoding the values.
+   *
+   * @param context the rows to sum the values of, which will not be modified.
+   * @return the sum of the values.
+   */
+  public long sum(RoaringBitmap context) {
+    RoaringBitmap rows = rows(context);
+    long count = rows.getLongCardinality();
+    long[] zeros = sliceZerosCardinalities(rows);
+    long sum = 0;
+    for (int slice = 0; slice < zeros.length; ++slice) {
+      sum += (count - zeros[slice]) << slice;
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the smallest value.
+   *
+   * @return the smallest value.
+   * @throws NoSuchElementException if the bitmap is empty.
+   */
+  public long min() {
+    return min(null);
+  }
+
+  /**
+   * Returns the smallest value of the rows of the context.
+   *
+   * @param context the rows to consider, which will not be modified.
+   * @return the smallest value.
+   * @throws NoSuchElementException if no row of the context has a value.
+   */
+  public long min(RoaringBitmap context) {
+    return selectRank(0, nonEmptyRows(context));
+  }
+
+  /**
+   * Returns the largest value.
+   *
+   * @return the largest value.
+   * @throws NoSuchElementException if the bitmap is empty.
+   */
+  public long max() {
+    return max(null);
+  }
+
+  /**
+   * Returns the largest value of the rows of the context.
+   *
+   * @param context the rows to consider, which will not be modified.
+   * @return the largest value.
+   * @throws NoSuchElementException if no row of the context has a value.
+   */
+  public long max(RoaringBitmap context) {
+    RoaringBitmap rows = nonEmptyRows(context);
+    return selectRank(rows.getLongCardinality() - 1, rows);
+  }
+
+  /**
+   * Counts the rows in each bucket delimited by the boundaries: the first bucket counts the rows
+   * with a value less than the first boundary, the bucket i the rows with a value in
+   * [boundaries[i - 1], boundaries[i]), and the last bucket the rows with a value greater than or
+   * equal to the last boundary.
+   *
+   * @param boundaries the bucket boundaries, in ascending order.
+   * @return the number of rows in each of the boundaries.length + 1 buckets.
+   */
+  public long[] histogram(long[] boundaries) {
+    return histogram(boundaries, null);
+  }
+
+  /**
+   * Counts the rows of the context in each bucket delimited by the boundaries: the first bucket
+   * counts the rows with a value less than the first boundary, the bucket i the rows with a value
+   * in [boundaries[i - 1], boundaries[i]), and the last bucket the rows with a value greater than
+   * or equal to the last boundary.
+   *
+   * @param boundaries the bucket boundaries, in ascending order.
+   * @param context    the rows to count, which will not be modified.
+   * @return the number of rows of the context in each of the boundaries.length + 1 buckets.
+   */
+  public long[] histogram(long[] boundaries, RoaringBitmap context) {
+    for (int i = 1; i < boundaries.length; ++i) {
+      if (Long.compareUnsigned(boundaries[i - 1], boundaries[i]) > 0) {
+        throw new IllegalArgumentException("The boundaries must be in ascending order");
+      }
+    }
+    RoaringBitmap rows = rows(context);
+    long[] histogram = new long[boundaries.length + 1];
+    long below = 0;
+    for (int i = 0; i < boundaries.length; ++i) {
+      long count = rows.isEmpty() ? 0L : ltCardinality(boundaries[i], rows);
+      histogram[i] = count - below;
+      below = count;
+    }
+    histogram[boundaries.length] = rows.getLongCardinality() - below;
+    return histogram;
+  }
+
+  /**
+   * Returns the median value, which is the lower of the two middle values if there is an even
+   * number of rows.
+   *
+   * @return the median value.
+   * @throws NoSuchElementException if the bitmap is empty.
+   */
+  public long median() {
+    return quantile(0.5);
+  }
+
+  /**
+   * Returns the median value among the rows of the context, which is the lower of the two middle
+   * values if there is an even number of rows.
+   *
+   * @param context the rows to consider, which will not be modified.
+   * @return the median value.
+   * @throws NoSuchElementException if no row of the context has a value.
+   */
+  public long median(RoaringBitmap context) {
+    return quantile(0.5, context);
+  }
+
+  /**
+   * Returns a RoaringBitmap of rows which have a value in between the thresholds, evaluating
+   * disjoint ranges of rows in parallel on the executor.
+   *
+   * @param min the inclusive minimum value.
+   * @param max the inclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return a bitmap of matching rows.
+   */
+  public RoaringBitmap between(long min, long max, Executor executor) {
+    if (min == 0 || Long.numberOfLeadingZeros(min) < Long.numberOfLeadingZeros(mask)) {
+      return lte(max, executor);
+    }
+    if (Long.numberOfLeadingZeros(max) < Long.numberOfLeadingZeros(mask)) {
+      return gte(min, executor);
+    }
+    ChunkEvaluation<RoaringArray> evaluation =
+        (position, fromKey, toKey) ->
+            new DoubleEvaluation(position).compute(min - 1, max, fromKey, toKey);
+    return appendAll(evaluateInParallel(executor, evaluation));
+  }
+
+  /**
+   * Returns the number of rows which have a value in between the thresholds, evaluating
+   * disjoint ranges of rows in parallel on the executor.
+   *
+   * @param min the inclusive minimum value.
+   * @param max the inclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return the number of matching rows.
+   */
+  public long betweenCardinality(long min, long max, Executor executor) {
+    if (min == 0 || Long.numberOfLeadingZeros(min) < Long.numberOfLeadingZeros(mask)) {
+      return lteCardinality(max, executor);
+    }
+    if (Long.numberOfLeadingZeros(max) < Long.numberOfLeadingZeros(mask)) {
+      return gteCardinality(min, executor);
+    }
+    ChunkEvaluation<Long> evaluation =
+        (position, fromKey, toKey) ->
+            new DoubleEvaluation(position).count(min - 1, max, fromKey, toKey);
+    return total(evaluateInParallel(executor, evaluation));
+  }
+
+  /**
+   * Returns a RoaringBitmap of rows which have a value less than or equal to the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the inclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return a bitmap of matching rows.
+   */
+  public RoaringBitmap lte(long threshold, Executor executor) {
+    return computeRange(threshold, true, executor);
+  }
+
+  /**
+   * Returns the number of rows which have a value less than or equal to the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the inclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return the number of matching rows.
+   */
+  public long lteCardinality(long threshold, Executor executor) {
+    return countRange(threshold, true, executor);
+  }
+
+  /**
+   * Returns a RoaringBitmap of rows which have a value less than the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the exclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return a bitmap of matching rows.
+   */
+  public RoaringBitmap lt(long threshold, Executor executor) {
+    return threshold == 0 ? new RoaringBitmap() : lte(threshold - 1, executor);
+  }
+
+  /**
+   * Returns the number of rows which have a value less than the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the exclusive maximum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return the number of matching rows.
+   */
+  public long ltCardinality(long threshold, Executor executor) {
+    return threshold == 0 ? 0L : lteCardinality(threshold - 1, executor);
+  }
+
+  /**
+   * Returns a RoaringBitmap of rows which have a value greater than the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the exclusive minimum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return a bitmap of matching rows.
+   */
+  public RoaringBitmap gt(long threshold, Executor executor) {
+    return computeRange(threshold, false, executor);
+  }
+
+  /**
+   * Returns the number of rows which have a value greater than the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the exclusive minimum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return the number of matching rows.
+   */
+  public long gtCardinality(long threshold, Executor executor) {
+    return countRange(threshold, false, executor);
+  }
+
+  /**
+   * Returns a RoaringBitmap of rows which have a value greater than or equal to the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the inclusive minimum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return a bitmap of matching rows.
+   */
+  public RoaringBitmap gte(long threshold, Executor executor) {
+    return threshold == 0 ? RoaringBitmap.bitmapOfRange(0, max) : gt(threshold - 1, executor);
+  }
+
+  /**
+   * Returns the number of rows which have a value greater than or equal to the threshold,
+   * evaluating disjoint ranges of rows in parallel on the executor.
+   *
+   * @param threshold the inclusive minimum value.
+   * @param executor runs the evaluation of each range of rows.
+   * @return the number of matching rows.
+   */
+  public long gteCardinality(long threshold, Executor executor) {
+    return threshold == 0 ? max : gtCardinality(threshold - 1, executor);
+  }
+
+  private RoaringBitmap computeRange(long threshold, boolean upper, Executor executor) {
+    if (Long.numberOfLeadingZeros(threshold) < Long.numberOfLeadingZeros(mask)) {
+      return upper ? RoaringBitmap.bitmapOfRange(0, max) : new RoaringBitmap();
+    }
+    ChunkEvaluation<RoaringArray> evaluation =
+        (position, fromKey, toKey) ->
+            new SingleEvaluation(position).computeRange(threshold, upper, fromKey, toKey);
+    return appendAll(evaluateInParallel(executor, evaluation));
+  }
+
+  private long countRange(long threshold, boolean upper, Executor executor) {
+    if (Long.numberOfLeadingZeros(threshold) < Long.numberOfLeadingZeros(mask)) {
+      return upper ? max : 0L;
+    }
+    ChunkEvaluation<Long> evaluation =
+        (position, fromKey, toKey) ->
+            new SingleEvaluation(position).countRange(threshold, upper, fromKey, toKey);
+    return total(evaluateInParallel(executor, evaluation));
+  }
+
+  private int keyCount() {
+    return (int) ((max + 0xFFFF) >>> 16);
+  }
+
+  private int[] containerOffsets() {
+    int[] offsets = containerOffsets;
+    if (offsets == null) {
+      // racing threads compute the same offsets, so there is no need to lock
+      ByteBuffer buffer = this.buffer.slice().order(LITTLE_ENDIAN);
+      offsets = new int[keyCount()];
+      int position = containersOffset;
+      int mPos = masksOffset;
+      for (int key = 0; key < offsets.length; ++key) {
+        offsets[key] = position;
+        long containerMask = getContainerMask(buffer, mPos, mask, bytesPerMask);
+        for (int i = 0; i < Long.bitCount(containerMask); i++) {
+          position += serializedContainerSize(buffer, position);
+        }
+        mPos += bytesPerMask;
+      }
+      containerOffsets = offsets;
+    }
+    return offsets;
+  }
+
+  private static int serializedContainerSize(ByteBuffer buffer, int position) {
+    int type = buffer.get(position);
+    int size = buffer.getChar(position + 1) & 0xFFFF;
+    if (type == BITMAP) {
+      return 3 + BITMAP_SIZE;
+    }
+    return 3 + (size << (type == RUN ? 2 : 1));
+  }
+
+  private static MappeableContainer mapContainer(ByteBuffer buffer, int position) {
+    int type = buffer.get(position);
+    int size = buffer.getChar(position + 1) & 0xFFFF;
+    switch (type) {
+      case ARRAY:
+        {
+          CharBuffer cb =
+              (CharBuffer) ((ByteBuffer) buffer.position(position + 3)).asCharBuffer().limit(size);
+          return new MappeableArrayContainer(cb, size);
+        }
+      case BITMAP:
+        {
+          LongBuffer lb =
+              (LongBuffer) ((ByteBuffer) buffer.position(position + 3)).asLongBuffer().limit(1024);
+          return new MappeableBitmapContainer(lb, size);
+        }
+      case RUN:
+        {
+          CharBuffer cb =
+              (CharBuffer)
+                  ((ByteBuffer) buffer.position(position + 3)).asCharBuffer().limit(size << 1);
+          return new MappeableRunContainer(cb, size);
+        }
+      default:
+        throw new IllegalStateException(
+            "Unknown type " + type + " (this is a bug, please report it.)");
+    }
+  }
+
+  /**
+   * The rows of the context which have a value within the bitmap, as a bitmap which can be
+   * modified.
+   */
+  private RoaringBitmap rows(RoaringBitmap context) {
+    return context == null
+        ? RoaringBitmap.bitmapOfRange(0, max)
+        : RoaringBitmap.and(context, RoaringBitmap.bitmapOfRange(0, max));
+  }
+
+  /**
+   * The rows of the context, which must only contain rows within the bitmap, whose value has
+   * the bit of the slice unset. As the slices store the complement of the values, these are
+   * the rows of the slice's containers.
+   */
+  private RoaringBitmap sliceZeros(int slice, RoaringBitmap context) {
+    int[] offsets = containerOffsets();
+    ByteBuffer buffer = this.buffer.slice().order(LITTLE_ENDIAN);
+    RoaringArray contextArray = context.highLowContainer;
+    RoaringArray output = new RoaringArray();
+    for (int i = 0; i < contextArray.size; ++i) {
+      char key = contextArray.keys[i];
+      long containerMask =
+          getContainerMask(buffer, masksOffset + key * bytesPerMask, mask, bytesPerMask);
+      if ((containerMask >>> slice & 1) == 1) {
+        // the containers of the chunk are stored in the order of the slices
+        int position = offsets[key];
+        for (int j = Long.bitCount(containerMask & ((1L << slice) - 1)); j > 0; --j) {
+          position += serializedContainerSize(buffer, position);
+        }
+        Container zeros = contextArray.values[i].and(mapContainer(buffer, position).toContainer());
+        if (!zeros.isEmpty()) {
+          output.append(key, zeros);
+        }
+      }
+    }
+    return new RoaringBitmap(output);
+  }
+
+  /**
+   * Counts, for each slice, the rows of the context, which must only contain rows within the
+   * bitmap, whose value has the bit of the slice unset.
+   */
+  private long[] sliceZerosCardinalities(RoaringBitmap context) {
+    long[] counts = new long[Long.bitCount(mask)];
+    int[] offsets = containerOffsets();
+    ByteBuffer buffer = this.buffer.slice().order(LITTLE_ENDIAN);
+    RoaringArray contextArray = context.highLowContainer;
+    for (int i = 0; i < contextArray.size; ++i) {
+      char key = contextArray.keys[i];
+      long containerMask =
+          getContainerMask(buffer, masksOffset + key * bytesPerMask, mask, bytesPerMask);
+      if (containerMask != 0) {
+        MappeableContainer container = contextArray.values[i].toMappeableContainer();
+        int position = offsets[key];
+        for (; containerMask != 0; containerMask &= containerMask - 1) {
+          int slice = Long.numberOfTrailingZeros(containerMask);
+          counts[slice] += container.andCardinality(mapContainer(buffer, position));
+          position += serializedContainerSize(buffer, position);
+        }
+      }
+    }
+    return counts;
+  }
+
+  private RoaringBitmap selectK(int k, RoaringBitmap context, boolean top) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative: " + k);
+    }
+    RoaringBitmap candidates = rows(context);
+    if (k >= candidates.getLongCardinality()) {
+      return candidates;
+    }
+    RoaringBitmap selected = new RoaringBitmap();
+    if (k == 0) {
+      return selected;
+    }
+    // the selected rows have values which are strictly better than the values of the candidates,
+    // which share the most significant bits evaluated so far, and the k-th value is a candidate
+    long selectedCount = 0;
+    for (int slice = Long.bitCount(mask) - 1; slice >= 0; --slice) {
+      RoaringBitmap zeros = sliceZeros(slice, candidates);
+      RoaringBitmap ones = candidates;
+      ones.andNot(zeros);
+      RoaringBitmap preferred = top ? ones : zeros;
+      long count = selectedCount + preferred.getLongCardinality();
+      if (count < k) {
+        selected.or(preferred);
+        selectedCount = count;
+        candidates = top ? zeros : ones;
+      } else {
+        candidates = preferred;
+        if (count == k) {
+          break;
+        }
+      }
+    }
+    // the remaining candidates all have the k-th value, ties go to the smallest rows
+    selected.or(candidates.limit((int) (k - selectedCount)));
+    return selected;
+  }
+
+  private long select(double q, RoaringBitmap context) {
+    if (!(q >= 0 && q <= 1)) {
+      throw new IllegalArgumentException("The quantile must be between 0 and 1: " + q);
+    }
+    RoaringBitmap candidates = nonEmptyRows(context);
+    return selectRank((long) Math.floor(q * (candidates.getLongCardinality() - 1)), candidates);
+  }
+
+  private RoaringBitmap nonEmptyRows(RoaringBitmap context) {
+    RoaringBitmap rows = rows(context);
+    if (rows.isEmpty()) {
+      throw new NoSuchElementException("There are no rows to aggregate");
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the value of the rank among the values of the candidates, which will be modified.
+   */
+  private long selectRank(long rank, RoaringBitmap candidates) {
+    // the candidates share the bits of the value evaluated so far
+    long value = 0;
+    for (int slice = Long.bitCount(mask) - 1; slice >= 0; --slice) {
+      RoaringBitmap zeros = sliceZeros(slice, candidates);
+      long zeroCount = zeros.getLongCardinality();
+      if (rank < zeroCount) {
+        candidates = zeros;
+      } else {
+        rank -= zeroCount;
+        candidates.andNot(zeros);
+        value |= 1L << slice;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Splits the chunks into ranges evaluated independently on the executor, and returns the
+   * results of each range in the order of the chunks.
+   */
+  private <T> List<T> evaluateInParallel(Executor executor, ChunkEvaluation<T> evaluation) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    int[] offsets = containerOffsets();
+    int chunksPerTask = chunksPerTask(offsets.length);
+    List<CompletableFuture<T>> futures = new ArrayList<>();
+    for (int fromKey = 0; fromKey < offsets.length; fromKey += chunksPerTask) {
+      int from = fromKey;
+      int to = Math.min(offsets.length, fromKey + chunksPerTask);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> evaluation.evaluate(offsets[from], from, to), executor));
+    }
+    List<T> results = joinAll(futures);
+    report(listener, start);
+    return results;
+  }
+
+  private static int chunksPerTask(int chunks) {
+    int tasks = 4 * Runtime.getRuntime().availableProcessors();
+    return Math.max(MIN_CHUNKS_PER_TASK, (chunks + tasks - 1) / tasks);
+  }
+
+  private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+    List<T> results = new ArrayList<>(futures.size());
+    for (CompletableFuture<T> future : futures) {
+      try {
+        results.add(future.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+    return results;
+  }
+
+  private static RoaringBitmap appendAll(List<RoaringArray> ranges) {
+    RoaringArray output = new RoaringArray();
+    for (RoaringArray range : ranges) {
+      for (int i = 0; i < range.size; ++i) {
+        output.append(range.keys[i], range.values[i]);
+      }
+    }
+    return new RoaringBitmap(output);
+  }
+
+  private static long total(List<Long> counts) {
+    long sum = 0;
+    for (long count : counts) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  @FunctionalInterface
+  private interface ChunkEvaluation<T> {
+    T evaluate(int position, int fromKey, int toKey);
+  }
+
+  /**
+   * Reports the evaluation of a query to the {@link BitmapListener}, if any. The chunks of a
+   * parallel query are not reported, {@link #evaluateInParallel} reports the query as a whole.
+   * The queries answered without reading the slices are not reported either.
+   */
+  private abstract static class Evaluation {
+
+    private final BitmapListener listener;
+    private final long start;
+
+    Evaluation(boolean reported) {
+      this.listener = reported ? BitmapListeners.get() : null;
+      this.start = listener == null ? 0L : System.nanoTime();
+    }
+
+    RoaringBitmap reported(RoaringBitmap answer) {
+      report(listener, start);
+      return answer;
+    }
+
+    long reported(long answer) {
+      report(listener, start);
+      return answer;
+    }
+  }
+
+  private static void report(BitmapListener listener, long start) {
+    if (listener != null) {
+      listener.onOperation(RangeBitmap.class, Operation.RANGE, System.nanoTime() - start);
+    }
+  }
+
+  private final class SingleEvaluation extends Evaluation {
 
     private final long[] bits = new long[1024];
     private final ByteBuffer buffer = RangeBitmap.this.buffer.slice().order(LITTLE_ENDIAN);
 
-    private int position = containersOffset;
+    private int position;
     private boolean empty = true;
 
+    SingleEvaluation() {
+      super(true);
+      this.position = containersOffset;
+    }
+
+    SingleEvaluation(int position) {
+      super(false);
+      this.position = position;
+    }
+
     public RoaringBitmap computePoint(long value, boolean negate) {
       if (Long.numberOfLeadingZeros(value) < Long.numberOfLeadingZeros(mask)) {
         return negate ? RoaringBitmap.bitmapOfRange(0, max) : new RoaringBitmap();
@@ -481,7 +1286,7 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return reported(new RoaringBitmap(output));
     }
 
     public RoaringBitmap computePoint(long value, boolean negate, RoaringBitmap context) {
@@ -524,7 +1329,7 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return reported(new RoaringBitmap(output));
     }
 
     public long countPoint(long value, boolean negate) {
@@ -543,7 +1348,7 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return count;
+      return reported(count);
     }
 
     private long countPoint(long threshold, boolean negate, RoaringBitmap context) {
@@ -578,18 +1383,25 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return count;
+      return reported(count);
     }
 
     public RoaringBitmap computeRange(long threshold, boolean upper) {
       if (Long.numberOfLeadingZeros(threshold) < Long.numberOfLeadingZeros(mask)) {
         return upper ? RoaringBitmap.bitmapOfRange(0, max) : new RoaringBitmap();
       }
+      return reported(new RoaringBitmap(computeRange(threshold, upper, 0, keyCount())));
+    }
+
+    /**
+     * Evaluates the chunks in [fromKey, toKey), the evaluation must have been created
+     * at the position of the first container of fromKey.
+     */
+    RoaringArray computeRange(long threshold, boolean upper, int fromKey, int toKey) {
       RoaringArray output = new RoaringArray();
-      long remaining = max;
-      int mPos = masksOffset;
-      char key = 0;
-      while (remaining > 0) {
+      long remaining = max - ((long) fromKey << 16);
+      int mPos = masksOffset + fromKey * bytesPerMask;
+      for (int key = fromKey; key < toKey; ++key) {
         long containerMask = getContainerMask(buffer, mPos, mask, bytesPerMask);
         evaluateHorizontalSliceRange(remaining, threshold, containerMask);
         if (!upper) {
@@ -599,14 +1411,14 @@ public final class RangeBitmap {
         if (!empty) {
           Container toAppend = new BitmapContainer(bits, -1).repairAfterLazy().runOptimize();
           if (!toAppend.isEmpty()) {
-            output.append(key, toAppend instanceof BitmapContainer ? toAppend.clone() : toAppend);
+            output.append(
+                (char) key, toAppend instanceof BitmapContainer ? toAppend.clone() : toAppend);
           }
         }
-        key++;
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return output;
     }
 
     private RoaringBitmap computeRange(long threshold, boolean upper, RoaringBitmap context) {
@@ -648,17 +1460,21 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return reported(new RoaringBitmap(output));
     }
 
     public long countRange(long threshold, boolean upper) {
       if (Long.numberOfLeadingZeros(threshold) < Long.numberOfLeadingZeros(mask)) {
         return upper ? max : 0L;
       }
+      return reported(countRange(threshold, upper, 0, keyCount()));
+    }
+
+    long countRange(long threshold, boolean upper, int fromKey, int toKey) {
       long count = 0;
-      long remaining = max;
-      int mPos = masksOffset;
-      while (remaining > 0) {
+      long remaining = max - ((long) fromKey << 16);
+      int mPos = masksOffset + fromKey * bytesPerMask;
+      for (int key = fromKey; key < toKey; ++key) {
         long containerMask = getContainerMask(buffer, mPos, mask, bytesPerMask);
         evaluateHorizontalSliceRange(remaining, threshold, containerMask);
         int remainder = Math.min((int) remaining, 0x10000);
@@ -702,7 +1518,7 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return count;
+      return reported(count);
     }
 
     private void evaluateHorizontalSliceRange(long remaining, long threshold, long containerMask) {
@@ -952,25 +1768,42 @@ public final class RangeBitmap {
     }
   }
 
-  private final class DoubleEvaluation {
+  private final class DoubleEvaluation extends Evaluation {
 
     private final ByteBuffer buffer = RangeBitmap.this.buffer.slice().order(LITTLE_ENDIAN);
     private final Bits low = new Bits();
     private final Bits high = new Bits();
 
-    private int position = containersOffset;
+    private int position;
+
+    DoubleEvaluation() {
+      super(true);
+      this.position = containersOffset;
+    }
+
+    DoubleEvaluation(int position) {
+      super(false);
+      this.position = position;
+    }
 
     public RoaringBitmap compute(long lower, long upper) {
+      return reported(new RoaringBitmap(compute(lower, upper, 0, keyCount())));
+    }
+
+    /**
+     * Evaluates the chunks in [fromKey, toKey), the evaluation must have been created
+     * at the position of the first container of fromKey.
+     */
+    RoaringArray compute(long lower, long upper, int fromKey, int toKey) {
       RoaringArray output = new RoaringArray();
-      long remaining = max;
-      int mPos = masksOffset;
-      char key = 0;
-      while (remaining > 0) {
+      long remaining = max - ((long) fromKey << 16);
+      int mPos = masksOffset + fromKey * bytesPerMask;
+      for (int key = fromKey; key < toKey; ++key) {
         long containerMask = getContainerMask(buffer, mPos, mask, bytesPerMask);
         evaluateHorizontalSlice(containerMask, remaining, lower, upper);
         if (!low.empty && !high.empty) {
           if (low.full && high.full) {
-            output.append(key, RunContainer.full());
+            output.append((char) key, RunContainer.full());
           } else {
             final long[] bits;
             if (low.full) {
@@ -985,15 +1818,15 @@ public final class RangeBitmap {
             }
             Container toAppend = new BitmapContainer(bits, -1).repairAfterLazy().runOptimize();
             if (!toAppend.isEmpty()) {
-              output.append(key, toAppend instanceof BitmapContainer ? toAppend.clone() : toAppend);
+              output.append(
+                  (char) key, toAppend instanceof BitmapContainer ? toAppend.clone() : toAppend);
             }
           }
         }
-        key++;
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return output;
     }
 
     public RoaringBitmap compute(long lower, long upper, RoaringBitmap context) {
@@ -1041,14 +1874,18 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return new RoaringBitmap(output);
+      return reported(new RoaringBitmap(output));
     }
 
     public long count(long lower, long upper) {
+      return reported(count(lower, upper, 0, keyCount()));
+    }
+
+    long count(long lower, long upper, int fromKey, int toKey) {
       long count = 0;
-      long remaining = max;
-      int mPos = masksOffset;
-      while (remaining > 0) {
+      long remaining = max - ((long) fromKey << 16);
+      int mPos = masksOffset + fromKey * bytesPerMask;
+      for (int key = fromKey; key < toKey; ++key) {
         long containerMask = getContainerMask(buffer, mPos, mask, bytesPerMask);
         evaluateHorizontalSlice(containerMask, remaining, lower, upper);
         if (!low.empty && !high.empty) {
@@ -1111,7 +1948,7 @@ public final class RangeBitmap {
         remaining -= 0x10000;
         mPos += bytesPerMask;
       }
-      return count;
+      return reported(count);
     }
 
     private void evaluateHorizontalSlice(
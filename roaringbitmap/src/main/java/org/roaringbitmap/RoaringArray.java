@@ -23,9 +23,9 @@ import java.util.NoSuchElementException;
  * by end users.
  */
 public final class RoaringArray implements Cloneable, Externalizable, AppendableStorage<Container> {
-  private static final char SERIAL_COOKIE_NO_RUNCONTAINER = 12346;
-  private static final char SERIAL_COOKIE = 12347;
-  private static final int NO_OFFSET_THRESHOLD = 4;
+  static final char SERIAL_COOKIE_NO_RUNCONTAINER = 12346;
+  static final char SERIAL_COOKIE = 12347;
+  static final int NO_OFFSET_THRESHOLD = 4;
 
   // bumped serialVersionUID with runcontainers, so default serialization
   // will not work...
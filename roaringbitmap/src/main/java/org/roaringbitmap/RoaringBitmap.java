@@ -7,6 +7,7 @@ package org.roaringbitmap;
 import static org.roaringbitmap.RoaringBitmapWriter.writer;
 import static org.roaringbitmap.Util.lowbitsAsInteger;
 
+import org.roaringbitmap.BitmapListener.Operation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MappeableContainerPointer;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
@@ -20,7 +21,10 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * RoaringBitmap, a compressed alternative to the BitSet.
@@ -389,6 +393,8 @@ public class RoaringBitmap
    * @see FastAggregation#and(RoaringBitmap...)
    */
   public static RoaringBitmap and(final RoaringBitmap x1, final RoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final RoaringBitmap answer = new RoaringBitmap();
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
     int pos1 = 0, pos2 = 0;
@@ -399,6 +405,9 @@ public class RoaringBitmap
       if (s1 == s2) {
         final Container c1 = x1.highLowContainer.getContainerAtIndex(pos1);
         final Container c2 = x2.highLowContainer.getContainerAtIndex(pos2);
+        if (listener != null) {
+          listener.onContainerPair(Operation.AND, ContainerType.of(c1), ContainerType.of(c2));
+        }
         final Container c = c1.and(c2);
         if (!c.isEmpty()) {
           answer.highLowContainer.append(s1, c);
@@ -411,6 +420,9 @@ public class RoaringBitmap
         pos2 = x2.highLowContainer.advanceUntil(s1, pos2);
       }
     }
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.AND, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -870,6 +882,8 @@ public class RoaringBitmap
    * @see FastAggregation#horizontal_or(RoaringBitmap...)
    */
   public static RoaringBitmap or(final RoaringBitmap x1, final RoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final RoaringBitmap answer = new RoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -880,6 +894,12 @@ public class RoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.OR,
+                ContainerType.of(x1.highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           answer.highLowContainer.append(
               s1,
               x1.highLowContainer
@@ -914,6 +934,9 @@ public class RoaringBitmap
     } else if (pos2 == length2) {
       answer.highLowContainer.appendCopy(x1.highLowContainer, pos1, length1);
     }
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.OR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -1085,6 +1108,8 @@ public class RoaringBitmap
    * @see FastAggregation#horizontal_xor(RoaringBitmap...)
    */
   public static RoaringBitmap xor(final RoaringBitmap x1, final RoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final RoaringBitmap answer = new RoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -1096,6 +1121,12 @@ public class RoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.XOR,
+                ContainerType.of(x1.highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           final Container c =
               x1.highLowContainer
                   .getContainerAtIndex(pos1)
@@ -1132,7 +1163,9 @@ public class RoaringBitmap
     } else if (pos2 == length2) {
       answer.highLowContainer.appendCopy(x1.highLowContainer, pos1, length1);
     }
-
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.XOR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -1288,6 +1321,8 @@ public class RoaringBitmap
     if (x2 == this) {
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0, intersectionSize = 0;
     final int length1 = highLowContainer.size(), length2 = x2.highLowContainer.size();
 
@@ -1297,6 +1332,9 @@ public class RoaringBitmap
       if (s1 == s2) {
         final Container c1 = highLowContainer.getContainerAtIndex(pos1);
         final Container c2 = x2.highLowContainer.getContainerAtIndex(pos2);
+        if (listener != null) {
+          listener.onContainerPair(Operation.AND, ContainerType.of(c1), ContainerType.of(c2));
+        }
         final Container c = c1.iand(c2);
         if (!c.isEmpty()) {
           highLowContainer.replaceKeyAndContainerAtIndex(intersectionSize++, s1, c);
@@ -1310,6 +1348,9 @@ public class RoaringBitmap
       }
     }
     highLowContainer.resize(intersectionSize);
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.AND, System.nanoTime() - start);
+    }
   }
 
   /**
@@ -1722,6 +1763,104 @@ public class RoaringBitmap
     return c.contains(Util.lowbits(x));
   }
 
+  /**
+   * Checks whether each of the values is contained in this bitmap. This is faster than calling
+   * {@link #contains(int)} in a loop when the values are sorted (as unsigned integers): the
+   * containers are then visited in order, and the values of array containers are found by
+   * galloping from the previous value instead of restarting the search.
+   * Unsorted values are supported, at the cost of a binary search when going backwards.
+   *
+   * @param values the values to look for, preferably sorted
+   * @param out receives, at the index of each value, whether it is contained in this bitmap
+   */
+  public void contains(int[] values, boolean[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    contains(values, out, null);
+  }
+
+  /**
+   * Selects the values contained in this bitmap, see {@link #contains(int[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return the values contained in this bitmap, in their original order
+   */
+  public int[] filter(int[] values) {
+    int[] contained = new int[values.length];
+    int count = contains(values, null, contained);
+    return count == contained.length ? contained : Arrays.copyOf(contained, count);
+  }
+
+  /**
+   * Counts the values contained in this bitmap, see {@link #contains(int[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return how many of the values are contained in this bitmap, duplicates included
+   */
+  public int countContained(int[] values) {
+    return contains(values, null, null);
+  }
+
+  private int contains(int[] values, boolean[] out, int[] contained) {
+    int count = 0;
+    // the index of the container of the current key, or of the first key after it
+    int pos = 0;
+    int key = -1;
+    Container container = null;
+    // galloping state, when the current container is an array
+    ArrayContainer array = null;
+    int arrayPos = -1;
+    int previousLow = -1;
+    for (int i = 0; i < values.length; ++i) {
+      final int value = values[i];
+      final char hb = Util.highbits(value);
+      if (hb != key) {
+        if (hb > key) {
+          pos = highLowContainer.advanceUntil(hb, pos - 1);
+        } else {
+          pos = highLowContainer.getContainerIndex(hb);
+          if (pos < 0) {
+            pos = -pos - 1;
+          }
+        }
+        key = hb;
+        container =
+            pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) == hb
+                ? highLowContainer.getContainerAtIndex(pos)
+                : null;
+        array = container instanceof ArrayContainer ? (ArrayContainer) container : null;
+        arrayPos = -1;
+        previousLow = -1;
+      }
+      final char low = Util.lowbits(value);
+      final boolean found;
+      if (array != null) {
+        if (low < previousLow) {
+          arrayPos = -1;
+        }
+        int index = Util.advanceUntil(array.content, arrayPos, array.cardinality, low);
+        found = index < array.cardinality && array.content[index] == low;
+        // the next value may be the same
+        arrayPos = index - 1;
+        previousLow = low;
+      } else {
+        found = container != null && container.contains(low);
+      }
+      if (out != null) {
+        out[i] = found;
+      }
+      if (found) {
+        if (contained != null) {
+          contained[count] = value;
+        }
+        ++count;
+      }
+    }
+    return count;
+  }
+
   /**
    * Checks if the bitmap contains the range.
    * @param minimum the inclusive lower bound of the range
@@ -1790,6 +1929,10 @@ public class RoaringBitmap
     } catch (InvalidRoaringFormat cookie) {
       throw cookie.toIOException(); // we convert it to an IOException
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onDeserialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -1807,6 +1950,10 @@ public class RoaringBitmap
     } catch (InvalidRoaringFormat cookie) {
       throw cookie.toIOException(); // we convert it to an IOException
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onDeserialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -1833,6 +1980,10 @@ public class RoaringBitmap
     } catch (InvalidRoaringFormat cookie) {
       throw cookie.toIOException(); // we convert it to an IOException
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onDeserialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   @Override
@@ -2190,6 +2341,17 @@ public class RoaringBitmap
     return new RoaringBatchIterator(highLowContainer);
   }
 
+  /**
+   * The stream splits on container boundaries and knows the exact size of each split, so that it
+   * can be consumed in parallel efficiently.
+   *
+   * @return an Ordered, Distinct, Sorted and Sized IntStream in ascending order
+   */
+  @Override
+  public IntStream stream() {
+    return StreamSupport.intStream(new RoaringSpliterator(highLowContainer), false);
+  }
+
   /**
    * Estimate of the memory usage of this data structure. This can be expected to be within 1% of
    * the true memory usage in common usage scenarios.
@@ -2505,6 +2667,8 @@ public class RoaringBitmap
     if (this == x2) {
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0;
     int length1 = highLowContainer.size();
     final int length2 = x2.highLowContainer.size();
@@ -2515,6 +2679,12 @@ public class RoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.OR,
+                ContainerType.of(highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           this.highLowContainer.setContainerAtIndex(
               pos1,
               highLowContainer
@@ -2549,6 +2719,9 @@ public class RoaringBitmap
     if (pos1 == length1) {
       highLowContainer.appendCopy(x2.highLowContainer, pos2, length2);
     }
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.OR, System.nanoTime() - start);
+    }
   }
 
   /**
@@ -2858,6 +3031,88 @@ public class RoaringBitmap
             + ".");
   }
 
+  /**
+   * Computes the rank of many values at once, see {@link #rankLong(int)}. The values are best
+   * sorted (as unsigned integers): the containers are then swept once for all the values, instead
+   * of once per value. Unsorted values are supported, at the cost of restarting the sweep when
+   * going backwards.
+   *
+   * @param values the values to rank, preferably sorted
+   * @param out receives, at the index of each value, the number of integers smaller or equal to
+   *     the value
+   */
+  public void rank(int[] values, long[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    // the containers before pos hold size values
+    int pos = 0;
+    long size = 0;
+    int previousKey = -1;
+    for (int i = 0; i < values.length; ++i) {
+      final char xhigh = Util.highbits(values[i]);
+      if (xhigh < previousKey) {
+        pos = 0;
+        size = 0;
+      }
+      previousKey = xhigh;
+      while (pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) < xhigh) {
+        size += highLowContainer.getContainerAtIndex(pos).getCardinality();
+        ++pos;
+      }
+      if (pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) == xhigh) {
+        out[i] = size + highLowContainer.getContainerAtIndex(pos).rank(Util.lowbits(values[i]));
+      } else {
+        out[i] = size;
+      }
+    }
+  }
+
+  /**
+   * Selects many values at once, see {@link #select(int)}. The ranks are best sorted (as unsigned
+   * integers): the containers are then swept once for all the ranks, instead of once per rank.
+   * Unsorted ranks are supported, at the cost of restarting the sweep when going backwards.
+   *
+   * @param ranks the indexes of the values to select, preferably sorted
+   * @param out receives, at the index of each rank, the value of this rank
+   * @throws IllegalArgumentException if a rank is out of the bounds of the cardinality
+   */
+  public void select(int[] ranks, int[] out) {
+    if (out.length < ranks.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + ranks.length + " ranks");
+    }
+    // the containers before pos hold size values
+    int pos = 0;
+    long size = 0;
+    for (int i = 0; i < ranks.length; ++i) {
+      final long rank = Util.toUnsignedLong(ranks[i]);
+      if (rank < size) {
+        pos = 0;
+        size = 0;
+      }
+      while (pos < highLowContainer.size()) {
+        final int cardinality = highLowContainer.getContainerAtIndex(pos).getCardinality();
+        if (size + cardinality > rank) {
+          break;
+        }
+        size += cardinality;
+        ++pos;
+      }
+      if (pos == highLowContainer.size()) {
+        throw new IllegalArgumentException(
+            "You are trying to select the "
+                + ranks[i]
+                + "th value when the cardinality is "
+                + this.getCardinality()
+                + ".");
+      }
+      Container c = highLowContainer.getContainerAtIndex(pos);
+      out[i] = (highLowContainer.getKeyAtIndex(pos) << 16) + c.select((int) (rank - size));
+    }
+  }
+
   @Override
   public long nextValue(int fromValue) {
     char key = Util.highbits(fromValue);
@@ -3037,11 +3292,19 @@ public class RoaringBitmap
   @Override
   public void serialize(DataOutput out) throws IOException {
     this.highLowContainer.serialize(out);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onSerialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   @Override
   public void serialize(ByteBuffer buffer) {
     highLowContainer.serialize(buffer);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onSerialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -3331,6 +3594,8 @@ public class RoaringBitmap
       clear();
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0;
     int length1 = highLowContainer.size();
     final int length2 = x2.highLowContainer.size();
@@ -3342,6 +3607,12 @@ public class RoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.XOR,
+                ContainerType.of(highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           final Container c =
               highLowContainer
                   .getContainerAtIndex(pos1)
@@ -3381,6 +3652,9 @@ public class RoaringBitmap
     if (pos1 == length1) {
       highLowContainer.appendCopy(x2.highLowContainer, pos2, length2);
     }
+    if (listener != null) {
+      listener.onOperation(RoaringBitmap.class, Operation.XOR, System.nanoTime() - start);
+    }
   }
 
   /**
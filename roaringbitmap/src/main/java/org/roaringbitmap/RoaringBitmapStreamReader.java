@@ -0,0 +1,318 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import static org.roaringbitmap.RoaringArray.NO_OFFSET_THRESHOLD;
+import static org.roaringbitmap.RoaringArray.SERIAL_COOKIE;
+import static org.roaringbitmap.RoaringArray.SERIAL_COOKIE_NO_RUNCONTAINER;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a bitmap in the portable format (https://github.com/RoaringBitmap/RoaringFormatSpec) one
+ * container at a time, so that the whole bitmap never needs to be held in memory. Only the
+ * header (at most 256kB) is read eagerly, then containers are decoded as they are consumed.
+ *
+ * <pre>
+ * {@code
+ *   try (RoaringBitmapStreamReader reader = RoaringBitmapStreamReader.buffered(inputStream)) {
+ *     reader.orInto(accumulator);
+ *   }
+ * }
+ * </pre>
+ *
+ * A reader is not thread-safe, and it cannot be rewound. The {@code buffered} factories buffer a
+ * stream or a channel, while {@link #of(DataInput)} reads its input as is, so a
+ * {@link DataInputStream} can be passed to either.
+ */
+public class RoaringBitmapStreamReader implements Closeable {
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private final DataInput in;
+  private final char[] keys;
+  private final int[] cardinalities;
+  private final byte[] bitmapOfRunContainers;
+  private int position = 0;
+
+  /**
+   * Reads the header of a bitmap from the stream, buffering at most 64kB of the stream.
+   *
+   * @param in the input stream, closed by {@link #close()}
+   * @return a reader positioned on the first container
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InvalidRoaringFormat if a Roaring Bitmap cookie is missing.
+   */
+  public static RoaringBitmapStreamReader buffered(InputStream in) throws IOException {
+    return buffered(in, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Reads the header of a bitmap from the stream.
+   *
+   * @param in the input stream, closed by {@link #close()}
+   * @param bufferSize the number of bytes of the stream to buffer
+   * @return a reader positioned on the first container
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InvalidRoaringFormat if a Roaring Bitmap cookie is missing.
+   */
+  public static RoaringBitmapStreamReader buffered(InputStream in, int bufferSize)
+      throws IOException {
+    return of(new DataInputStream(new BufferedInputStream(in, bufferSize)));
+  }
+
+  /**
+   * Reads the header of a bitmap from the channel, buffering at most 64kB of the channel.
+   *
+   * @param channel the channel, closed by {@link #close()}
+   * @return a reader positioned on the first container
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InvalidRoaringFormat if a Roaring Bitmap cookie is missing.
+   */
+  public static RoaringBitmapStreamReader buffered(ReadableByteChannel channel)
+      throws IOException {
+    return buffered(Channels.newInputStream(channel));
+  }
+
+  /**
+   * Reads the header of a bitmap from the DataInput, which is read as is, without more buffering.
+   *
+   * @param in the DataInput, closed by {@link #close()} if it is {@link Closeable}
+   * @return a reader positioned on the first container
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InvalidRoaringFormat if a Roaring Bitmap cookie is missing.
+   */
+  public static RoaringBitmapStreamReader of(DataInput in) throws IOException {
+    return new RoaringBitmapStreamReader(in);
+  }
+
+  private RoaringBitmapStreamReader(DataInput in) throws IOException {
+    this.in = in;
+    // little endian
+    final int cookie = Integer.reverseBytes(in.readInt());
+    if ((cookie & 0xFFFF) != SERIAL_COOKIE && cookie != SERIAL_COOKIE_NO_RUNCONTAINER) {
+      throw new InvalidRoaringFormat("I failed to find a valid cookie.");
+    }
+    boolean hasrun = (cookie & 0xFFFF) == SERIAL_COOKIE;
+    final int size = hasrun ? (cookie >>> 16) + 1 : Integer.reverseBytes(in.readInt());
+    // logically we cannot have more than (1<<16) containers.
+    if (size > (1 << 16) || size < 0) {
+      throw new InvalidRoaringFormat("Size too large");
+    }
+    if (hasrun) {
+      bitmapOfRunContainers = new byte[(size + 7) / 8];
+      in.readFully(bitmapOfRunContainers);
+    } else {
+      bitmapOfRunContainers = null;
+    }
+    keys = new char[size];
+    cardinalities = new int[size];
+    for (int k = 0; k < size; ++k) {
+      keys[k] = Character.reverseBytes(in.readChar());
+      cardinalities[k] = 1 + (0xFFFF & Character.reverseBytes(in.readChar()));
+    }
+    if ((!hasrun) || (size >= NO_OFFSET_THRESHOLD)) {
+      // skipping the offsets
+      skipFully(size * 4);
+    }
+  }
+
+  /**
+   * @return the number of containers in the bitmap, read or not
+   */
+  public int getContainerCount() {
+    return keys.length;
+  }
+
+  /**
+   * @return whether there are containers left to read
+   */
+  public boolean hasNext() {
+    return position < keys.length;
+  }
+
+  /**
+   * The key of the next container, which is known without reading the container.
+   *
+   * @return the key of the next container
+   * @throws NoSuchElementException if all containers were read
+   */
+  public char peekKey() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return keys[position];
+  }
+
+  /**
+   * The cardinality of the next container, which is known without reading the container.
+   *
+   * @return the cardinality of the next container
+   * @throws NoSuchElementException if all containers were read
+   */
+  public int peekCardinality() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return cardinalities[position];
+  }
+
+  /**
+   * Reads the next container, whose key is {@link #peekKey()}.
+   *
+   * @return the next container
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws NoSuchElementException if all containers were read
+   */
+  public Container next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final int k = position++;
+    if (isRun(k)) {
+      // cf RunContainer.writeArray()
+      int nbrruns = (Character.reverseBytes(in.readChar()));
+      final char[] lengthsAndValues = new char[2 * nbrruns];
+      for (int j = 0; j < 2 * nbrruns; ++j) {
+        lengthsAndValues[j] = Character.reverseBytes(in.readChar());
+      }
+      return new RunContainer(lengthsAndValues, nbrruns);
+    } else if (cardinalities[k] > ArrayContainer.DEFAULT_MAX_SIZE) {
+      final long[] bitmapArray = new long[BitmapContainer.MAX_CAPACITY / 64];
+      // little endian
+      for (int l = 0; l < bitmapArray.length; ++l) {
+        bitmapArray[l] = Long.reverseBytes(in.readLong());
+      }
+      return new BitmapContainer(bitmapArray, cardinalities[k]);
+    } else {
+      final char[] charArray = new char[cardinalities[k]];
+      for (int l = 0; l < charArray.length; ++l) {
+        charArray[l] = Character.reverseBytes(in.readChar());
+      }
+      return new ArrayContainer(charArray);
+    }
+  }
+
+  /**
+   * Skips the next container without decoding it.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws NoSuchElementException if all containers were read
+   */
+  public void skip() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final int k = position++;
+    if (isRun(k)) {
+      int nbrruns = (Character.reverseBytes(in.readChar()));
+      skipFully(4 * nbrruns);
+    } else if (cardinalities[k] > ArrayContainer.DEFAULT_MAX_SIZE) {
+      skipFully(BitmapContainer.MAX_CAPACITY / 8);
+    } else {
+      skipFully(2 * cardinalities[k]);
+    }
+  }
+
+  /**
+   * Reads all the remaining containers into the storage, as they are read.
+   *
+   * @param storage where to append the containers
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void readInto(AppendableStorage<Container> storage) throws IOException {
+    while (hasNext()) {
+      char key = peekKey();
+      storage.append(key, next());
+    }
+  }
+
+  /**
+   * Computes the union of the bitmap with the remaining containers, in place.
+   *
+   * @param bitmap the bitmap to modify
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void orInto(RoaringBitmap bitmap) throws IOException {
+    RoaringArray highLowContainer = bitmap.highLowContainer;
+    while (hasNext()) {
+      char key = peekKey();
+      Container container = next();
+      int i = highLowContainer.getIndex(key);
+      if (i >= 0) {
+        highLowContainer.setContainerAtIndex(
+            i, highLowContainer.getContainerAtIndex(i).ior(container));
+      } else {
+        highLowContainer.insertNewKeyValueAt(-i - 1, key, container);
+      }
+    }
+  }
+
+  /**
+   * Computes the intersection of the bitmap with the remaining containers, in place. Containers
+   * with keys absent from the bitmap are skipped without being decoded.
+   *
+   * @param bitmap the bitmap to modify
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void andInto(RoaringBitmap bitmap) throws IOException {
+    RoaringArray highLowContainer = bitmap.highLowContainer;
+    int pos = 0;
+    int intersectionSize = 0;
+    while (pos < highLowContainer.size() && hasNext()) {
+      char key = highLowContainer.getKeyAtIndex(pos);
+      char streamedKey = peekKey();
+      if (key < streamedKey) {
+        ++pos;
+      } else if (streamedKey < key) {
+        skip();
+      } else {
+        Container c = highLowContainer.getContainerAtIndex(pos).iand(next());
+        if (!c.isEmpty()) {
+          highLowContainer.replaceKeyAndContainerAtIndex(intersectionSize++, key, c);
+        }
+        ++pos;
+      }
+    }
+    highLowContainer.resize(intersectionSize);
+  }
+
+  /**
+   * Closes the underlying input if it is {@link Closeable}.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public void close() throws IOException {
+    if (in instanceof Closeable) {
+      ((Closeable) in).close();
+    }
+  }
+
+  private boolean isRun(int k) {
+    return bitmapOfRunContainers != null && (bitmapOfRunContainers[k / 8] & (1 << (k % 8))) != 0;
+  }
+
+  private void skipFully(int n) throws IOException {
+    while (n > 0) {
+      int skipped = in.skipBytes(n);
+      if (skipped <= 0) {
+        // skipBytes may give up before the end of the stream, readByte tells us which
+        in.readByte();
+        skipped = 1;
+      }
+      n -= skipped;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+
+/**
+ * A Spliterator over the values of a {@link RoaringBitmap} which splits on container boundaries,
+ * balancing the cardinalities of the two halves. Each split knows its exact size, so that parallel
+ * streams need neither buffering nor size estimation.
+ */
+final class RoaringSpliterator implements Spliterator.OfInt {
+
+  private final RoaringArray highLowContainer;
+  // cumulatedCardinalities[i] is the number of values in the containers before the i-th one
+  private final long[] cumulatedCardinalities;
+  private final int fence;
+  // the next container to iterate over
+  private int index;
+  // the container being iterated over, and the number of its values not yet consumed
+  private PeekableCharIterator charIterator;
+  private int high;
+  private int remaining = 0;
+
+  RoaringSpliterator(RoaringArray highLowContainer) {
+    this(highLowContainer, cumulatedCardinalities(highLowContainer), 0, highLowContainer.size());
+  }
+
+  private RoaringSpliterator(
+      RoaringArray highLowContainer, long[] cumulatedCardinalities, int index, int fence) {
+    this.highLowContainer = highLowContainer;
+    this.cumulatedCardinalities = cumulatedCardinalities;
+    this.index = index;
+    this.fence = fence;
+  }
+
+  private static long[] cumulatedCardinalities(RoaringArray highLowContainer) {
+    long[] cumulated = new long[highLowContainer.size() + 1];
+    for (int i = 0; i < highLowContainer.size(); ++i) {
+      cumulated[i + 1] = cumulated[i] + highLowContainer.getContainerAtIndex(i).getCardinality();
+    }
+    return cumulated;
+  }
+
+  @Override
+  public boolean tryAdvance(java.util.function.IntConsumer action) {
+    while (remaining == 0) {
+      if (index >= fence) {
+        return false;
+      }
+      high = highLowContainer.getKeyAtIndex(index) << 16;
+      charIterator = highLowContainer.getContainerAtIndex(index).getCharIterator();
+      remaining = (int) (cumulatedCardinalities[index + 1] - cumulatedCardinalities[index]);
+      ++index;
+    }
+    --remaining;
+    action.accept(high | charIterator.next());
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(java.util.function.IntConsumer action) {
+    for (; remaining > 0; --remaining) {
+      action.accept(high | charIterator.next());
+    }
+    IntConsumer consumer = action::accept;
+    for (; index < fence; ++index) {
+      highLowContainer
+          .getContainerAtIndex(index)
+          .forEach(highLowContainer.getKeyAtIndex(index), consumer);
+    }
+  }
+
+  @Override
+  public Spliterator.OfInt trySplit() {
+    // the prefix takes what is left of the current container and at least one more container
+    // if there is none, the suffix keeps at least one container
+    int lo = remaining > 0 ? index : index + 1;
+    int hi = fence - 1;
+    if (lo > hi) {
+      return null;
+    }
+    long half = (cumulatedCardinalities[index] - remaining + cumulatedCardinalities[fence]) >>> 1;
+    int mid = Arrays.binarySearch(cumulatedCardinalities, lo, hi + 1, half);
+    mid = Math.min(Math.max(mid < 0 ? -mid - 1 : mid, lo), hi);
+    RoaringSpliterator prefix =
+        new RoaringSpliterator(highLowContainer, cumulatedCardinalities, index, mid);
+    prefix.charIterator = charIterator;
+    prefix.high = high;
+    prefix.remaining = remaining;
+    charIterator = null;
+    remaining = 0;
+    index = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return cumulatedCardinalities[fence] - cumulatedCardinalities[index] + remaining;
+  }
+
+  @Override
+  public int characteristics() {
+    return Util.SPLITERATOR_CHARACTERISTICS;
+  }
+
+  @Override
+  public Comparator<? super Integer> getComparator() {
+    // claims the signed natural order, see Util.SPLITERATOR_CHARACTERISTICS
+    return null;
+  }
+}
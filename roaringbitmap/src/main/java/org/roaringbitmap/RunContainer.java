@@ -2317,6 +2317,10 @@ public final class RunContainer extends Container implements Cloneable {
           answer.content[answer.cardinality++] = (char) runValue;
         }
       }
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.RUN, ContainerType.ARRAY);
+      }
       return answer;
     }
     BitmapContainer answer = new BitmapContainer();
@@ -2326,6 +2330,10 @@ public final class RunContainer extends Container implements Cloneable {
       Util.setBitmapRange(answer.bitmap, start, end);
     }
     answer.cardinality = card;
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.RUN, ContainerType.BITMAP);
+    }
     return answer;
   }
 
@@ -2646,6 +2654,10 @@ public final class RunContainer extends Container implements Cloneable {
     }
     assert card == this.getCardinality();
     answer.cardinality = card;
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.RUN, ContainerType.BITMAP);
+    }
     return answer;
   }
 
@@ -0,0 +1,49 @@
+package org.roaringbitmap;
+
+/**
+ * Shim over the intersection of sorted arrays of 16-bit values to support multi-release.
+ * On JDK17+ the intersection may be computed with the Vector API.
+ */
+public class SortedArraysShim {
+
+  /**
+   * Intersect two sorted lists and write the result to the provided output array
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @param buffer output array
+   * @return cardinality of the intersection
+   */
+  public static int intersect(
+      char[] set1, int length1, char[] set2, int length2, char[] buffer) {
+    return Util.unsignedLocalIntersect2by2(set1, length1, set2, length2, buffer);
+  }
+
+  /**
+   * Compute the cardinality of the intersection of two sorted lists
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @return cardinality of the intersection
+   */
+  public static int intersectCardinality(char[] set1, int length1, char[] set2, int length2) {
+    return Util.unsignedLocalIntersect2by2Cardinality(set1, length1, set2, length2);
+  }
+
+  /**
+   * Checks if two sorted lists intersect
+   *
+   * @param set1 first array
+   * @param length1 length of first array
+   * @param set2 second array
+   * @param length2 length of second array
+   * @return true if they intersect
+   */
+  public static boolean intersects(char[] set1, int length1, char[] set2, int length2) {
+    return Util.unsignedIntersects(set1, length1, set2, length2);
+  }
+}
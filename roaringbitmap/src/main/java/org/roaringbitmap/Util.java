@@ -7,6 +7,7 @@ package org.roaringbitmap;
 import static java.lang.Long.numberOfTrailingZeros;
 
 import java.util.Arrays;
+import java.util.Spliterator;
 
 /**
  * Various useful methods for roaring bitmaps.
@@ -19,6 +20,24 @@ public final class Util {
    */
   public static final boolean USE_HYBRID_BINSEARCH = true;
 
+  /**
+   * The characteristics of the spliterators over the values of the 32-bit and 64-bit bitmaps,
+   * which split on container boundaries and know the exact size of every split.
+   *
+   * They report {@link Spliterator#SORTED} with a null comparator, which claims the natural order
+   * of {@link Integer} or {@link Long}. That order is signed whereas the values are iterated in
+   * unsigned order, so the claim is wrong as soon as there are negative values: the streams trust
+   * it and skip the sorts, and {@code RoaringBitmap.bitmapOf(-1, 1).stream().sorted()} yields 1
+   * then -1. The streams of the bitmaps have always reported these characteristics, which are kept
+   * as they are.
+   */
+  public static final int SPLITERATOR_CHARACTERISTICS =
+      Spliterator.ORDERED
+          | Spliterator.DISTINCT
+          | Spliterator.SORTED
+          | Spliterator.SIZED
+          | Spliterator.SUBSIZED;
+
   /**
    * Add value "offset" to all values in the container, producing
    * two new containers. The existing container remains unchanged.
@@ -890,7 +909,7 @@ public final class Util {
     } else if (set2.length * THRESHOLD < set1.length) {
       return unsignedOneSidedGallopingIntersect2by2(set2, length2, set1, length1, buffer);
     } else {
-      return unsignedLocalIntersect2by2(set1, length1, set2, length2, buffer);
+      return SortedArraysShim.intersect(set1, length1, set2, length2, buffer);
     }
   }
 
@@ -4,11 +4,16 @@ import org.roaringbitmap.ArrayContainer;
 import org.roaringbitmap.BitmapContainer;
 import org.roaringbitmap.Container;
 import org.roaringbitmap.RunContainer;
+import org.roaringbitmap.buffer.MappeableArrayContainer;
+import org.roaringbitmap.buffer.MappeableBitmapContainer;
+import org.roaringbitmap.buffer.MappeableContainer;
+import org.roaringbitmap.buffer.MappeableRunContainer;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -356,6 +361,84 @@ public class Containers {
     this.secondLevelIdx = byteBuffer.getInt();
   }
 
+  /**
+   * Walk over serialized Containers without deserializing them, recording where each container
+   * starts so that it can later be mapped with {@link #mapContainer(ByteBuffer, int)}
+   *
+   * @param byteBuffer The little endian ByteBuffer, positioned at the serialized Containers. Its
+   *     position is moved past them.
+   * @return the position of each container by first and second level index, -1 for an empty slot
+   * @throws IOException Signals that the serialized data is corrupted.
+   */
+  public static int[][] mapPositions(ByteBuffer byteBuffer) throws IOException {
+    int firstLevelSize = byteBuffer.getInt();
+    int[][] positions = new int[firstLevelSize][];
+    for (int i = 0; i < firstLevelSize; i++) {
+      byte trimTag = byteBuffer.get();
+      int secondLevelSize = byteBuffer.getInt();
+      int[] containerPositions = new int[secondLevelSize];
+      for (int j = 0; j < secondLevelSize; j++) {
+        byte nullTag = byteBuffer.get();
+        if (nullTag == NULL_MARK) {
+          containerPositions[j] = -1;
+        } else if (nullTag == NOT_NULL_MARK) {
+          int position = byteBuffer.position();
+          byte containerType = byteBuffer.get();
+          int cardinality = byteBuffer.getInt();
+          int payload;
+          if (containerType == 0) {
+            payload = 2 + 4 * byteBuffer.getChar(byteBuffer.position());
+          } else if (containerType == 1) {
+            payload = BitmapContainer.MAX_CAPACITY / 8;
+          } else if (containerType == 2) {
+            payload = 2 * cardinality;
+          } else {
+            throw new IOException("Not supported container type:" + containerType);
+          }
+          byteBuffer.position(byteBuffer.position() + payload);
+          containerPositions[j] = position;
+        } else {
+          throw new IOException("the null tag byte value:" + nullTag + " is not right!");
+        }
+      }
+      positions[i] = containerPositions;
+    }
+    // containerSize, firstLevelIdx and secondLevelIdx
+    byteBuffer.position(byteBuffer.position() + 16);
+    return positions;
+  }
+
+  /**
+   * Map a container in place, the returned container is backed by the provided ByteBuffer
+   *
+   * @param byteBuffer The little endian ByteBuffer holding the serialized Containers
+   * @param position the position of the container, as found by {@link #mapPositions(ByteBuffer)}
+   * @return the mapped container
+   */
+  public static MappeableContainer mapContainer(ByteBuffer byteBuffer, int position) {
+    byte containerType = byteBuffer.get(position);
+    int cardinality = byteBuffer.getInt(position + 1);
+    if (containerType == 0) {
+      int nbrruns = byteBuffer.getChar(position + 5);
+      return new MappeableRunContainer(
+          slice(byteBuffer, position + 7, 4 * nbrruns).asCharBuffer(), nbrruns);
+    } else if (containerType == 1) {
+      return new MappeableBitmapContainer(
+          slice(byteBuffer, position + 5, BitmapContainer.MAX_CAPACITY / 8).asLongBuffer(),
+          cardinality);
+    } else {
+      return new MappeableArrayContainer(
+          slice(byteBuffer, position + 5, 2 * cardinality).asCharBuffer(), cardinality);
+    }
+  }
+
+  private static ByteBuffer slice(ByteBuffer byteBuffer, int position, int length) {
+    ByteBuffer view = byteBuffer.duplicate();
+    view.position(position);
+    view.limit(position + length);
+    return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
   private byte containerType(Container container) {
     if (container instanceof RunContainer) {
       return 0;
@@ -5,6 +5,9 @@
 package org.roaringbitmap.buffer;
 
 import org.roaringbitmap.BitSetUtil;
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListener.Operation;
+import org.roaringbitmap.BitmapListeners;
 import org.roaringbitmap.Util;
 
 import java.nio.CharBuffer;
@@ -31,10 +34,12 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap and(ImmutableRoaringBitmap... bitmaps) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     if (bitmaps.length > 10) {
-      return workShyAnd(new long[1024], bitmaps);
+      return reported(listener, Operation.AND, start, workShyAnd(new long[1024], bitmaps));
     }
-    return naive_and(bitmaps);
+    return reported(listener, Operation.AND, start, naive_and(bitmaps));
   }
 
   /**
@@ -47,17 +52,19 @@ public final class BufferFastAggregation {
    */
   public static MutableRoaringBitmap and(
       long[] aggregationBuffer, ImmutableRoaringBitmap... bitmaps) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     if (bitmaps.length > 10) {
       if (aggregationBuffer.length < 1024) {
         throw new IllegalArgumentException("buffer should have at least 1024 elements.");
       }
       try {
-        return workShyAnd(aggregationBuffer, bitmaps);
+        return reported(listener, Operation.AND, start, workShyAnd(aggregationBuffer, bitmaps));
       } finally {
         Arrays.fill(aggregationBuffer, 0L);
       }
     }
-    return naive_and(bitmaps);
+    return reported(listener, Operation.AND, start, naive_and(bitmaps));
   }
 
   /**
@@ -83,14 +90,16 @@ public final class BufferFastAggregation {
    */
   public static MutableRoaringBitmap and(
       long[] aggregationBuffer, Iterator<? extends ImmutableRoaringBitmap> bitmaps) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     if (bitmaps.hasNext()) {
       try {
-        return workShyAnd(aggregationBuffer, bitmaps);
+        return reported(listener, Operation.AND, start, workShyAnd(aggregationBuffer, bitmaps));
       } finally {
         Arrays.fill(aggregationBuffer, 0L);
       }
     }
-    return new MutableRoaringBitmap();
+    return reported(listener, Operation.AND, start, new MutableRoaringBitmap());
   }
 
   /**
@@ -765,7 +774,9 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap or(ImmutableRoaringBitmap... bitmaps) {
-    return naive_or(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.OR, start, naive_or(bitmaps));
   }
 
   /**
@@ -775,7 +786,9 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap or(@SuppressWarnings("rawtypes") Iterator bitmaps) {
-    return naive_or(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.OR, start, naive_or(bitmaps));
   }
 
   /**
@@ -785,7 +798,9 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap or(MutableRoaringBitmap... bitmaps) {
-    return naive_or(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.OR, start, naive_or(bitmaps));
   }
 
   /**
@@ -960,7 +975,9 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap xor(ImmutableRoaringBitmap... bitmaps) {
-    return naive_xor(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.XOR, start, naive_xor(bitmaps));
   }
 
   /**
@@ -970,7 +987,9 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap xor(@SuppressWarnings("rawtypes") Iterator bitmaps) {
-    return naive_xor(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.XOR, start, naive_xor(bitmaps));
   }
 
   /**
@@ -981,7 +1000,17 @@ public final class BufferFastAggregation {
    * @return aggregated bitmap
    */
   public static MutableRoaringBitmap xor(MutableRoaringBitmap... bitmaps) {
-    return naive_xor(bitmaps);
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
+    return reported(listener, Operation.XOR, start, naive_xor(bitmaps));
+  }
+
+  private static MutableRoaringBitmap reported(
+      BitmapListener listener, Operation operation, long start, MutableRoaringBitmap answer) {
+    if (listener != null) {
+      listener.onOperation(BufferFastAggregation.class, operation, System.nanoTime() - start);
+    }
+    return answer;
   }
 
   /**
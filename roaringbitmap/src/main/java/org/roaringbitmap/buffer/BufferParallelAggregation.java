@@ -2,6 +2,8 @@ package org.roaringbitmap.buffer;
 
 import java.nio.LongBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -21,8 +23,9 @@ import java.util.stream.IntStream;
 /**
  *
  * These utility methods provide parallel implementations of
- * logical aggregation operators. AND is not implemented
- * because it is unlikely to be profitable.
+ * logical aggregation operators. Intersections and differences
+ * are partitioned by key: each key present in the result is
+ * computed independently of the others.
  *
  * There is a temporary memory overhead in using these methods,
  * since a materialisation of the rotated containers grouped by key
@@ -44,6 +47,9 @@ import java.util.stream.IntStream;
  *            () -> BufferParallelAggregation.or(bitmaps)).get();
  * }
  * </pre>
+ *
+ * The AND, ANDNOT and AND cardinality operators also accept a {@link ForkJoinPool}
+ * directly, in which case the aggregation runs on the supplied pool.
  */
 public class BufferParallelAggregation {
 
@@ -197,6 +203,163 @@ public class BufferParallelAggregation {
     return groupByKey(bitmaps).entrySet().parallelStream().collect(XOR);
   }
 
+  /**
+   * Computes the intersection of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static MutableRoaringBitmap and(ImmutableRoaringBitmap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return new MutableRoaringBitmap();
+    }
+    if (bitmaps.length == 1) {
+      return bitmaps[0].toMutableRoaringBitmap();
+    }
+    char[] keys = BufferUtil.intersectKeys(new long[1 << 10], bitmaps);
+    MappeableContainer[] values = new MappeableContainer[keys.length];
+    IntStream.range(0, keys.length)
+        .parallel()
+        .forEach(position -> values[position] = and(keys[position], bitmaps));
+    return new MutableRoaringBitmap(
+        new MutableRoaringArray(keys, values, compact(keys, values)));
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static MutableRoaringBitmap and(ForkJoinPool pool, ImmutableRoaringBitmap... bitmaps) {
+    return pool.submit(() -> and(bitmaps)).join();
+  }
+
+  /**
+   * Computes the cardinality of the intersection of the input bitmaps,
+   * without materialising the last intersection of each key.
+   * @param bitmaps the input bitmaps
+   * @return the cardinality of the intersection of the bitmaps
+   */
+  public static int andCardinality(ImmutableRoaringBitmap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return 0;
+    }
+    if (bitmaps.length == 1) {
+      return bitmaps[0].getCardinality();
+    }
+    char[] keys = BufferUtil.intersectKeys(new long[1 << 10], bitmaps);
+    return IntStream.range(0, keys.length)
+        .parallel()
+        .map(position -> andCardinality(keys[position], bitmaps))
+        .sum();
+  }
+
+  /**
+   * Computes the cardinality of the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the cardinality of the intersection of the bitmaps
+   */
+  public static int andCardinality(ForkJoinPool pool, ImmutableRoaringBitmap... bitmaps) {
+    return pool.submit(() -> andCardinality(bitmaps)).join();
+  }
+
+  /**
+   * Computes the difference between the base bitmap and the union of the subtrahends
+   * @param base the bitmap to subtract from
+   * @param subtrahends the bitmaps to subtract
+   * @return the difference of the bitmaps
+   */
+  public static MutableRoaringBitmap andNot(
+      ImmutableRoaringBitmap base, ImmutableRoaringBitmap... subtrahends) {
+    PointableRoaringArray ra = base.highLowContainer;
+    char[] keys = new char[ra.size()];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = ra.getKeyAtIndex(i);
+    }
+    MappeableContainer[] values = new MappeableContainer[keys.length];
+    IntStream.range(0, keys.length)
+        .parallel()
+        .forEach(
+            position ->
+                values[position] =
+                    andNot(keys[position], ra.getContainerAtIndex(position), subtrahends));
+    return new MutableRoaringBitmap(
+        new MutableRoaringArray(keys, values, compact(keys, values)));
+  }
+
+  /**
+   * Computes the difference between the base bitmap and the union of the subtrahends
+   * on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param base the bitmap to subtract from
+   * @param subtrahends the bitmaps to subtract
+   * @return the difference of the bitmaps
+   */
+  public static MutableRoaringBitmap andNot(
+      ForkJoinPool pool, ImmutableRoaringBitmap base, ImmutableRoaringBitmap... subtrahends) {
+    return pool.submit(() -> andNot(base, subtrahends)).join();
+  }
+
+  private static MappeableContainer[] slice(char key, ImmutableRoaringBitmap[] bitmaps) {
+    MappeableContainer[] slice = new MappeableContainer[bitmaps.length];
+    for (int i = 0; i < bitmaps.length; ++i) {
+      PointableRoaringArray ra = bitmaps[i].highLowContainer;
+      slice[i] = ra.getContainerAtIndex(ra.getIndex(key));
+    }
+    // intersecting the smallest containers first shrinks the intermediate results quickly
+    Arrays.sort(slice, Comparator.comparingInt(MappeableContainer::getCardinality));
+    return slice;
+  }
+
+  private static MappeableContainer and(char key, ImmutableRoaringBitmap[] bitmaps) {
+    MappeableContainer[] slice = slice(key, bitmaps);
+    MappeableContainer result = slice[0].and(slice[1]);
+    for (int i = 2; i < slice.length && !result.isEmpty(); ++i) {
+      result = result.iand(slice[i]);
+    }
+    return result;
+  }
+
+  private static int andCardinality(char key, ImmutableRoaringBitmap[] bitmaps) {
+    MappeableContainer[] slice = slice(key, bitmaps);
+    if (slice.length == 2) {
+      return slice[0].andCardinality(slice[1]);
+    }
+    MappeableContainer result = slice[0].and(slice[1]);
+    for (int i = 2; i < slice.length - 1 && !result.isEmpty(); ++i) {
+      result = result.iand(slice[i]);
+    }
+    return result.andCardinality(slice[slice.length - 1]);
+  }
+
+  private static MappeableContainer andNot(
+      char key, MappeableContainer container, ImmutableRoaringBitmap[] subtrahends) {
+    MappeableContainer result = container;
+    for (int i = 0; i < subtrahends.length && !result.isEmpty(); ++i) {
+      PointableRoaringArray ra = subtrahends[i].highLowContainer;
+      int index = ra.getIndex(key);
+      if (index >= 0) {
+        result =
+            result == container
+                ? result.andNot(ra.getContainerAtIndex(index))
+                : result.iandNot(ra.getContainerAtIndex(index));
+      }
+    }
+    return result == container ? container.clone() : result;
+  }
+
+  private static int compact(char[] keys, MappeableContainer[] values) {
+    int size = 0;
+    for (int i = 0; i < keys.length; ++i) {
+      if (!values[i].isEmpty()) {
+        keys[size] = keys[i];
+        values[size++] = values[i];
+      }
+    }
+    return size;
+  }
+
   private static MappeableContainer xor(List<MappeableContainer> containers) {
     MappeableContainer result = containers.get(0).clone();
     for (int i = 1; i < containers.size(); ++i) {
@@ -0,0 +1,105 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import static org.roaringbitmap.Util.toUnsignedLong;
+import static org.roaringbitmap.buffer.BufferUtil.highbits;
+import static org.roaringbitmap.buffer.BufferUtil.lowbits;
+
+import org.roaringbitmap.FastRankRoaringBitmap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This extends {@link ImmutableRoaringBitmap} to provide better performance for .rank and .select
+ * operations, like {@link FastRankRoaringBitmap} does for heap bitmaps.
+ *
+ * {@link ImmutableRoaringBitmap} iterates along all the containers to cumulate their
+ * cardinalities. This implementation computes the cumulated cardinalities on the first .rank or
+ * .select operation, from the container headers only, so that further operations binary search
+ * the container holding the rank. As the bitmap cannot change, the cache is never dismissed.
+ */
+public class FastRankImmutableRoaringBitmap extends ImmutableRoaringBitmap {
+  // maps the index of each container to the sum of its cardinality and of the cardinalities of
+  // all the previous containers
+  private volatile long[] highToCumulatedCardinality = null;
+
+  /**
+   * Constructs a new FastRankImmutableRoaringBitmap starting at this ByteBuffer's position(). Only
+   * meta-data is loaded to RAM. The rest is mapped to the ByteBuffer.
+   *
+   * @param b data source
+   * @see ImmutableRoaringBitmap#ImmutableRoaringBitmap(ByteBuffer)
+   */
+  public FastRankImmutableRoaringBitmap(final ByteBuffer b) {
+    super(b);
+  }
+
+  // VisibleForTesting
+  boolean isCacheComputed() {
+    return highToCumulatedCardinality != null;
+  }
+
+  private long[] cumulatedCardinalities() {
+    long[] cumulated = highToCumulatedCardinality;
+    if (cumulated == null) {
+      // racing threads compute the same array, so there is no need to lock
+      cumulated = new long[highLowContainer.size()];
+      long sum = 0;
+      for (int i = 0; i < cumulated.length; i++) {
+        sum += highLowContainer.getCardinality(i);
+        cumulated[i] = sum;
+      }
+      highToCumulatedCardinality = cumulated;
+    }
+    return cumulated;
+  }
+
+  @Override
+  public long rankLong(int x) {
+    long[] cumulated = cumulatedCardinalities();
+    int index = highLowContainer.getIndex(highbits(x));
+    if (index < 0) {
+      index = -1 - index;
+      return index > 0 ? cumulated[index - 1] : 0L;
+    }
+    long size = index > 0 ? cumulated[index - 1] : 0L;
+    return size + highLowContainer.getContainerAtIndex(index).rank(lowbits(x));
+  }
+
+  @Override
+  public int select(int j) {
+    long[] cumulated = cumulatedCardinalities();
+    long leftover = toUnsignedLong(j);
+    if (cumulated.length == 0 || leftover >= cumulated[cumulated.length - 1]) {
+      throw new IllegalArgumentException(
+          "You are trying to select the "
+              + j
+              + "th value when the cardinality is "
+              + this.getCardinality()
+              + ".");
+    }
+    // the first container whose cumulated cardinality exceeds j
+    int index = Arrays.binarySearch(cumulated, leftover);
+    index = index < 0 ? -1 - index : index + 1;
+    if (index > 0) {
+      leftover -= cumulated[index - 1];
+    }
+    int keycontrib = highLowContainer.getKeyAtIndex(index) << 16;
+    int lowcontrib = highLowContainer.getContainerAtIndex(index).select((int) leftover);
+    return lowcontrib + keycontrib;
+  }
+
+  @Override
+  public long getLongSizeInBytes() {
+    long size = super.getLongSizeInBytes();
+    long[] cumulated = highToCumulatedCardinality;
+    if (cumulated != null) {
+      size += 8L * cumulated.length;
+    }
+    return size;
+  }
+}
@@ -11,7 +11,11 @@ import static org.roaringbitmap.buffer.BufferUtil.lowbitsAsInteger;
 import static org.roaringbitmap.buffer.MutableRoaringBitmap.rangeSanityCheck;
 
 import org.roaringbitmap.BatchIterator;
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListener.Operation;
+import org.roaringbitmap.BitmapListeners;
 import org.roaringbitmap.CharIterator;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.ImmutableBitmapDataProvider;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.IntIterator;
@@ -23,7 +27,10 @@ import org.roaringbitmap.Util;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * ImmutableRoaringBitmap provides a compressed immutable (cannot be modified) bitmap. It is meant
@@ -310,6 +317,8 @@ public class ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap and(
       final ImmutableRoaringBitmap x1, final ImmutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -321,6 +330,9 @@ public class ImmutableRoaringBitmap
       if (s1 == s2) {
         final MappeableContainer c1 = x1.highLowContainer.getContainerAtIndex(pos1);
         final MappeableContainer c2 = x2.highLowContainer.getContainerAtIndex(pos2);
+        if (listener != null) {
+          listener.onContainerPair(Operation.AND, ContainerType.of(c1), ContainerType.of(c2));
+        }
         final MappeableContainer c = c1.and(c2);
         if (!c.isEmpty()) {
           answer.getMappeableRoaringArray().append(s1, c);
@@ -333,6 +345,9 @@ public class ImmutableRoaringBitmap
         pos2 = x2.highLowContainer.advanceUntil(s1, pos2);
       }
     }
+    if (listener != null) {
+      listener.onOperation(ImmutableRoaringBitmap.class, Operation.AND, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -962,6 +977,8 @@ public class ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap or(
       final ImmutableRoaringBitmap x1, final ImmutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     MappeableContainerPointer i1 = x1.highLowContainer.getContainerPointer();
     MappeableContainerPointer i2 = x2.highLowContainer.getContainerPointer();
@@ -969,6 +986,12 @@ public class ImmutableRoaringBitmap
     if (i1.hasContainer() && i2.hasContainer()) {
       while (true) {
         if (i1.key() == i2.key()) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.OR,
+                ContainerType.of(i1.getContainer()),
+                ContainerType.of(i2.getContainer()));
+          }
           answer
               .getMappeableRoaringArray()
               .append(i1.key(), i1.getContainer().or(i2.getContainer()));
@@ -1003,6 +1026,9 @@ public class ImmutableRoaringBitmap
         i1.advance();
       }
     }
+    if (listener != null) {
+      listener.onOperation(ImmutableRoaringBitmap.class, Operation.OR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -1126,6 +1152,8 @@ public class ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap xor(
       final ImmutableRoaringBitmap x1, final ImmutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     MappeableContainerPointer i1 = x1.highLowContainer.getContainerPointer();
     MappeableContainerPointer i2 = x2.highLowContainer.getContainerPointer();
@@ -1133,6 +1161,12 @@ public class ImmutableRoaringBitmap
     if (i1.hasContainer() && i2.hasContainer()) {
       while (true) {
         if (i1.key() == i2.key()) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.XOR,
+                ContainerType.of(i1.getContainer()),
+                ContainerType.of(i2.getContainer()));
+          }
           final MappeableContainer c = i1.getContainer().xor(i2.getContainer());
           if (!c.isEmpty()) {
             answer.getMappeableRoaringArray().append(i1.key(), c);
@@ -1168,7 +1202,9 @@ public class ImmutableRoaringBitmap
         i1.advance();
       }
     }
-
+    if (listener != null) {
+      listener.onOperation(ImmutableRoaringBitmap.class, Operation.XOR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -1229,6 +1265,107 @@ public class ImmutableRoaringBitmap
     return index >= 0 && highLowContainer.containsForContainerAtIndex(index, lowbits(x));
   }
 
+  /**
+   * Checks whether each of the values is contained in this bitmap. This is faster than calling
+   * {@link #contains(int)} in a loop when the values are sorted (as unsigned integers): the
+   * containers are then visited in order, and the values of array containers are found by
+   * galloping from the previous value instead of restarting the search.
+   * Unsorted values are supported, at the cost of a binary search when going backwards.
+   *
+   * @param values the values to look for, preferably sorted
+   * @param out receives, at the index of each value, whether it is contained in this bitmap
+   */
+  public void contains(int[] values, boolean[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    contains(values, out, null);
+  }
+
+  /**
+   * Selects the values contained in this bitmap, see {@link #contains(int[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return the values contained in this bitmap, in their original order
+   */
+  public int[] filter(int[] values) {
+    int[] contained = new int[values.length];
+    int count = contains(values, null, contained);
+    return count == contained.length ? contained : Arrays.copyOf(contained, count);
+  }
+
+  /**
+   * Counts the values contained in this bitmap, see {@link #contains(int[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return how many of the values are contained in this bitmap, duplicates included
+   */
+  public int countContained(int[] values) {
+    return contains(values, null, null);
+  }
+
+  private int contains(int[] values, boolean[] out, int[] contained) {
+    int count = 0;
+    // the index of the container of the current key, or of the first key after it
+    int pos = 0;
+    int key = -1;
+    MappeableContainer container = null;
+    // galloping state, when the current container is an array
+    MappeableArrayContainer array = null;
+    int arrayPos = -1;
+    int previousLow = -1;
+    for (int i = 0; i < values.length; ++i) {
+      final int value = values[i];
+      final char hb = highbits(value);
+      if (hb != key) {
+        if (hb > key) {
+          pos = highLowContainer.advanceUntil(hb, pos - 1);
+        } else {
+          pos = highLowContainer.getContainerIndex(hb);
+          if (pos < 0) {
+            pos = -pos - 1;
+          }
+        }
+        key = hb;
+        container =
+            pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) == hb
+                ? highLowContainer.getContainerAtIndex(pos)
+                : null;
+        array =
+            container instanceof MappeableArrayContainer
+                ? (MappeableArrayContainer) container
+                : null;
+        arrayPos = -1;
+        previousLow = -1;
+      }
+      final char low = lowbits(value);
+      final boolean found;
+      if (array != null) {
+        if (low < previousLow) {
+          arrayPos = -1;
+        }
+        int index = BufferUtil.advanceUntil(array.content, arrayPos, array.cardinality, low);
+        found = index < array.cardinality && array.content.get(index) == low;
+        // the next value may be the same
+        arrayPos = index - 1;
+        previousLow = low;
+      } else {
+        found = container != null && container.contains(low);
+      }
+      if (out != null) {
+        out[i] = found;
+      }
+      if (found) {
+        if (contained != null) {
+          contained[count] = value;
+        }
+        ++count;
+      }
+    }
+    return count;
+  }
+
   /**
    * Checks if the bitmap contains the range.
    * @param minimum the inclusive lower bound of the range
@@ -1503,6 +1640,17 @@ public class ImmutableRoaringBitmap
     return new RoaringBatchIterator(null == highLowContainer ? null : getContainerPointer());
   }
 
+  /**
+   * The stream splits on container boundaries and knows the exact size of each split, so that it
+   * can be consumed in parallel efficiently.
+   *
+   * @return an Ordered, Distinct, Sorted and Sized IntStream in ascending order
+   */
+  @Override
+  public IntStream stream() {
+    return StreamSupport.intStream(new RoaringSpliterator(highLowContainer), false);
+  }
+
   /**
    * Estimate of the memory usage of this data structure. This can be expected to be within 1% of
    * the true memory usage in common usage scenarios.
@@ -1810,6 +1958,88 @@ public class ImmutableRoaringBitmap
             + ".");
   }
 
+  /**
+   * Computes the rank of many values at once, see {@link #rankLong(int)}. The values are best
+   * sorted (as unsigned integers): the containers are then swept once for all the values, instead
+   * of once per value. Unsorted values are supported, at the cost of restarting the sweep when
+   * going backwards.
+   *
+   * @param values the values to rank, preferably sorted
+   * @param out receives, at the index of each value, the number of integers smaller or equal to
+   *     the value
+   */
+  public void rank(int[] values, long[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    // the containers before pos hold size values
+    int pos = 0;
+    long size = 0;
+    int previousKey = -1;
+    for (int i = 0; i < values.length; ++i) {
+      final char xhigh = highbits(values[i]);
+      if (xhigh < previousKey) {
+        pos = 0;
+        size = 0;
+      }
+      previousKey = xhigh;
+      while (pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) < xhigh) {
+        size += highLowContainer.getCardinality(pos);
+        ++pos;
+      }
+      if (pos < highLowContainer.size() && highLowContainer.getKeyAtIndex(pos) == xhigh) {
+        out[i] = size + highLowContainer.getContainerAtIndex(pos).rank(lowbits(values[i]));
+      } else {
+        out[i] = size;
+      }
+    }
+  }
+
+  /**
+   * Selects many values at once, see {@link #select(int)}. The ranks are best sorted (as unsigned
+   * integers): the containers are then swept once for all the ranks, instead of once per rank.
+   * Unsorted ranks are supported, at the cost of restarting the sweep when going backwards.
+   *
+   * @param ranks the indexes of the values to select, preferably sorted
+   * @param out receives, at the index of each rank, the value of this rank
+   * @throws IllegalArgumentException if a rank is out of the bounds of the cardinality
+   */
+  public void select(int[] ranks, int[] out) {
+    if (out.length < ranks.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + ranks.length + " ranks");
+    }
+    // the containers before pos hold size values
+    int pos = 0;
+    long size = 0;
+    for (int i = 0; i < ranks.length; ++i) {
+      final long rank = toUnsignedLong(ranks[i]);
+      if (rank < size) {
+        pos = 0;
+        size = 0;
+      }
+      while (pos < highLowContainer.size()) {
+        final int cardinality = highLowContainer.getCardinality(pos);
+        if (size + cardinality > rank) {
+          break;
+        }
+        size += cardinality;
+        ++pos;
+      }
+      if (pos == highLowContainer.size()) {
+        throw new IllegalArgumentException(
+            "You are trying to select the "
+                + ranks[i]
+                + "th value when the cardinality is "
+                + this.getCardinality()
+                + ".");
+      }
+      MappeableContainer c = highLowContainer.getContainerAtIndex(pos);
+      out[i] = (highLowContainer.getKeyAtIndex(pos) << 16) + c.select((int) (rank - size));
+    }
+  }
+
   @Override
   public int first() {
     return highLowContainer.first();
@@ -1989,11 +2219,19 @@ public class ImmutableRoaringBitmap
   @Override
   public void serialize(DataOutput out) throws IOException {
     this.highLowContainer.serialize(out);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onSerialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   @Override
   public void serialize(ByteBuffer buffer) {
     this.highLowContainer.serialize(buffer);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onSerialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -7,11 +7,15 @@ package org.roaringbitmap.buffer;
 import static org.roaringbitmap.buffer.MappeableBitmapContainer.MAX_CAPACITY;
 
 import org.roaringbitmap.ArrayContainer;
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListeners;
 import org.roaringbitmap.CharIterator;
 import org.roaringbitmap.Container;
 import org.roaringbitmap.ContainerBatchIterator;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.PeekableCharIterator;
+import org.roaringbitmap.SortedArraysShim;
 import org.roaringbitmap.Util;
 
 import java.io.DataOutput;
@@ -549,7 +553,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
         content.put(-loc - 1, x);
         ++cardinality;
       } else {
-        for (int k = loc + 1; k < cardinality; --k) {
+        for (int k = loc + 1; k < cardinality; ++k) {
           content.put(k - 1, content.get(k));
         }
         --cardinality;
@@ -690,7 +694,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   public MappeableArrayContainer iand(final MappeableArrayContainer value2) {
     final MappeableArrayContainer value1 = this;
     if (!BufferUtil.isBackedBySimpleArray(value1.content)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().iand(value2);
     }
     value1.cardinality =
         BufferUtil.unsignedIntersect2by2(
@@ -733,7 +737,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   @Override
   public MappeableArrayContainer iandNot(final MappeableArrayContainer value2) {
     if (!BufferUtil.isBackedBySimpleArray(this.content)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().iandNot(value2);
     }
     if (BufferUtil.isBackedBySimpleArray(value2.content)) {
       this.cardinality =
@@ -759,7 +763,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   @Override
   public MappeableArrayContainer iandNot(MappeableBitmapContainer value2) {
     if (!BufferUtil.isBackedBySimpleArray(this.content)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().iandNot(value2);
     }
     char[] c = this.content.array();
     int pos = 0;
@@ -893,6 +897,14 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   @Override
   public boolean intersects(MappeableArrayContainer value2) {
     MappeableArrayContainer value1 = this;
+    if (BufferUtil.isBackedBySimpleArray(value1.content)
+        && BufferUtil.isBackedBySimpleArray(value2.content)) {
+      return SortedArraysShim.intersects(
+          value1.content.array(),
+          value1.getCardinality(),
+          value2.content.array(),
+          value2.getCardinality());
+    }
     return BufferUtil.unsignedIntersects(
         value1.content, value1.getCardinality(), value2.content, value2.getCardinality());
   }
@@ -940,6 +952,8 @@ public final class MappeableArrayContainer extends MappeableContainer implements
                 destination.array());
       }
       this.content = destination;
+    } else if (!BufferUtil.isBackedBySimpleArray(content)) {
+      return clone().ior(value2);
     } else {
       BufferUtil.arraycopy(content, 0, content, value2.cardinality, cardinality);
 
@@ -1068,7 +1082,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
     if (!BufferUtil.isBackedBySimpleArray(this.content)) {
       throw new RuntimeException("Should not happen. Internal bug.");
     }
-    Util.fillArray(bitmapContainer.bitmap.array(), content.array());
+    bitmapContainer.fillArray(content.array());
   }
 
   // for use in inot range known to be nonempty
@@ -1387,7 +1401,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   }
 
   void removeAtIndex(final int loc) {
-    System.arraycopy(content.array(), loc + 1, content.array(), loc, cardinality - loc - 1);
+    BufferUtil.arraycopy(content, loc + 1, content, loc, cardinality - loc - 1);
     --cardinality;
   }
 
@@ -1403,7 +1417,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
       final int loc = BufferUtil.unsignedBinarySearch(content, 0, cardinality, x);
       if (loc >= 0) {
         // insertion
-        for (int k = loc + 1; k < cardinality; --k) {
+        for (int k = loc + 1; k < cardinality; ++k) {
           content.put(k - 1, content.get(k));
         }
         --cardinality;
@@ -1422,6 +1436,10 @@ public final class MappeableArrayContainer extends MappeableContainer implements
     int numRuns = numberOfRuns();
     int sizeAsRunContainer = MappeableRunContainer.getArraySizeInBytes(numRuns);
     if (getArraySizeInBytes() > sizeAsRunContainer) {
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.ARRAY, ContainerType.RUN);
+      }
       return new MappeableRunContainer(this, numRuns); // this could be
       // maybe faster if
       // initial
@@ -1451,6 +1469,10 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   public MappeableBitmapContainer toBitmapContainer() {
     final MappeableBitmapContainer bc = new MappeableBitmapContainer();
     bc.loadData(this);
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.ARRAY, ContainerType.BITMAP);
+    }
     return bc;
   }
 
@@ -1717,7 +1739,7 @@ public final class MappeableArrayContainer extends MappeableContainer implements
   public int andCardinality(MappeableArrayContainer value2) {
     if (BufferUtil.isBackedBySimpleArray(content)
         && BufferUtil.isBackedBySimpleArray(value2.content)) {
-      return Util.unsignedLocalIntersect2by2Cardinality(
+      return SortedArraysShim.intersectCardinality(
           content.array(), cardinality, value2.content.array(), value2.getCardinality());
     }
     return BufferUtil.unsignedLocalIntersect2by2Cardinality(
@@ -4,15 +4,18 @@
 
 package org.roaringbitmap.buffer;
 
-import static java.lang.Long.numberOfLeadingZeros;
 import static java.lang.Long.numberOfTrailingZeros;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 
 import org.roaringbitmap.BitSetUtil;
 import org.roaringbitmap.BitmapContainer;
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListeners;
+import org.roaringbitmap.BitmapShim;
 import org.roaringbitmap.CharIterator;
 import org.roaringbitmap.Container;
 import org.roaringbitmap.ContainerBatchIterator;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.PeekableCharIterator;
 import org.roaringbitmap.Util;
@@ -224,12 +227,8 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
       long[] bitArray = answer.bitmap.array();
       if (BufferUtil.isBackedBySimpleArray(this.bitmap)
           && BufferUtil.isBackedBySimpleArray(value2.bitmap)) {
-        long[] tb = this.bitmap.array();
-        long[] v2b = value2.bitmap.array();
-        int len = this.bitmap.limit();
-        for (int k = 0; k < len; ++k) {
-          bitArray[k] = tb[k] & v2b[k];
-        }
+        BitmapShim.and(
+            this.bitmap.array(), value2.bitmap.array(), bitArray, this.bitmap.limit());
       } else {
         int len = this.bitmap.limit();
         for (int k = 0; k < len; ++k) {
@@ -319,12 +318,8 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
       long[] bitArray = answer.bitmap.array();
       if (BufferUtil.isBackedBySimpleArray(this.bitmap)
           && BufferUtil.isBackedBySimpleArray(value2.bitmap)) {
-        long[] b = this.bitmap.array();
-        long[] v2 = value2.bitmap.array();
-        int len = answer.bitmap.limit();
-        for (int k = 0; k < len; ++k) {
-          bitArray[k] = b[k] & (~v2[k]);
-        }
+        BitmapShim.andNot(
+            this.bitmap.array(), value2.bitmap.array(), bitArray, answer.bitmap.limit());
       } else {
         int len = answer.bitmap.limit();
         for (int k = 0; k < len; ++k) {
@@ -483,7 +478,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
       for (int k = 0; k < len; ++k) {
         long bitset = bitmap.get(k);
         while (bitset != 0) {
-          array[pos++] = (char) (base + numberOfLeadingZeros(bitset));
+          array[pos++] = (char) (base + numberOfTrailingZeros(bitset));
           bitset &= (bitset - 1);
         }
         base += 64;
@@ -622,18 +617,14 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
       long[] tb2 = b2.bitmap.array();
       int len = this.bitmap.limit();
       if (-1 == cardinality) {
-        for (int k = 0; k < len; ++k) {
-          tb[k] &= tb2[k];
-        }
+        BitmapShim.and(tb, tb2, tb, len);
         return this;
       } else {
         for (int k = 0; k < len; ++k) {
           newCardinality += Long.bitCount(tb[k] & tb2[k]);
         }
         if (newCardinality > MappeableArrayContainer.DEFAULT_MAX_SIZE) {
-          for (int k = 0; k < len; ++k) {
-            tb[k] &= tb2[k];
-          }
+          BitmapShim.and(tb, tb2, tb, len);
           this.cardinality = newCardinality;
           return this;
         }
@@ -725,7 +716,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   public MappeableContainer iandNot(final MappeableBitmapContainer b2) {
     int newCardinality = 0;
     if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().iandNot(b2);
     }
     long[] b = this.bitmap.array();
     if (BufferUtil.isBackedBySimpleArray(b2.bitmap)) {
@@ -735,9 +726,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
         newCardinality += Long.bitCount(b[k] & (~b2Arr[k]));
       }
       if (newCardinality > MappeableArrayContainer.DEFAULT_MAX_SIZE) {
-        for (int k = 0; k < len; ++k) {
-          this.bitmap.put(k, b[k] & (~b2Arr[k]));
-        }
+        BitmapShim.andNot(b, b2Arr, b, len);
         this.cardinality = newCardinality;
         return this;
       }
@@ -798,7 +787,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   MappeableContainer ilazyor(MappeableArrayContainer value2) {
     this.cardinality = -1; // invalid
     if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().ilazyor(value2);
     }
     long[] b = this.bitmap.array();
     int c = value2.cardinality;
@@ -811,12 +800,12 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   }
 
   MappeableContainer ilazyor(MappeableBitmapContainer x) {
+    if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
+      return clone().ilazyor(x);
+    }
     if (BufferUtil.isBackedBySimpleArray(x.bitmap)) {
       long[] b = this.bitmap.array();
-      long[] b2 = x.bitmap.array();
-      for (int k = 0; k < b.length; k++) {
-        b[k] |= b2[k];
-      }
+      BitmapShim.or(b, x.bitmap.array(), b, b.length);
     } else {
       final int m = this.bitmap.limit();
       for (int k = 0; k < m; k++) {
@@ -902,7 +891,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   @Override
   public MappeableBitmapContainer ior(final MappeableArrayContainer value2) {
     if (!BufferUtil.isBackedBySimpleArray(this.bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().ior(value2);
     }
     long[] b = this.bitmap.array();
     if (BufferUtil.isBackedBySimpleArray(value2.content)) {
@@ -944,7 +933,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   @Override
   public MappeableContainer ior(final MappeableBitmapContainer b2) {
     if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().ior(b2);
     }
     long[] b = this.bitmap.array();
     this.cardinality = 0;
@@ -1073,7 +1062,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   @Override
   public MappeableContainer ixor(final MappeableArrayContainer value2) {
     if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().ixor(value2);
     }
     long[] b = bitmap.array();
     if (BufferUtil.isBackedBySimpleArray(value2.content)) {
@@ -1110,7 +1099,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
   @Override
   public MappeableContainer ixor(MappeableBitmapContainer b2) {
     if (!BufferUtil.isBackedBySimpleArray(bitmap)) {
-      throw new RuntimeException("Should not happen. Internal bug.");
+      return clone().ixor(b2);
     }
     long[] b = bitmap.array();
     if (BufferUtil.isBackedBySimpleArray(b2.bitmap)) {
@@ -1122,9 +1111,7 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
         newCardinality += Long.bitCount(b[k] ^ b2Arr[k]);
       }
       if (newCardinality > MappeableArrayContainer.DEFAULT_MAX_SIZE) {
-        for (int k = 0; k < len; ++k) {
-          b[k] ^= b2Arr[k];
-        }
+        BitmapShim.xor(b, b2Arr, b, len);
         this.cardinality = newCardinality;
         return this;
       }
@@ -1675,6 +1662,10 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
     int sizeAsRunContainer = MappeableRunContainer.serializedSizeInBytes(numRuns);
 
     if (getArraySizeInBytes() > sizeAsRunContainer) {
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.BITMAP, ContainerType.RUN);
+      }
       return new MappeableRunContainer(this, numRuns);
     } else {
       return this;
@@ -1785,6 +1776,10 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
     if (ac.getCardinality() != cardinality) {
       throw new RuntimeException("Internal error.");
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.BITMAP, ContainerType.ARRAY);
+    }
     return ac;
   }
 
@@ -1913,12 +1908,8 @@ public final class MappeableBitmapContainer extends MappeableContainer implement
       long[] bitArray = answer.bitmap.array();
       if (BufferUtil.isBackedBySimpleArray(this.bitmap)
           && BufferUtil.isBackedBySimpleArray(value2.bitmap)) {
-        long[] b = this.bitmap.array();
-        long[] v2 = value2.bitmap.array();
-        int len = answer.bitmap.limit();
-        for (int k = 0; k < len; ++k) {
-          bitArray[k] = b[k] ^ v2[k];
-        }
+        BitmapShim.xor(
+            this.bitmap.array(), value2.bitmap.array(), bitArray, answer.bitmap.limit());
       } else {
         int len = answer.bitmap.limit();
         for (int k = 0; k < len; ++k) {
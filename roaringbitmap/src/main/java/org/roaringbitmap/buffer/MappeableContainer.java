@@ -108,7 +108,7 @@ public abstract class MappeableContainer
    */
   public abstract MappeableContainer and(MappeableBitmapContainer x);
 
-  protected MappeableContainer and(MappeableContainer x) {
+  public MappeableContainer and(MappeableContainer x) {
     if (x instanceof MappeableArrayContainer) {
       return and((MappeableArrayContainer) x);
     } else if (x instanceof MappeableRunContainer) {
@@ -182,7 +182,7 @@ public abstract class MappeableContainer
    */
   public abstract MappeableContainer andNot(MappeableBitmapContainer x);
 
-  protected MappeableContainer andNot(MappeableContainer x) {
+  public MappeableContainer andNot(MappeableContainer x) {
     if (x instanceof MappeableArrayContainer) {
       return andNot((MappeableArrayContainer) x);
     } else if (x instanceof MappeableRunContainer) {
@@ -714,7 +714,7 @@ public abstract class MappeableContainer
    */
   public abstract MappeableContainer or(MappeableBitmapContainer x);
 
-  protected MappeableContainer or(MappeableContainer x) {
+  public MappeableContainer or(MappeableContainer x) {
     if (x instanceof MappeableArrayContainer) {
       return or((MappeableArrayContainer) x);
     } else if (x instanceof MappeableRunContainer) {
@@ -836,7 +836,7 @@ public abstract class MappeableContainer
    */
   public abstract MappeableContainer xor(MappeableBitmapContainer x);
 
-  protected MappeableContainer xor(MappeableContainer x) {
+  public MappeableContainer xor(MappeableContainer x) {
     if (x instanceof MappeableArrayContainer) {
       return xor((MappeableArrayContainer) x);
     } else if (x instanceof MappeableRunContainer) {
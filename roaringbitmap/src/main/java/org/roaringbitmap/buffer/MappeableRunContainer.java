@@ -8,9 +8,12 @@ import static org.roaringbitmap.Util.resetBitmapRange;
 import static org.roaringbitmap.Util.setBitmapRange;
 import static org.roaringbitmap.buffer.MappeableBitmapContainer.MAX_CAPACITY;
 
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListeners;
 import org.roaringbitmap.CharIterator;
 import org.roaringbitmap.Container;
 import org.roaringbitmap.ContainerBatchIterator;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.IntConsumer;
 import org.roaringbitmap.PeekableCharIterator;
 import org.roaringbitmap.RunContainer;
@@ -780,6 +783,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
   private void copyToOffset(int offset) {
     int minCapacity = 2 * (offset + nbrruns);
     Optional<CharBuffer> newvalueslength = computeNewCapacity(valueslength.capacity(), minCapacity);
+    if (!newvalueslength.isPresent() && !isArrayBacked()) {
+      // the callers update the backing array
+      newvalueslength = Optional.of(CharBuffer.allocate(valueslength.capacity()));
+    }
     if (newvalueslength.isPresent()) {
       // expensive case where we need to reallocate
       copyValuesLength(this.valueslength, 0, newvalueslength.get(), offset, nbrruns);
@@ -1208,6 +1215,9 @@ public final class MappeableRunContainer extends MappeableContainer implements C
     if (rangeEnd <= rangeStart) {
       return this;
     }
+    if (!isArrayBacked()) {
+      return clone().inot(rangeStart, rangeEnd);
+    }
     char[] vl = this.valueslength.array();
 
     // TODO: write special case code for rangeStart=0; rangeEnd=65535
@@ -2248,6 +2258,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
           answer.content.put(answer.cardinality++, (char) runValue);
         }
       }
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.RUN, ContainerType.ARRAY);
+      }
       return answer;
     }
     MappeableBitmapContainer answer = new MappeableBitmapContainer();
@@ -2257,6 +2271,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
       BufferUtil.setBitmapRange(answer.bitmap, start, end);
     }
     answer.cardinality = card;
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.RUN, ContainerType.BITMAP);
+    }
     return answer;
   }
 
@@ -2292,6 +2310,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
           }
         }
       }
+      final BitmapListener listener = BitmapListeners.get();
+      if (listener != null) {
+        listener.onConversion(ContainerType.RUN, ContainerType.ARRAY);
+      }
       return answer;
     }
     MappeableBitmapContainer answer = new MappeableBitmapContainer();
@@ -2301,6 +2323,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
       BufferUtil.setBitmapRange(answer.bitmap, start, end);
     }
     answer.cardinality = card;
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.RUN, ContainerType.BITMAP);
+    }
     return answer;
   }
 
@@ -2584,6 +2610,10 @@ public final class MappeableRunContainer extends MappeableContainer implements C
       BufferUtil.setBitmapRange(answer.bitmap, start, end);
     }
     answer.cardinality = card;
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onConversion(ContainerType.RUN, ContainerType.BITMAP);
+    }
     return answer;
   }
 
@@ -49,6 +49,9 @@ public final class MutableRoaringArray
 
   int size = 0;
 
+  // when set, the containers are copied to the off-heap memory of the storage as they are stored
+  OffHeapMutableRoaringBitmap.Storage storage = null;
+
   protected MutableRoaringArray() {
     this(INITIAL_CAPACITY);
   }
@@ -116,7 +119,7 @@ public final class MutableRoaringArray
     }
     extendArray(1);
     this.keys[this.size] = key;
-    this.values[this.size] = value;
+    this.values[this.size] = store(value);
     this.size++;
   }
 
@@ -133,6 +136,7 @@ public final class MutableRoaringArray
       values = Arrays.copyOf(appendage.values, appendage.values.length);
       size = appendage.size;
     }
+    storeAll();
   }
 
   @Override
@@ -170,7 +174,7 @@ public final class MutableRoaringArray
 
     for (int i = startLocation; i < highLowContainer.size(); ++i) {
       this.keys[this.size] = highLowContainer.getKeyAtIndex(i);
-      this.values[this.size] = highLowContainer.getContainerAtIndex(i).clone();
+      this.values[this.size] = store(highLowContainer.getContainerAtIndex(i).clone());
       this.size++;
     }
   }
@@ -190,7 +194,7 @@ public final class MutableRoaringArray
       }
       extendArray(1);
       this.keys[this.size] = cp.key();
-      this.values[this.size] = cp.getContainer().clone();
+      this.values[this.size] = store(cp.getContainer().clone());
       this.size++;
       cp.advance();
     }
@@ -207,7 +211,7 @@ public final class MutableRoaringArray
     extendArray(end - startingIndex);
     for (int i = startingIndex; i < end; ++i) {
       this.keys[this.size] = highLowContainer.getKeyAtIndex(i);
-      this.values[this.size] = highLowContainer.getContainerAtIndex(i).clone();
+      this.values[this.size] = store(highLowContainer.getContainerAtIndex(i).clone());
       this.size++;
     }
   }
@@ -215,7 +219,7 @@ public final class MutableRoaringArray
   protected void appendCopy(char key, MappeableContainer value) {
     extendArray(1);
     this.keys[this.size] = key;
-    this.values[this.size] = value.clone();
+    this.values[this.size] = store(value.clone());
     this.size++;
   }
 
@@ -230,7 +234,7 @@ public final class MutableRoaringArray
     extendArray(1);
     this.keys[this.size] = key;
     // Store the original container directly - we'll handle copy-on-write at the bitmap level
-    this.values[this.size] = value;
+    this.values[this.size] = store(value);
     this.size++;
   }
 
@@ -248,7 +252,7 @@ public final class MutableRoaringArray
     for (int i = startingIndex; i < end; ++i) {
       this.keys[this.size] = highLowContainer.getKeyAtIndex(i);
       // Store the original container directly - we'll handle copy-on-write at the bitmap level
-      this.values[this.size] = highLowContainer.getContainerAtIndex(i);
+      this.values[this.size] = store(highLowContainer.getContainerAtIndex(i));
       this.size++;
     }
   }
@@ -272,6 +276,7 @@ public final class MutableRoaringArray
     for (MappeableContainer c : values) {
       c.trim();
     }
+    storeAll();
   }
 
   @Override
@@ -279,6 +284,7 @@ public final class MutableRoaringArray
     MutableRoaringArray sa;
     try {
       sa = (MutableRoaringArray) super.clone();
+      sa.storage = null;
 
       // OFK: do we need runcontainer bitmap? Guess not, this is just a directory
       // and each container knows what kind it is.
@@ -377,7 +383,7 @@ public final class MutableRoaringArray
         val = new MappeableArrayContainer(charArray, cardinalities[k]);
       }
       this.keys[k] = keys[k];
-      this.values[k] = val;
+      this.values[k] = store(val);
     }
   }
 
@@ -466,7 +472,7 @@ public final class MutableRoaringArray
         buffer.position(buffer.position() + cardinality * 2);
       }
       this.keys[k] = keys[k];
-      this.values[k] = container;
+      this.values[k] = store(container);
     }
   }
 
@@ -651,7 +657,7 @@ public final class MutableRoaringArray
     System.arraycopy(keys, i, keys, i + 1, size - i);
     System.arraycopy(values, i, values, i + 1, size - i);
     keys[i] = key;
-    values[i] = value;
+    values[i] = store(value);
     size++;
   }
 
@@ -684,7 +690,7 @@ public final class MutableRoaringArray
 
   protected void replaceKeyAndContainerAtIndex(int i, char key, MappeableContainer c) {
     this.keys[i] = key;
-    this.values[i] = c;
+    this.values[i] = store(c);
   }
 
   protected void resize(int newLength) {
@@ -810,7 +816,20 @@ public final class MutableRoaringArray
   }
 
   protected void setContainerAtIndex(int i, MappeableContainer c) {
-    this.values[i] = c;
+    this.values[i] = store(c);
+  }
+
+  private MappeableContainer store(MappeableContainer container) {
+    return storage == null ? container : storage.store(container);
+  }
+
+  // stores the containers which were not stored as they were added
+  void storeAll() {
+    if (storage != null) {
+      for (int k = 0; k < size; ++k) {
+        values[k] = storage.store(values[k]);
+      }
+    }
   }
 
   @Override
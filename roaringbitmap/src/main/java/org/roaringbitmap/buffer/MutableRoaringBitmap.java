@@ -6,8 +6,12 @@ package org.roaringbitmap.buffer;
 
 import org.roaringbitmap.AppendableStorage;
 import org.roaringbitmap.BitmapDataProvider;
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListener.Operation;
+import org.roaringbitmap.BitmapListeners;
 import org.roaringbitmap.CharIterator;
 import org.roaringbitmap.ContainerPointer;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.InvalidRoaringFormat;
 import org.roaringbitmap.RoaringBitmap;
 
@@ -245,6 +249,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap and(
       final MutableRoaringBitmap x1, final MutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -256,6 +262,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
       if (s1 == s2) {
         final MappeableContainer c1 = x1.highLowContainer.getContainerAtIndex(pos1);
         final MappeableContainer c2 = x2.highLowContainer.getContainerAtIndex(pos2);
+        if (listener != null) {
+          listener.onContainerPair(Operation.AND, ContainerType.of(c1), ContainerType.of(c2));
+        }
         final MappeableContainer c = c1.and(c2);
         if (!c.isEmpty()) {
           answer.getMappeableRoaringArray().append(s1, c);
@@ -268,6 +277,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
         pos2 = x2.highLowContainer.advanceUntil(s1, pos2);
       }
     }
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.AND, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -606,6 +618,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap or(
       final MutableRoaringBitmap x1, final MutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -616,6 +630,12 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.OR,
+                ContainerType.of(x1.highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           answer
               .getMappeableRoaringArray()
               .append(
@@ -660,6 +680,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     } else if (pos2 == length2) {
       answer.getMappeableRoaringArray().appendCopy(x1.highLowContainer, pos1, length1);
     }
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.OR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -751,6 +774,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
    */
   public static MutableRoaringBitmap xor(
       final MutableRoaringBitmap x1, final MutableRoaringBitmap x2) {
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     final MutableRoaringBitmap answer = new MutableRoaringBitmap();
     int pos1 = 0, pos2 = 0;
     final int length1 = x1.highLowContainer.size(), length2 = x2.highLowContainer.size();
@@ -762,6 +787,12 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.XOR,
+                ContainerType.of(x1.highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           final MappeableContainer c =
               x1.highLowContainer
                   .getContainerAtIndex(pos1)
@@ -806,6 +837,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     } else if (pos2 == length2) {
       answer.getMappeableRoaringArray().appendCopy(x1.highLowContainer, pos1, length1);
     }
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.XOR, System.nanoTime() - start);
+    }
     return answer;
   }
 
@@ -923,6 +957,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     if (array == this) {
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0, intersectionSize = 0;
     final int length1 = highLowContainer.size(), length2 = array.highLowContainer.size();
 
@@ -932,6 +968,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
       if (s1 == s2) {
         final MappeableContainer c1 = highLowContainer.getContainerAtIndex(pos1);
         final MappeableContainer c2 = array.highLowContainer.getContainerAtIndex(pos2);
+        if (listener != null) {
+          listener.onContainerPair(Operation.AND, ContainerType.of(c1), ContainerType.of(c2));
+        }
         final MappeableContainer c = c1.iand(c2);
         if (!c.isEmpty()) {
           getMappeableRoaringArray().replaceKeyAndContainerAtIndex(intersectionSize++, s1, c);
@@ -945,6 +984,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
       }
     }
     getMappeableRoaringArray().resize(intersectionSize);
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.AND, System.nanoTime() - start);
+    }
   }
 
   /**
@@ -1090,6 +1132,7 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     ((MutableRoaringArray) highLowContainer).keys = newKeys;
     ((MutableRoaringArray) highLowContainer).values = newValues;
     ((MutableRoaringArray) highLowContainer).size = size + remainder;
+    ((MutableRoaringArray) highLowContainer).storeAll();
   }
 
   /**
@@ -1184,6 +1227,10 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     } catch (InvalidRoaringFormat cookie) {
       throw cookie.toIOException(); // we convert it to an IOException
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onDeserialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -1210,6 +1257,10 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     } catch (InvalidRoaringFormat cookie) {
       throw cookie.toIOException(); // we convert it to an IOException
     }
+    final BitmapListener listener = BitmapListeners.get();
+    if (listener != null) {
+      listener.onDeserialization(getClass(), serializedSizeInBytes());
+    }
   }
 
   /**
@@ -1467,6 +1518,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     if (this == x2) {
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0;
     int length1 = highLowContainer.size();
     final int length2 = x2.highLowContainer.size();
@@ -1477,6 +1530,12 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.OR,
+                ContainerType.of(highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           getMappeableRoaringArray()
               .setContainerAtIndex(
                   pos1,
@@ -1512,6 +1571,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     if (pos1 == length1) {
       getMappeableRoaringArray().appendCopy(x2.highLowContainer, pos2, length2);
     }
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.OR, System.nanoTime() - start);
+    }
   }
 
   @Override
@@ -1732,6 +1794,8 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
       clear();
       return;
     }
+    final BitmapListener listener = BitmapListeners.get();
+    final long start = listener == null ? 0L : System.nanoTime();
     int pos1 = 0, pos2 = 0;
     int length1 = highLowContainer.size();
     final int length2 = x2.highLowContainer.size();
@@ -1743,6 +1807,12 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
 
       while (true) {
         if (s1 == s2) {
+          if (listener != null) {
+            listener.onContainerPair(
+                Operation.XOR,
+                ContainerType.of(highLowContainer.getContainerAtIndex(pos1)),
+                ContainerType.of(x2.highLowContainer.getContainerAtIndex(pos2)));
+          }
           final MappeableContainer c =
               highLowContainer
                   .getContainerAtIndex(pos1)
@@ -1782,6 +1852,9 @@ public class MutableRoaringBitmap extends ImmutableRoaringBitmap
     if (pos1 == length1) {
       getMappeableRoaringArray().appendCopy(x2.highLowContainer, pos2, length2);
     }
+    if (listener != null) {
+      listener.onOperation(MutableRoaringBitmap.class, Operation.XOR, System.nanoTime() - start);
+    }
   }
 
   /**
@@ -0,0 +1,33 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the memory backing the containers of an {@link OffHeapMutableRoaringBitmap}, typically
+ * direct ByteBuffers. An allocator shared by bitmaps used from several threads must be
+ * thread-safe.
+ *
+ * @see SlabAllocator
+ */
+public interface OffHeapAllocator {
+
+  /**
+   * Allocates a buffer of at least the requested capacity, with an undefined content.
+   *
+   * @param capacity the minimum capacity in bytes
+   * @return a buffer whose position is zero and whose limit is its capacity
+   */
+  ByteBuffer allocate(int capacity);
+
+  /**
+   * Gives a buffer returned by {@link #allocate(int)} back to the allocator. The buffer must not
+   * be used afterwards.
+   *
+   * @param buffer the buffer to free
+   */
+  void free(ByteBuffer buffer);
+}
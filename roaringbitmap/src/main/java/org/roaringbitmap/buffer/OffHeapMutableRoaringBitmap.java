@@ -0,0 +1,242 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link MutableRoaringBitmap} whose containers live in memory provided by an
+ * {@link OffHeapAllocator}, for instance direct ByteBuffers pooled by a {@link SlabAllocator}, so
+ * that large mutable bitmaps put little pressure on the garbage collector.
+ *
+ * <pre>
+ * {@code
+ *   SlabAllocator allocator = new SlabAllocator();
+ *   try (OffHeapMutableRoaringBitmap bitmap = new OffHeapMutableRoaringBitmap(allocator)) {
+ *     bitmap.add(1, 2, 3);
+ *     bitmap.or(other);
+ *   }
+ * }
+ * </pre>
+ *
+ * Mutations are performed by the regular container implementations: they update the off-heap
+ * memory in place when they can, and the containers they allocate on the heap (when a container
+ * grows or changes type) are copied off-heap as soon as they are stored in the bitmap. The memory
+ * of the containers dropped from the bitmap is given back to the allocator lazily.
+ *
+ * The memory is only freed by {@link #close()}, after which the bitmap is empty and can no longer
+ * be modified. Containers obtained from the bitmap, for instance through
+ * {@link #getMappeableRoaringArray()}, must not be used after the bitmap was modified or closed:
+ * use {@link #clone()} to get a copy on the heap. Like MutableRoaringBitmap, this class is not
+ * thread-safe, and it does not support Java serialization.
+ */
+public class OffHeapMutableRoaringBitmap extends MutableRoaringBitmap implements Closeable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient Storage storage;
+
+  /**
+   * Creates an empty bitmap.
+   *
+   * @param allocator provides the memory of the containers
+   */
+  public OffHeapMutableRoaringBitmap(OffHeapAllocator allocator) {
+    this.storage = new Storage(allocator);
+    storage.attach(getMappeableRoaringArray());
+  }
+
+  /**
+   * Returns the number of bytes currently allocated for the containers of this bitmap, after
+   * giving back the memory of the containers which were dropped.
+   *
+   * @return the allocated bytes
+   */
+  public long getAllocatedBytes() {
+    storage.sweep(null);
+    return storage.allocatedBytes;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    storage.attach(getMappeableRoaringArray());
+  }
+
+  /**
+   * Copies the bitmap on the heap.
+   *
+   * @return a heap copy of the bitmap
+   */
+  @Override
+  public MutableRoaringBitmap clone() {
+    return new MutableRoaringBitmap(getMappeableRoaringArray().clone());
+  }
+
+  /**
+   * Gives all the memory of the containers back to the allocator. The bitmap is empty afterwards,
+   * and any attempt to modify it throws an IllegalStateException.
+   */
+  @Override
+  public void close() {
+    storage.close();
+    clear();
+  }
+
+  /**
+   * Copies the containers to off-heap memory as they are stored in the array, and keeps track
+   * of the memory backing each of them.
+   */
+  static final class Storage {
+
+    private final OffHeapAllocator allocator;
+    private final Map<MappeableContainer, Slot> slots = new IdentityHashMap<>();
+    private MutableRoaringArray array;
+    private long allocatedBytes = 0;
+    private boolean closed = false;
+
+    Storage(OffHeapAllocator allocator) {
+      this.allocator = allocator;
+    }
+
+    void attach(MutableRoaringArray array) {
+      this.array = array;
+      array.storage = this;
+      sweep(null);
+    }
+
+    MappeableContainer store(MappeableContainer container) {
+      if (closed) {
+        throw new IllegalStateException("The bitmap is closed");
+      }
+      Slot slot = slots.get(container);
+      if (slot != null) {
+        if (slot.backs(container)) {
+          // modified in place
+          return container;
+        }
+        // the container replaced its buffer with a heap buffer to grow
+        release(slots.remove(container));
+      }
+      if (slots.size() > 2 * array.size + 64) {
+        sweep(container);
+      }
+      return copy(container);
+    }
+
+    /** Gives back the memory of the containers which are no longer in the array. */
+    void sweep(MappeableContainer retained) {
+      Set<MappeableContainer> live = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int k = 0; k < array.size; ++k) {
+        live.add(array.values[k]);
+      }
+      if (retained != null) {
+        live.add(retained);
+      }
+      Iterator<Map.Entry<MappeableContainer, Slot>> it = slots.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<MappeableContainer, Slot> entry = it.next();
+        if (!live.contains(entry.getKey())) {
+          release(entry.getValue());
+          it.remove();
+        }
+      }
+    }
+
+    void close() {
+      for (Slot slot : slots.values()) {
+        release(slot);
+      }
+      slots.clear();
+      closed = true;
+    }
+
+    private MappeableContainer copy(MappeableContainer container) {
+      final MappeableContainer copy;
+      final ByteBuffer memory;
+      if (container instanceof MappeableArrayContainer) {
+        MappeableArrayContainer source = (MappeableArrayContainer) container;
+        memory = allocate(2 * source.cardinality);
+        CharBuffer content = memory.asCharBuffer();
+        CharBuffer values = source.content.duplicate();
+        values.position(0);
+        values.limit(source.cardinality);
+        content.put(values);
+        content.flip();
+        copy = new MappeableArrayContainer(content, source.cardinality);
+        // the remaining memory is capacity to grow in place
+        content.limit(content.capacity());
+      } else if (container instanceof MappeableBitmapContainer) {
+        MappeableBitmapContainer source = (MappeableBitmapContainer) container;
+        memory = allocate(MappeableBitmapContainer.MAX_CAPACITY / 8);
+        memory.limit(MappeableBitmapContainer.MAX_CAPACITY / 8);
+        LongBuffer bitmap = memory.asLongBuffer();
+        LongBuffer words = source.bitmap.duplicate();
+        words.position(0);
+        words.limit(MappeableBitmapContainer.MAX_CAPACITY / 64);
+        bitmap.put(words);
+        bitmap.flip();
+        copy = new MappeableBitmapContainer(bitmap, source.cardinality);
+      } else {
+        MappeableRunContainer source = (MappeableRunContainer) container;
+        memory = allocate(4 * source.nbrruns);
+        CharBuffer valueslength = memory.asCharBuffer();
+        CharBuffer runs = source.valueslength.duplicate();
+        runs.position(0);
+        runs.limit(2 * source.nbrruns);
+        valueslength.put(runs);
+        valueslength.clear();
+        copy = new MappeableRunContainer(valueslength, source.nbrruns);
+      }
+      slots.put(copy, new Slot(memory, copy));
+      return copy;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+      ByteBuffer memory = allocator.allocate(capacity);
+      allocatedBytes += memory.capacity();
+      return memory.order(ByteOrder.nativeOrder());
+    }
+
+    private void release(Slot slot) {
+      allocatedBytes -= slot.memory.capacity();
+      allocator.free(slot.memory);
+    }
+  }
+
+  private static final class Slot {
+
+    private final ByteBuffer memory;
+    // the view of the memory the container was created with
+    private final Object view;
+
+    Slot(ByteBuffer memory, MappeableContainer container) {
+      this.memory = memory;
+      this.view = bufferOf(container);
+    }
+
+    boolean backs(MappeableContainer container) {
+      return bufferOf(container) == view;
+    }
+
+    private static Object bufferOf(MappeableContainer container) {
+      if (container instanceof MappeableArrayContainer) {
+        return ((MappeableArrayContainer) container).content;
+      } else if (container instanceof MappeableBitmapContainer) {
+        return ((MappeableBitmapContainer) container).bitmap;
+      }
+      return ((MappeableRunContainer) container).valueslength;
+    }
+  }
+}
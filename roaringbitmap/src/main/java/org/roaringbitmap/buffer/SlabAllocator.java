@@ -0,0 +1,122 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link OffHeapAllocator} which carves buffers out of large direct ByteBuffers, the slabs,
+ * and pools the freed buffers for reuse. Capacities are rounded up to a power of two between 64
+ * bytes and 128kB, which is enough for any container; larger buffers are allocated directly and
+ * not pooled. The slabs are never released, so that the memory reserved by the allocator is the
+ * peak memory used by its bitmaps.
+ *
+ * This allocator is thread-safe.
+ */
+public class SlabAllocator implements OffHeapAllocator {
+
+  private static final int MIN_SHIFT = 6;
+  private static final int MAX_SHIFT = 17;
+  private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+  private final int slabSize;
+  private final List<ArrayDeque<ByteBuffer>> freeBuffers = new ArrayList<>();
+  private ByteBuffer slab = null;
+  private long allocatedBytes = 0;
+  private long reservedBytes = 0;
+
+  /**
+   * Creates an allocator with slabs of 1MB.
+   */
+  public SlabAllocator() {
+    this(DEFAULT_SLAB_SIZE);
+  }
+
+  /**
+   * Creates an allocator.
+   *
+   * @param slabSize the capacity of each slab, at least 128kB
+   */
+  public SlabAllocator(int slabSize) {
+    if (slabSize < 1 << MAX_SHIFT) {
+      throw new IllegalArgumentException("The slabs must hold at least " + (1 << MAX_SHIFT));
+    }
+    this.slabSize = slabSize;
+    for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; ++shift) {
+      freeBuffers.add(new ArrayDeque<>());
+    }
+  }
+
+  @Override
+  public synchronized ByteBuffer allocate(int capacity) {
+    int shift =
+        capacity <= 1 << MIN_SHIFT ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    ByteBuffer buffer;
+    if (shift > MAX_SHIFT) {
+      buffer = ByteBuffer.allocateDirect(capacity);
+      reservedBytes += capacity;
+    } else {
+      buffer = freeBuffers.get(shift - MIN_SHIFT).poll();
+      if (buffer == null) {
+        buffer = carve(1 << shift);
+      }
+      buffer.clear();
+    }
+    allocatedBytes += buffer.capacity();
+    return buffer;
+  }
+
+  @Override
+  public synchronized void free(ByteBuffer buffer) {
+    allocatedBytes -= buffer.capacity();
+    int shift = Integer.numberOfTrailingZeros(buffer.capacity());
+    if (buffer.capacity() > 1 << MAX_SHIFT) {
+      // not pooled, the garbage collector will release the memory
+      reservedBytes -= buffer.capacity();
+    } else {
+      freeBuffers.get(shift - MIN_SHIFT).push(buffer);
+    }
+  }
+
+  /**
+   * @return the number of bytes allocated and not freed
+   */
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return the number of bytes of direct memory held by the allocator
+   */
+  public synchronized long getReservedBytes() {
+    return reservedBytes;
+  }
+
+  private ByteBuffer carve(int capacity) {
+    if (slab == null || slab.remaining() < capacity) {
+      if (slab != null) {
+        // pool what is left of the slab rather than waste it
+        for (int shift = MAX_SHIFT; shift >= MIN_SHIFT; --shift) {
+          while (slab.remaining() >= 1 << shift) {
+            freeBuffers.get(shift - MIN_SHIFT).push(slice(1 << shift));
+          }
+        }
+      }
+      slab = ByteBuffer.allocateDirect(slabSize);
+      reservedBytes += slabSize;
+    }
+    return slice(capacity);
+  }
+
+  private ByteBuffer slice(int capacity) {
+    ByteBuffer duplicate = slab.duplicate();
+    duplicate.limit(slab.position() + capacity);
+    slab.position(slab.position() + capacity);
+    return duplicate.slice();
+  }
+}
@@ -1,5 +1,7 @@
 package org.roaringbitmap.insights;
 
+import org.roaringbitmap.AdaptiveContainerPolicy.Operation;
+import org.roaringbitmap.AdaptiveRoaringBitmap;
 import org.roaringbitmap.ContainerPointer;
 import org.roaringbitmap.RoaringBitmap;
 
@@ -34,6 +36,27 @@ public class BitmapAnalyser {
     return new BitmapStatistics(acStats, bcCount, rcCount);
   }
 
+  /**
+   * Analyze the encodings chosen for the containers of an adaptive bitmap
+   * @param r the bitmap
+   * @return the statistics
+   */
+  public static ContainerSelectionStatistics analyseSelection(AdaptiveRoaringBitmap r) {
+    Operation[] operations = Operation.values();
+    long[] accesses = new long[operations.length];
+    for (Operation operation : operations) {
+      accesses[operation.ordinal()] = r.getAccesses(operation);
+    }
+    return new ContainerSelectionStatistics(
+        analyse(r),
+        r.getPolicy(),
+        accesses,
+        r.getAdaptationCount(),
+        r.getDecodedContainerCount(),
+        r.getExtraBytes(),
+        r.getLastDecisions());
+  }
+
   /**
    * Analyze the internal representation of bitmaps
    * @param bitmaps the bitmaps
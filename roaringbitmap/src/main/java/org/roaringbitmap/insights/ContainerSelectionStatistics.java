@@ -0,0 +1,115 @@
+package org.roaringbitmap.insights;
+
+import org.roaringbitmap.AdaptiveContainerPolicy;
+import org.roaringbitmap.AdaptiveContainerPolicy.Decision;
+import org.roaringbitmap.AdaptiveContainerPolicy.Operation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The encodings chosen for the containers of an {@link org.roaringbitmap.AdaptiveRoaringBitmap},
+ * and the accesses they were chosen by.
+ */
+public class ContainerSelectionStatistics {
+  private final BitmapStatistics encodings;
+  private final AdaptiveContainerPolicy policy;
+  private final long[] accesses;
+  private final long adaptationCount;
+  private final long decodedContainerCount;
+  private final long extraBytes;
+  private final List<Decision> lastDecisions;
+
+  ContainerSelectionStatistics(
+      BitmapStatistics encodings,
+      AdaptiveContainerPolicy policy,
+      long[] accesses,
+      long adaptationCount,
+      long decodedContainerCount,
+      long extraBytes,
+      List<Decision> lastDecisions) {
+    this.encodings = encodings;
+    this.policy = policy;
+    this.accesses = accesses;
+    this.adaptationCount = adaptationCount;
+    this.decodedContainerCount = decodedContainerCount;
+    this.extraBytes = extraBytes;
+    this.lastDecisions = lastDecisions;
+  }
+
+  /**
+   * @return the current number of containers of each type
+   */
+  public BitmapStatistics getEncodings() {
+    return encodings;
+  }
+
+  public AdaptiveContainerPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Recent number of accesses to all the containers by an operation
+   * @param operation the operation
+   * @return the number of accesses
+   */
+  public long getAccesses(Operation operation) {
+    return accesses[operation.ordinal()];
+  }
+
+  public long getAdaptationCount() {
+    return adaptationCount;
+  }
+
+  /**
+   * @return the number of containers decoded from runs for faster accesses
+   */
+  public long getDecodedContainerCount() {
+    return decodedContainerCount;
+  }
+
+  /**
+   * @return the number of bytes the decoded containers take beyond their runs
+   */
+  public long getExtraBytes() {
+    return extraBytes;
+  }
+
+  /**
+   * Fraction of the memory budget taken by the decoded containers
+   * @return some fraction
+   */
+  public double budgetFraction() {
+    if (policy.getMemoryBudget() == 0) {
+      return extraBytes == 0 ? 0 : Double.POSITIVE_INFINITY;
+    }
+    return ((double) extraBytes) / policy.getMemoryBudget();
+  }
+
+  /**
+   * @return the changes of encoding made by the last re-encoding
+   */
+  public List<Decision> getLastDecisions() {
+    return lastDecisions;
+  }
+
+  @Override
+  public String toString() {
+    return "ContainerSelectionStatistics{"
+        + "encodings="
+        + encodings
+        + ", policy="
+        + policy
+        + ", accesses="
+        + Arrays.toString(accesses)
+        + ", adaptationCount="
+        + adaptationCount
+        + ", decodedContainerCount="
+        + decodedContainerCount
+        + ", extraBytes="
+        + extraBytes
+        + ", lastDecisions="
+        + lastDecisions
+        + '}';
+  }
+}
@@ -0,0 +1,125 @@
+package org.roaringbitmap.insights;
+
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListeners;
+import org.roaringbitmap.ContainerType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link BitmapListener} summing the operations of all the bitmaps into
+ * {@link OperationStatistics}. It can be called by many threads at once.
+ *
+ * <pre>
+ * {@code
+ *   // with -Dorg.roaringbitmap.instrumentation=true
+ *   OperationRecorder recorder = new OperationRecorder();
+ *   BitmapListeners.register(recorder);
+ *   ...
+ *   System.out.println(recorder.getStatistics());
+ * }
+ * </pre>
+ *
+ * @see BitmapListeners#register(BitmapListener)
+ */
+public class OperationRecorder implements BitmapListener {
+  private static final int OPERATIONS = OperationStatistics.operationCount();
+
+  // for each source, the counts of the operations followed by their nanoseconds
+  private final ConcurrentMap<Class<?>, LongAdder[]> operations = new ConcurrentHashMap<>();
+  private final LongAdder[] pairs = adders(OperationStatistics.pairCount());
+  private final LongAdder[] conversions = adders(OperationStatistics.conversionCount());
+  private final LongAdder serializationCount = new LongAdder();
+  private final LongAdder serializedBytes = new LongAdder();
+  private final LongAdder deserializationCount = new LongAdder();
+  private final LongAdder deserializedBytes = new LongAdder();
+
+  private static LongAdder[] adders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; ++i) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private static long[] sums(LongAdder[] adders) {
+    long[] sums = new long[adders.length];
+    for (int i = 0; i < adders.length; ++i) {
+      sums[i] = adders[i].sum();
+    }
+    return sums;
+  }
+
+  @Override
+  public void onOperation(Class<?> source, Operation operation, long nanos) {
+    LongAdder[] adders = operations.get(source);
+    if (adders == null) {
+      adders = operations.computeIfAbsent(source, s -> adders(2 * OPERATIONS));
+    }
+    adders[operation.ordinal()].increment();
+    adders[OPERATIONS + operation.ordinal()].add(nanos);
+  }
+
+  @Override
+  public void onContainerPair(Operation operation, ContainerType left, ContainerType right) {
+    pairs[OperationStatistics.pairIndex(operation, left, right)].increment();
+  }
+
+  @Override
+  public void onConversion(ContainerType from, ContainerType to) {
+    conversions[OperationStatistics.conversionIndex(from, to)].increment();
+  }
+
+  @Override
+  public void onSerialization(Class<?> source, long bytes) {
+    serializationCount.increment();
+    serializedBytes.add(bytes);
+  }
+
+  @Override
+  public void onDeserialization(Class<?> source, long bytes) {
+    deserializationCount.increment();
+    deserializedBytes.add(bytes);
+  }
+
+  /**
+   * Sums the operations recorded so far. The operations running concurrently may be partially
+   * included.
+   * @return the statistics
+   */
+  public OperationStatistics getStatistics() {
+    Map<Class<?>, long[]> sums = new HashMap<>();
+    for (Map.Entry<Class<?>, LongAdder[]> entry : operations.entrySet()) {
+      sums.put(entry.getKey(), sums(entry.getValue()));
+    }
+    return new OperationStatistics(
+        sums,
+        sums(pairs),
+        sums(conversions),
+        serializationCount.sum(),
+        serializedBytes.sum(),
+        deserializationCount.sum(),
+        deserializedBytes.sum());
+  }
+
+  /**
+   * Forgets the operations recorded so far.
+   */
+  public void reset() {
+    operations.clear();
+    for (LongAdder adder : pairs) {
+      adder.reset();
+    }
+    for (LongAdder adder : conversions) {
+      adder.reset();
+    }
+    serializationCount.reset();
+    serializedBytes.reset();
+    deserializationCount.reset();
+    deserializedBytes.reset();
+  }
+}
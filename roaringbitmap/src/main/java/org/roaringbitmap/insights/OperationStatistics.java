@@ -0,0 +1,322 @@
+package org.roaringbitmap.insights;
+
+import org.roaringbitmap.BitmapListener.Operation;
+import org.roaringbitmap.ContainerType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The operations reported by the bitmaps to an {@link OperationRecorder}: how many times each
+ * class ran each operation and for how long, which types of containers the operations combined,
+ * the conversions between container types, and the serialized bytes.
+ */
+public class OperationStatistics {
+  private static final int OPERATIONS = Operation.values().length;
+  private static final int TYPES = ContainerType.values().length;
+
+  // for each source, the counts of the operations followed by their nanoseconds
+  private final Map<Class<?>, long[]> operations;
+  private final long[] pairs;
+  private final long[] conversions;
+  private final long serializationCount;
+  private final long serializedBytes;
+  private final long deserializationCount;
+  private final long deserializedBytes;
+
+  OperationStatistics(
+      Map<Class<?>, long[]> operations,
+      long[] pairs,
+      long[] conversions,
+      long serializationCount,
+      long serializedBytes,
+      long deserializationCount,
+      long deserializedBytes) {
+    Map<Class<?>, long[]> sorted = new TreeMap<>(Comparator.comparing(Class::getName));
+    sorted.putAll(operations);
+    this.operations = Collections.unmodifiableMap(new LinkedHashMap<>(sorted));
+    this.pairs = pairs;
+    this.conversions = conversions;
+    this.serializationCount = serializationCount;
+    this.serializedBytes = serializedBytes;
+    this.deserializationCount = deserializationCount;
+    this.deserializedBytes = deserializedBytes;
+  }
+
+  static int pairIndex(Operation operation, ContainerType left, ContainerType right) {
+    return (operation.ordinal() * TYPES + left.ordinal()) * TYPES + right.ordinal();
+  }
+
+  static int conversionIndex(ContainerType from, ContainerType to) {
+    return from.ordinal() * TYPES + to.ordinal();
+  }
+
+  static int pairCount() {
+    return OPERATIONS * TYPES * TYPES;
+  }
+
+  static int conversionCount() {
+    return TYPES * TYPES;
+  }
+
+  static int operationCount() {
+    return OPERATIONS;
+  }
+
+  /**
+   * @return the classes which reported operations, e.g. {@link org.roaringbitmap.RoaringBitmap}
+   */
+  public Set<Class<?>> getSources() {
+    return operations.keySet();
+  }
+
+  /**
+   * Number of times an operation was run by a class
+   * @param source the class which ran the operation
+   * @param operation the operation
+   * @return the number of operations
+   */
+  public long getCount(Class<?> source, Operation operation) {
+    long[] values = operations.get(source);
+    return values == null ? 0 : values[operation.ordinal()];
+  }
+
+  /**
+   * Time spent in an operation by a class
+   * @param source the class which ran the operation
+   * @param operation the operation
+   * @return the number of nanoseconds
+   */
+  public long getNanos(Class<?> source, Operation operation) {
+    long[] values = operations.get(source);
+    return values == null ? 0 : values[OPERATIONS + operation.ordinal()];
+  }
+
+  /**
+   * Number of times an operation was run by any class. An aggregation, e.g. by
+   * {@link org.roaringbitmap.FastAggregation}, may also report the operations it is made of.
+   * @param operation the operation
+   * @return the number of operations
+   */
+  public long getCount(Operation operation) {
+    long count = 0;
+    for (long[] values : operations.values()) {
+      count += values[operation.ordinal()];
+    }
+    return count;
+  }
+
+  /**
+   * Time spent in an operation by any class
+   * @param operation the operation
+   * @return the number of nanoseconds
+   */
+  public long getNanos(Operation operation) {
+    long nanos = 0;
+    for (long[] values : operations.values()) {
+      nanos += values[OPERATIONS + operation.ordinal()];
+    }
+    return nanos;
+  }
+
+  /**
+   * Average time of an operation run by a class
+   * @param source the class which ran the operation
+   * @param operation the operation
+   * @return the number of nanoseconds, NaN if the operation was not run
+   */
+  public double averageNanos(Class<?> source, Operation operation) {
+    long count = getCount(source, operation);
+    if (count == 0) {
+      return Double.NaN;
+    }
+    return ((double) getNanos(source, operation)) / count;
+  }
+
+  /**
+   * Number of pairs of containers with the same key combined by an operation
+   * @param operation the operation
+   * @param left the type of the container of the first bitmap
+   * @param right the type of the container of the second bitmap
+   * @return the number of pairs
+   */
+  public long getPairCount(Operation operation, ContainerType left, ContainerType right) {
+    return pairs[pairIndex(operation, left, right)];
+  }
+
+  /**
+   * Number of conversions of a container from a type to another
+   * @param from the previous type
+   * @param to the new type
+   * @return the number of conversions
+   */
+  public long getConversionCount(ContainerType from, ContainerType to) {
+    return conversions[conversionIndex(from, to)];
+  }
+
+  public long getSerializationCount() {
+    return serializationCount;
+  }
+
+  public long getSerializedBytes() {
+    return serializedBytes;
+  }
+
+  public long getDeserializationCount() {
+    return deserializationCount;
+  }
+
+  public long getDeserializedBytes() {
+    return deserializedBytes;
+  }
+
+  /**
+   * Sums these statistics with others, e.g. recorded in another process
+   * @param other the other statistics
+   * @return the sums
+   */
+  public OperationStatistics merge(OperationStatistics other) {
+    Map<Class<?>, long[]> mergedOperations = new LinkedHashMap<>();
+    for (Map.Entry<Class<?>, long[]> entry : operations.entrySet()) {
+      mergedOperations.put(entry.getKey(), entry.getValue().clone());
+    }
+    for (Map.Entry<Class<?>, long[]> entry : other.operations.entrySet()) {
+      long[] values = mergedOperations.get(entry.getKey());
+      if (values == null) {
+        mergedOperations.put(entry.getKey(), entry.getValue().clone());
+      } else {
+        for (int i = 0; i < values.length; ++i) {
+          values[i] += entry.getValue()[i];
+        }
+      }
+    }
+    long[] mergedPairs = pairs.clone();
+    for (int i = 0; i < mergedPairs.length; ++i) {
+      mergedPairs[i] += other.pairs[i];
+    }
+    long[] mergedConversions = conversions.clone();
+    for (int i = 0; i < mergedConversions.length; ++i) {
+      mergedConversions[i] += other.conversions[i];
+    }
+    return new OperationStatistics(
+        mergedOperations,
+        mergedPairs,
+        mergedConversions,
+        serializationCount + other.serializationCount,
+        serializedBytes + other.serializedBytes,
+        deserializationCount + other.deserializationCount,
+        deserializedBytes + other.deserializedBytes);
+  }
+
+  public static final OperationStatistics empty =
+      new OperationStatistics(
+          Collections.emptyMap(), new long[pairCount()], new long[conversionCount()], 0, 0, 0, 0);
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    OperationStatistics that = (OperationStatistics) o;
+    if (!operations.keySet().equals(that.operations.keySet())) {
+      return false;
+    }
+    for (Map.Entry<Class<?>, long[]> entry : operations.entrySet()) {
+      if (!Arrays.equals(entry.getValue(), that.operations.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return serializationCount == that.serializationCount
+        && serializedBytes == that.serializedBytes
+        && deserializationCount == that.deserializationCount
+        && deserializedBytes == that.deserializedBytes
+        && Arrays.equals(pairs, that.pairs)
+        && Arrays.equals(conversions, that.conversions);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(pairs) + Arrays.hashCode(conversions);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder operationsString = new StringBuilder();
+    for (Map.Entry<Class<?>, long[]> entry : operations.entrySet()) {
+      for (Operation operation : Operation.values()) {
+        long[] values = entry.getValue();
+        if (values[operation.ordinal()] != 0) {
+          separate(operationsString)
+              .append(entry.getKey().getSimpleName())
+              .append('.')
+              .append(operation)
+              .append("={count=")
+              .append(values[operation.ordinal()])
+              .append(", nanos=")
+              .append(values[OPERATIONS + operation.ordinal()])
+              .append('}');
+        }
+      }
+    }
+    StringBuilder pairsString = new StringBuilder();
+    for (Operation operation : Operation.values()) {
+      for (ContainerType left : ContainerType.values()) {
+        for (ContainerType right : ContainerType.values()) {
+          long count = getPairCount(operation, left, right);
+          if (count != 0) {
+            separate(pairsString)
+                .append(operation)
+                .append(' ')
+                .append(left)
+                .append('x')
+                .append(right)
+                .append('=')
+                .append(count);
+          }
+        }
+      }
+    }
+    StringBuilder conversionsString = new StringBuilder();
+    for (ContainerType from : ContainerType.values()) {
+      for (ContainerType to : ContainerType.values()) {
+        long count = getConversionCount(from, to);
+        if (count != 0) {
+          separate(conversionsString)
+              .append(from)
+              .append("->")
+              .append(to)
+              .append('=')
+              .append(count);
+        }
+      }
+    }
+    return "OperationStatistics{"
+        + "operations={"
+        + operationsString
+        + "}, pairs={"
+        + pairsString
+        + "}, conversions={"
+        + conversionsString
+        + "}, serializationCount="
+        + serializationCount
+        + ", serializedBytes="
+        + serializedBytes
+        + ", deserializationCount="
+        + deserializationCount
+        + ", deserializedBytes="
+        + deserializedBytes
+        + '}';
+  }
+
+  private static StringBuilder separate(StringBuilder builder) {
+    return builder.length() == 0 ? builder : builder.append(", ");
+  }
+}
@@ -0,0 +1,680 @@
+package org.roaringbitmap.longlong;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+import org.roaringbitmap.CharIterator;
+import org.roaringbitmap.PeekableCharIterator;
+import org.roaringbitmap.art.Art;
+import org.roaringbitmap.art.Containers;
+import org.roaringbitmap.art.LeafNode;
+import org.roaringbitmap.art.LeafNodeIterator;
+import org.roaringbitmap.buffer.MappeableContainer;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ImmutableRoaring64Bitmap maps the serialized form of a {@link Roaring64Bitmap}, as written by
+ * {@link Roaring64Bitmap#serialize(ByteBuffer)} or {@link Roaring64Bitmap#serialize(DataOutput)},
+ * without deserializing it. Only the keys, the positions of the containers and their cumulative
+ * cardinalities are loaded to the heap; the containers themselves are only ever read from the
+ * ByteBuffer, when they are needed. The ByteBuffer can be a memory-mapped file:
+ *
+ * <pre>
+ * {@code
+ *       FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+ *       MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+ *       ImmutableRoaring64Bitmap bitmap = new ImmutableRoaring64Bitmap(mapped);
+ * }
+ * </pre>
+ *
+ * Like {@link Roaring64Bitmap}, values are ordered as unsigned longs. Operations between
+ * ImmutableRoaring64Bitmaps produce a {@link Roaring64Bitmap} on the heap.
+ */
+public class ImmutableRoaring64Bitmap implements ImmutableLongBitmapDataProvider {
+
+  private static final byte EMPTY_TAG = 0;
+
+  private final ByteBuffer buffer;
+  // the high 48 bits of the values in each container, in ascending order
+  private final long[] keys;
+  // the position in the buffer of each container
+  private final int[] positions;
+  // cardinalities[i] is the number of values in the containers before the i-th one
+  private final long[] cardinalities;
+  private final int serializedSize;
+
+  /**
+   * Constructs a new ImmutableRoaring64Bitmap starting at this ByteBuffer's position(). Only
+   * meta-data is loaded to RAM. The rest is mapped to the ByteBuffer.
+   *
+   * The input ByteBuffer is effectively copied (with the slice operation) so its position, limit
+   * and order remain unchanged. After creating this ImmutableRoaring64Bitmap, you can advance to
+   * the rest of the data (if there is more) by setting
+   * b.position(b.position() + bitmap.serializedSizeInBytes());
+   *
+   * @param b data source
+   * @throws IOException if the serialized data is corrupted
+   */
+  public ImmutableRoaring64Bitmap(final ByteBuffer b) throws IOException {
+    buffer = b.slice().order(LITTLE_ENDIAN);
+    ByteBuffer reader = buffer.duplicate().order(LITTLE_ENDIAN);
+    if (reader.get() == EMPTY_TAG) {
+      keys = new long[0];
+      positions = new int[0];
+      cardinalities = new long[1];
+      serializedSize = reader.position();
+      return;
+    }
+    Art art = new Art();
+    art.deserializeArt(reader);
+    int[][] containerPositions = Containers.mapPositions(reader);
+    serializedSize = reader.position();
+    int size = (int) art.getKeySize();
+    long[] keys = new long[size];
+    int[] positions = new int[size];
+    long[] cardinalities = new long[size + 1];
+    int count = 0;
+    LeafNodeIterator leafNodeIterator = art.leafNodeIterator(false, null);
+    while (leafNodeIterator.hasNext()) {
+      LeafNode leafNode = leafNodeIterator.next();
+      long containerIdx = leafNode.getContainerIdx();
+      int position = containerPositions[(int) (containerIdx >>> 32)][(int) containerIdx];
+      int cardinality = Containers.mapContainer(buffer, position).getCardinality();
+      if (cardinality == 0) {
+        continue;
+      }
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, 2 * count + 1);
+        positions = Arrays.copyOf(positions, 2 * count + 1);
+        cardinalities = Arrays.copyOf(cardinalities, 2 * count + 2);
+      }
+      keys[count] = leafNode.getKey();
+      positions[count] = position;
+      cardinalities[count + 1] = cardinalities[count] + cardinality;
+      ++count;
+    }
+    this.keys = count == keys.length ? keys : Arrays.copyOf(keys, count);
+    this.positions = count == positions.length ? positions : Arrays.copyOf(positions, count);
+    this.cardinalities =
+        count + 1 == cardinalities.length ? cardinalities : Arrays.copyOf(cardinalities, count + 1);
+  }
+
+  private MappeableContainer getContainerAtIndex(int i) {
+    return Containers.mapContainer(buffer, positions[i]);
+  }
+
+  private int getIndex(long high) {
+    return Arrays.binarySearch(keys, high);
+  }
+
+  /**
+   * @return the number of containers
+   */
+  public int getContainerCount() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean contains(long x) {
+    int i = getIndex(LongUtils.rightShiftHighPart(x));
+    return i >= 0 && getContainerAtIndex(i).contains(LongUtils.lowPart(x));
+  }
+
+  @Override
+  public long getLongCardinality() {
+    return cardinalities[keys.length];
+  }
+
+  /**
+   * @return the cardinality as an int
+   * @throws UnsupportedOperationException if the cardinality does not fit in an int
+   */
+  public int getIntCardinality() throws UnsupportedOperationException {
+    long cardinality = getLongCardinality();
+    if (cardinality > Integer.MAX_VALUE) {
+      throw new UnsupportedOperationException(
+          "Can not call .getIntCardinality as the cardinality is bigger than Integer.MAX_VALUE");
+    }
+    return (int) cardinality;
+  }
+
+  @Override
+  public void forEach(final LongConsumer lc) {
+    for (int i = 0; i < keys.length; ++i) {
+      long high = keys[i];
+      PeekableCharIterator charIterator = getContainerAtIndex(i).getCharIterator();
+      while (charIterator.hasNext()) {
+        lc.accept(LongUtils.toLong(high, charIterator.next()));
+      }
+    }
+  }
+
+  /**
+   * For better performance, consider the Use the {@link #forEach forEach} method.
+   *
+   * @return a custom iterator over set bits, the bits are traversed in ascending sorted order
+   */
+  @Override
+  public PeekableLongIterator getLongIterator() {
+    return new ForwardIterator();
+  }
+
+  /**
+   * Produce an iterator over the values in this bitmap starting from `minval`.
+   *
+   * @param minval the lower bound of the iterator returned
+   * @return a custom iterator over set bits, the bits are traversed in ascending sorted order
+   */
+  public PeekableLongIterator getLongIteratorFrom(long minval) {
+    ForwardIterator iterator = new ForwardIterator();
+    iterator.advanceIfNeeded(minval);
+    return iterator;
+  }
+
+  /**
+   * @return a custom iterator over set bits, the bits are traversed in descending sorted order
+   */
+  @Override
+  public LongIterator getReverseLongIterator() {
+    return new ReverseIterator();
+  }
+
+  /**
+   * The stream splits on container boundaries and knows the exact size of each split, so that it
+   * can be consumed in parallel efficiently.
+   *
+   * @return an Ordered, Distinct, Sorted and Sized LongStream in ascending order
+   */
+  @Override
+  public LongStream stream() {
+    return StreamSupport.longStream(
+        new Roaring64Spliterator(
+            keys, cardinalities, i -> getContainerAtIndex(i).getCharIterator()),
+        false);
+  }
+
+  @Override
+  public int getSizeInBytes() {
+    return (int) getLongSizeInBytes();
+  }
+
+  /**
+   * Estimate of the heap usage of this data structure, which excludes the mapped containers.
+   *
+   * @return estimated memory usage.
+   */
+  @Override
+  public long getLongSizeInBytes() {
+    return 20L * keys.length + 48;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  /**
+   * Create a new heap bitmap holding the first maxcardinality values of this one.
+   *
+   * @param maxcardinality maximal cardinality
+   * @return a new bitmap with cardinality no more than maxcardinality
+   */
+  @Override
+  public Roaring64Bitmap limit(long maxcardinality) {
+    HighLowContainer answer = new HighLowContainer();
+    for (int i = 0; i < keys.length && cardinalities[i] < maxcardinality; ++i) {
+      MappeableContainer container = getContainerAtIndex(i);
+      if (cardinalities[i + 1] > maxcardinality) {
+        container = container.limit((int) (maxcardinality - cardinalities[i]));
+      }
+      answer.put(highPart(keys[i]), container.toContainer());
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  @Override
+  public long rankLong(long id) {
+    long high = LongUtils.rightShiftHighPart(id);
+    int i = getIndex(high);
+    if (i < 0) {
+      return cardinalities[-i - 1];
+    }
+    return cardinalities[i] + getContainerAtIndex(i).rank(LongUtils.lowPart(id));
+  }
+
+  @Override
+  public long select(long j) {
+    if (j < 0 || j >= getLongCardinality()) {
+      throw new IllegalArgumentException(
+          "select " + j + " when the cardinality is " + this.getLongCardinality());
+    }
+    int i = Arrays.binarySearch(cardinalities, j);
+    // the first container holding more than j values, skipping none of them
+    i = i < 0 ? -i - 2 : i;
+    char low = getContainerAtIndex(i).select((int) (j - cardinalities[i]));
+    return LongUtils.toLong(keys[i], low);
+  }
+
+  @Override
+  public long first() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Empty " + this.getClass().getSimpleName());
+    }
+    return LongUtils.toLong(keys[0], (char) getContainerAtIndex(0).first());
+  }
+
+  @Override
+  public long last() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Empty " + this.getClass().getSimpleName());
+    }
+    int i = keys.length - 1;
+    return LongUtils.toLong(keys[i], (char) getContainerAtIndex(i).last());
+  }
+
+  /**
+   * Serialize this bitmap, the mapped bytes are copied as they are, so that the output can be read
+   * by {@link Roaring64Bitmap#deserialize(java.io.DataInput)} or mapped again.
+   *
+   * @param out the DataOutput stream
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Override
+  public void serialize(DataOutput out) throws IOException {
+    if (buffer.hasArray()) {
+      out.write(buffer.array(), buffer.arrayOffset(), serializedSize);
+    } else {
+      ByteBuffer copy = buffer.duplicate();
+      copy.limit(serializedSize);
+      byte[] bytes = new byte[serializedSize];
+      copy.get(bytes);
+      out.write(bytes);
+    }
+  }
+
+  @Override
+  public long serializedSizeInBytes() {
+    return serializedSize;
+  }
+
+  /**
+   * Return the set values as an array, if the cardinality is smaller than 2147483648. The long
+   * values are in sorted order.
+   *
+   * @return array representing the set values.
+   */
+  @Override
+  public long[] toArray() {
+    long cardinality = this.getLongCardinality();
+    if (cardinality > Integer.MAX_VALUE) {
+      throw new IllegalStateException("The cardinality does not fit in an array");
+    }
+    final long[] array = new long[(int) cardinality];
+    int pos = 0;
+    LongIterator it = getLongIterator();
+    while (it.hasNext()) {
+      array[pos++] = it.next();
+    }
+    return array;
+  }
+
+  /**
+   * Copies the content of this bitmap to a heap {@link Roaring64Bitmap}.
+   *
+   * @return a mutable copy of this bitmap
+   */
+  public Roaring64Bitmap toRoaring64Bitmap() {
+    HighLowContainer answer = new HighLowContainer();
+    for (int i = 0; i < keys.length; ++i) {
+      answer.put(highPart(keys[i]), getContainerAtIndex(i).toContainer());
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Bitwise AND (intersection) operation. The provided bitmaps are *not* modified. This operation
+   * is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return result of the operation
+   */
+  public static Roaring64Bitmap and(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    HighLowContainer answer = new HighLowContainer();
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        MappeableContainer c = x1.getContainerAtIndex(pos1).and(x2.getContainerAtIndex(pos2));
+        if (!c.isEmpty()) {
+          answer.put(highPart(key1), c.toContainer());
+        }
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        pos1 = advance(x1.keys, pos1, key2);
+      } else {
+        pos2 = advance(x2.keys, pos2, key1);
+      }
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Cardinality of Bitwise AND (intersection) operation. The provided bitmaps are *not* modified.
+   * This operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return as if you did and(x1,x2).getLongCardinality()
+   */
+  public static long andCardinality(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    long cardinality = 0;
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        cardinality +=
+            x1.getContainerAtIndex(pos1).andCardinality(x2.getContainerAtIndex(pos2));
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        pos1 = advance(x1.keys, pos1, key2);
+      } else {
+        pos2 = advance(x2.keys, pos2, key1);
+      }
+    }
+    return cardinality;
+  }
+
+  /**
+   * Checks whether the two bitmaps intersect. This can be much faster than calling "and" and
+   * checking the cardinality of the result.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return true if they intersect
+   */
+  public static boolean intersects(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        if (x1.getContainerAtIndex(pos1).intersects(x2.getContainerAtIndex(pos2))) {
+          return true;
+        }
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        pos1 = advance(x1.keys, pos1, key2);
+      } else {
+        pos2 = advance(x2.keys, pos2, key1);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Bitwise OR (union) operation. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return result of the operation
+   */
+  public static Roaring64Bitmap or(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    HighLowContainer answer = new HighLowContainer();
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        MappeableContainer c = x1.getContainerAtIndex(pos1).or(x2.getContainerAtIndex(pos2));
+        answer.put(highPart(key1), c.toContainer());
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        answer.put(highPart(key1), x1.getContainerAtIndex(pos1).toContainer());
+        ++pos1;
+      } else {
+        answer.put(highPart(key2), x2.getContainerAtIndex(pos2).toContainer());
+        ++pos2;
+      }
+    }
+    appendCopies(answer, x1, pos1);
+    appendCopies(answer, x2, pos2);
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Bitwise XOR (symmetric difference) operation. The provided bitmaps are *not* modified. This
+   * operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return result of the operation
+   */
+  public static Roaring64Bitmap xor(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    HighLowContainer answer = new HighLowContainer();
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        MappeableContainer c = x1.getContainerAtIndex(pos1).xor(x2.getContainerAtIndex(pos2));
+        if (!c.isEmpty()) {
+          answer.put(highPart(key1), c.toContainer());
+        }
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        answer.put(highPart(key1), x1.getContainerAtIndex(pos1).toContainer());
+        ++pos1;
+      } else {
+        answer.put(highPart(key2), x2.getContainerAtIndex(pos2).toContainer());
+        ++pos2;
+      }
+    }
+    appendCopies(answer, x1, pos1);
+    appendCopies(answer, x2, pos2);
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Bitwise ANDNOT (difference) operation. The provided bitmaps are *not* modified. This
+   * operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return result of the operation
+   */
+  public static Roaring64Bitmap andNot(
+      final ImmutableRoaring64Bitmap x1, final ImmutableRoaring64Bitmap x2) {
+    HighLowContainer answer = new HighLowContainer();
+    int pos1 = 0;
+    int pos2 = 0;
+    while (pos1 < x1.keys.length && pos2 < x2.keys.length) {
+      long key1 = x1.keys[pos1];
+      long key2 = x2.keys[pos2];
+      if (key1 == key2) {
+        MappeableContainer c = x1.getContainerAtIndex(pos1).andNot(x2.getContainerAtIndex(pos2));
+        if (!c.isEmpty()) {
+          answer.put(highPart(key1), c.toContainer());
+        }
+        ++pos1;
+        ++pos2;
+      } else if (key1 < key2) {
+        answer.put(highPart(key1), x1.getContainerAtIndex(pos1).toContainer());
+        ++pos1;
+      } else {
+        pos2 = advance(x2.keys, pos2, key1);
+      }
+    }
+    appendCopies(answer, x1, pos1);
+    return new Roaring64Bitmap(answer);
+  }
+
+  private static void appendCopies(HighLowContainer answer, ImmutableRoaring64Bitmap x, int pos) {
+    for (int i = pos; i < x.keys.length; ++i) {
+      answer.put(highPart(x.keys[i]), x.getContainerAtIndex(i).toContainer());
+    }
+  }
+
+  /**
+   * @return the index of the first key at or after pos which is not smaller than min
+   */
+  private static int advance(long[] keys, int pos, long min) {
+    int i = Arrays.binarySearch(keys, pos, keys.length, min);
+    return i < 0 ? -i - 1 : i;
+  }
+
+  private static byte[] highPart(long key) {
+    return LongUtils.highPart(LongUtils.leftShiftHighPart(key));
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder answer =
+        new StringBuilder("{}".length() + "-1234567890123456789,".length() * 256);
+    final LongIterator i = this.getLongIterator();
+    answer.append('{');
+    if (i.hasNext()) {
+      answer.append(i.next());
+    }
+    while (i.hasNext()) {
+      answer.append(',');
+      // to avoid using too much memory, we limit the size
+      if (answer.length() > 0x80000) {
+        answer.append('.').append('.').append('.');
+        break;
+      }
+      answer.append(i.next());
+    }
+    answer.append("}");
+    return answer.toString();
+  }
+
+  private final class ForwardIterator implements PeekableLongIterator {
+
+    // the index of the container charIterator iterates over
+    private int index = -1;
+    private long high;
+    private PeekableCharIterator charIterator;
+
+    @Override
+    public boolean hasNext() {
+      while (charIterator == null || !charIterator.hasNext()) {
+        if (index + 1 >= keys.length) {
+          return false;
+        }
+        ++index;
+        high = keys[index];
+        charIterator = getContainerAtIndex(index).getCharIterator();
+      }
+      return true;
+    }
+
+    @Override
+    public long next() {
+      if (hasNext()) {
+        return LongUtils.toLong(high, charIterator.next());
+      }
+      throw new IllegalStateException("empty");
+    }
+
+    @Override
+    public long peekNext() {
+      if (hasNext()) {
+        return LongUtils.toLong(high, charIterator.peekNext());
+      }
+      throw new IllegalStateException("empty");
+    }
+
+    @Override
+    public void advanceIfNeeded(long minval) {
+      if (!hasNext() || Long.compareUnsigned(peekNext(), minval) >= 0) {
+        return;
+      }
+      long minHigh = LongUtils.rightShiftHighPart(minval);
+      if (minHigh != high) {
+        int i = advance(keys, index, minHigh);
+        if (i == keys.length) {
+          index = i;
+          charIterator = null;
+          return;
+        }
+        index = i;
+        high = keys[i];
+        charIterator = getContainerAtIndex(i).getCharIterator();
+      }
+      if (minHigh == high) {
+        charIterator.advanceIfNeeded(LongUtils.lowPart(minval));
+      }
+    }
+
+    @Override
+    public PeekableLongIterator clone() {
+      ForwardIterator clone = new ForwardIterator();
+      clone.index = index;
+      clone.high = high;
+      clone.charIterator = charIterator == null ? null : charIterator.clone();
+      return clone;
+    }
+  }
+
+  private final class ReverseIterator implements LongIterator {
+
+    private int index = keys.length;
+    private long high;
+    private CharIterator charIterator;
+
+    @Override
+    public boolean hasNext() {
+      while (charIterator == null || !charIterator.hasNext()) {
+        if (index == 0) {
+          return false;
+        }
+        --index;
+        high = keys[index];
+        charIterator = getContainerAtIndex(index).getReverseCharIterator();
+      }
+      return true;
+    }
+
+    @Override
+    public long next() {
+      if (hasNext()) {
+        return LongUtils.toLong(high, charIterator.next());
+      }
+      throw new IllegalStateException("empty");
+    }
+
+    @Override
+    public LongIterator clone() {
+      ReverseIterator clone = new ReverseIterator();
+      clone.index = index;
+      clone.high = high;
+      clone.charIterator = charIterator == null ? null : charIterator.clone();
+      return clone;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package org.roaringbitmap.longlong;
+
+/**
+ * Iterates over the values of a 64-bit bitmap in batches, decoding whole containers at a time
+ * into a long[] buffer. This is the 64-bit counterpart of {@link org.roaringbitmap.BatchIterator}.
+ */
+public interface LongBatchIterator extends Cloneable {
+
+  /**
+   * Writes the next batch of longs onto the buffer,
+   * and returns how many were written. Aims to fill
+   * the buffer.
+   * @param buffer - the target to write onto
+   * @return how many values were written during the call.
+   */
+  int nextBatch(long[] buffer);
+
+  /**
+   * Returns true is there are more values to get.
+   * @return whether the iterator is exhaused or not.
+   */
+  boolean hasNext();
+
+  /**
+   * Creates a copy of the iterator.
+   *
+   * @return a clone of the current iterator
+   */
+  LongBatchIterator clone();
+
+  /**
+   * Creates a wrapper around the iterator so it behaves like a LongIterator
+   * @param buffer - array to buffer bits into (size 128-256 should be best).
+   * @return the wrapper
+   */
+  default LongIterator asLongIterator(long[] buffer) {
+    return new BatchLongIterator(this, buffer);
+  }
+
+  /**
+   * If needed, advance as long as the next value is smaller than minval, in the order of the
+   * bitmap.
+   *
+   * Skipping is done per container: the containers entirely before the target are not decoded.
+   *
+   * @param target threshold
+   * @see org.roaringbitmap.BatchIterator#advanceIfNeeded(int)
+   */
+  void advanceIfNeeded(long target);
+}
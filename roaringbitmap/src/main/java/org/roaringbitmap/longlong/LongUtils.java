@@ -187,4 +187,17 @@ public class LongUtils {
     return (byte) (key >> ((7 - i) << 3));
   }
 
+  /**
+   * Splits the ranks of a bitmap in parts of about the same size, the first parts holding one
+   * more rank than the last ones when the cardinality is not a multiple of the number of parts.
+   *
+   * @param cardinality the number of values of the bitmap
+   * @param parts the number of parts
+   * @param part the index of a part, from 0 to parts
+   * @return the rank of the first value of the part, the cardinality for the index parts
+   */
+  static long partStart(long cardinality, int parts, int part) {
+    return cardinality / parts * part + Math.min(part, cardinality % parts);
+  }
+
 }
@@ -0,0 +1,100 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.ContainerBatchIterator;
+import org.roaringbitmap.art.LeafNode;
+import org.roaringbitmap.art.LeafNodeIterator;
+
+/**
+ * Batch iterator over a {@link Roaring64Bitmap}: the ART is only visited once per container, and
+ * the values of each container are decoded by the container batch iterators of the 32-bit
+ * bitmaps.
+ */
+final class Roaring64BatchIterator implements LongBatchIterator {
+
+  private static final long MAX_KEY = -1L >>> 16;
+
+  private final HighLowContainer highLowContainer;
+  private LeafNodeIterator leaves;
+  // the 48-bit high key of the current container
+  private long key;
+  private ContainerBatchIterator iterator;
+  // the container batch iterators decode the low 16 bits into ints
+  private int[] lows = new int[0];
+
+  Roaring64BatchIterator(HighLowContainer highLowContainer) {
+    this.highLowContainer = highLowContainer;
+    this.leaves = highLowContainer.highKeyLeafNodeIterator(false);
+    nextContainer();
+  }
+
+  @Override
+  public int nextBatch(long[] buffer) {
+    if (lows.length != buffer.length) {
+      lows = new int[buffer.length];
+    }
+    int consumed = 0;
+    while (iterator != null && consumed < buffer.length) {
+      int count = iterator.next(0, lows, consumed);
+      long high = key << 16;
+      for (int i = consumed; i < consumed + count; ++i) {
+        buffer[i] = high | lows[i];
+      }
+      consumed += count;
+      if (consumed < buffer.length || !iterator.hasNext()) {
+        nextContainer();
+      }
+    }
+    return consumed;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return null != iterator;
+  }
+
+  @Override
+  public LongBatchIterator clone() {
+    try {
+      Roaring64BatchIterator it = (Roaring64BatchIterator) super.clone();
+      if (null != iterator) {
+        it.iterator = iterator.clone();
+        // leaf iterators cannot be copied: the clone looks up the next container again
+        it.leaves =
+            key == MAX_KEY
+                ? new HighLowContainer().highKeyLeafNodeIterator(false)
+                : highLowContainer.highKeyLeafNodeIteratorFrom((key + 1) << 16, false);
+      }
+      it.lows = new int[0];
+      return it;
+    } catch (CloneNotSupportedException e) {
+      // won't happen
+      throw new IllegalStateException();
+    }
+  }
+
+  @Override
+  public void advanceIfNeeded(long target) {
+    long targetKey = LongUtils.rightShiftHighPart(target);
+    if (null != iterator && key < targetKey) {
+      // the ART finds the first container which is not before the target
+      leaves = highLowContainer.highKeyLeafNodeIteratorFrom(target, false);
+      nextContainer();
+    }
+    if (null != iterator && key == targetKey) {
+      iterator.advanceIfNeeded(LongUtils.lowPart(target));
+      if (!iterator.hasNext()) {
+        nextContainer();
+      }
+    }
+  }
+
+  private void nextContainer() {
+    if (leaves.hasNext()) {
+      LeafNode leaf = leaves.next();
+      key = leaf.getKey();
+      iterator = highLowContainer.getContainer(leaf.getContainerIdx()).getBatchIterator();
+    } else {
+      iterator = null;
+    }
+  }
+}
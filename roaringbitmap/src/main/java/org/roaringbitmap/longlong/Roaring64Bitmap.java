@@ -20,10 +20,14 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Roaring64Bitmap is a compressed 64 bit bitmap. It can contain all the numbers of long
@@ -39,6 +43,10 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     highLowContainer = new HighLowContainer();
   }
 
+  Roaring64Bitmap(HighLowContainer highLowContainer) {
+    this.highLowContainer = highLowContainer;
+  }
+
   public void addInt(int x) {
     addLong(Util.toUnsignedLong(x));
   }
@@ -129,6 +137,49 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     return throwSelectInvalidIndex(j);
   }
 
+  /**
+   * Selects many values at once, see {@link #select(long)}. The ranks are best sorted: the
+   * containers are then swept once for all the ranks, instead of once per rank. Unsorted ranks are
+   * supported, at the cost of restarting the sweep when going backwards.
+   *
+   * @param ranks the indexes of the values to select, preferably sorted
+   * @param out receives, at the index of each rank, the value of this rank
+   * @throws IllegalArgumentException if a rank is out of the bounds of the bitmap cardinality
+   */
+  public void select(long[] ranks, long[] out) {
+    if (out.length < ranks.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + ranks.length + " ranks");
+    }
+    // the containers before leafNode hold size values
+    LeafNodeIterator leafNodeIterator = null;
+    LeafNode leafNode = null;
+    Container container = null;
+    long size = 0;
+    for (int i = 0; i < ranks.length; ++i) {
+      final long rank = ranks[i];
+      if (rank < 0) {
+        throwSelectInvalidIndex(rank);
+      }
+      if (rank < size || leafNodeIterator == null) {
+        leafNodeIterator = highLowContainer.highKeyLeafNodeIterator(false);
+        container = null;
+        size = 0;
+      }
+      while (container == null || size + container.getCardinality() <= rank) {
+        if (container != null) {
+          size += container.getCardinality();
+        }
+        if (!leafNodeIterator.hasNext()) {
+          throwSelectInvalidIndex(rank);
+        }
+        leafNode = leafNodeIterator.next();
+        container = highLowContainer.getContainer(leafNode.getContainerIdx());
+      }
+      out[i] = LongUtils.toLong(leafNode.getKey(), container.select((int) (rank - size)));
+    }
+  }
+
   private long throwSelectInvalidIndex(long j) {
     throw new IllegalArgumentException(
         "select " + j + " when the cardinality is " + this.getLongCardinality());
@@ -314,6 +365,47 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     return result;
   }
 
+  /**
+   * Computes the rank of many values at once, see {@link #rankLong(long)}. The values are best
+   * sorted (as unsigned longs): the containers are then swept once for all the values, instead of
+   * once per value. Unsorted values are supported, at the cost of restarting the sweep when going
+   * backwards.
+   *
+   * @param values the values to rank, preferably sorted
+   * @param out receives, at the index of each value, the number of longs smaller or equal to the
+   *     value
+   */
+  public void rank(long[] values, long[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    // the containers before leafNode hold size values
+    LeafNodeIterator leafNodeIterator = null;
+    LeafNode leafNode = null;
+    long size = 0;
+    long previousHigh = -1;
+    for (int i = 0; i < values.length; ++i) {
+      final long high = LongUtils.rightShiftHighPart(values[i]);
+      if (high < previousHigh || leafNodeIterator == null) {
+        leafNodeIterator = highLowContainer.highKeyLeafNodeIterator(false);
+        leafNode = leafNodeIterator.hasNext() ? leafNodeIterator.next() : null;
+        size = 0;
+      }
+      previousHigh = high;
+      while (leafNode != null && leafNode.getKey() < high) {
+        size += highLowContainer.getContainer(leafNode.getContainerIdx()).getCardinality();
+        leafNode = leafNodeIterator.hasNext() ? leafNodeIterator.next() : null;
+      }
+      if (leafNode != null && leafNode.getKey() == high) {
+        Container container = highLowContainer.getContainer(leafNode.getContainerIdx());
+        out[i] = size + container.rank(LongUtils.lowPart(values[i]));
+      } else {
+        out[i] = size;
+      }
+    }
+  }
+
   /**
    * In-place bitwise OR (union) operation. The current bitmap is modified.
    *
@@ -598,6 +690,110 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     return cardinality;
   }
 
+  /**
+   * Cardinality of the bitwise OR (union) operation. The provided bitmaps are *not* modified. This
+   * operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the union
+   */
+  public static long orCardinality(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    // we use the fact that the cardinality of the bitmaps is known so that
+    // the union is just the total cardinality minus the intersection
+    return x1.getLongCardinality() + x2.getLongCardinality() - andCardinality(x1, x2);
+  }
+
+  /**
+   * Cardinality of the bitwise XOR (symmetric difference) operation. The provided bitmaps are
+   * *not* modified. This operation is thread-safe as long as the provided bitmaps remain
+   * unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the symmetric difference
+   */
+  public static long xorCardinality(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    return x1.getLongCardinality() + x2.getLongCardinality() - 2 * andCardinality(x1, x2);
+  }
+
+  /**
+   * Cardinality of the bitwise ANDNOT (left difference) operation. The provided bitmaps are *not*
+   * modified. This operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the left difference
+   */
+  public static long andNotCardinality(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    long cardinality = 0;
+    KeyIterator it1 = x1.highLowContainer.highKeyIterator();
+    KeyIterator it2 = x2.highLowContainer.highKeyIterator();
+
+    byte[] highKey1 = it1.hasNext() ? it1.next() : null;
+    byte[] highKey2 = it2.hasNext() ? it2.next() : null;
+
+    while (highKey1 != null) {
+      Container container1 = x1.highLowContainer.getContainer(it1.currentContainerIdx());
+      int compare = highKey2 == null ? -1 : HighLowContainer.compareUnsigned(highKey1, highKey2);
+      if (compare == 0) {
+        Container container2 = x2.highLowContainer.getContainer(it2.currentContainerIdx());
+        cardinality += container1.getCardinality() - container1.andCardinality(container2);
+        highKey1 = it1.hasNext() ? it1.next() : null;
+        highKey2 = it2.hasNext() ? it2.next() : null;
+      } else if (compare < 0) {
+        cardinality += container1.getCardinality();
+        highKey1 = it1.hasNext() ? it1.next() : null;
+      } else {
+        highKey2 = it2.hasNext() ? it2.next() : null;
+      }
+    }
+    return cardinality;
+  }
+
+  /**
+   * Jaccard index of two bitmaps: the cardinality of their intersection divided by the
+   * cardinality of their union. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return the Jaccard index, in [0, 1], 1 if both bitmaps are empty
+   */
+  public static double jaccardIndex(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    long andCardinality = andCardinality(x1, x2);
+    long orCardinality = x1.getLongCardinality() + x2.getLongCardinality() - andCardinality;
+    return orCardinality == 0 ? 1D : (double) andCardinality / orCardinality;
+  }
+
+  /**
+   * Dice coefficient of two bitmaps: twice the cardinality of their intersection divided by the
+   * sum of their cardinalities. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return the Dice coefficient, in [0, 1], 1 if both bitmaps are empty
+   */
+  public static double diceCoefficient(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    long cardinalities = x1.getLongCardinality() + x2.getLongCardinality();
+    return cardinalities == 0 ? 1D : 2D * andCardinality(x1, x2) / cardinalities;
+  }
+
+  /**
+   * Containment of a bitmap in another: the fraction of the values of the first bitmap which
+   * also belong to the other bitmap. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 the contained bitmap
+   * @param x2 the containing bitmap
+   * @return the containment of x1 in x2, in [0, 1], 1 if x1 is empty
+   */
+  public static double containment(final Roaring64Bitmap x1, final Roaring64Bitmap x2) {
+    long cardinality = x1.getLongCardinality();
+    return cardinality == 0 ? 1D : (double) andCardinality(x1, x2) / cardinality;
+  }
+
   /**
    * In-place bitwise ANDNOT (difference) operation. The current bitmap is modified.
    *
@@ -763,6 +959,110 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     return new ForwardPeekableIterator(leafNodeIterator);
   }
 
+  /**
+   * Gets a batch iterator over the bitmap, which decodes whole containers at a time. This can be
+   * much faster than iterating value by value.
+   *
+   * @return a batch iterator, the values are traversed in ascending sorted order
+   */
+  public LongBatchIterator getBatchIterator() {
+    return new Roaring64BatchIterator(highLowContainer);
+  }
+
+  /**
+   * The stream splits on container boundaries and knows the exact size of each split, so that it
+   * can be consumed in parallel efficiently. The containers are listed when the stream is created.
+   *
+   * @return an Ordered, Distinct, Sorted and Sized LongStream in ascending order
+   */
+  @Override
+  public LongStream stream() {
+    long[] keys = new long[16];
+    Container[] containers = new Container[16];
+    long[] cumulatedCardinalities = new long[17];
+    int count = 0;
+    LeafNodeIterator leafNodeIterator = highLowContainer.highKeyLeafNodeIterator(false);
+    while (leafNodeIterator.hasNext()) {
+      LeafNode leafNode = leafNodeIterator.next();
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, 2 * count);
+        containers = Arrays.copyOf(containers, 2 * count);
+        cumulatedCardinalities = Arrays.copyOf(cumulatedCardinalities, 2 * count + 1);
+      }
+      Container container = highLowContainer.getContainer(leafNode.getContainerIdx());
+      keys[count] = leafNode.getKey();
+      containers[count] = container;
+      cumulatedCardinalities[count + 1] =
+          cumulatedCardinalities[count] + container.getCardinality();
+      ++count;
+    }
+    final Container[] snapshot = containers;
+    return StreamSupport.longStream(
+        new Roaring64Spliterator(
+            Arrays.copyOf(keys, count), cumulatedCardinalities, i -> snapshot[i].getCharIterator()),
+        false);
+  }
+
+  /**
+   * Splits this bitmap on container boundaries in at most the given number of bitmaps, holding
+   * about the same number of values. The containers are cloned as a whole, so the parts do not
+   * depend on this bitmap, and it is much cheaper than adding their values one by one.
+   *
+   * @param parts the maximum number of parts
+   * @return the non-empty parts, in ascending order of their values
+   */
+  public List<Roaring64Bitmap> split(int parts) {
+    if (parts <= 0) {
+      throw new IllegalArgumentException("parts should be positive: " + parts);
+    }
+    List<Roaring64Bitmap> answer = new ArrayList<>();
+    long cardinality = getLongCardinality();
+    long before = 0;
+    int next = 1;
+    HighLowContainer part = new HighLowContainer();
+    LeafNodeIterator leafNodeIterator = highLowContainer.highKeyLeafNodeIterator(false);
+    while (leafNodeIterator.hasNext()) {
+      LeafNode leafNode = leafNodeIterator.next();
+      Container container = highLowContainer.getContainer(leafNode.getContainerIdx());
+      part.put(leafNode.getKeyBytes(), container.clone());
+      before += container.getCardinality();
+      // the next part starts after this container, unless it already holds the next ranks
+      if (next < parts && LongUtils.partStart(cardinality, parts, next) <= before) {
+        answer.add(new Roaring64Bitmap(part));
+        part = new HighLowContainer();
+        while (next < parts && LongUtils.partStart(cardinality, parts, next) <= before) {
+          ++next;
+        }
+      }
+    }
+    if (!part.isEmpty()) {
+      answer.add(new Roaring64Bitmap(part));
+    }
+    return answer;
+  }
+
+  HighLowContainer getHighLowContainer() {
+    return highLowContainer;
+  }
+
+  /**
+   * Inserts the container of a high key, merging it with the container already associated to the
+   * key if any. Writers use this to flush the values they buffer.
+   *
+   * @param key the 48-bit high key
+   * @param container the container of the low 16 bits
+   */
+  void append(long key, Container container) {
+    byte[] high = LongUtils.highPart(LongUtils.leftShiftHighPart(key));
+    ContainerWithIndex containerWithIndex = highLowContainer.searchContainer(high);
+    if (containerWithIndex != null) {
+      Container freshOne = containerWithIndex.getContainer().ior(container);
+      highLowContainer.replaceContainer(containerWithIndex.getContainerIdx(), freshOne);
+    } else {
+      highLowContainer.put(high, container);
+    }
+  }
+
   // for testing only
   LeafNodeIterator getLeafNodeIterator() {
     return highLowContainer.highKeyLeafNodeIterator(false);
@@ -792,6 +1092,71 @@ public class Roaring64Bitmap implements Externalizable, LongBitmapDataProvider {
     return containerWithIdx.getContainer().contains(low);
   }
 
+  /**
+   * Checks whether each of the values is contained in this bitmap. This is faster than calling
+   * {@link #contains(long)} in a loop when the values are sorted (as unsigned longs): the ART is
+   * then searched once per high key instead of once per value.
+   *
+   * @param values the values to look for, preferably sorted
+   * @param out receives, at the index of each value, whether it is contained in this bitmap
+   */
+  public void contains(long[] values, boolean[] out) {
+    if (out.length < values.length) {
+      throw new IllegalArgumentException(
+          "out has length " + out.length + " < " + values.length + " values");
+    }
+    contains(values, out, null);
+  }
+
+  /**
+   * Selects the values contained in this bitmap, see {@link #contains(long[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return the values contained in this bitmap, in their original order
+   */
+  public long[] filter(long[] values) {
+    long[] contained = new long[values.length];
+    int count = contains(values, null, contained);
+    return count == contained.length ? contained : Arrays.copyOf(contained, count);
+  }
+
+  /**
+   * Counts the values contained in this bitmap, see {@link #contains(long[], boolean[])}.
+   *
+   * @param values the values to look for, preferably sorted
+   * @return how many of the values are contained in this bitmap, duplicates included
+   */
+  public int countContained(long[] values) {
+    return contains(values, null, null);
+  }
+
+  private int contains(long[] values, boolean[] out, long[] contained) {
+    int count = 0;
+    long high = 0;
+    Container container = null;
+    boolean searched = false;
+    for (int i = 0; i < values.length; ++i) {
+      final long value = values[i];
+      if (!searched || LongUtils.highPartOnly(value) != high) {
+        high = LongUtils.highPartOnly(value);
+        ContainerWithIndex containerWithIdx = highLowContainer.searchContainer(high);
+        container = containerWithIdx == null ? null : containerWithIdx.getContainer();
+        searched = true;
+      }
+      final boolean found = container != null && container.contains(LongUtils.lowPart(value));
+      if (out != null) {
+        out[i] = found;
+      }
+      if (found) {
+        if (contained != null) {
+          contained[count] = value;
+        }
+        ++count;
+      }
+    }
+    return count;
+  }
+
   @Override
   public int getSizeInBytes() {
     return (int) getLongSizeInBytes();
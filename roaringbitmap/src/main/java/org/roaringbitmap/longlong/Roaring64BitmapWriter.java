@@ -0,0 +1,228 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.ArrayContainer;
+import org.roaringbitmap.Container;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.roaringbitmap.RunContainer;
+
+import java.util.function.Supplier;
+
+/**
+ * Writes mostly sorted values quickly into a 64-bit bitmap: the values of the current high key
+ * are buffered, and only reach the underlying bitmap when the high key changes. This is the
+ * 64-bit counterpart of {@link RoaringBitmapWriter}.
+ *
+ * <pre>
+ * {@code
+ *
+ *     Roaring64BitmapWriter<Roaring64Bitmap> writer =
+ *        Roaring64BitmapWriter.writer().get();
+ *     for (long l :....) {
+ *       writer.add(l);
+ *     }
+ *     Roaring64Bitmap bitmap = writer.get(); // flushes the buffered values
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the bitmap being written
+ */
+public interface Roaring64BitmapWriter<T extends LongBitmapDataProvider> extends Supplier<T> {
+
+  static Wizard<Roaring64Bitmap> writer() {
+    return new Roaring64BitmapWizard();
+  }
+
+  static NavigableMapWizard navigableMapWriter() {
+    return new NavigableMapWizard();
+  }
+
+  abstract class Wizard<T extends LongBitmapDataProvider>
+      implements Supplier<Roaring64BitmapWriter<T>> {
+
+    protected boolean constantMemory;
+    protected boolean optimiseForRuns;
+    protected boolean runCompress = true;
+    protected int expectedContainerSize = 16;
+
+    Wizard() {}
+
+    /**
+     * Choose this option if it is known that most containers will be sparse.
+     * @return this
+     */
+    public Wizard<T> optimiseForArrays() {
+      optimiseForRuns = false;
+      return this;
+    }
+
+    /**
+     * Choose this option if the bitmap is expected to be RLE compressible.
+     * Will buffer additions into a RunContainer.
+     * @return this
+     */
+    public Wizard<T> optimiseForRuns() {
+      optimiseForRuns = true;
+      return this;
+    }
+
+    /**
+     * By default the bitmap will be run-compressed on the fly,
+     * but it can be disabled (and run compressed at the end).
+     * @param runCompress whether to apply run compression on the fly.
+     * @return this
+     */
+    public Wizard<T> runCompress(boolean runCompress) {
+      this.runCompress = runCompress;
+      return this;
+    }
+
+    /**
+     *
+     * @param count how many values are expected to fall within any 65536 bit range.
+     * @return this
+     */
+    public Wizard<T> expectedValuesPerContainer(int count) {
+      sanityCheck(count);
+      this.expectedContainerSize = count;
+      // an array container holds up to 4096 values
+      if (count < 1 << 12) {
+        return optimiseForArrays();
+      } else if (count < 1 << 14) {
+        return constantMemory();
+      } else {
+        return optimiseForRuns();
+      }
+    }
+
+    /**
+     * All writes are buffered into the same buffer of 8kB, before converting to
+     * the best container representation and appending to the bitmap.
+     * This option overrides any optimiseForArrays and optimiseForRuns settings.
+     * @return this
+     */
+    public Wizard<T> constantMemory() {
+      constantMemory = true;
+      return this;
+    }
+
+    /**
+     * Influence default container choice by how dense the bitmap is expected to be.
+     * @param density value in [0.0, 1.0], density of the bitmap
+     * @return this
+     */
+    public Wizard<T> expectedDensity(double density) {
+      return expectedValuesPerContainer((int) (0xFFFF * density));
+    }
+
+    /**
+     * Builds a bitmap writer based on the supplied options.
+     * A call to this method is repeatable, and will not fail because the wizard
+     * should already be in a valid state.
+     * @return a new Roaring64BitmapWriter
+     */
+    @Override
+    public abstract Roaring64BitmapWriter<T> get();
+
+    private static void sanityCheck(int count) {
+      if (count >= 0xFFFF) {
+        throw new IllegalArgumentException(count + " > 65536");
+      }
+      if (count < 0) {
+        throw new IllegalArgumentException(count + " < 0");
+      }
+    }
+  }
+
+  class Roaring64BitmapWizard extends Wizard<Roaring64Bitmap> {
+
+    @Override
+    public Roaring64BitmapWriter<Roaring64Bitmap> get() {
+      if (constantMemory) {
+        return new Roaring64ConstantMemoryContainerAppender(runCompress);
+      }
+      int size = expectedContainerSize;
+      Supplier<Container> newContainer =
+          optimiseForRuns ? RunContainer::new : () -> new ArrayContainer(size);
+      return new Roaring64ContainerAppender(runCompress, newContainer);
+    }
+  }
+
+  class NavigableMapWizard extends Wizard<Roaring64NavigableMap> {
+
+    protected boolean signedLongs = false;
+
+    /**
+     * Choose this option to write a bitmap which orders the longs as signed values.
+     * @param signedLongs true if longs has to be ordered as plain java longs
+     * @return this
+     */
+    public NavigableMapWizard signedLongs(boolean signedLongs) {
+      this.signedLongs = signedLongs;
+      return this;
+    }
+
+    @Override
+    public Roaring64BitmapWriter<Roaring64NavigableMap> get() {
+      // the bitmap of each high part is written by a 32-bit writer with the same options
+      RoaringBitmapWriter.Wizard<Container, RoaringBitmap> lowWizard =
+          RoaringBitmapWriter.writer()
+              .expectedValuesPerContainer(expectedContainerSize)
+              .runCompress(runCompress);
+      if (constantMemory) {
+        lowWizard.constantMemory();
+      } else if (optimiseForRuns) {
+        lowWizard.optimiseForRuns();
+      } else {
+        lowWizard.optimiseForArrays();
+      }
+      return new Roaring64NavigableMapAppender(signedLongs, lowWizard);
+    }
+  }
+
+  /**
+   * Gets the bitmap being written to.
+   * @return the bitmap
+   */
+  T getUnderlying();
+
+  /**
+   * buffers a value to be added to the bitmap.
+   * @param value the value
+   */
+  void add(long value);
+
+  /**
+   * Add a range to the bitmap
+   * @param min the inclusive min value
+   * @param max the exclusive max value
+   */
+  void add(long min, long max);
+
+  /**
+   * Adds many values to the bitmap.
+   * @param values the values to add
+   *
+   */
+  void addMany(long... values);
+
+  /**
+   * Flushes all pending changes to the bitmap.
+   */
+  void flush();
+
+  /**
+   * flushes any pending changes to the bitmap and returns the bitmap
+   * @return the underlying bitmap
+   */
+  @Override
+  default T get() {
+    flush();
+    return getUnderlying();
+  }
+
+  /**
+   * Resets the writer so it can be reused, must release the reference to the underlying bitmap
+   */
+  void reset();
+}
@@ -0,0 +1,133 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.BitmapContainer;
+import org.roaringbitmap.Container;
+
+import java.util.Arrays;
+
+/**
+ * This class can be used to write quickly values to a {@link Roaring64Bitmap}.
+ * The values are expected to be (increasing, as unsigned longs) sorted order.
+ * The values of the current high key are written to the same 8kB buffer, which is
+ * converted to the best container representation and inserted in the ART only when
+ * the high key changes. The underlying bitmap can forcefully synchronize by calling
+ * "flush" (although calling flush to often would defeat the performance purpose of
+ * this class).
+ *
+ * <pre>
+ * {@code
+ *
+ *       Roaring64BitmapWriter<Roaring64Bitmap> writer =
+ *            Roaring64BitmapWriter.writer().constantMemory().get();
+ *       for (long l :....) {
+ *         writer.add(l);
+ *       }
+ *       writer.flush(); // important
+ * }
+ * </pre>
+ */
+public class Roaring64ConstantMemoryContainerAppender
+    implements Roaring64BitmapWriter<Roaring64Bitmap> {
+
+  private final boolean runCompress;
+  private static final int WORD_COUNT = 1 << 10;
+  private final long[] bitmap;
+  private Roaring64Bitmap underlying;
+  private boolean dirty = false;
+  // the 48-bit high key of the buffered values
+  private long currentKey;
+
+  /**
+   * Initialize a Roaring64ConstantMemoryContainerAppender with an empty receiving bitmap
+   *
+   * @param runCompress whether to run compress appended containers
+   */
+  Roaring64ConstantMemoryContainerAppender(boolean runCompress) {
+    this.runCompress = runCompress;
+    this.bitmap = new long[WORD_COUNT];
+    this.underlying = new Roaring64Bitmap();
+  }
+
+  /**
+   * Grab a reference to the underlying bitmap
+   *
+   * @return the underlying bitmap
+   */
+  @Override
+  public Roaring64Bitmap getUnderlying() {
+    return underlying;
+  }
+
+  /**
+   * Adds the value to the underlying bitmap. The data might
+   * be added to a temporary buffer. You should call "flush"
+   * when you are done.
+   *
+   * @param value the value to add.
+   */
+  @Override
+  public void add(long value) {
+    long key = LongUtils.rightShiftHighPart(value);
+    if (key != currentKey) {
+      if (key < currentKey) {
+        underlying.addLong(value);
+        return;
+      } else {
+        appendToUnderlying();
+        currentKey = key;
+      }
+    }
+    int low = LongUtils.lowPart(value);
+    bitmap[(low >>> 6)] |= (1L << low);
+    dirty = true;
+  }
+
+  @Override
+  public void addMany(long... values) {
+    for (long value : values) {
+      add(value);
+    }
+  }
+
+  @Override
+  public void add(long min, long max) {
+    appendToUnderlying();
+    underlying.addRange(min, max);
+    long mark = LongUtils.rightShiftHighPart(max - 1);
+    if (currentKey < mark) {
+      currentKey = mark;
+    }
+  }
+
+  /**
+   * Ensures that any buffered additions are flushed to the underlying bitmap.
+   */
+  @Override
+  public void flush() {
+    appendToUnderlying();
+  }
+
+  @Override
+  public void reset() {
+    currentKey = 0;
+    underlying = new Roaring64Bitmap();
+    Arrays.fill(bitmap, 0L);
+    dirty = false;
+  }
+
+  private Container chooseBestContainer() {
+    Container container = new BitmapContainer(bitmap, -1).repairAfterLazy();
+    if (runCompress) {
+      container = container.runOptimize();
+    }
+    return container instanceof BitmapContainer ? container.clone() : container;
+  }
+
+  private void appendToUnderlying() {
+    if (dirty) {
+      underlying.append(currentKey, chooseBestContainer());
+      Arrays.fill(bitmap, 0L);
+      dirty = false;
+    }
+  }
+}
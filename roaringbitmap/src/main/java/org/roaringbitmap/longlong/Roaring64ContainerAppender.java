@@ -0,0 +1,123 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.Container;
+
+import java.util.function.Supplier;
+
+/**
+ * This class can be used to write quickly values to a {@link Roaring64Bitmap}.
+ * The values are expected to be (increasing, as unsigned longs) sorted order.
+ * The values of the current high key are written to a container buffer, which is
+ * inserted in the ART only when the high key changes, instead of looking up
+ * the high key of each value. The underlying bitmap can forcefully synchronize
+ * by calling "flush" (although calling flush to often would defeat the performance
+ * purpose of this class).
+ *
+ * <pre>
+ * {@code
+ *
+ *     Roaring64BitmapWriter<Roaring64Bitmap> writer =
+ *        Roaring64BitmapWriter.writer().get();
+ *     for (long l :....) {
+ *       writer.add(l);
+ *     }
+ *     writer.flush(); // important
+ * }
+ * </pre>
+ */
+public class Roaring64ContainerAppender implements Roaring64BitmapWriter<Roaring64Bitmap> {
+
+  private final boolean runCompress;
+  private final Supplier<Container> newContainer;
+  private Container container;
+  private Roaring64Bitmap underlying;
+  // the 48-bit high key of the buffered container
+  private long currentKey;
+
+  /**
+   * Initialize a Roaring64ContainerAppender with an empty receiving bitmap
+   *
+   * @param runCompress whether to run compress appended containers
+   * @param newContainer supplier of the containers buffering the values of a high key
+   */
+  Roaring64ContainerAppender(boolean runCompress, Supplier<Container> newContainer) {
+    this.runCompress = runCompress;
+    this.newContainer = newContainer;
+    this.container = newContainer.get();
+    this.underlying = new Roaring64Bitmap();
+  }
+
+  /**
+   * Grab a reference to the underlying bitmap
+   *
+   * @return the underlying bitmap
+   */
+  @Override
+  public Roaring64Bitmap getUnderlying() {
+    return underlying;
+  }
+
+  /**
+   * Adds the value to the underlying bitmap. The data might
+   * be added to a temporary buffer. You should call "flush"
+   * when you are done.
+   *
+   * @param value the value to add.
+   */
+  @Override
+  public void add(long value) {
+    long key = LongUtils.rightShiftHighPart(value);
+    if (key != currentKey) {
+      if (key < currentKey) {
+        underlying.addLong(value);
+        return;
+      } else {
+        appendToUnderlying();
+        currentKey = key;
+      }
+    }
+    Container tmp = container.add(LongUtils.lowPart(value));
+    if (tmp != container) {
+      container = tmp;
+    }
+  }
+
+  @Override
+  public void add(long min, long max) {
+    appendToUnderlying();
+    underlying.addRange(min, max);
+    long mark = LongUtils.rightShiftHighPart(max - 1);
+    if (currentKey < mark) {
+      currentKey = mark;
+    }
+  }
+
+  @Override
+  public void addMany(long... values) {
+    for (long value : values) {
+      add(value);
+    }
+  }
+
+  /**
+   * Ensures that any buffered additions are flushed to the underlying bitmap.
+   */
+  @Override
+  public void flush() {
+    appendToUnderlying();
+  }
+
+  @Override
+  public void reset() {
+    currentKey = 0;
+    container = newContainer.get();
+    underlying = new Roaring64Bitmap();
+  }
+
+  private void appendToUnderlying() {
+    if (!container.isEmpty()) {
+      underlying.append(currentKey, runCompress ? container.runOptimize() : container);
+      container = newContainer.get();
+    }
+  }
+}
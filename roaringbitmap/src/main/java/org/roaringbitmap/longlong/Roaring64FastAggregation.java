@@ -0,0 +1,314 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.BitmapContainer;
+import org.roaringbitmap.Container;
+import org.roaringbitmap.art.LeafNode;
+import org.roaringbitmap.art.LeafNodeIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Fast algorithms to aggregate many {@link Roaring64Bitmap}s. Rather than walking two ARTs at a
+ * time, the bitmaps are merged in a single pass over their 48-bit high keys: the containers
+ * sharing a high key are aggregated together with the same container-level algorithms as
+ * {@link org.roaringbitmap.FastAggregation}.
+ */
+public final class Roaring64FastAggregation {
+
+  /** Private constructor to prevent instantiation of utility class */
+  private Roaring64FastAggregation() {}
+
+  /**
+   * Computes the union of the bitmaps. The containers sharing a high key are OR'ed lazily,
+   * without maintaining their cardinality, which is computed once per high key.
+   *
+   * This function runs in linearithmic (O(n log n)) time with respect to the number of bitmaps.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return aggregated bitmap
+   */
+  public static Roaring64Bitmap or(Roaring64Bitmap... bitmaps) {
+    return or(Arrays.asList(bitmaps).iterator());
+  }
+
+  /**
+   * Computes the union of the bitmaps. The containers sharing a high key are OR'ed lazily,
+   * without maintaining their cardinality, which is computed once per high key.
+   *
+   * This function runs in linearithmic (O(n log n)) time with respect to the number of bitmaps.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return aggregated bitmap
+   */
+  public static Roaring64Bitmap or(Iterator<? extends Roaring64Bitmap> bitmaps) {
+    HighLowContainer answer = new HighLowContainer();
+    PriorityQueue<ContainerCursor> pq = cursors(bitmaps);
+    while (!pq.isEmpty()) {
+      ContainerCursor x1 = pq.poll();
+      LeafNode leaf = x1.leaf;
+      Container newc = x1.container();
+      advance(x1, pq);
+      if (pq.isEmpty() || pq.peek().key() != leaf.getKey()) {
+        newc = newc.clone();
+      } else {
+        ContainerCursor x2 = pq.poll();
+        newc = newc.lazyOR(x2.container());
+        advance(x2, pq);
+        while (!pq.isEmpty() && pq.peek().key() == leaf.getKey()) {
+          ContainerCursor x = pq.poll();
+          newc = newc.lazyIOR(x.container());
+          advance(x, pq);
+        }
+        newc = newc.repairAfterLazy();
+      }
+      if (!newc.isEmpty()) {
+        answer.put(leaf.getKeyBytes(), newc);
+      }
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Computes the symmetric difference of the bitmaps in a single pass over their high keys.
+   *
+   * This function runs in linearithmic (O(n log n)) time with respect to the number of bitmaps.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return aggregated bitmap
+   */
+  public static Roaring64Bitmap xor(Roaring64Bitmap... bitmaps) {
+    return xor(Arrays.asList(bitmaps).iterator());
+  }
+
+  /**
+   * Computes the symmetric difference of the bitmaps in a single pass over their high keys.
+   *
+   * This function runs in linearithmic (O(n log n)) time with respect to the number of bitmaps.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return aggregated bitmap
+   */
+  public static Roaring64Bitmap xor(Iterator<? extends Roaring64Bitmap> bitmaps) {
+    HighLowContainer answer = new HighLowContainer();
+    PriorityQueue<ContainerCursor> pq = cursors(bitmaps);
+    while (!pq.isEmpty()) {
+      ContainerCursor x1 = pq.poll();
+      LeafNode leaf = x1.leaf;
+      Container newc = x1.container();
+      advance(x1, pq);
+      if (pq.isEmpty() || pq.peek().key() != leaf.getKey()) {
+        newc = newc.clone();
+      } else {
+        ContainerCursor x2 = pq.poll();
+        newc = newc.xor(x2.container());
+        advance(x2, pq);
+        while (!pq.isEmpty() && pq.peek().key() == leaf.getKey()) {
+          ContainerCursor x = pq.poll();
+          newc = newc.ixor(x.container());
+          advance(x, pq);
+        }
+      }
+      if (!newc.isEmpty()) {
+        answer.put(leaf.getKeyBytes(), newc);
+      }
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Computes the intersection of the bitmaps. Only the high keys of the first bitmap are visited,
+   * and each of them is looked up in the other bitmaps until one of them misses it, so that no
+   * container is materialised for a high key which is not shared by all the bitmaps.
+   *
+   * Performance hint: put the bitmap with the fewest containers in first position.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return aggregated bitmap
+   */
+  public static Roaring64Bitmap and(Roaring64Bitmap... bitmaps) {
+    HighLowContainer answer = new HighLowContainer();
+    if (bitmaps.length == 0) {
+      return new Roaring64Bitmap(answer);
+    }
+    long[] words = new long[1024];
+    Container[] containers = new Container[bitmaps.length];
+    LeafNodeIterator leaves = bitmaps[0].getHighLowContainer().highKeyLeafNodeIterator(false);
+    while (leaves.hasNext()) {
+      LeafNode leaf = leaves.next();
+      if (matchingContainers(bitmaps, leaf, containers)) {
+        Container tmp = and(words, containers);
+        if (!tmp.isEmpty()) {
+          answer.put(leaf.getKeyBytes(), tmp instanceof BitmapContainer ? tmp.clone() : tmp);
+        }
+      }
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  /**
+   * Computes the cardinality of the intersection of the bitmaps, without materialising the
+   * intersection.
+   *
+   * Performance hint: put the bitmap with the fewest containers in first position.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return the cardinality of the intersection
+   */
+  public static long andCardinality(Roaring64Bitmap... bitmaps) {
+    switch (bitmaps.length) {
+      case 0:
+        return 0;
+      case 1:
+        return bitmaps[0].getLongCardinality();
+      default:
+        long cardinality = 0;
+        long[] words = new long[1024];
+        Container[] containers = new Container[bitmaps.length];
+        LeafNodeIterator leaves = bitmaps[0].getHighLowContainer().highKeyLeafNodeIterator(false);
+        while (leaves.hasNext()) {
+          LeafNode leaf = leaves.next();
+          if (matchingContainers(bitmaps, leaf, containers)) {
+            cardinality +=
+                bitmaps.length == 2
+                    ? containers[0].andCardinality(containers[1])
+                    : and(words, containers).getCardinality();
+          }
+        }
+        return cardinality;
+    }
+  }
+
+  /**
+   * Computes the cardinality of the union of the bitmaps, without materialising the union: the
+   * containers sharing a high key are OR'ed into a single reused buffer.
+   *
+   * @param bitmaps input bitmaps, not modified
+   * @return the cardinality of the union
+   */
+  public static long orCardinality(Roaring64Bitmap... bitmaps) {
+    switch (bitmaps.length) {
+      case 0:
+        return 0;
+      case 1:
+        return bitmaps[0].getLongCardinality();
+      default:
+        long cardinality = 0;
+        long[] words = new long[1024];
+        PriorityQueue<ContainerCursor> pq = cursors(Arrays.asList(bitmaps).iterator());
+        while (!pq.isEmpty()) {
+          ContainerCursor x1 = pq.poll();
+          long key = x1.key();
+          Container container = x1.container();
+          advance(x1, pq);
+          if (pq.isEmpty() || pq.peek().key() != key) {
+            cardinality += container.getCardinality();
+            continue;
+          }
+          Arrays.fill(words, 0L);
+          Container tmp = new BitmapContainer(words, -1).lazyIOR(container);
+          while (!pq.isEmpty() && pq.peek().key() == key) {
+            ContainerCursor x = pq.poll();
+            Container or = tmp.lazyIOR(x.container());
+            // only reassign when needed, to avoid the write barrier
+            if (or != tmp) {
+              tmp = or;
+            }
+            advance(x, pq);
+          }
+          cardinality += tmp.repairAfterLazy().getCardinality();
+        }
+        return cardinality;
+    }
+  }
+
+  /**
+   * Looks up the container of the high key of the leaf in each of the bitmaps.
+   *
+   * @return false as soon as one of the bitmaps has no such container
+   */
+  private static boolean matchingContainers(
+      Roaring64Bitmap[] bitmaps, LeafNode leaf, Container[] containers) {
+    containers[0] = bitmaps[0].getHighLowContainer().getContainer(leaf.getContainerIdx());
+    long high = leaf.getKey() << 16;
+    for (int i = 1; i < bitmaps.length; ++i) {
+      ContainerWithIndex containerWithIndex =
+          bitmaps[i].getHighLowContainer().searchContainer(high);
+      if (containerWithIndex == null) {
+        return false;
+      }
+      containers[i] = containerWithIndex.getContainer();
+    }
+    return true;
+  }
+
+  /** Intersects the containers into a bitmap container backed by the buffer, if possible. */
+  private static Container and(long[] words, Container[] containers) {
+    Arrays.fill(words, -1L);
+    Container tmp = new BitmapContainer(words, -1);
+    for (Container container : containers) {
+      // We only assign to 'tmp' when 'tmp != tmp.iand(container)'
+      // as a garbage-collection optimization: we want to avoid
+      // the write barrier.
+      Container and = tmp.iand(container);
+      if (and != tmp) {
+        tmp = and;
+      }
+    }
+    return tmp.repairAfterLazy();
+  }
+
+  private static PriorityQueue<ContainerCursor> cursors(
+      Iterator<? extends Roaring64Bitmap> bitmaps) {
+    PriorityQueue<ContainerCursor> pq = new PriorityQueue<>();
+    while (bitmaps.hasNext()) {
+      HighLowContainer highLowContainer = bitmaps.next().getHighLowContainer();
+      ContainerCursor cursor =
+          new ContainerCursor(highLowContainer, highLowContainer.highKeyLeafNodeIterator(false));
+      advance(cursor, pq);
+    }
+    return pq;
+  }
+
+  private static void advance(ContainerCursor cursor, PriorityQueue<ContainerCursor> pq) {
+    if (cursor.advance()) {
+      pq.add(cursor);
+    }
+  }
+
+  /** Walks the containers of a bitmap in the ascending order of their high keys. */
+  private static final class ContainerCursor implements Comparable<ContainerCursor> {
+
+    private final HighLowContainer highLowContainer;
+    private final LeafNodeIterator leaves;
+    private LeafNode leaf;
+
+    ContainerCursor(HighLowContainer highLowContainer, LeafNodeIterator leaves) {
+      this.highLowContainer = highLowContainer;
+      this.leaves = leaves;
+    }
+
+    boolean advance() {
+      if (!leaves.hasNext()) {
+        return false;
+      }
+      leaf = leaves.next();
+      return true;
+    }
+
+    // the 48-bit high keys are never negative
+    long key() {
+      return leaf.getKey();
+    }
+
+    Container container() {
+      return highLowContainer.getContainer(leaf.getContainerIdx());
+    }
+
+    @Override
+    public int compareTo(ContainerCursor other) {
+      return Long.compare(key(), other.key());
+    }
+  }
+}
@@ -26,9 +26,11 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.UnsupportedEncodingException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
@@ -213,6 +215,15 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
     return sortedCumulatedCardinality;
   }
 
+  boolean isSignedLongs() {
+    return signedLongs;
+  }
+
+  // an empty bitmap with the same order, caching and kind of low bitmaps as this one
+  Roaring64NavigableMap emptyCopy() {
+    return new Roaring64NavigableMap(signedLongs, doCacheCardinalities, supplier);
+  }
+
   private static String getClassName(BitmapDataProvider bitmap) {
     if (bitmap == null) {
       return "null";
@@ -302,7 +313,7 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
     }
   }
 
-  private void pushBitmapForHigh(int high, BitmapDataProvider bitmap) {
+  void pushBitmapForHigh(int high, BitmapDataProvider bitmap) {
     // TODO .size is too slow
     // int nbHighBefore = highToBitmap.headMap(high).size();
 
@@ -310,6 +321,24 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
     assert previous == null : "Should push only not-existing high";
   }
 
+  /**
+   * Inserts the low bitmap of a high part, merging it with the bitmap already associated to the
+   * high part if any. Writers use this to flush the values they buffer, into a map whose bitmaps
+   * are all RoaringBitmaps.
+   *
+   * @param high the high 32 bits
+   * @param lowBitmap the bitmap of the low 32 bits
+   */
+  void appendBitmapForHigh(int high, RoaringBitmap lowBitmap) {
+    BitmapDataProvider bitmap = highToBitmap.get(high);
+    if (bitmap == null) {
+      pushBitmapForHigh(high, lowBitmap);
+    } else {
+      ((RoaringBitmap) bitmap).or(lowBitmap);
+    }
+    invalidateAboveHigh(high);
+  }
+
   private int low(long id) {
     return RoaringIntPacking.low(id);
   }
@@ -1190,7 +1219,8 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
       BitmapDataProvider lowBitmap1 = x1Entry.getValue();
       BitmapDataProvider lowBitmap2 = x2Entry.getValue();
 
-      int compare = Integer.compareUnsigned(highKey1, highKey2);
+      // the high parts are iterated in the order of the maps, which may be signed
+      int compare = x1.compare(highKey1, highKey2);
       if (compare == 0) {
         if (lowBitmap2 instanceof RoaringBitmap && lowBitmap1 instanceof RoaringBitmap) {
           cardinality +=
@@ -1219,6 +1249,92 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
     return cardinality;
   }
 
+  /**
+   * Cardinality of the bitwise OR (union) operation. The provided bitmaps are *not* modified. This
+   * operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the union
+   */
+  public static long orCardinality(final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    // we use the fact that the cardinality of the bitmaps is known so that
+    // the union is just the total cardinality minus the intersection
+    return x1.getLongCardinality() + x2.getLongCardinality() - andCardinality(x1, x2);
+  }
+
+  /**
+   * Cardinality of the bitwise XOR (symmetric difference) operation. The provided bitmaps are
+   * *not* modified. This operation is thread-safe as long as the provided bitmaps remain
+   * unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the symmetric difference
+   */
+  public static long xorCardinality(
+      final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    return x1.getLongCardinality() + x2.getLongCardinality() - 2 * andCardinality(x1, x2);
+  }
+
+  /**
+   * Cardinality of the bitwise ANDNOT (left difference) operation. The provided bitmaps are *not*
+   * modified. This operation is thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return cardinality of the left difference
+   */
+  public static long andNotCardinality(
+      final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    return x1.getLongCardinality() - andCardinality(x1, x2);
+  }
+
+  /**
+   * Jaccard index of two bitmaps: the cardinality of their intersection divided by the
+   * cardinality of their union. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return the Jaccard index, in [0, 1], 1 if both bitmaps are empty
+   */
+  public static double jaccardIndex(
+      final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    long andCardinality = andCardinality(x1, x2);
+    long orCardinality = x1.getLongCardinality() + x2.getLongCardinality() - andCardinality;
+    return orCardinality == 0 ? 1D : (double) andCardinality / orCardinality;
+  }
+
+  /**
+   * Dice coefficient of two bitmaps: twice the cardinality of their intersection divided by the
+   * sum of their cardinalities. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 first bitmap
+   * @param x2 other bitmap
+   * @return the Dice coefficient, in [0, 1], 1 if both bitmaps are empty
+   */
+  public static double diceCoefficient(
+      final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    long cardinalities = x1.getLongCardinality() + x2.getLongCardinality();
+    return cardinalities == 0 ? 1D : 2D * andCardinality(x1, x2) / cardinalities;
+  }
+
+  /**
+   * Containment of a bitmap in another: the fraction of the values of the first bitmap which
+   * also belong to the other bitmap. The provided bitmaps are *not* modified. This operation is
+   * thread-safe as long as the provided bitmaps remain unchanged.
+   *
+   * @param x1 the contained bitmap
+   * @param x2 the containing bitmap
+   * @return the containment of x1 in x2, in [0, 1], 1 if x1 is empty
+   */
+  public static double containment(final Roaring64NavigableMap x1, final Roaring64NavigableMap x2) {
+    long cardinality = x1.getLongCardinality();
+    return cardinality == 0 ? 1D : (double) andCardinality(x1, x2) / cardinality;
+  }
+
   /**
    * In-place bitwise ANDNOT (difference) operation. The current bitmap is modified.
    *
@@ -1379,6 +1495,81 @@ public class Roaring64NavigableMap implements Externalizable, LongBitmapDataProv
     return toIterator(it, false);
   }
 
+  /**
+   * Gets a batch iterator over the bitmap, which decodes whole low bitmaps at a time. This can be
+   * much faster than iterating value by value.
+   *
+   * @return a batch iterator, the values are traversed in ascending sorted order
+   */
+  public LongBatchIterator getBatchIterator() {
+    return new Roaring64NavigableMapBatchIterator(highToBitmap);
+  }
+
+  /**
+   * Splits this bitmap on container boundaries in at most the given number of bitmaps, holding
+   * about the same number of values. A low bitmap spanning several parts is split between them on
+   * the boundaries of its containers. The containers are cloned as a whole, so the parts do not
+   * depend on this bitmap, and it is much cheaper than adding their values one by one. The parts
+   * order the longs, and create their low bitmaps, like this bitmap.
+   *
+   * @param parts the maximum number of parts
+   * @return the non-empty parts, in the order of their values
+   */
+  public List<Roaring64NavigableMap> split(int parts) {
+    if (parts <= 0) {
+      throw new IllegalArgumentException("parts should be positive: " + parts);
+    }
+    List<Roaring64NavigableMap> answer = new ArrayList<>();
+    long cardinality = getLongCardinality();
+    long before = 0;
+    int next = 1;
+    Roaring64NavigableMap part = emptyCopy();
+    for (Entry<Integer, BitmapDataProvider> entry : highToBitmap.entrySet()) {
+      BitmapDataProvider lowBitmap = entry.getValue();
+      long lowCardinality = lowBitmap.getLongCardinality();
+      // the values of lowBitmap from start are not in a part yet
+      long start = 0;
+      while (next < parts
+          && LongUtils.partStart(cardinality, parts, next) < before + lowCardinality) {
+        int rank = (int) (LongUtils.partStart(cardinality, parts, next) - before);
+        // the next part starts with the container of its first value
+        long end = Util.toUnsignedLong(lowBitmap.select(rank)) & ~0xFFFFL;
+        if (end > start) {
+          pushIfNotEmpty(part, entry.getKey(), selectRange(lowBitmap, start, end));
+          start = end;
+        }
+        if (!part.highToBitmap.isEmpty()) {
+          answer.add(part);
+          part = emptyCopy();
+        }
+        ++next;
+      }
+      pushIfNotEmpty(part, entry.getKey(), selectRange(lowBitmap, start, 1L << 32));
+      before += lowCardinality;
+    }
+    if (!part.highToBitmap.isEmpty()) {
+      answer.add(part);
+    }
+    return answer;
+  }
+
+  private static void pushIfNotEmpty(
+      Roaring64NavigableMap bitmap, int high, BitmapDataProvider lowBitmap) {
+    if (!lowBitmap.isEmpty()) {
+      bitmap.pushBitmapForHigh(high, lowBitmap);
+    }
+  }
+
+  private static BitmapDataProvider selectRange(
+      BitmapDataProvider lowBitmap, long rangeStart, long rangeEnd) {
+    if (lowBitmap instanceof RoaringBitmap) {
+      return ((RoaringBitmap) lowBitmap).selectRange(rangeStart, rangeEnd);
+    } else if (lowBitmap instanceof MutableRoaringBitmap) {
+      return ((MutableRoaringBitmap) lowBitmap).selectRange(rangeStart, rangeEnd);
+    }
+    throw new UnsupportedOperationException(".split(...) over " + getClassName(lowBitmap));
+  }
+
   protected LongIterator toIterator(
       final Iterator<Map.Entry<Integer, BitmapDataProvider>> it, final boolean reversed) {
     return new LongIterator() {
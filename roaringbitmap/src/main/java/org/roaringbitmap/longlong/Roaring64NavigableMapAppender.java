@@ -0,0 +1,130 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+
+import java.util.function.Supplier;
+
+/**
+ * This class can be used to write quickly values to a {@link Roaring64NavigableMap}.
+ * The values are expected to be (increasing, in the order of the bitmap) sorted order.
+ * The low 32 bits of the values of the current high part are written by a
+ * {@link RoaringBitmapWriter}, and the resulting bitmap is inserted in the map only
+ * when the high part changes. The underlying bitmap can forcefully synchronize by
+ * calling "flush" (although calling flush to often would defeat the performance
+ * purpose of this class).
+ *
+ * <pre>
+ * {@code
+ *
+ *     Roaring64BitmapWriter<Roaring64NavigableMap> writer =
+ *        Roaring64BitmapWriter.navigableMapWriter().get();
+ *     for (long l :....) {
+ *       writer.add(l);
+ *     }
+ *     writer.flush(); // important
+ * }
+ * </pre>
+ */
+public class Roaring64NavigableMapAppender
+    implements Roaring64BitmapWriter<Roaring64NavigableMap> {
+
+  private final boolean signedLongs;
+  private final RoaringBitmapWriter<RoaringBitmap> lowWriter;
+  private Roaring64NavigableMap underlying;
+  private int currentHigh;
+
+  /**
+   * Initialize a Roaring64NavigableMapAppender with an empty receiving bitmap
+   *
+   * @param signedLongs true if longs has to be ordered as plain java longs
+   * @param lowWriters supplier of the writer of the bitmaps of the low 32 bits
+   */
+  Roaring64NavigableMapAppender(
+      boolean signedLongs, Supplier<RoaringBitmapWriter<RoaringBitmap>> lowWriters) {
+    this.signedLongs = signedLongs;
+    this.lowWriter = lowWriters.get();
+    reset();
+  }
+
+  /**
+   * Grab a reference to the underlying bitmap
+   *
+   * @return the underlying bitmap
+   */
+  @Override
+  public Roaring64NavigableMap getUnderlying() {
+    return underlying;
+  }
+
+  /**
+   * Adds the value to the underlying bitmap. The data might
+   * be added to a temporary buffer. You should call "flush"
+   * when you are done.
+   *
+   * @param value the value to add.
+   */
+  @Override
+  public void add(long value) {
+    int high = RoaringIntPacking.high(value);
+    if (high != currentHigh) {
+      if (compare(high, currentHigh) < 0) {
+        underlying.addLong(value);
+        return;
+      } else {
+        appendToUnderlying();
+        currentHigh = high;
+      }
+    }
+    lowWriter.add(RoaringIntPacking.low(value));
+  }
+
+  @Override
+  public void add(long min, long max) {
+    appendToUnderlying();
+    underlying.addRange(min, max);
+    int mark = RoaringIntPacking.high(max - 1);
+    if (compare(currentHigh, mark) < 0) {
+      currentHigh = mark;
+    }
+  }
+
+  @Override
+  public void addMany(long... values) {
+    for (long value : values) {
+      add(value);
+    }
+  }
+
+  /**
+   * Ensures that any buffered additions are flushed to the underlying bitmap.
+   */
+  @Override
+  public void flush() {
+    appendToUnderlying();
+  }
+
+  @Override
+  public void reset() {
+    currentHigh = signedLongs ? Integer.MIN_VALUE : 0;
+    lowWriter.reset();
+    underlying = new Roaring64NavigableMap(signedLongs);
+  }
+
+  private int compare(int x, int y) {
+    if (signedLongs) {
+      return Integer.compare(x, y);
+    } else {
+      return RoaringIntPacking.compareUnsigned(x, y);
+    }
+  }
+
+  private void appendToUnderlying() {
+    RoaringBitmap lowBitmap = lowWriter.get();
+    if (!lowBitmap.isEmpty()) {
+      underlying.appendBitmapForHigh(currentHigh, lowBitmap);
+      // the bitmap now belongs to the map
+      lowWriter.reset();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.BatchIterator;
+import org.roaringbitmap.BitmapDataProvider;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Batch iterator over a {@link Roaring64NavigableMap}, chaining the batch iterators of the
+ * bitmaps associated to each high part, in the order of the map.
+ */
+final class Roaring64NavigableMapBatchIterator implements LongBatchIterator {
+
+  private final NavigableMap<Integer, BitmapDataProvider> highToBitmap;
+  private final Comparator<? super Integer> comparator;
+  private Iterator<Map.Entry<Integer, BitmapDataProvider>> entries;
+  private int high;
+  private BatchIterator iterator;
+  // the batch iterators of the low bitmaps decode the low 32 bits into ints
+  private int[] lows = new int[0];
+
+  Roaring64NavigableMapBatchIterator(NavigableMap<Integer, BitmapDataProvider> highToBitmap) {
+    this.highToBitmap = highToBitmap;
+    // a TreeMap without comparator orders the high parts as signed ints
+    this.comparator =
+        highToBitmap.comparator() == null
+            ? Comparator.<Integer>naturalOrder()
+            : highToBitmap.comparator();
+    this.entries = highToBitmap.entrySet().iterator();
+    nextBitmap();
+  }
+
+  @Override
+  public int nextBatch(long[] buffer) {
+    if (lows.length != buffer.length) {
+      lows = new int[buffer.length];
+    }
+    // the low bitmaps cannot decode at an offset: a batch never spans two high parts
+    int consumed = 0;
+    while (iterator != null && consumed == 0) {
+      consumed = iterator.nextBatch(lows);
+      long shiftedHigh = (long) high << 32;
+      for (int i = 0; i < consumed; ++i) {
+        buffer[i] = shiftedHigh | Integer.toUnsignedLong(lows[i]);
+      }
+      if (!iterator.hasNext()) {
+        nextBitmap();
+      }
+    }
+    return consumed;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return null != iterator;
+  }
+
+  @Override
+  public LongBatchIterator clone() {
+    try {
+      Roaring64NavigableMapBatchIterator it =
+          (Roaring64NavigableMapBatchIterator) super.clone();
+      if (null != iterator) {
+        it.iterator = iterator.clone();
+        // map iterators cannot be copied: the clone looks up the next bitmap again
+        it.entries = highToBitmap.tailMap(high, false).entrySet().iterator();
+      }
+      it.lows = new int[0];
+      return it;
+    } catch (CloneNotSupportedException e) {
+      // won't happen
+      throw new IllegalStateException();
+    }
+  }
+
+  @Override
+  public void advanceIfNeeded(long target) {
+    int targetHigh = RoaringIntPacking.high(target);
+    if (null != iterator && comparator.compare(high, targetHigh) < 0) {
+      entries = highToBitmap.tailMap(targetHigh, true).entrySet().iterator();
+      nextBitmap();
+    }
+    if (null != iterator && high == targetHigh) {
+      iterator.advanceIfNeeded(RoaringIntPacking.low(target));
+      if (!iterator.hasNext()) {
+        nextBitmap();
+      }
+    }
+  }
+
+  private void nextBitmap() {
+    iterator = null;
+    while (iterator == null && entries.hasNext()) {
+      Map.Entry<Integer, BitmapDataProvider> entry = entries.next();
+      BatchIterator candidate = entry.getValue().getBatchIterator();
+      if (candidate.hasNext()) {
+        high = entry.getKey();
+        iterator = candidate;
+      }
+    }
+  }
+}
@@ -0,0 +1,382 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.BitmapContainer;
+import org.roaringbitmap.BitmapDataProvider;
+import org.roaringbitmap.Container;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.art.LeafNode;
+import org.roaringbitmap.art.LeafNodeIterator;
+import org.roaringbitmap.buffer.BufferFastAggregation;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel implementations of the logical aggregation operators for 64-bit bitmaps, partitioned
+ * by high key: the ART leaves (48-bit high keys) of {@link Roaring64Bitmap}, and the entries
+ * (32-bit high keys) of {@link Roaring64NavigableMap}. Each high key present in the result is
+ * computed independently of the others, on the common fork join pool or on the supplied one.
+ *
+ * The {@link Roaring64NavigableMap} inputs must all order the longs the same way, signed or
+ * unsigned, and the result orders them like the inputs and creates its low bitmaps with the
+ * supplier of the first input.
+ *
+ * Like {@link org.roaringbitmap.ParallelAggregation}, there is a temporary memory overhead in
+ * using these methods, since the inputs are first grouped by high key.
+ *
+ * <pre>
+ * {@code
+ *
+ *       ForkJoinPool pool = ...
+ *       Roaring64Bitmap[] bitmaps = ...
+ *       // executes on the threads of the pool
+ *       Roaring64Bitmap result = Roaring64ParallelAggregation.or(pool, bitmaps);
+ * }
+ * </pre>
+ */
+public final class Roaring64ParallelAggregation {
+
+  /** Private constructor to prevent instantiation of utility class */
+  private Roaring64ParallelAggregation() {}
+
+  /**
+   * Computes the bitwise union of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the union of the bitmaps
+   */
+  public static Roaring64Bitmap or(Roaring64Bitmap... bitmaps) {
+    SortedMap<Long, List<Container>> grouped = groupByKey(bitmaps);
+    List<List<Container>> slices = new ArrayList<>(grouped.values());
+    return aggregate(keys(grouped), position -> or(slices.get(position)));
+  }
+
+  /**
+   * Computes the bitwise union of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the union of the bitmaps
+   */
+  public static Roaring64Bitmap or(ForkJoinPool pool, Roaring64Bitmap... bitmaps) {
+    return pool.submit(() -> or(bitmaps)).join();
+  }
+
+  /**
+   * Computes the bitwise symmetric difference of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the symmetric difference of the bitmaps
+   */
+  public static Roaring64Bitmap xor(Roaring64Bitmap... bitmaps) {
+    SortedMap<Long, List<Container>> grouped = groupByKey(bitmaps);
+    List<List<Container>> slices = new ArrayList<>(grouped.values());
+    return aggregate(keys(grouped), position -> xor(slices.get(position)));
+  }
+
+  /**
+   * Computes the bitwise symmetric difference of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the symmetric difference of the bitmaps
+   */
+  public static Roaring64Bitmap xor(ForkJoinPool pool, Roaring64Bitmap... bitmaps) {
+    return pool.submit(() -> xor(bitmaps)).join();
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps. Only the high keys of the first bitmap are
+   * considered, so it is best to put the bitmap with the fewest containers in first position.
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static Roaring64Bitmap and(Roaring64Bitmap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return new Roaring64Bitmap();
+    }
+    SortedMap<Long, List<Container>> grouped = groupByKey(bitmaps[0]);
+    List<List<Container>> slices = new ArrayList<>(grouped.values());
+    long[] keys = keys(grouped);
+    // the lookups in the other bitmaps are done in parallel as well
+    return aggregate(keys, position -> and(keys[position], slices.get(position).get(0), bitmaps));
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static Roaring64Bitmap and(ForkJoinPool pool, Roaring64Bitmap... bitmaps) {
+    return pool.submit(() -> and(bitmaps)).join();
+  }
+
+  /**
+   * Computes the bitwise union of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the union of the bitmaps
+   */
+  public static Roaring64NavigableMap or(Roaring64NavigableMap... bitmaps) {
+    return aggregate(
+        bitmaps, groupByHigh(bitmaps), "or", FastAggregation::or, BufferFastAggregation::or);
+  }
+
+  /**
+   * Computes the bitwise union of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the union of the bitmaps
+   */
+  public static Roaring64NavigableMap or(ForkJoinPool pool, Roaring64NavigableMap... bitmaps) {
+    return pool.submit(() -> or(bitmaps)).join();
+  }
+
+  /**
+   * Computes the bitwise symmetric difference of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the symmetric difference of the bitmaps
+   */
+  public static Roaring64NavigableMap xor(Roaring64NavigableMap... bitmaps) {
+    return aggregate(
+        bitmaps, groupByHigh(bitmaps), "xor", FastAggregation::xor, BufferFastAggregation::xor);
+  }
+
+  /**
+   * Computes the bitwise symmetric difference of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the symmetric difference of the bitmaps
+   */
+  public static Roaring64NavigableMap xor(ForkJoinPool pool, Roaring64NavigableMap... bitmaps) {
+    return pool.submit(() -> xor(bitmaps)).join();
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static Roaring64NavigableMap and(Roaring64NavigableMap... bitmaps) {
+    SortedMap<Integer, List<BitmapDataProvider>> grouped = newGroups(bitmaps);
+    if (bitmaps.length > 0) {
+      for (Map.Entry<Integer, BitmapDataProvider> entry :
+          bitmaps[0].getHighToBitmap().entrySet()) {
+        List<BitmapDataProvider> slice = new ArrayList<>(bitmaps.length);
+        for (Roaring64NavigableMap bitmap : bitmaps) {
+          BitmapDataProvider lowBitmap = bitmap.getHighToBitmap().get(entry.getKey());
+          if (lowBitmap == null) {
+            break;
+          }
+          slice.add(lowBitmap);
+        }
+        if (slice.size() == bitmaps.length) {
+          grouped.put(entry.getKey(), slice);
+        }
+      }
+    }
+    return aggregate(bitmaps, grouped, "and", FastAggregation::and, BufferFastAggregation::and);
+  }
+
+  /**
+   * Computes the intersection of the input bitmaps on the supplied pool
+   * @param pool the pool to execute the aggregation on
+   * @param bitmaps the input bitmaps
+   * @return the intersection of the bitmaps
+   */
+  public static Roaring64NavigableMap and(ForkJoinPool pool, Roaring64NavigableMap... bitmaps) {
+    return pool.submit(() -> and(bitmaps)).join();
+  }
+
+  /**
+   * Groups the containers of the bitmaps by their 48-bit high keys
+   * @param bitmaps input bitmaps
+   * @return The containers from the bitmaps grouped by high key
+   */
+  private static SortedMap<Long, List<Container>> groupByKey(Roaring64Bitmap... bitmaps) {
+    // the 48-bit high keys are never negative, so the natural order is the unsigned order
+    SortedMap<Long, List<Container>> grouped = new TreeMap<>();
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      HighLowContainer highLowContainer = bitmap.getHighLowContainer();
+      LeafNodeIterator leaves = highLowContainer.highKeyLeafNodeIterator(false);
+      while (leaves.hasNext()) {
+        LeafNode leaf = leaves.next();
+        grouped
+            .computeIfAbsent(leaf.getKey(), key -> new ArrayList<>())
+            .add(highLowContainer.getContainer(leaf.getContainerIdx()));
+      }
+    }
+    return grouped;
+  }
+
+  /**
+   * Groups the low bitmaps of the bitmaps by their 32-bit high keys
+   * @param bitmaps input bitmaps
+   * @return The low bitmaps grouped by high key
+   */
+  private static SortedMap<Integer, List<BitmapDataProvider>> groupByHigh(
+      Roaring64NavigableMap... bitmaps) {
+    SortedMap<Integer, List<BitmapDataProvider>> grouped = newGroups(bitmaps);
+    for (Roaring64NavigableMap bitmap : bitmaps) {
+      for (Map.Entry<Integer, BitmapDataProvider> entry : bitmap.getHighToBitmap().entrySet()) {
+        grouped.computeIfAbsent(entry.getKey(), high -> new ArrayList<>()).add(entry.getValue());
+      }
+    }
+    return grouped;
+  }
+
+  /**
+   * Creates an empty map of high keys, in the order of the high keys of the bitmaps
+   * @param bitmaps input bitmaps
+   * @return an empty map ordered like the bitmaps
+   * @throws IllegalArgumentException if some bitmaps order the longs as signed and others as
+   *     unsigned
+   */
+  private static SortedMap<Integer, List<BitmapDataProvider>> newGroups(
+      Roaring64NavigableMap... bitmaps) {
+    if (bitmaps.length == 0) {
+      return new TreeMap<>(RoaringIntPacking.unsignedComparator());
+    }
+    for (Roaring64NavigableMap bitmap : bitmaps) {
+      if (bitmap.isSignedLongs() != bitmaps[0].isSignedLongs()) {
+        throw new IllegalArgumentException(
+            "Cannot aggregate bitmaps with signed and unsigned longs together");
+      }
+    }
+    // null for signed longs, which are in the natural order of their high keys
+    return new TreeMap<>(bitmaps[0].getHighToBitmap().comparator());
+  }
+
+  private static long[] keys(SortedMap<Long, List<Container>> grouped) {
+    long[] keys = new long[grouped.size()];
+    int i = 0;
+    for (long key : grouped.keySet()) {
+      keys[i++] = key;
+    }
+    return keys;
+  }
+
+  private static Roaring64Bitmap aggregate(long[] keys, IntFunction<Container> reducer) {
+    Container[] values = new Container[keys.length];
+    IntStream.range(0, keys.length)
+        .parallel()
+        .forEach(position -> values[position] = reducer.apply(position));
+    // the ART is not thread-safe: it is filled once all the containers are computed
+    HighLowContainer answer = new HighLowContainer();
+    for (int i = 0; i < keys.length; ++i) {
+      if (values[i] != null && !values[i].isEmpty()) {
+        answer.put(LongUtils.highPart(keys[i] << 16), values[i]);
+      }
+    }
+    return new Roaring64Bitmap(answer);
+  }
+
+  private static Roaring64NavigableMap aggregate(
+      Roaring64NavigableMap[] bitmaps,
+      SortedMap<Integer, List<BitmapDataProvider>> grouped,
+      String operation,
+      Function<RoaringBitmap[], RoaringBitmap> heapReducer,
+      Function<ImmutableRoaringBitmap[], MutableRoaringBitmap> bufferReducer) {
+    int[] highs = new int[grouped.size()];
+    List<List<BitmapDataProvider>> slices = new ArrayList<>(grouped.size());
+    int i = 0;
+    for (Map.Entry<Integer, List<BitmapDataProvider>> slice : grouped.entrySet()) {
+      highs[i++] = slice.getKey();
+      slices.add(slice.getValue());
+    }
+    BitmapDataProvider[] values = new BitmapDataProvider[i];
+    IntStream.range(0, i)
+        .parallel()
+        .forEach(
+            position ->
+                values[position] =
+                    reduce(slices.get(position), operation, heapReducer, bufferReducer));
+    Roaring64NavigableMap answer =
+        bitmaps.length == 0 ? new Roaring64NavigableMap() : bitmaps[0].emptyCopy();
+    for (int position = 0; position < i; ++position) {
+      if (!values[position].isEmpty()) {
+        answer.pushBitmapForHigh(highs[position], values[position]);
+      }
+    }
+    return answer;
+  }
+
+  private static BitmapDataProvider reduce(
+      List<BitmapDataProvider> slice,
+      String operation,
+      Function<RoaringBitmap[], RoaringBitmap> heapReducer,
+      Function<ImmutableRoaringBitmap[], MutableRoaringBitmap> bufferReducer) {
+    if (slice.stream().allMatch(RoaringBitmap.class::isInstance)) {
+      return heapReducer.apply(slice.toArray(new RoaringBitmap[0]));
+    } else if (slice.stream().allMatch(MutableRoaringBitmap.class::isInstance)) {
+      return bufferReducer.apply(slice.toArray(new MutableRoaringBitmap[0]));
+    }
+    throw new UnsupportedOperationException(
+        "."
+            + operation
+            + "(...) over "
+            + slice.stream()
+                .map(bitmap -> bitmap.getClass().getName())
+                .distinct()
+                .collect(Collectors.joining(" and ")));
+  }
+
+  private static Container or(List<Container> containers) {
+    // if there are few enough containers it's possible no bitmaps will be materialised
+    if (containers.size() < 16) {
+      Container result = containers.get(0).clone();
+      for (int i = 1; i < containers.size(); ++i) {
+        result = result.lazyIOR(containers.get(i));
+      }
+      return result.repairAfterLazy();
+    }
+    // the union is large and likely to end up as a bitmap
+    Container result = new BitmapContainer(new long[1 << 10], -1);
+    for (Container container : containers) {
+      result = result.lazyIOR(container);
+    }
+    return result.repairAfterLazy();
+  }
+
+  private static Container xor(List<Container> containers) {
+    Container result = containers.get(0).clone();
+    for (int i = 1; i < containers.size(); ++i) {
+      result = result.ixor(containers.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Intersects the container of the first bitmap with the containers of the same high key in the
+   * other bitmaps.
+   * @return null if one of the bitmaps has no container for the high key
+   */
+  private static Container and(long key, Container container, Roaring64Bitmap[] bitmaps) {
+    Container[] slice = new Container[bitmaps.length];
+    slice[0] = container;
+    for (int i = 1; i < bitmaps.length; ++i) {
+      ContainerWithIndex containerWithIndex =
+          bitmaps[i].getHighLowContainer().searchContainer(key << 16);
+      if (containerWithIndex == null) {
+        return null;
+      }
+      slice[i] = containerWithIndex.getContainer();
+    }
+    // intersecting the smallest containers first shrinks the intermediate results quickly
+    Arrays.sort(slice, Comparator.comparingInt(Container::getCardinality));
+    Container result = slice[0].clone();
+    for (int i = 1; i < slice.length && !result.isEmpty(); ++i) {
+      result = result.iand(slice[i]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,123 @@
+package org.roaringbitmap.longlong;
+
+import org.roaringbitmap.PeekableCharIterator;
+import org.roaringbitmap.Util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntFunction;
+
+/**
+ * A Spliterator over the values of a 64-bit bitmap which splits on container boundaries,
+ * balancing the cardinalities of the two halves. Each split knows its exact size, so that parallel
+ * streams need neither buffering nor size estimation.
+ */
+final class Roaring64Spliterator implements Spliterator.OfLong {
+
+  // the high 48 bits of the values in each container
+  private final long[] keys;
+  // cumulatedCardinalities[i] is the number of values in the containers before the i-th one
+  private final long[] cumulatedCardinalities;
+  private final IntFunction<PeekableCharIterator> containers;
+  private final int fence;
+  // the next container to iterate over
+  private int index;
+  // the container being iterated over, and the number of its values not yet consumed
+  private PeekableCharIterator charIterator;
+  private long high;
+  private int remaining = 0;
+
+  /**
+   * @param keys the high 48 bits of the values in each container
+   * @param cumulatedCardinalities the number of values in the containers before each container,
+   *     and the total cardinality as last element
+   * @param containers iterates over the values of the container at an index
+   */
+  Roaring64Spliterator(
+      long[] keys, long[] cumulatedCardinalities, IntFunction<PeekableCharIterator> containers) {
+    this(keys, cumulatedCardinalities, containers, 0, keys.length);
+  }
+
+  private Roaring64Spliterator(
+      long[] keys,
+      long[] cumulatedCardinalities,
+      IntFunction<PeekableCharIterator> containers,
+      int index,
+      int fence) {
+    this.keys = keys;
+    this.cumulatedCardinalities = cumulatedCardinalities;
+    this.containers = containers;
+    this.index = index;
+    this.fence = fence;
+  }
+
+  @Override
+  public boolean tryAdvance(java.util.function.LongConsumer action) {
+    while (remaining == 0) {
+      if (index >= fence) {
+        return false;
+      }
+      high = keys[index];
+      charIterator = containers.apply(index);
+      remaining = (int) (cumulatedCardinalities[index + 1] - cumulatedCardinalities[index]);
+      ++index;
+    }
+    --remaining;
+    action.accept(LongUtils.toLong(high, charIterator.next()));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(java.util.function.LongConsumer action) {
+    for (; remaining > 0; --remaining) {
+      action.accept(LongUtils.toLong(high, charIterator.next()));
+    }
+    for (; index < fence; ++index) {
+      long key = keys[index];
+      PeekableCharIterator it = containers.apply(index);
+      while (it.hasNext()) {
+        action.accept(LongUtils.toLong(key, it.next()));
+      }
+    }
+  }
+
+  @Override
+  public Spliterator.OfLong trySplit() {
+    // the prefix takes what is left of the current container and at least one more container
+    // if there is none, the suffix keeps at least one container
+    int lo = remaining > 0 ? index : index + 1;
+    int hi = fence - 1;
+    if (lo > hi) {
+      return null;
+    }
+    long half = (cumulatedCardinalities[index] - remaining + cumulatedCardinalities[fence]) >>> 1;
+    int mid = Arrays.binarySearch(cumulatedCardinalities, lo, hi + 1, half);
+    mid = Math.min(Math.max(mid < 0 ? -mid - 1 : mid, lo), hi);
+    Roaring64Spliterator prefix =
+        new Roaring64Spliterator(keys, cumulatedCardinalities, containers, index, mid);
+    prefix.charIterator = charIterator;
+    prefix.high = high;
+    prefix.remaining = remaining;
+    charIterator = null;
+    remaining = 0;
+    index = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return cumulatedCardinalities[fence] - cumulatedCardinalities[index] + remaining;
+  }
+
+  @Override
+  public int characteristics() {
+    return Util.SPLITERATOR_CHARACTERISTICS;
+  }
+
+  @Override
+  public Comparator<? super Long> getComparator() {
+    // claims the signed natural order, see Util.SPLITERATOR_CHARACTERISTICS
+    return null;
+  }
+}
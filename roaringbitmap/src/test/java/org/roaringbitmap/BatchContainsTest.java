@@ -0,0 +1,112 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.roaringbitmap.SeededTestData.TestDataSet.testCase;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class BatchContainsTest {
+
+  public static Stream<Arguments> params() {
+    return Stream.of(
+        Arguments.of(new RoaringBitmap()),
+        Arguments.of(RoaringBitmap.bitmapOf(0, 1, -1, 1 << 16)),
+        Arguments.of(testCase().withArrayAt(0).withBitmapAt(1).withRunAt(2).build()),
+        Arguments.of(testCase().withRunAt(0).withArrayAt(3).withBitmapAt(10).build()),
+        Arguments.of(testCase().withArrayAt(0).withArrayAt(1).withArrayAt(65535).build()),
+        Arguments.of(SeededTestData.randomBitmap(50, 0.1, 0.5)),
+        Arguments.of(SeededTestData.randomBitmap(50, 0.5, 0.9)),
+        Arguments.of(SeededTestData.randomBitmap(500, 0.9, 0.95)));
+  }
+
+  // values of the bitmap, values next to them, duplicates and random values
+  private static int[] probes(RoaringBitmap bitmap, Random random) {
+    IntStream.Builder probes = IntStream.builder();
+    bitmap.forEach(
+        (IntConsumer)
+            value -> {
+              if (random.nextInt(8) == 0) {
+                probes.add(value);
+                probes.add(value + 1);
+                probes.add(value - 1);
+              }
+            });
+    for (int i = 0; i < 1000; ++i) {
+      probes.add(random.nextInt());
+      probes.add(random.nextInt(1 << 20));
+    }
+    return probes.build().toArray();
+  }
+
+  private static int[] sortedUnsigned(int[] values) {
+    return Arrays.stream(values)
+        .mapToLong(Integer::toUnsignedLong)
+        .sorted()
+        .mapToInt(v -> (int) v)
+        .toArray();
+  }
+
+  private static void check(RoaringBitmap bitmap, int[] probes, ImmutableRoaringBitmap other) {
+    boolean[] expected = new boolean[probes.length];
+    for (int i = 0; i < probes.length; ++i) {
+      expected[i] = bitmap.contains(probes[i]);
+    }
+    int[] filtered =
+        IntStream.range(0, probes.length).filter(i -> expected[i]).map(i -> probes[i]).toArray();
+
+    boolean[] out = new boolean[probes.length];
+    bitmap.contains(probes, out);
+    assertArrayEquals(expected, out);
+    assertArrayEquals(filtered, bitmap.filter(probes));
+    assertEquals(filtered.length, bitmap.countContained(probes));
+
+    out = new boolean[probes.length + 1];
+    other.contains(probes, out);
+    assertArrayEquals(expected, Arrays.copyOf(out, probes.length));
+    assertArrayEquals(filtered, other.filter(probes));
+    assertEquals(filtered.length, other.countContained(probes));
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testBatchContains(RoaringBitmap bitmap) {
+    Random random = new Random(bitmap.getCardinality());
+    int[] probes = probes(bitmap, random);
+    MutableRoaringBitmap mutable = bitmap.toMutableRoaringBitmap();
+    ByteBuffer buffer = ByteBuffer.allocate(mutable.serializedSizeInBytes());
+    mutable.serialize(buffer);
+    buffer.flip();
+    ImmutableRoaringBitmap immutable = new ImmutableRoaringBitmap(buffer);
+
+    int[] sorted = sortedUnsigned(probes);
+    check(bitmap, sorted, mutable);
+    check(bitmap, sorted, immutable);
+    // unsorted probes are slower, but supported
+    check(bitmap, probes, mutable);
+    check(bitmap, probes, immutable);
+    check(bitmap, new int[0], immutable);
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testOutputTooShort(RoaringBitmap bitmap) {
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.contains(new int[] {1, 2}, new boolean[1]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> bitmap.toMutableRoaringBitmap().contains(new int[] {1}, new boolean[0]));
+  }
+}
@@ -0,0 +1,149 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.roaringbitmap.SeededTestData.TestDataSet.testCase;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class BatchRankSelectTest {
+
+  public static Stream<Arguments> params() {
+    return Stream.of(
+        Arguments.of(new RoaringBitmap()),
+        Arguments.of(RoaringBitmap.bitmapOf(0, 1, -1, 1 << 16)),
+        Arguments.of(testCase().withArrayAt(0).withBitmapAt(1).withRunAt(2).build()),
+        Arguments.of(testCase().withRunAt(0).withArrayAt(3).withBitmapAt(10).build()),
+        Arguments.of(testCase().withArrayAt(0).withArrayAt(1).withArrayAt(65535).build()),
+        Arguments.of(SeededTestData.randomBitmap(50, 0.1, 0.5)),
+        Arguments.of(SeededTestData.randomBitmap(50, 0.5, 0.9)),
+        Arguments.of(SeededTestData.randomBitmap(500, 0.9, 0.95)));
+  }
+
+  private static ImmutableRoaringBitmap immutable(RoaringBitmap bitmap) {
+    MutableRoaringBitmap mutable = bitmap.toMutableRoaringBitmap();
+    ByteBuffer buffer = ByteBuffer.allocate(mutable.serializedSizeInBytes());
+    mutable.serialize(buffer);
+    buffer.flip();
+    return new ImmutableRoaringBitmap(buffer);
+  }
+
+  // some values of the bitmap, values next to them, duplicates and random values
+  private static int[] probes(RoaringBitmap bitmap, Random random) {
+    IntStream.Builder probes = IntStream.builder();
+    bitmap.forEach(
+        (IntConsumer)
+            value -> {
+              if (random.nextInt(1024) == 0) {
+                probes.add(value);
+                probes.add(value + 1);
+                probes.add(value - 1);
+              }
+            });
+    for (int i = 0; i < 1000; ++i) {
+      probes.add(random.nextInt());
+      probes.add(random.nextInt(1 << 20));
+    }
+    return probes.build().toArray();
+  }
+
+  private static int[] sortedUnsigned(int[] values) {
+    return Arrays.stream(values)
+        .mapToLong(Integer::toUnsignedLong)
+        .sorted()
+        .mapToInt(v -> (int) v)
+        .toArray();
+  }
+
+  private static void checkRank(RoaringBitmap bitmap, int[] values, ImmutableRoaringBitmap other) {
+    long[] expected = Arrays.stream(values).mapToLong(bitmap::rankLong).toArray();
+    long[] out = new long[values.length];
+    bitmap.rank(values, out);
+    assertArrayEquals(expected, out);
+    out = new long[values.length + 1];
+    other.rank(values, out);
+    assertArrayEquals(expected, Arrays.copyOf(out, values.length));
+  }
+
+  private static void checkSelect(RoaringBitmap bitmap, int[] ranks, ImmutableRoaringBitmap other) {
+    int[] expected = Arrays.stream(ranks).map(bitmap::select).toArray();
+    int[] out = new int[ranks.length];
+    bitmap.select(ranks, out);
+    assertArrayEquals(expected, out);
+    out = new int[ranks.length];
+    other.select(ranks, out);
+    assertArrayEquals(expected, out);
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testBatchRank(RoaringBitmap bitmap) {
+    int[] probes = probes(bitmap, new Random(bitmap.getCardinality()));
+    MutableRoaringBitmap mutable = bitmap.toMutableRoaringBitmap();
+    ImmutableRoaringBitmap immutable = immutable(bitmap);
+    int[] sorted = sortedUnsigned(probes);
+    checkRank(bitmap, sorted, mutable);
+    checkRank(bitmap, sorted, immutable);
+    // unsorted values are slower, but supported
+    checkRank(bitmap, probes, mutable);
+    checkRank(bitmap, probes, immutable);
+    checkRank(bitmap, new int[0], immutable);
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testBatchSelect(RoaringBitmap bitmap) {
+    int cardinality = bitmap.getCardinality();
+    Random random = new Random(cardinality);
+    int[] ranks =
+        cardinality == 0
+            ? new int[0]
+            : IntStream.range(0, 2000).map(i -> random.nextInt(cardinality)).toArray();
+    MutableRoaringBitmap mutable = bitmap.toMutableRoaringBitmap();
+    ImmutableRoaringBitmap immutable = immutable(bitmap);
+    int[] sorted = Arrays.stream(ranks).sorted().toArray();
+    checkSelect(bitmap, sorted, mutable);
+    checkSelect(bitmap, sorted, immutable);
+    // unsorted ranks are slower, but supported
+    checkSelect(bitmap, ranks, mutable);
+    checkSelect(bitmap, ranks, immutable);
+    if (cardinality > 0 && cardinality < 1 << 20) {
+      int[] all = IntStream.range(0, cardinality).toArray();
+      int[] out = new int[cardinality];
+      immutable.select(all, out);
+      assertArrayEquals(bitmap.toArray(), out);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testSelectOutOfBounds(RoaringBitmap bitmap) {
+    int[] ranks = {0, bitmap.getCardinality()};
+    assertThrows(IllegalArgumentException.class, () -> bitmap.select(ranks, new int[2]));
+    assertThrows(
+        IllegalArgumentException.class, () -> immutable(bitmap).select(ranks, new int[2]));
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.select(new int[] {-1}, new int[1]));
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void testOutputTooShort(RoaringBitmap bitmap) {
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.rank(new int[] {1, 2}, new long[1]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> bitmap.toMutableRoaringBitmap().select(new int[] {0}, new int[0]));
+  }
+}
@@ -1,11 +1,13 @@
 package org.roaringbitmap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.roaringbitmap.SeededTestData.TestDataSet.testCase;
 
 import org.roaringbitmap.buffer.BufferFastAggregation;
 import org.roaringbitmap.buffer.BufferParallelAggregation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 
@@ -495,4 +498,138 @@ public class ParallelAggregationTest {
     assertEquals(
         BufferFastAggregation.xor(one, two, three), BufferParallelAggregation.xor(one, two, three));
   }
+
+  @Test
+  public void singleContainerAND() {
+    RoaringBitmap one = testCase().withRunAt(0).build();
+    RoaringBitmap two = testCase().withBitmapAt(0).build();
+    RoaringBitmap three = testCase().withArrayAt(0).build();
+    assertEquals(FastAggregation.and(one, two, three), ParallelAggregation.and(one, two, three));
+  }
+
+  @Test
+  public void disjointAND() {
+    RoaringBitmap one = testCase().withRunAt(0).withArrayAt(2).build();
+    RoaringBitmap two = testCase().withBitmapAt(1).build();
+    RoaringBitmap three = testCase().withArrayAt(3).build();
+    assertTrue(ParallelAggregation.and(one, two, three).isEmpty());
+    assertEquals(0, ParallelAggregation.andCardinality(one, two, three));
+  }
+
+  @Test
+  public void wideAND() {
+    RoaringBitmap[] input =
+        IntStream.range(0, 200)
+            .mapToObj(
+                i ->
+                    testCase()
+                        .withRange(0, 1 << 16)
+                        .withBitmapAt(1)
+                        .withRunAt(2)
+                        .withRange(3 << 16, 4 << 16)
+                        .withBitmapAt((1 << 15) | 1)
+                        .build())
+            .toArray(RoaringBitmap[]::new);
+    RoaringBitmap expected = FastAggregation.and(input);
+    assertEquals(expected, ParallelAggregation.and(input));
+    assertEquals(expected, ParallelAggregation.and(POOL, input));
+    assertEquals(expected, ParallelAggregation.and(NO_PARALLELISM_AVAILABLE, input));
+    assertEquals(expected.getCardinality(), ParallelAggregation.andCardinality(input));
+    assertEquals(expected.getCardinality(), ParallelAggregation.andCardinality(POOL, input));
+  }
+
+  @Test
+  public void andCardinality() {
+    RoaringBitmap one = testCase().withRunAt(0).withArrayAt(1).withBitmapAt(2).build();
+    RoaringBitmap two = testCase().withBitmapAt(0).withRunAt(1).withBitmapAt(2).build();
+    RoaringBitmap three = testCase().withArrayAt(0).withBitmapAt(1).withRunAt(2).build();
+    assertEquals(
+        FastAggregation.andCardinality(one, two), ParallelAggregation.andCardinality(one, two));
+    assertEquals(
+        FastAggregation.andCardinality(one, two, three),
+        ParallelAggregation.andCardinality(one, two, three));
+  }
+
+  @Test
+  public void andNot() {
+    RoaringBitmap base =
+        testCase().withRunAt(0).withArrayAt(1).withBitmapAt(2).withRange(3 << 16, 4 << 16).build();
+    RoaringBitmap one = testCase().withBitmapAt(0).withRunAt(1).build();
+    RoaringBitmap two =
+        testCase().withArrayAt(0).withBitmapAt(2).withRange(3 << 16, 4 << 16).build();
+    RoaringBitmap three = testCase().withRunAt(2).withArrayAt(5).build();
+    RoaringBitmap expected = RoaringBitmap.andNot(base, FastAggregation.or(one, two, three));
+    assertEquals(expected, ParallelAggregation.andNot(base, one, two, three));
+    assertEquals(expected, ParallelAggregation.andNot(POOL, base, one, two, three));
+    assertEquals(base, ParallelAggregation.andNot(base));
+  }
+
+  @Test
+  public void andNotDoesNotModifyInputs() {
+    RoaringBitmap base = testCase().withRunAt(0).withArrayAt(1).withBitmapAt(2).build();
+    RoaringBitmap copy = base.clone();
+    RoaringBitmap subtrahend = testCase().withBitmapAt(3).build();
+    RoaringBitmap result = ParallelAggregation.andNot(base, subtrahend);
+    assertEquals(copy, result);
+    result.add(0, 1 << 16);
+    assertEquals(copy, base);
+  }
+
+  @Test
+  public void wideAND_Buffer() {
+    ImmutableRoaringBitmap[] input =
+        IntStream.range(0, 200)
+            .mapToObj(
+                i ->
+                    testCase()
+                        .withRange(0, 1 << 16)
+                        .withBitmapAt(1)
+                        .withRunAt(2)
+                        .withRange(3 << 16, 4 << 16)
+                        .withBitmapAt((1 << 15) | 1)
+                        .build()
+                        .toMutableRoaringBitmap())
+            .toArray(ImmutableRoaringBitmap[]::new);
+    MutableRoaringBitmap expected = BufferFastAggregation.and(input);
+    assertEquals(expected, BufferParallelAggregation.and(input));
+    assertEquals(expected, BufferParallelAggregation.and(POOL, input));
+    assertEquals(expected.getCardinality(), BufferParallelAggregation.andCardinality(input));
+    assertEquals(
+        expected.getCardinality(), BufferParallelAggregation.andCardinality(POOL, input));
+  }
+
+  @Test
+  public void mappedAND_Buffer() {
+    ImmutableRoaringBitmap one =
+        map(testCase().withRunAt(0).withArrayAt(1).withBitmapAt(2).build());
+    ImmutableRoaringBitmap two =
+        map(testCase().withBitmapAt(0).withRunAt(1).withBitmapAt(2).build());
+    ImmutableRoaringBitmap three =
+        map(testCase().withArrayAt(0).withBitmapAt(1).withRunAt(2).build());
+    assertEquals(
+        BufferFastAggregation.and(one, two, three), BufferParallelAggregation.and(one, two, three));
+    assertEquals(
+        BufferFastAggregation.andCardinality(one, two, three),
+        BufferParallelAggregation.andCardinality(one, two, three));
+  }
+
+  @Test
+  public void andNot_Buffer() {
+    ImmutableRoaringBitmap base =
+        map(testCase().withRunAt(0).withArrayAt(1).withBitmapAt(2).build());
+    ImmutableRoaringBitmap one = map(testCase().withBitmapAt(0).withRunAt(1).build());
+    ImmutableRoaringBitmap two =
+        testCase().withArrayAt(0).withBitmapAt(2).build().toMutableRoaringBitmap();
+    MutableRoaringBitmap expected =
+        ImmutableRoaringBitmap.andNot(base, BufferFastAggregation.or(one, two));
+    assertEquals(expected, BufferParallelAggregation.andNot(base, one, two));
+    assertEquals(expected, BufferParallelAggregation.andNot(POOL, base, one, two));
+  }
+
+  private static ImmutableRoaringBitmap map(RoaringBitmap bitmap) {
+    ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+    bitmap.serialize(buffer);
+    buffer.flip();
+    return new ImmutableRoaringBitmap(buffer);
+  }
 }
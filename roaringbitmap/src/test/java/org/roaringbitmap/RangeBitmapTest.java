@@ -2,8 +2,10 @@ package org.roaringbitmap;
 
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.roaringbitmap.RangeBitmapTest.Distribution.EXP;
 import static org.roaringbitmap.RangeBitmapTest.Distribution.NORMAL;
@@ -23,11 +25,17 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.DoubleToLongFunction;
@@ -1540,4 +1548,230 @@ public class RangeBitmapTest {
           "sliceCount=" + sliceCount);
     }
   }
+
+  @Test
+  public void testMergePartitions() {
+    SplittableRandom random = new SplittableRandom(0);
+    long[] values = random.longs(0x30000 + 1234, 0, 100_000).toArray();
+    RangeBitmap.Appender whole = RangeBitmap.appender(100_000);
+    Arrays.stream(values).forEach(whole::add);
+    ByteBuffer expected = ByteBuffer.allocate(whole.serializedSizeInBytes()).order(LITTLE_ENDIAN);
+    whole.serialize(expected);
+    int[] boundaries = {0, 0x10000, 0x10000, 0x30000, values.length};
+    List<RangeBitmap.Appender> partitions = new ArrayList<>();
+    for (int i = 0; i + 1 < boundaries.length; ++i) {
+      RangeBitmap.Appender partition = RangeBitmap.appender(100_000);
+      Arrays.stream(values, boundaries[i], boundaries[i + 1]).forEach(partition::add);
+      partitions.add(partition);
+    }
+    RangeBitmap merged = RangeBitmap.merge(partitions);
+    RangeBitmap built = whole.build();
+    assertEquals(built.lte(50_000), merged.lte(50_000));
+    assertEquals(built.between(1000, 2000), merged.between(1000, 2000));
+    ByteBuffer actual = ByteBuffer.allocate(expected.capacity()).order(LITTLE_ENDIAN);
+    RangeBitmap.merge(partitions, capacity -> actual);
+    assertEquals(expected.flip(), actual);
+  }
+
+  @Test
+  public void testMergeRejectsInvalidPartitions() {
+    RangeBitmap.Appender unaligned = RangeBitmap.appender(10);
+    unaligned.add(1);
+    RangeBitmap.Appender last = RangeBitmap.appender(10);
+    last.add(2);
+    assertThrows(
+        IllegalArgumentException.class, () -> RangeBitmap.merge(Arrays.asList(unaligned, last)));
+    RangeBitmap.Appender wider = RangeBitmap.appender(1000);
+    assertThrows(
+        IllegalArgumentException.class, () -> RangeBitmap.merge(Arrays.asList(last, wider)));
+    assertThrows(
+        IllegalArgumentException.class, () -> RangeBitmap.merge(Collections.emptyList()));
+  }
+
+  @Test
+  public void testParallelBuildAndQueries() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int size : new int[] {0, 0xFFFF, 0x10001, 0x110001, 3_000_000}) {
+        SplittableRandom random = new SplittableRandom(size);
+        long[] values = random.longs(size, 0, 1_000_000).toArray();
+        RangeBitmap.Appender appender = RangeBitmap.appender(1_000_000);
+        Arrays.stream(values).forEach(appender::add);
+        RangeBitmap serial = appender.build();
+        RangeBitmap parallel = RangeBitmap.build(1_000_000, size, i -> values[i], executor);
+        assertEquals(serial.lte(1_000_000), parallel.lte(1_000_000, executor));
+        for (long threshold : new long[] {0, 1, 1000, 123_456, 500_000, 999_999, 2_000_000}) {
+          assertAll(
+              () -> assertEquals(serial.lte(threshold), parallel.lte(threshold, executor)),
+              () -> assertEquals(serial.lt(threshold), parallel.lt(threshold, executor)),
+              () -> assertEquals(serial.gt(threshold), parallel.gt(threshold, executor)),
+              () -> assertEquals(serial.gte(threshold), parallel.gte(threshold, executor)),
+              () ->
+                  assertEquals(
+                      serial.lteCardinality(threshold),
+                      parallel.lteCardinality(threshold, executor)),
+              () ->
+                  assertEquals(
+                      serial.ltCardinality(threshold),
+                      parallel.ltCardinality(threshold, executor)),
+              () ->
+                  assertEquals(
+                      serial.gtCardinality(threshold),
+                      parallel.gtCardinality(threshold, executor)),
+              () ->
+                  assertEquals(
+                      serial.gteCardinality(threshold),
+                      parallel.gteCardinality(threshold, executor)),
+              () ->
+                  assertEquals(
+                      serial.between(threshold, threshold + 100_000),
+                      parallel.between(threshold, threshold + 100_000, executor)),
+              () ->
+                  assertEquals(
+                      serial.betweenCardinality(threshold, threshold + 100_000),
+                      parallel.betweenCardinality(threshold, threshold + 100_000, executor)));
+        }
+      }
+      assertThrows(
+          IllegalArgumentException.class, () -> RangeBitmap.build(10, 100, i -> 16, executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static RoaringBitmap referenceSelectK(
+      long[] values, RoaringBitmap context, int k, boolean top) {
+    return RoaringBitmap.bitmapOf(
+        context.stream()
+            .filter(row -> row < values.length)
+            .boxed()
+            .sorted(
+                (left, right) -> {
+                  int comparison = Long.compare(values[left], values[right]);
+                  return comparison != 0 ? (top ? -comparison : comparison) : left - right;
+                })
+            .limit(k)
+            .mapToInt(Integer::intValue)
+            .toArray());
+  }
+
+  private static long referenceQuantile(long[] values, RoaringBitmap context, double q) {
+    long[] sorted =
+        context.stream().filter(row -> row < values.length).mapToLong(row -> values[row]).toArray();
+    Arrays.sort(sorted);
+    return sorted[(int) Math.floor(q * (sorted.length - 1))];
+  }
+
+  @Test
+  public void testTopKBottomKAndQuantiles() {
+    SplittableRandom random = new SplittableRandom(0);
+    for (long maxValue : new long[] {1, 10, 1000, 1L << 40}) {
+      long[] values = random.longs(200_000, 0, maxValue + 1).toArray();
+      RangeBitmap.Appender appender = RangeBitmap.appender(maxValue);
+      Arrays.stream(values).forEach(appender::add);
+      RangeBitmap bitmap = appender.build();
+      RoaringBitmap all = RoaringBitmap.bitmapOfRange(0, values.length);
+      RoaringBitmap context = new RoaringBitmap();
+      random.ints(20_000, 0, values.length + 1000).forEach(context::add);
+      context.add(0x20000L, 0x28000L);
+      for (int k : new int[] {0, 1, 10, 1000, 25_000}) {
+        assertEquals(referenceSelectK(values, all, k, true), bitmap.topK(k));
+        assertEquals(referenceSelectK(values, all, k, false), bitmap.bottomK(k));
+        assertEquals(referenceSelectK(values, context, k, true), bitmap.topK(k, context));
+        assertEquals(referenceSelectK(values, context, k, false), bitmap.bottomK(k, context));
+      }
+      for (double q : new double[] {0, 0.01, 0.25, 0.5, 0.9, 0.999, 1}) {
+        assertEquals(referenceQuantile(values, all, q), bitmap.quantile(q), "q=" + q);
+        assertEquals(referenceQuantile(values, context, q), bitmap.quantile(q, context), "q=" + q);
+      }
+      assertEquals(referenceQuantile(values, all, 0.5), bitmap.median());
+      assertEquals(referenceQuantile(values, context, 0.5), bitmap.median(context));
+    }
+  }
+
+  @Test
+  public void testTopKEdgeCases() {
+    RangeBitmap.Appender appender = RangeBitmap.appender(100);
+    LongStream.of(5, 7, 7, 3).forEach(appender::add);
+    RangeBitmap bitmap = appender.build();
+    assertEquals(RoaringBitmap.bitmapOf(1, 2), bitmap.topK(2));
+    assertEquals(RoaringBitmap.bitmapOf(0, 3), bitmap.bottomK(2));
+    assertEquals(RoaringBitmap.bitmapOfRange(0, 4), bitmap.topK(10));
+    assertEquals(RoaringBitmap.bitmapOf(3), bitmap.topK(10, RoaringBitmap.bitmapOf(3, 100)));
+    assertEquals(new RoaringBitmap(), bitmap.bottomK(1, new RoaringBitmap()));
+    assertEquals(5, bitmap.median());
+    assertEquals(7, bitmap.quantile(1));
+    assertEquals(3, bitmap.median(RoaringBitmap.bitmapOf(3, 100)));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.topK(-1));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.quantile(1.5));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.quantile(Double.NaN));
+    assertThrows(NoSuchElementException.class, () -> bitmap.median(RoaringBitmap.bitmapOf(100)));
+  }
+
+  @Test
+  public void testAggregations() {
+    SplittableRandom random = new SplittableRandom(1);
+    for (long maxValue : new long[] {1, 1000, 1L << 40, -1L}) {
+      long[] values =
+          maxValue == -1L
+              ? random.longs(150_000).toArray()
+              : random.longs(150_000, 0, maxValue + 1).toArray();
+      RangeBitmap.Appender appender = RangeBitmap.appender(maxValue);
+      Arrays.stream(values).forEach(appender::add);
+      RangeBitmap bitmap = appender.build();
+      RoaringBitmap context = new RoaringBitmap();
+      random.ints(10_000, 0, values.length + 1000).forEach(context::add);
+      for (RoaringBitmap rows :
+          new RoaringBitmap[] {RoaringBitmap.bitmapOfRange(0, values.length), context}) {
+        long[] selected =
+            rows.stream().filter(row -> row < values.length).mapToLong(i -> values[i]).toArray();
+        assertEquals(LongStream.of(selected).sum(), bitmap.sum(rows));
+        assertEquals(
+            LongStream.of(selected)
+                .reduce((l, r) -> Long.compareUnsigned(l, r) < 0 ? l : r)
+                .getAsLong(),
+            bitmap.min(rows));
+        assertEquals(
+            LongStream.of(selected)
+                .reduce((l, r) -> Long.compareUnsigned(l, r) > 0 ? l : r)
+                .getAsLong(),
+            bitmap.max(rows));
+        long[] boundaries =
+            maxValue == -1L
+                ? new long[] {0, 1, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE, -1L}
+                : LongStream.of(0, 1, maxValue / 3, maxValue / 3, maxValue).sorted().toArray();
+        long[] expected = new long[boundaries.length + 1];
+        for (long value : selected) {
+          int bucket = 0;
+          while (bucket < boundaries.length
+              && Long.compareUnsigned(value, boundaries[bucket]) >= 0) {
+            bucket++;
+          }
+          expected[bucket]++;
+        }
+        assertArrayEquals(expected, bitmap.histogram(boundaries, rows));
+      }
+      assertEquals(LongStream.of(values).sum(), bitmap.sum());
+      assertEquals(bitmap.min(RoaringBitmap.bitmapOfRange(0, values.length)), bitmap.min());
+      assertEquals(bitmap.max(RoaringBitmap.bitmapOfRange(0, values.length)), bitmap.max());
+    }
+  }
+
+  @Test
+  public void testAggregationsEdgeCases() {
+    RangeBitmap.Appender appender = RangeBitmap.appender(100);
+    LongStream.of(5, 7, 7, 3).forEach(appender::add);
+    RangeBitmap bitmap = appender.build();
+    assertEquals(22, bitmap.sum());
+    assertEquals(3, bitmap.min());
+    assertEquals(7, bitmap.max());
+    assertArrayEquals(new long[] {4}, bitmap.histogram(new long[0]));
+    assertArrayEquals(new long[] {1, 1, 2, 0}, bitmap.histogram(new long[] {4, 6, 8}));
+    assertEquals(0, bitmap.sum(RoaringBitmap.bitmapOf(100)));
+    assertArrayEquals(
+        new long[] {0, 0}, bitmap.histogram(new long[] {4}, RoaringBitmap.bitmapOf(100)));
+    assertThrows(NoSuchElementException.class, () -> bitmap.min(new RoaringBitmap()));
+    assertThrows(NoSuchElementException.class, () -> RangeBitmap.appender(10).build().max());
+    assertThrows(IllegalArgumentException.class, () -> bitmap.histogram(new long[] {2, 1}));
+  }
 }
@@ -0,0 +1,188 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.AdaptiveContainerPolicy.Decision;
+import org.roaringbitmap.AdaptiveContainerPolicy.Operation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TestAdaptiveRoaringBitmap {
+
+  // a container of 100 runs of 100 values for each key
+  private static AdaptiveRoaringBitmap runs(AdaptiveContainerPolicy policy, int... keys) {
+    AdaptiveRoaringBitmap bitmap = new AdaptiveRoaringBitmap(policy);
+    for (int key : keys) {
+      for (int run = 0; run < 100; ++run) {
+        long start = (long) key << 16 | run * 200L;
+        bitmap.add(start, start + 100);
+      }
+    }
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  private static ContainerType type(RoaringBitmap bitmap, int key) {
+    RoaringArray highLowContainer = bitmap.highLowContainer;
+    int index = highLowContainer.getIndex((char) key);
+    return ContainerType.of(highLowContainer.getContainerAtIndex(index));
+  }
+
+  @Test
+  public void testHotRunContainersAreDecoded() throws IOException {
+    AdaptiveRoaringBitmap bitmap = runs(new AdaptiveContainerPolicy(1 << 20, 10), 0, 1, 2);
+    RoaringBitmap expected = new RoaringBitmap();
+    expected.or(bitmap);
+    for (int i = 0; i < 20; ++i) {
+      assertTrue(bitmap.contains(i));
+    }
+    bitmap.and(RoaringBitmap.bitmapOfRange(1 << 16, 3 << 16));
+    expected.and(RoaringBitmap.bitmapOfRange(1 << 16, 3 << 16));
+    for (int i = 0; i < 20; ++i) {
+      bitmap.or(RoaringBitmap.bitmapOf(1 << 16));
+    }
+    assertEquals(0, bitmap.getAdaptationCount());
+    assertEquals(20, bitmap.getAccesses((char) 0, Operation.CONTAINS));
+    assertEquals(1, bitmap.getAccesses((char) 1, Operation.AND));
+    assertEquals(20, bitmap.getAccesses((char) 1, Operation.OR));
+    assertEquals(0, bitmap.getAccesses((char) 2, Operation.OR));
+    assertEquals(22, bitmap.getAccesses(Operation.OR) + bitmap.getAccesses(Operation.AND));
+
+    List<Decision> decisions = bitmap.adapt();
+    assertEquals(1, decisions.size());
+    Decision decision = decisions.get(0);
+    assertEquals(1, decision.getKey());
+    assertEquals(ContainerType.RUN, decision.getFrom());
+    assertEquals(ContainerType.BITMAP, decision.getTo());
+    assertEquals(21, decision.getAccesses());
+    assertEquals(8192 - (2 + 4 * 100), decision.getSizeChange());
+    assertEquals(decisions, bitmap.getLastDecisions());
+    assertEquals(ContainerType.BITMAP, type(bitmap, 1));
+    assertEquals(ContainerType.RUN, type(bitmap, 2));
+    assertEquals(1, bitmap.getDecodedContainerCount());
+    assertEquals(decision.getSizeChange(), bitmap.getExtraBytes());
+    // the counts are halved
+    assertEquals(10, bitmap.getAccesses((char) 1, Operation.OR));
+
+    // the values and the serialized form do not depend on the accesses
+    assertEquals(expected, bitmap);
+    assertEquals(bitmap, expected);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bitmap.serialize(new DataOutputStream(bytes));
+    RoaringBitmap deserialized = new RoaringBitmap();
+    deserialized.deserialize(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(expected, deserialized);
+    assertEquals(bitmap.serializedSizeInBytes(), bytes.size());
+
+    // once the container is not accessed anymore, it is encoded as runs again
+    bitmap.adapt();
+    assertEquals(ContainerType.BITMAP, type(bitmap, 1));
+    decisions = bitmap.adapt();
+    assertEquals(1, decisions.size());
+    assertEquals(ContainerType.BITMAP, decisions.get(0).getFrom());
+    assertEquals(ContainerType.RUN, decisions.get(0).getTo());
+    assertEquals(-(8192 - (2 + 4 * 100)), decisions.get(0).getSizeChange());
+    assertEquals(ContainerType.RUN, type(bitmap, 1));
+    assertEquals(0, bitmap.getDecodedContainerCount());
+    assertEquals(0, bitmap.getExtraBytes());
+    assertEquals(3, bitmap.getAdaptationCount());
+    assertEquals(expected, bitmap);
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    int extra = 8192 - (2 + 4 * 100);
+    AdaptiveRoaringBitmap bitmap = runs(new AdaptiveContainerPolicy(extra, 1), 0, 1, 2, 3);
+    for (int i = 0; i < 20; ++i) {
+      bitmap.contains(1 << 16);
+      bitmap.contains(2 << 16);
+      bitmap.contains(3 << 16);
+    }
+    bitmap.contains(2 << 16);
+    bitmap.contains(0);
+    // and iterations cool the containers down
+    for (int i = 0; i < 11; ++i) {
+      bitmap.forEach((IntConsumer) x -> {});
+    }
+    bitmap.getIntIterator();
+    bitmap.iterator();
+    bitmap.getBatchIterator();
+    assertEquals(4 * 14, bitmap.getAccesses(Operation.ITERATION));
+    // only the hottest container fits in the budget
+    List<Decision> decisions = bitmap.adapt();
+    assertEquals(1, decisions.size());
+    assertEquals(2, decisions.get(0).getKey());
+    assertEquals(extra, bitmap.getExtraBytes());
+    assertEquals(ContainerType.RUN, type(bitmap, 0));
+    assertEquals(ContainerType.RUN, type(bitmap, 1));
+    assertEquals(ContainerType.BITMAP, type(bitmap, 2));
+    assertEquals(ContainerType.RUN, type(bitmap, 3));
+  }
+
+  @Test
+  public void testOnlyAdaptReencodes() throws CloneNotSupportedException {
+    AdaptiveRoaringBitmap bitmap = runs(new AdaptiveContainerPolicy(1 << 20, 50), 0, 1);
+    // a container with few runs is not worth decoding
+    bitmap.add(5 << 16, 6 << 16);
+    Set<RoaringBitmap> keys = new HashSet<>();
+    keys.add(bitmap);
+    int hashCode = bitmap.hashCode();
+    for (int i = 0; i < 1000; ++i) {
+      bitmap.contains(0);
+      bitmap.contains(5 << 16);
+    }
+    bitmap.forEach((IntConsumer) x -> {});
+    bitmap.getIntIterator();
+    // the reads never change the encodings, nor the hash code
+    assertEquals(0, bitmap.getAdaptationCount());
+    assertEquals(ContainerType.RUN, type(bitmap, 0));
+    assertEquals(ContainerType.RUN, type(bitmap, 1));
+    assertEquals(hashCode, bitmap.hashCode());
+    assertTrue(keys.contains(bitmap));
+
+    bitmap.adapt();
+    assertEquals(1, bitmap.getAdaptationCount());
+    assertEquals(ContainerType.BITMAP, type(bitmap, 0));
+    assertEquals(ContainerType.RUN, type(bitmap, 1));
+    assertEquals(ContainerType.RUN, type(bitmap, 5));
+
+    // the bitmap stays consistent with a RoaringBitmap with the same encodings
+    RoaringBitmap same = new RoaringBitmap(bitmap.highLowContainer.clone());
+    assertEquals(same, bitmap);
+    assertEquals(bitmap, same);
+    assertEquals(same.hashCode(), bitmap.hashCode());
+
+    // the copies are independent
+    AdaptiveRoaringBitmap copy = bitmap.clone();
+    hashCode = copy.hashCode();
+    for (int i = 0; i < 100; ++i) {
+      bitmap.contains(1 << 16);
+    }
+    assertEquals(1, bitmap.getAdaptationCount());
+    bitmap.adapt();
+    assertEquals(2, bitmap.getAdaptationCount());
+    assertEquals(ContainerType.BITMAP, type(bitmap, 1));
+    assertEquals(ContainerType.RUN, type(copy, 1));
+    assertEquals(0, copy.getAccesses((char) 1, Operation.CONTAINS));
+    assertEquals(1, copy.getDecodedContainerCount());
+    assertEquals(hashCode, copy.hashCode());
+    assertEquals(bitmap, copy);
+  }
+
+  @Test
+  public void testInvalidPolicies() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveContainerPolicy(-1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveContainerPolicy(0, 0));
+  }
+}
@@ -973,6 +973,34 @@ public class TestArrayContainer {
     consumer7.assertAllPresent();
   }
 
+  @Test
+  public void testIaddSorted() {
+    ArrayContainer container = new ArrayContainer(new char[] {2, 4, 6, 8});
+    // the high bits are ignored, duplicates and values already in the container are skipped
+    int[] values = {0, 0, 3, (1 << 16) + 4, 9, 9, 10};
+    Container result = container.iaddSorted(values, 1, 6);
+    assertTrue(result == container);
+    assertEquals(new ArrayContainer(new char[] {0, 2, 3, 4, 6, 8, 9}), result);
+    assertTrue(container == container.iaddSorted(values, 3, 4));
+    // grows the content in place
+    container = new ArrayContainer(16);
+    container.iaddSorted(new int[] {5, 7}, 0, 2);
+    assertTrue(container == container.iaddSorted(new int[] {1, 6, 9}, 0, 3));
+    assertEquals(new ArrayContainer(new char[] {1, 5, 6, 7, 9}), container);
+
+    int[] evens = new int[ArrayContainer.DEFAULT_MAX_SIZE];
+    for (int i = 0; i < evens.length; ++i) {
+      evens[i] = 2 * i;
+    }
+    container = new ArrayContainer();
+    assertTrue(container == container.iaddSorted(evens, 0, evens.length));
+    assertEquals(ArrayContainer.DEFAULT_MAX_SIZE, container.getCardinality());
+    Container bitmap = container.iaddSorted(new int[] {1, 2}, 0, 2);
+    assertTrue(bitmap instanceof BitmapContainer);
+    assertEquals(ArrayContainer.DEFAULT_MAX_SIZE + 1, bitmap.getCardinality());
+    assertTrue(bitmap.contains((char) 1));
+  }
+
   private static int lower16Bits(int x) {
     return ((char) x) & 0xFFFF;
   }
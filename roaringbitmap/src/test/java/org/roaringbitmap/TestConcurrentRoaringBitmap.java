@@ -0,0 +1,164 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestConcurrentRoaringBitmap {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 3, 64, 100_000})
+  public void testSingleThreaded(int stripes) {
+    Random random = new Random(stripes);
+    ConcurrentRoaringBitmap bitmap = new ConcurrentRoaringBitmap(stripes);
+    RoaringBitmap expected = new RoaringBitmap();
+    assertTrue(bitmap.isEmpty());
+    for (int i = 0; i < 100_000; ++i) {
+      int x = random.nextInt(1 << 22) - (1 << 21);
+      if (random.nextInt(4) == 0) {
+        assertEquals(expected.checkedRemove(x), bitmap.checkedRemove(x));
+      } else {
+        assertEquals(expected.checkedAdd(x), bitmap.checkedAdd(x));
+      }
+    }
+    int[] values = random.ints(10_000, 0, 1 << 24).sorted().toArray();
+    expected.add(values);
+    bitmap.add(values);
+    bitmap.remove(values[0]);
+    expected.remove(values[0]);
+
+    assertFalse(bitmap.isEmpty());
+    assertEquals(expected.getLongCardinality(), bitmap.getLongCardinality());
+    assertEquals(expected, bitmap.toRoaringBitmap());
+    assertEquals(expected.toMutableRoaringBitmap(), bitmap.snapshot());
+    assertEquals(expected.toString(), bitmap.toString());
+    for (int x : expected) {
+      assertTrue(bitmap.contains(x));
+      assertFalse(bitmap.contains(x ^ (1 << 30)));
+    }
+    List<Integer> iterated = new ArrayList<>();
+    bitmap.iterator().forEachRemaining(iterated::add);
+    assertEquals(expected.getCardinality(), iterated.size());
+    IntIterator it = bitmap.getIntIterator();
+    for (int x : expected) {
+      assertEquals(x, it.next());
+    }
+    assertFalse(it.hasNext());
+
+    assertEquals(expected, ConcurrentRoaringBitmap.of(expected).toRoaringBitmap());
+    bitmap.runOptimize();
+    assertEquals(expected, bitmap.toRoaringBitmap());
+    bitmap.clear();
+    assertTrue(bitmap.isEmpty());
+    assertEquals(new RoaringBitmap(), bitmap.toRoaringBitmap());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new ConcurrentRoaringBitmap(0));
+    ConcurrentRoaringBitmap bitmap = new ConcurrentRoaringBitmap();
+    assertThrows(IllegalArgumentException.class, () -> bitmap.addN(new int[2], 1, 2));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.addN(new int[2], -1, 1));
+  }
+
+  @Test
+  public void testConcurrentWriters() throws Exception {
+    int threads = 4;
+    ConcurrentRoaringBitmap bitmap = new ConcurrentRoaringBitmap(8);
+    RoaringBitmap expected = new RoaringBitmap();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; ++t) {
+        // the threads write interleaved values of the same containers
+        int[] values = new int[200_000];
+        for (int i = 0; i < values.length; ++i) {
+          values[i] = i * threads * 3 + t;
+        }
+        expected.add(values);
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int i = 0; i < values.length; ++i) {
+                    bitmap.add(values[i]);
+                    // and remove some of the values of the other threads, which are never added
+                    bitmap.remove(values[i] + threads);
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(expected, bitmap.toRoaringBitmap());
+  }
+
+  @Test
+  public void testSnapshotsAreConsistent() throws Exception {
+    int count = 1 << 21;
+    ConcurrentRoaringBitmap bitmap = new ConcurrentRoaringBitmap(16);
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      // a single writer adds the values in increasing order, over many containers
+      Future<?> writer =
+          pool.submit(
+              () -> {
+                for (int x = 0; x < count; ++x) {
+                  bitmap.add(x);
+                }
+                done.set(true);
+              });
+      // so that a consistent snapshot always holds all the values below its largest value
+      Future<?> snapshots =
+          pool.submit(
+              () -> {
+                while (!done.get()) {
+                  ImmutableRoaringBitmap snapshot = bitmap.snapshot();
+                  if (!snapshot.isEmpty()) {
+                    assertEquals(snapshot.last() + 1, snapshot.getLongCardinality());
+                  }
+                }
+              });
+      // and a value seen by contains stays visible
+      Future<?> readers =
+          pool.submit(
+              () -> {
+                Random random = new Random(0);
+                while (!done.get()) {
+                  int x = random.nextInt(count);
+                  if (bitmap.contains(x)) {
+                    assertTrue(bitmap.contains(x));
+                    assertTrue(bitmap.contains(x / 2));
+                  }
+                }
+              });
+      writer.get();
+      snapshots.get();
+      readers.get();
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(count, bitmap.getLongCardinality());
+    assertArrayEquals(
+        RoaringBitmap.bitmapOfRange(0, count).toArray(), bitmap.toRoaringBitmap().toArray());
+  }
+}
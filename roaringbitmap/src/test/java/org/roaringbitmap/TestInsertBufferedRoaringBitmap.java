@@ -0,0 +1,122 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TestInsertBufferedRoaringBitmap {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7, 1000, 8192, 100_000})
+  public void testRandomInsertions(int bufferSize) {
+    Random random = new Random(bufferSize);
+    InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap(bufferSize);
+    RoaringBitmap expected = new RoaringBitmap();
+    assertTrue(bitmap.isEmpty());
+    for (int i = 0; i < 200_000; ++i) {
+      // sparse and dense containers, with duplicates, over the whole range of the values
+      int x =
+          random.nextBoolean()
+              ? random.nextInt(1 << 18)
+              : random.nextInt(1 << 22) - (1 << 21) + random.nextInt(16) * (1 << 28);
+      bitmap.add(x);
+      expected.add(x);
+      if (random.nextInt(10_000) == 0) {
+        assertEquals(expected, bitmap.getBitmap());
+      }
+    }
+    int[] values = random.ints(50_000).toArray();
+    bitmap.add(values);
+    expected.add(values);
+    bitmap.addN(values, 100, 1000);
+    assertFalse(bitmap.isEmpty());
+    for (int i = 0; i < 1000; ++i) {
+      int x = random.nextInt(1 << 18);
+      assertEquals(expected.contains(x), bitmap.contains(x));
+    }
+    assertEquals(expected.getLongCardinality(), bitmap.getLongCardinality());
+    assertEquals(expected.getCardinality(), bitmap.getCardinality());
+    assertEquals(expected, bitmap.getBitmap());
+    assertEquals(expected.toString(), bitmap.toString());
+    bitmap.runOptimize();
+    assertEquals(expected, bitmap.getBitmap());
+    bitmap.clear();
+    assertTrue(bitmap.isEmpty());
+  }
+
+  @Test
+  public void testBufferedValuesAreVisible() {
+    RoaringBitmap target = RoaringBitmap.bitmapOf(1, 1 << 20);
+    InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap(target, 1 << 10);
+    bitmap.add(5, 3, 1 << 20, -1);
+    assertTrue(bitmap.contains(1));
+    assertTrue(bitmap.contains(-1));
+    assertFalse(bitmap.contains(4));
+    bitmap.add(4);
+    assertFalse(bitmap.isEmpty());
+    assertTrue(bitmap.contains(4));
+
+    bitmap.add(6);
+    List<Integer> iterated = new ArrayList<>();
+    bitmap.iterator().forEachRemaining(iterated::add);
+    assertEquals(7, iterated.size());
+    bitmap.add(7);
+    IntIterator it = bitmap.getIntIterator();
+    for (int x : new int[] {1, 3, 4, 5, 6, 7, 1 << 20, -1}) {
+      assertEquals(x, it.next());
+    }
+    assertFalse(it.hasNext());
+    bitmap.add(8);
+    RoaringBitmap visited = new RoaringBitmap();
+    bitmap.forEach((IntConsumer) visited::add);
+    assertEquals(RoaringBitmap.bitmapOf(1, 3, 4, 5, 6, 7, 8, 1 << 20, -1), visited);
+
+    bitmap.add(9);
+    bitmap.remove(9);
+    assertFalse(bitmap.contains(9));
+    assertEquals(9, target.getCardinality());
+  }
+
+  @Test
+  public void testDenseBuffer() {
+    InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap(1 << 16);
+    RoaringBitmap expected = new RoaringBitmap();
+    Random random = new Random(0);
+    // fills the containers past the size of an array container, in a single merge or over several
+    for (int i = 0; i < 1 << 17; ++i) {
+      int x = random.nextInt(3 << 16);
+      bitmap.add(x);
+      expected.add(x);
+    }
+    bitmap.add(1 << 16, 3 << 16, 5);
+    expected.add(1 << 16, 3 << 16, 5);
+    bitmap.flush();
+    bitmap.flush();
+    assertEquals(expected, bitmap.getBitmap());
+    // duplicates only, more of them than an array container can hold
+    InsertBufferedRoaringBitmap duplicates = new InsertBufferedRoaringBitmap(10_000);
+    for (int i = 0; i < 10_000; ++i) {
+      duplicates.add(i % 10);
+    }
+    assertEquals(RoaringBitmap.bitmapOfRange(0, 10), duplicates.getBitmap());
+    Container container = duplicates.getBitmap().getContainerPointer().getContainer();
+    assertTrue(container instanceof ArrayContainer);
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new InsertBufferedRoaringBitmap(0));
+    InsertBufferedRoaringBitmap bitmap = new InsertBufferedRoaringBitmap();
+    assertThrows(IllegalArgumentException.class, () -> bitmap.addN(new int[2], 1, 2));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.addN(new int[2], -1, 1));
+  }
+}
@@ -0,0 +1,178 @@
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestPersistentRoaringBitmap {
+
+  private static void assertSameValues(RoaringBitmap expected, PersistentRoaringBitmap actual) {
+    assertEquals(expected, actual.toRoaringBitmap());
+    assertEquals(expected.getLongCardinality(), actual.getLongCardinality());
+    assertEquals(expected.isEmpty(), actual.isEmpty());
+    RoaringBitmap visited = new RoaringBitmap();
+    actual.forEach((IntConsumer) visited::add);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  public void testVersionsAreIndependent() {
+    Random random = new Random(0);
+    List<RoaringBitmap> expected = new ArrayList<>();
+    List<PersistentRoaringBitmap> versions = new ArrayList<>();
+    RoaringBitmap bitmap = new RoaringBitmap();
+    PersistentRoaringBitmap version = PersistentRoaringBitmap.empty();
+    for (int i = 0; i < 200; ++i) {
+      int x = random.nextInt(1 << 26) - (1 << 25);
+      switch (random.nextInt(6)) {
+        case 0:
+          bitmap.remove(x);
+          version = version.remove(x);
+          break;
+        case 1:
+          int[] values = random.ints(100, x, x + (1 << 18)).toArray();
+          bitmap.andNot(RoaringBitmap.bitmapOf(values));
+          version = version.remove(values);
+          break;
+        case 2:
+          long start = Integer.toUnsignedLong(x);
+          RoaringBitmap range = RoaringBitmap.bitmapOfRange(start, start + 1000);
+          bitmap.andNot(range);
+          version = version.andNot(range);
+          break;
+        case 3:
+          start = Integer.toUnsignedLong(x);
+          RoaringBitmap dense = RoaringBitmap.bitmapOfRange(start, start + 5000);
+          bitmap.or(dense);
+          version = version.or(dense);
+          break;
+        case 4:
+          values = random.ints(1000, x, x + (1 << 18)).toArray();
+          bitmap.add(values);
+          version = version.add(values);
+          break;
+        default:
+          bitmap.add(x);
+          version = version.add(x);
+          break;
+      }
+      expected.add(bitmap.clone());
+      versions.add(version);
+    }
+    for (int i = 0; i < versions.size(); ++i) {
+      assertSameValues(expected.get(i), versions.get(i));
+    }
+    RoaringBitmap other = RoaringBitmap.bitmapOfRange(0, 1L << 32);
+    other.andNot(RoaringBitmap.bitmapOfRange(1000, 1 << 20));
+    assertEquals(RoaringBitmap.and(bitmap, other), version.and(other));
+    assertEquals(RoaringBitmap.andCardinality(bitmap, other), version.andCardinality(other));
+    assertEquals(bitmap, PersistentRoaringBitmap.of(bitmap).toRoaringBitmap());
+    bitmap.forEach((IntConsumer) x -> assertTrue(versions.get(versions.size() - 1).contains(x)));
+  }
+
+  @Test
+  public void testUpdatesShareUnchangedContainers() {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int key = 0; key < 1000; ++key) {
+      bitmap.add(key << 16, (key << 16) + 1 + key);
+    }
+    PersistentRoaringBitmap v1 = PersistentRoaringBitmap.of(bitmap);
+    bitmap.add(3);
+    // the version does not share containers with the bitmap it was built from
+    assertFalse(v1.contains(3));
+
+    PersistentRoaringBitmap v2 = v1.add(3);
+    PersistentRoaringBitmap v3 = v2.remove(999 << 16);
+    assertTrue(v2.contains(3));
+    assertFalse(v1.contains(3));
+    assertTrue(v2.contains(999 << 16));
+    assertFalse(v3.contains(999 << 16));
+    assertNotSame(v1.getContainer((char) 0), v2.getContainer((char) 0));
+    assertNull(PersistentRoaringBitmap.empty().remove(999 << 16).getContainer((char) 999));
+    for (int key = 1; key < 1000; ++key) {
+      assertSame(v1.getContainer((char) key), v2.getContainer((char) key));
+    }
+    for (int key = 0; key < 999; ++key) {
+      assertSame(v2.getContainer((char) key), v3.getContainer((char) key));
+    }
+    assertSame(v3, v3.add(3));
+    assertSame(v3, v3.remove(4));
+    assertSame(v3, v3.or(RoaringBitmap.bitmapOf(3, 1 << 16)));
+    assertSame(v3, v3.andNot(RoaringBitmap.bitmapOf(4, (5 << 16) + 100)));
+    assertEquals(
+        RoaringBitmap.bitmapOf(1, 2), PersistentRoaringBitmap.bitmapOf(1, 2).toRoaringBitmap());
+
+    // emptied containers are dropped
+    PersistentRoaringBitmap v4 = v3.andNot(RoaringBitmap.bitmapOfRange(0, 1L << 32));
+    assertTrue(v4.isEmpty());
+    assertNull(v4.getContainer((char) 5));
+    assertEquals(new RoaringBitmap(), v4.toRoaringBitmap());
+  }
+
+  @Test
+  public void testConcurrentPublication() throws Exception {
+    int writers = 3;
+    int count = 1 << 16;
+    AtomicRoaringBitmap filter = new AtomicRoaringBitmap();
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+    try {
+      Future<?> reader =
+          pool.submit(
+              () -> {
+                long cardinality = 0;
+                while (!done.get()) {
+                  PersistentRoaringBitmap version = filter.get();
+                  // values are only added: versions grow
+                  assertTrue(version.getLongCardinality() >= cardinality);
+                  cardinality = version.getLongCardinality();
+                  assertEquals(cardinality, version.toRoaringBitmap().getLongCardinality());
+                }
+              });
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < writers; ++t) {
+        int thread = t;
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int x = thread; x < count; x += writers) {
+                    // values spread over many containers, interleaved between the writers
+                    filter.add(x * 37);
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      done.set(true);
+      reader.get();
+    } finally {
+      pool.shutdownNow();
+    }
+    RoaringBitmap expected = new RoaringBitmap();
+    for (int x = 0; x < count; ++x) {
+      expected.add(x * 37);
+    }
+    assertSameValues(expected, filter.get());
+    assertTrue(filter.contains(37));
+    filter.remove(37);
+    assertFalse(filter.contains(37));
+    filter.andNot(expected);
+    assertTrue(filter.get().isEmpty());
+    filter.set(PersistentRoaringBitmap.bitmapOf(5));
+    assertTrue(filter.contains(5));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.NoSuchElementException;
+
+public class TestRoaringBitmapStreamReader {
+
+  private static RoaringBitmap bitmap(boolean runs, int seed) {
+    SeededTestData.TestDataSet builder = SeededTestData.TestDataSet.testCase();
+    for (int key = seed; key < 40 + seed; key += 1 + (key % 3)) {
+      switch (key % 3) {
+        case 0:
+          builder.withArrayAt(key);
+          break;
+        case 1:
+          builder.withBitmapAt(key);
+          break;
+        default:
+          builder.withRunAt(key);
+      }
+    }
+    RoaringBitmap bitmap = builder.build();
+    if (!runs) {
+      bitmap.removeRunCompression();
+    }
+    return bitmap;
+  }
+
+  private static byte[] serialize(RoaringBitmap bitmap) {
+    ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+    bitmap.serialize(buffer);
+    return buffer.array();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void readIntoStorage(boolean runs) throws IOException {
+    RoaringBitmap expected = bitmap(runs, 0);
+    try (RoaringBitmapStreamReader reader =
+        RoaringBitmapStreamReader.buffered(new ByteArrayInputStream(serialize(expected)), 16)) {
+      assertEquals(expected.highLowContainer.size(), reader.getContainerCount());
+      RoaringArray storage = new RoaringArray();
+      reader.readInto(storage);
+      assertFalse(reader.hasNext());
+      assertEquals(expected, new RoaringBitmap(storage));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void containerByContainer(boolean runs) throws IOException {
+    RoaringBitmap expected = bitmap(runs, 1);
+    RoaringBitmapStreamReader reader =
+        RoaringBitmapStreamReader.buffered(
+            Channels.newChannel(new ByteArrayInputStream(serialize(expected))));
+    for (int i = 0; i < expected.highLowContainer.size(); ++i) {
+      assertTrue(reader.hasNext());
+      assertEquals(expected.highLowContainer.getKeyAtIndex(i), reader.peekKey());
+      Container container = expected.highLowContainer.getContainerAtIndex(i);
+      assertEquals(container.getCardinality(), reader.peekCardinality());
+      if (i % 2 == 0) {
+        assertEquals(container, reader.next());
+      } else {
+        reader.skip();
+      }
+    }
+    assertFalse(reader.hasNext());
+    assertThrows(NoSuchElementException.class, reader::next);
+    reader.close();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void orAndInto(boolean runs) throws IOException {
+    RoaringBitmap streamed = bitmap(runs, 2);
+    RoaringBitmap target = bitmap(!runs, 15);
+    RoaringBitmap union = target.clone();
+    RoaringBitmapStreamReader.of(new DataInputStream(new ByteArrayInputStream(serialize(streamed))))
+        .orInto(union);
+    assertEquals(RoaringBitmap.or(target, streamed), union);
+
+    RoaringBitmap intersection = target.clone();
+    RoaringBitmapStreamReader.buffered(new ByteArrayInputStream(serialize(streamed)))
+        .andInto(intersection);
+    assertEquals(RoaringBitmap.and(target, streamed), intersection);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5})
+  public void fewContainers(int values) throws IOException {
+    RoaringBitmap expected = new RoaringBitmap();
+    for (int i = 0; i < values; ++i) {
+      expected.add((long) i << 16, ((long) i << 16) + 1000);
+    }
+    expected.runOptimize();
+    RoaringArray storage = new RoaringArray();
+    RoaringBitmapStreamReader.buffered(new ByteArrayInputStream(serialize(expected)))
+        .readInto(storage);
+    assertEquals(expected, new RoaringBitmap(storage));
+  }
+
+  @Test
+  public void invalidCookie() {
+    assertThrows(
+        InvalidRoaringFormat.class,
+        () -> RoaringBitmapStreamReader.buffered(new ByteArrayInputStream(new byte[8])));
+  }
+
+  @Test
+  public void dataInputStream() throws IOException {
+    RoaringBitmap expected = bitmap(true, 3);
+    // a DataInputStream is both an InputStream and a DataInput
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialize(expected)));
+    RoaringBitmap read = new RoaringBitmap();
+    try (RoaringBitmapStreamReader reader = RoaringBitmapStreamReader.of(in)) {
+      reader.orInto(read);
+    }
+    assertEquals(expected, read);
+
+    in = new DataInputStream(new ByteArrayInputStream(serialize(expected)));
+    read = new RoaringBitmap();
+    try (RoaringBitmapStreamReader reader = RoaringBitmapStreamReader.buffered(in)) {
+      reader.orInto(read);
+    }
+    assertEquals(expected, read);
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.roaringbitmap.longlong.ImmutableRoaring64Bitmap;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class TestSpliterators {
+
+  private static RoaringBitmap randomBitmap(long seed) {
+    Random random = new Random(seed);
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (int container = 0; container < 200; ++container) {
+      int start = random.nextInt() & 0xFFFF0000;
+      switch (random.nextInt(3)) {
+        case 0:
+          for (int i = 0; i < 100; ++i) {
+            bitmap.add(start + random.nextInt(1 << 16));
+          }
+          break;
+        case 1:
+          for (int i = 0; i < 10000; ++i) {
+            bitmap.add(start + random.nextInt(1 << 16));
+          }
+          break;
+        default:
+          bitmap.add((long) start & 0xFFFFFFFFL, (start & 0xFFFFFFFFL) + random.nextInt(1 << 16));
+      }
+    }
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  private static Roaring64Bitmap random64Bitmap(long seed) {
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    long[] bases = {0L, 1L << 40, Long.MIN_VALUE, -1L << 32};
+    for (int i = 0; i < bases.length; ++i) {
+      long base = bases[i];
+      randomBitmap(seed + i).forEach((int value) -> bitmap.addLong(base + (value & 0xFFFFFFFFL)));
+    }
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  private static int[] drain(Spliterator.OfInt spliterator, boolean advanceFirst) {
+    int[] values = new int[(int) spliterator.estimateSize()];
+    int[] count = {0};
+    if (advanceFirst) {
+      while (count[0] < 10 && spliterator.tryAdvance((int value) -> values[count[0]++] = value)) {}
+    }
+    spliterator.forEachRemaining((int value) -> values[count[0]++] = value);
+    assertEquals(values.length, count[0]);
+    assertFalse(spliterator.tryAdvance((int value) -> {}));
+    return values;
+  }
+
+  // splits recursively, checking the exact size of each split, and concatenates the values
+  private static IntStream splitAndDrain(Spliterator.OfInt spliterator, int depth) {
+    long size = spliterator.estimateSize();
+    assertEquals(size, spliterator.getExactSizeIfKnown());
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+    Spliterator.OfInt prefix = depth > 0 ? spliterator.trySplit() : null;
+    if (prefix == null) {
+      return IntStream.of(drain(spliterator, depth % 2 == 1));
+    }
+    assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+    return IntStream.concat(
+        splitAndDrain(prefix, depth - 1), splitAndDrain(spliterator, depth - 1));
+  }
+
+  private static long[] drain(Spliterator.OfLong spliterator) {
+    long[] values = new long[(int) spliterator.estimateSize()];
+    int[] count = {0};
+    spliterator.forEachRemaining((long value) -> values[count[0]++] = value);
+    assertEquals(values.length, count[0]);
+    return values;
+  }
+
+  private static LongStream splitAndDrain(Spliterator.OfLong spliterator, int depth) {
+    long size = spliterator.estimateSize();
+    Spliterator.OfLong prefix = depth > 0 ? spliterator.trySplit() : null;
+    if (prefix == null) {
+      return LongStream.of(drain(spliterator));
+    }
+    assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+    return LongStream.concat(
+        splitAndDrain(prefix, depth - 1), splitAndDrain(spliterator, depth - 1));
+  }
+
+  @Test
+  public void testRoaringBitmap() {
+    for (int seed = 0; seed < 5; ++seed) {
+      RoaringBitmap bitmap = randomBitmap(seed);
+      int[] expected = bitmap.toArray();
+      assertArrayEquals(expected, bitmap.stream().toArray());
+      assertArrayEquals(expected, bitmap.stream().parallel().toArray());
+      assertEquals(bitmap.getCardinality(), bitmap.stream().parallel().count());
+      assertArrayEquals(expected, splitAndDrain(bitmap.stream().spliterator(), 10).toArray());
+    }
+  }
+
+  @Test
+  public void testBufferBitmaps() {
+    for (int seed = 0; seed < 5; ++seed) {
+      RoaringBitmap bitmap = randomBitmap(seed);
+      int[] expected = bitmap.toArray();
+      MutableRoaringBitmap mutable = bitmap.toMutableRoaringBitmap();
+      ByteBuffer buffer = ByteBuffer.allocate(mutable.serializedSizeInBytes());
+      mutable.serialize(buffer);
+      buffer.flip();
+      ImmutableRoaringBitmap mapped = new ImmutableRoaringBitmap(buffer);
+      for (ImmutableRoaringBitmap b : new ImmutableRoaringBitmap[] {mutable, mapped}) {
+        assertArrayEquals(expected, b.stream().parallel().toArray());
+        assertArrayEquals(expected, splitAndDrain(b.stream().spliterator(), 10).toArray());
+      }
+    }
+  }
+
+  @Test
+  public void test64BitBitmaps() throws IOException {
+    Roaring64Bitmap bitmap = random64Bitmap(0);
+    long[] expected = bitmap.toArray();
+    ByteBuffer buffer = ByteBuffer.allocate((int) bitmap.serializedSizeInBytes());
+    bitmap.serialize(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    ImmutableRoaring64Bitmap mapped = new ImmutableRoaring64Bitmap(buffer);
+    assertArrayEquals(expected, bitmap.stream().toArray());
+    assertArrayEquals(expected, bitmap.stream().parallel().toArray());
+    assertArrayEquals(expected, mapped.stream().parallel().toArray());
+    assertEquals(expected.length, bitmap.stream().parallel().count());
+    assertArrayEquals(expected, splitAndDrain(bitmap.stream().spliterator(), 12).toArray());
+    assertArrayEquals(expected, splitAndDrain(mapped.stream().spliterator(), 12).toArray());
+  }
+
+  @Test
+  public void testSplitsAreContainerAligned() {
+    RoaringBitmap bitmap =
+        RoaringBitmap.bitmapOf(1, 2, 3, 1 << 16, (1 << 16) + 1, 1 << 17, (1 << 17) + 1);
+    Spliterator.OfInt spliterator = bitmap.stream().spliterator();
+    Spliterator.OfInt prefix = spliterator.trySplit();
+    assertArrayEquals(new int[] {1, 2, 3}, drain(prefix, false));
+    assertEquals(4, spliterator.estimateSize());
+    // a single container is not split
+    Spliterator.OfInt single = RoaringBitmap.bitmapOf(1, 2, 3).stream().spliterator();
+    assertNull(single.trySplit());
+    // but what is left of a started container goes to the prefix
+    spliterator.tryAdvance((int value) -> assertEquals(1 << 16, value));
+    prefix = spliterator.trySplit();
+    assertArrayEquals(new int[] {(1 << 16) + 1}, drain(prefix, false));
+    assertArrayEquals(new int[] {1 << 17, (1 << 17) + 1}, drain(spliterator, false));
+    assertNull(new RoaringBitmap().stream().spliterator().trySplit());
+    assertEquals(0, new Roaring64Bitmap().stream().count());
+  }
+}
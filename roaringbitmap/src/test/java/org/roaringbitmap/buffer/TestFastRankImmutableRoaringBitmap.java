@@ -0,0 +1,73 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.SeededTestData;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class TestFastRankImmutableRoaringBitmap {
+
+  private static FastRankImmutableRoaringBitmap map(RoaringBitmap bitmap) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bitmap.serializedSizeInBytes());
+    bitmap.serialize(buffer.duplicate());
+    return new FastRankImmutableRoaringBitmap(buffer);
+  }
+
+  @Test
+  public void emptyBitmap() {
+    FastRankImmutableRoaringBitmap empty = map(new RoaringBitmap());
+    assertEquals(0, empty.rankLong(0));
+    assertEquals(0, empty.rankLong(-1));
+    assertThrows(IllegalArgumentException.class, () -> empty.select(0));
+  }
+
+  @Test
+  public void cacheIsComputedOnFirstUse() {
+    FastRankImmutableRoaringBitmap bitmap = map(RoaringBitmap.bitmapOf(1, 1 << 20, -1));
+    assertFalse(bitmap.isCacheComputed());
+    assertEquals(1 << 20, bitmap.select(1));
+    assertTrue(bitmap.isCacheComputed());
+    assertEquals(-1, bitmap.select(2));
+    assertEquals(2, bitmap.rank(1 << 20));
+    assertEquals(3, bitmap.rankLong(-1));
+    assertThrows(IllegalArgumentException.class, () -> bitmap.select(3));
+  }
+
+  @Test
+  public void matchesImmutableRoaringBitmap() {
+    RoaringBitmap bitmap =
+        SeededTestData.TestDataSet.testCase()
+            .withRunAt(0)
+            .withArrayAt(1)
+            .withBitmapAt(3)
+            .withRunAt(100)
+            .withArrayAt(1 << 15)
+            .withBitmapAt((1 << 15) + 1)
+            .withArrayAt(65535)
+            .build();
+    FastRankImmutableRoaringBitmap fast = map(bitmap);
+    ImmutableRoaringBitmap slow = bitmap.toMutableRoaringBitmap();
+    int cardinality = bitmap.getCardinality();
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; ++i) {
+      int j = random.nextInt(cardinality);
+      assertEquals(slow.select(j), fast.select(j));
+      int x = slow.select(j) + random.nextInt(200) - 100;
+      assertEquals(slow.rankLong(x), fast.rankLong(x));
+    }
+    assertEquals(bitmap.last(), fast.select(cardinality - 1));
+    assertEquals(cardinality, fast.rankLong(-1));
+  }
+}
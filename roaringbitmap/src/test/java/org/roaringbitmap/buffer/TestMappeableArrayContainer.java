@@ -15,6 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.util.Arrays;
 
@@ -753,6 +754,28 @@ public class TestMappeableArrayContainer {
     assertEquals(-1L, bits[0]);
   }
 
+  @Test
+  public void testInPlaceOperationsOnDirectBuffer() {
+    MappeableContainer ac = directArrayContainer(1, 3, 5, 7, 9);
+    ac = ac.remove((char) 3).flip((char) 5);
+    assertEquals(directArrayContainer(1, 7, 9), ac);
+    ac = directArrayContainer(1, 3, 5, 7, 9).iandNot(directArrayContainer(3, 5));
+    assertEquals(directArrayContainer(1, 7, 9), ac);
+    ac = directArrayContainer(1, 3, 5).ior(directArrayContainer(2));
+    assertEquals(directArrayContainer(1, 2, 3, 5), ac);
+    ac = directArrayContainer(1, 3, 5).iand(directArrayContainer(3, 4));
+    assertEquals(directArrayContainer(3), ac);
+  }
+
+  private static MappeableArrayContainer directArrayContainer(int... values) {
+    CharBuffer content = ByteBuffer.allocateDirect(2 * values.length).asCharBuffer();
+    for (int value : values) {
+      content.put((char) value);
+    }
+    content.flip();
+    return new MappeableArrayContainer(content, values.length);
+  }
+
   private static int lower16Bits(int x) {
     return ((char) x);
   }
@@ -0,0 +1,205 @@
+/*
+ * (c) the authors Licensed under the Apache License, Version 2.0.
+ */
+
+package org.roaringbitmap.buffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class TestOffHeapMutableRoaringBitmap {
+
+  private static void assertOffHeap(OffHeapMutableRoaringBitmap bitmap) {
+    MutableRoaringArray array = bitmap.getMappeableRoaringArray();
+    for (int i = 0; i < array.size(); ++i) {
+      MappeableContainer container = array.getContainerAtIndex(i);
+      if (container instanceof MappeableArrayContainer) {
+        assertTrue(((MappeableArrayContainer) container).content.isDirect());
+      } else if (container instanceof MappeableBitmapContainer) {
+        assertTrue(((MappeableBitmapContainer) container).bitmap.isDirect());
+      } else {
+        assertTrue(((MappeableRunContainer) container).valueslength.isDirect());
+      }
+    }
+  }
+
+  private static MutableRoaringBitmap randomBitmap(Random random) {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    for (int i = 0; i < 20; ++i) {
+      int start = random.nextInt(1 << 22);
+      switch (random.nextInt(3)) {
+        case 0:
+          for (int j = 0; j < 100; ++j) {
+            bitmap.add(start + random.nextInt(1 << 16));
+          }
+          break;
+        case 1:
+          for (int j = 0; j < 10000; ++j) {
+            bitmap.add(start + random.nextInt(1 << 16));
+          }
+          break;
+        default:
+          bitmap.add((long) start, start + random.nextInt(1 << 17));
+      }
+    }
+    return bitmap;
+  }
+
+  @Test
+  public void testMutationsMatchHeapBitmap() {
+    Random random = new Random(0);
+    SlabAllocator allocator = new SlabAllocator();
+    MutableRoaringBitmap expected = new MutableRoaringBitmap();
+    try (OffHeapMutableRoaringBitmap bitmap = new OffHeapMutableRoaringBitmap(allocator)) {
+      for (int step = 0; step < 300; ++step) {
+        int value = random.nextInt(1 << 22);
+        switch (random.nextInt(11)) {
+          case 0:
+            expected.add(value);
+            bitmap.add(value);
+            break;
+          case 1:
+            expected.remove(value);
+            bitmap.remove(value);
+            break;
+          case 2:
+            long end = value + random.nextInt(1 << 17);
+            expected.add((long) value, end);
+            bitmap.add((long) value, end);
+            break;
+          case 3:
+            expected.flip((long) value, value + 100_000L);
+            bitmap.flip((long) value, value + 100_000L);
+            break;
+          case 4:
+            MutableRoaringBitmap other = randomBitmap(random);
+            expected.or(other);
+            bitmap.or(other);
+            break;
+          case 5:
+            other = randomBitmap(random);
+            expected.xor(other);
+            bitmap.xor(other);
+            break;
+          case 6:
+            other = randomBitmap(random);
+            other.or(expected);
+            expected.and(other);
+            bitmap.and(other);
+            break;
+          case 7:
+            other = randomBitmap(random);
+            expected.andNot(other);
+            bitmap.andNot(other);
+            break;
+          case 8:
+            expected.runOptimize();
+            bitmap.runOptimize();
+            break;
+          case 9:
+            expected.trim();
+            bitmap.trim();
+            break;
+          default:
+            for (int i = 0; i < 1000; ++i) {
+              int added = value + random.nextInt(1 << 16);
+              expected.add(added);
+              bitmap.add(added);
+            }
+        }
+        assertEquals(expected, bitmap);
+        assertOffHeap(bitmap);
+        // sweeps the dropped containers first
+        long allocated = bitmap.getAllocatedBytes();
+        assertEquals(allocator.getAllocatedBytes(), allocated);
+      }
+      assertTrue(bitmap.getAllocatedBytes() > 0);
+      MutableRoaringBitmap copy = bitmap.clone();
+      assertEquals(MutableRoaringBitmap.class, copy.getClass());
+      assertEquals(expected, copy);
+    }
+    assertEquals(0, allocator.getAllocatedBytes());
+  }
+
+  @Test
+  public void testCloseFreesMemory() {
+    SlabAllocator allocator = new SlabAllocator();
+    OffHeapMutableRoaringBitmap bitmap = new OffHeapMutableRoaringBitmap(allocator);
+    bitmap.add(0L, 1L << 20);
+    bitmap.add(1 << 22);
+    bitmap.or(randomBitmap(new Random(1)));
+    assertTrue(allocator.getAllocatedBytes() > 0);
+    bitmap.close();
+    assertEquals(0, allocator.getAllocatedBytes());
+    assertEquals(0, bitmap.getAllocatedBytes());
+    assertTrue(bitmap.isEmpty());
+    assertThrows(IllegalStateException.class, () -> bitmap.add(1));
+  }
+
+  @Test
+  public void testDroppedContainersAreReused() {
+    SlabAllocator allocator = new SlabAllocator();
+    try (OffHeapMutableRoaringBitmap bitmap = new OffHeapMutableRoaringBitmap(allocator)) {
+      for (int i = 0; i < 1000; ++i) {
+        bitmap.add((long) i << 16, ((long) i << 16) + 10);
+        bitmap.remove((long) i << 16, ((long) i << 16) + 10);
+      }
+      assertTrue(bitmap.isEmpty());
+      assertEquals(0, bitmap.getAllocatedBytes());
+      assertEquals(0, allocator.getAllocatedBytes());
+      assertEquals(1 << 20, allocator.getReservedBytes());
+    }
+  }
+
+  @Test
+  public void testDeserialize() throws IOException {
+    MutableRoaringBitmap expected = randomBitmap(new Random(2));
+    expected.runOptimize();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    expected.serialize(new DataOutputStream(bytes));
+    SlabAllocator allocator = new SlabAllocator();
+    try (OffHeapMutableRoaringBitmap bitmap = new OffHeapMutableRoaringBitmap(allocator)) {
+      bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      assertEquals(expected, bitmap);
+      assertOffHeap(bitmap);
+      bitmap.deserialize(ByteBuffer.wrap(bytes.toByteArray()));
+      assertEquals(expected, bitmap);
+      assertOffHeap(bitmap);
+      long allocated = bitmap.getAllocatedBytes();
+      assertEquals(allocator.getAllocatedBytes(), allocated);
+    }
+  }
+
+  @Test
+  public void testSlabAllocator() {
+    SlabAllocator allocator = new SlabAllocator(1 << 17);
+    ByteBuffer small = allocator.allocate(1);
+    assertEquals(64, small.capacity());
+    assertTrue(small.isDirect());
+    ByteBuffer bitmap = allocator.allocate(8192);
+    assertEquals(8192, bitmap.capacity());
+    ByteBuffer large = allocator.allocate(1 << 18);
+    assertEquals(64 + 8192 + (1 << 18), allocator.getAllocatedBytes());
+    allocator.free(bitmap);
+    assertEquals(8192, allocator.allocate(5000).capacity());
+    allocator.free(large);
+    allocator.free(small);
+    assertEquals(8192, allocator.getAllocatedBytes());
+    assertEquals(1 << 17, allocator.getReservedBytes());
+    assertFalse(allocator.allocate(1 << 17).capacity() < 1 << 17);
+    assertEquals(2 << 17, allocator.getReservedBytes());
+    assertThrows(IllegalArgumentException.class, () -> new SlabAllocator(1024));
+  }
+}
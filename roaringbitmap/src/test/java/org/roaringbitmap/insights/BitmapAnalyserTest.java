@@ -2,6 +2,10 @@ package org.roaringbitmap.insights;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import org.roaringbitmap.AdaptiveContainerPolicy;
+import org.roaringbitmap.AdaptiveContainerPolicy.Operation;
+import org.roaringbitmap.AdaptiveRoaringBitmap;
+import org.roaringbitmap.ContainerType;
 import org.roaringbitmap.RoaringBitmap;
 import org.roaringbitmap.SeededTestData;
 
@@ -71,4 +75,33 @@ public class BitmapAnalyserTest {
         delta);
     assertEquals(totalBitmaps, result.getBitmapsCount());
   }
+
+  @Test
+  public void analyseAdaptiveBitmap() {
+    AdaptiveRoaringBitmap rb = new AdaptiveRoaringBitmap(new AdaptiveContainerPolicy(10_000, 5));
+    for (int key = 0; key < 2; key++) {
+      for (int run = 0; run < 100; run++) {
+        long start = (long) key << 16 | run * 200L;
+        rb.add(start, start + 100);
+      }
+    }
+    rb.runOptimize();
+    for (int i = 0; i < 10; i++) {
+      rb.contains(i);
+    }
+    rb.adapt();
+
+    ContainerSelectionStatistics result = BitmapAnalyser.analyseSelection(rb);
+    BitmapStatistics encodings =
+        new BitmapStatistics(BitmapStatistics.ArrayContainersStats.empty, 1, 1);
+    assertEquals(encodings, result.getEncodings());
+    assertEquals(1, result.getAdaptationCount());
+    assertEquals(1, result.getDecodedContainerCount());
+    assertEquals(8192 - (2 + 4 * 100), result.getExtraBytes());
+    assertEquals(0.779, result.budgetFraction(), 0.001);
+    assertEquals(5, result.getAccesses(Operation.CONTAINS));
+    assertEquals(0, result.getAccesses(Operation.ITERATION));
+    assertEquals(1, result.getLastDecisions().size());
+    assertEquals(ContainerType.BITMAP, result.getLastDecisions().get(0).getTo());
+  }
 }
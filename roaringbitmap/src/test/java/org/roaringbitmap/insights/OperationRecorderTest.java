@@ -0,0 +1,238 @@
+package org.roaringbitmap.insights;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.roaringbitmap.ContainerType.ARRAY;
+import static org.roaringbitmap.ContainerType.BITMAP;
+import static org.roaringbitmap.ContainerType.RUN;
+
+import org.roaringbitmap.BitmapListener;
+import org.roaringbitmap.BitmapListener.Operation;
+import org.roaringbitmap.BitmapListeners;
+import org.roaringbitmap.ContainerType;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RangeBitmap;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class OperationRecorderTest {
+
+  // only records the operations of the test thread, the other tests may run concurrently
+  private static final class ThreadListener implements BitmapListener {
+    private final Thread thread = Thread.currentThread();
+    private final BitmapListener listener;
+
+    ThreadListener(BitmapListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void onOperation(Class<?> source, Operation operation, long nanos) {
+      if (Thread.currentThread() == thread) {
+        listener.onOperation(source, operation, nanos);
+      }
+    }
+
+    @Override
+    public void onContainerPair(Operation operation, ContainerType left, ContainerType right) {
+      if (Thread.currentThread() == thread) {
+        listener.onContainerPair(operation, left, right);
+      }
+    }
+
+    @Override
+    public void onConversion(ContainerType from, ContainerType to) {
+      if (Thread.currentThread() == thread) {
+        listener.onConversion(from, to);
+      }
+    }
+
+    @Override
+    public void onSerialization(Class<?> source, long bytes) {
+      if (Thread.currentThread() == thread) {
+        listener.onSerialization(source, bytes);
+      }
+    }
+
+    @Override
+    public void onDeserialization(Class<?> source, long bytes) {
+      if (Thread.currentThread() == thread) {
+        listener.onDeserialization(source, bytes);
+      }
+    }
+  }
+
+  private interface Operations {
+    void run() throws IOException;
+  }
+
+  private static OperationStatistics record(Operations operations) throws IOException {
+    OperationRecorder recorder = new OperationRecorder();
+    BitmapListeners.register(new ThreadListener(recorder));
+    try {
+      operations.run();
+    } finally {
+      BitmapListeners.register(null);
+    }
+    return recorder.getStatistics();
+  }
+
+  // an array container for the key 0, a bitmap container for 1 and a run container for 2
+  private static RoaringBitmap left() {
+    RoaringBitmap bitmap = RoaringBitmap.bitmapOf(1, 3, 5);
+    for (int i = 0; i < 10000; i += 2) {
+      bitmap.add((1 << 16) + i);
+    }
+    bitmap.add(2L << 16, (2L << 16) + 10000);
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  // array containers for the keys 0, 1, 2 and 3
+  private static RoaringBitmap right() {
+    return RoaringBitmap.bitmapOf(1, 2, 1 << 16, (1 << 16) + 1, 2 << 16, 3 << 16);
+  }
+
+  @Test
+  public void testRegisterWhenDisabled() {
+    assumeFalse(BitmapListeners.ENABLED);
+    assertThrows(IllegalStateException.class, () -> BitmapListeners.register(null));
+    assertNull(BitmapListeners.get());
+  }
+
+  @Test
+  public void testRoaringBitmapOperations() throws IOException {
+    assumeTrue(BitmapListeners.ENABLED);
+    RoaringBitmap x = left();
+    RoaringBitmap y = right();
+    RoaringBitmap z = x.clone();
+    OperationStatistics statistics =
+        record(
+            () -> {
+              RoaringBitmap.and(x, y);
+              RoaringBitmap.xor(x, y);
+              z.or(y);
+            });
+    assertEquals(1, statistics.getSources().size());
+    for (Operation operation : new Operation[] {Operation.AND, Operation.OR, Operation.XOR}) {
+      assertEquals(1, statistics.getCount(RoaringBitmap.class, operation));
+      assertTrue(statistics.getNanos(RoaringBitmap.class, operation) >= 0);
+      assertEquals(1, statistics.getPairCount(operation, ARRAY, ARRAY));
+      assertEquals(1, statistics.getPairCount(operation, BITMAP, ARRAY));
+      assertEquals(1, statistics.getPairCount(operation, RUN, ARRAY));
+      assertEquals(0, statistics.getPairCount(operation, ARRAY, BITMAP));
+    }
+    assertEquals(0, statistics.getCount(Operation.RANGE));
+    assertTrue(Double.isNaN(statistics.averageNanos(RoaringBitmap.class, Operation.RANGE)));
+
+    statistics = record(() -> FastAggregation.and(x, y, z));
+    assertEquals(1, statistics.getCount(FastAggregation.class, Operation.AND));
+    // the aggregation intersects the smallest bitmap with the other ones
+    assertEquals(2, statistics.getCount(RoaringBitmap.class, Operation.AND));
+    assertEquals(3, statistics.getCount(Operation.AND));
+    assertEquals(2, statistics.getPairCount(Operation.AND, ARRAY, ARRAY));
+    assertEquals(1, statistics.getPairCount(Operation.AND, ARRAY, RUN));
+  }
+
+  @Test
+  public void testBufferOperationsAndSerialization() throws IOException {
+    assumeTrue(BitmapListeners.ENABLED);
+    MutableRoaringBitmap x = left().toMutableRoaringBitmap();
+    MutableRoaringBitmap y = right().toMutableRoaringBitmap();
+    ImmutableRoaringBitmap immutable = x.toImmutableRoaringBitmap();
+    ByteBuffer buffer = ByteBuffer.allocate(x.serializedSizeInBytes());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OperationStatistics statistics =
+        record(
+            () -> {
+              MutableRoaringBitmap.and(x, y);
+              ImmutableRoaringBitmap.or(immutable, y);
+              x.clone().xor(y);
+              x.serialize(buffer);
+              buffer.flip();
+              new MutableRoaringBitmap().deserialize(buffer);
+              left().serialize(new DataOutputStream(bytes));
+            });
+    assertEquals(1, statistics.getCount(MutableRoaringBitmap.class, Operation.AND));
+    assertEquals(1, statistics.getCount(ImmutableRoaringBitmap.class, Operation.OR));
+    assertEquals(1, statistics.getCount(MutableRoaringBitmap.class, Operation.XOR));
+    assertEquals(1, statistics.getPairCount(Operation.OR, RUN, ARRAY));
+    assertEquals(2, statistics.getSerializationCount());
+    assertEquals(x.serializedSizeInBytes() + bytes.size(), statistics.getSerializedBytes());
+    assertEquals(1, statistics.getDeserializationCount());
+    assertEquals(x.serializedSizeInBytes(), statistics.getDeserializedBytes());
+  }
+
+  @Test
+  public void testRangeBitmapQueries() throws IOException {
+    assumeTrue(BitmapListeners.ENABLED);
+    RangeBitmap.Appender appender = RangeBitmap.appender(100);
+    for (int i = 0; i < 1000; ++i) {
+      appender.add(i % 100);
+    }
+    RangeBitmap bitmap = appender.build();
+    OperationStatistics statistics =
+        record(
+            () -> {
+              bitmap.lte(10);
+              // delegates to lte
+              bitmap.between(0, 10);
+              bitmap.betweenCardinality(5, 10);
+              // the chunks of a parallel query are reported as one query
+              bitmap.gtCardinality(10, Runnable::run);
+            });
+    assertEquals(4, statistics.getCount(RangeBitmap.class, Operation.RANGE));
+    assertEquals(0, statistics.getCount(RangeBitmap.class, Operation.AND));
+  }
+
+  @Test
+  public void testConversions() throws IOException {
+    assumeTrue(BitmapListeners.ENABLED);
+    RoaringBitmap bitmap = new RoaringBitmap();
+    OperationStatistics statistics =
+        record(
+            () -> {
+              for (int i = 0; i < 10000; ++i) {
+                bitmap.add(i);
+              }
+              bitmap.runOptimize();
+              bitmap.removeRunCompression();
+              bitmap.remove(4096L, 10000L);
+            });
+    assertEquals(1, statistics.getConversionCount(ARRAY, BITMAP));
+    assertEquals(1, statistics.getConversionCount(BITMAP, RUN));
+    assertEquals(1, statistics.getConversionCount(RUN, BITMAP));
+    assertEquals(1, statistics.getConversionCount(BITMAP, ARRAY));
+    assertEquals(0, statistics.getConversionCount(RUN, ARRAY));
+  }
+
+  @Test
+  public void testMerge() throws IOException {
+    assumeTrue(BitmapListeners.ENABLED);
+    RoaringBitmap x = left();
+    RoaringBitmap y = right();
+    OperationStatistics first = record(() -> RoaringBitmap.and(x, y));
+    OperationStatistics second = record(() -> RangeBitmap.appender(10).build().lte(5));
+    OperationStatistics merged = first.merge(second);
+    assertEquals(1, merged.getCount(RoaringBitmap.class, Operation.AND));
+    assertEquals(1, merged.getCount(RangeBitmap.class, Operation.RANGE));
+    assertEquals(1, merged.getPairCount(Operation.AND, RUN, ARRAY));
+    assertEquals(first, first.merge(OperationStatistics.empty));
+    assertNotEquals(first, merged);
+    assertTrue(merged.toString().contains("RoaringBitmap.AND={count=1"));
+    assertTrue(merged.toString().contains("AND RUNxARRAY=1"));
+  }
+}
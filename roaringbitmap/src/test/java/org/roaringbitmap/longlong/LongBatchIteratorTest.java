@@ -0,0 +1,148 @@
+package org.roaringbitmap.longlong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.buffer.MutableRoaringBitmapSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+public class LongBatchIteratorTest {
+
+  private static final int[] SIZES = {1, 5, 127, 128, 1024, 8192};
+
+  // values spread over high keys of both signs, in all kinds of containers
+  private static long[] randomValues(long seed) {
+    Random random = new Random(seed);
+    long[] highs = {0L, 1L, 1L << 16, 1L << 40, Long.MIN_VALUE >>> 16, -1L >>> 16};
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    for (long high : highs) {
+      long base = high << 16;
+      switch (random.nextInt(3)) {
+        case 0:
+          for (int i = 0; i < 100; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        case 1:
+          for (int i = 0; i < 10000; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        default:
+          long start = base + random.nextInt(1 << 15);
+          bitmap.addRange(start, start + random.nextInt(1 << 15) + 1);
+      }
+    }
+    return bitmap.toArray();
+  }
+
+  private static long[] drain(LongBatchIterator it, int size) {
+    long[] buffer = new long[size];
+    LongStream.Builder values = LongStream.builder();
+    while (it.hasNext()) {
+      int count = it.nextBatch(buffer);
+      for (int i = 0; i < count; ++i) {
+        values.add(buffer[i]);
+      }
+    }
+    assertEquals(0, it.nextBatch(buffer));
+    return values.build().toArray();
+  }
+
+  private static long[] drain(LongIterator it) {
+    LongStream.Builder values = LongStream.builder();
+    while (it.hasNext()) {
+      values.add(it.next());
+    }
+    return values.build().toArray();
+  }
+
+  // the values of the bitmap not before the target, in the order of the bitmap
+  private static long[] tail(long[] expected, long target, LongBinaryOperator compare) {
+    return Arrays.stream(expected).filter(v -> compare.applyAsLong(v, target) >= 0).toArray();
+  }
+
+  private static void checkIterator(
+      long[] expected, Supplier<LongBatchIterator> iterators, LongBinaryOperator compare) {
+    for (int size : SIZES) {
+      assertArrayEquals(expected, drain(iterators.get(), size));
+      assertArrayEquals(expected, drain(iterators.get().asLongIterator(new long[size])));
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 100; ++i) {
+      long target =
+          random.nextBoolean()
+              ? expected[random.nextInt(expected.length)] + random.nextInt(3) - 1
+              : random.nextLong();
+      LongBatchIterator it = iterators.get();
+      it.advanceIfNeeded(target);
+      assertArrayEquals(tail(expected, target, compare), drain(it, 128));
+    }
+    LongBatchIterator it = iterators.get();
+    long[] buffer = new long[100];
+    // a batch may stop short at the end of a container
+    int count = it.nextBatch(buffer);
+    assertTrue(count > 0);
+    assertArrayEquals(Arrays.copyOf(expected, count), Arrays.copyOf(buffer, count));
+    long[] remaining = drain(it.clone(), 1000);
+    assertArrayEquals(Arrays.copyOfRange(expected, count, expected.length), remaining);
+    // the clone does not depend on the iterator
+    LongBatchIterator clone = it.clone();
+    assertArrayEquals(remaining, drain(it, 10));
+    assertArrayEquals(remaining, drain(clone, 10000));
+  }
+
+  @Test
+  public void testRoaring64Bitmap() {
+    for (long seed = 0; seed < 10; ++seed) {
+      Roaring64Bitmap bitmap = Roaring64Bitmap.bitmapOf(randomValues(seed));
+      if (seed % 2 == 0) {
+        bitmap.runOptimize();
+      }
+      checkIterator(bitmap.toArray(), bitmap::getBatchIterator, Long::compareUnsigned);
+    }
+  }
+
+  @Test
+  public void testRoaring64NavigableMap() {
+    for (long seed = 0; seed < 10; ++seed) {
+      long[] values = randomValues(seed);
+      Roaring64NavigableMap[] maps = {
+        new Roaring64NavigableMap(false),
+        new Roaring64NavigableMap(true),
+        new Roaring64NavigableMap(new MutableRoaringBitmapSupplier())
+      };
+      for (Roaring64NavigableMap map : maps) {
+        map.add(values);
+        LongBinaryOperator compare =
+            map == maps[1] ? (LongBinaryOperator) Long::compare : Long::compareUnsigned;
+        checkIterator(map.toArray(), map::getBatchIterator, compare);
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyBitmaps() {
+    assertFalse(new Roaring64Bitmap().getBatchIterator().hasNext());
+    assertFalse(new Roaring64NavigableMap().getBatchIterator().hasNext());
+    Roaring64NavigableMap emptied = Roaring64NavigableMap.bitmapOf(1, 1L << 32);
+    emptied.removeLong(1);
+    LongBatchIterator it = emptied.getBatchIterator();
+    assertTrue(it.hasNext());
+    assertArrayEquals(new long[] {1L << 32}, drain(it, 10));
+    LongBatchIterator last = Roaring64Bitmap.bitmapOf(-1L, -2L).getBatchIterator();
+    assertEquals(1, last.nextBatch(new long[1]));
+    assertArrayEquals(new long[] {-1L}, drain(last.clone(), 10));
+    last.advanceIfNeeded(0);
+    assertArrayEquals(new long[] {-1L}, drain(last, 10));
+  }
+}
@@ -0,0 +1,206 @@
+package org.roaringbitmap.longlong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class TestImmutableRoaring64Bitmap {
+
+  private static Roaring64Bitmap randomBitmap(long seed) {
+    Random random = new Random(seed);
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    long[] bases = {0L, 1L << 32, Long.MAX_VALUE - (1L << 20), Long.MIN_VALUE, -1L << 24};
+    for (long base : bases) {
+      for (int container = 0; container < 8; ++container) {
+        long start = base + ((long) random.nextInt(64) << 16);
+        switch (random.nextInt(3)) {
+          case 0: // sparse, array container
+            for (int i = 0; i < 100; ++i) {
+              bitmap.addLong(start + random.nextInt(1 << 16));
+            }
+            break;
+          case 1: // dense, bitmap container
+            for (int i = 0; i < 10000; ++i) {
+              bitmap.addLong(start + random.nextInt(1 << 16));
+            }
+            break;
+          default: // runs
+            int from = random.nextInt(1 << 15);
+            bitmap.addRange(start + from, start + from + random.nextInt(1 << 15));
+        }
+      }
+    }
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  private static ImmutableRoaring64Bitmap map(Roaring64Bitmap bitmap) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect((int) bitmap.serializedSizeInBytes());
+    bitmap.serialize(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    return new ImmutableRoaring64Bitmap(buffer);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    ImmutableRoaring64Bitmap empty = map(new Roaring64Bitmap());
+    assertTrue(empty.isEmpty());
+    assertEquals(0, empty.getLongCardinality());
+    assertFalse(empty.contains(0));
+    assertFalse(empty.getLongIterator().hasNext());
+    assertFalse(empty.getReverseLongIterator().hasNext());
+    assertEquals(0, empty.rankLong(-1));
+    assertThrows(NoSuchElementException.class, empty::first);
+    assertThrows(IllegalArgumentException.class, () -> empty.select(0));
+    assertEquals(1, empty.serializedSizeInBytes());
+  }
+
+  @Test
+  public void testContentMatches() throws IOException {
+    Roaring64Bitmap bitmap = randomBitmap(0);
+    ImmutableRoaring64Bitmap mapped = map(bitmap);
+    assertEquals(bitmap.getLongCardinality(), mapped.getLongCardinality());
+    assertEquals(bitmap.serializedSizeInBytes(), mapped.serializedSizeInBytes());
+    assertArrayEquals(bitmap.toArray(), mapped.toArray());
+    assertEquals(bitmap.first(), mapped.first());
+    assertEquals(bitmap.last(), mapped.last());
+    assertEquals(bitmap, mapped.toRoaring64Bitmap());
+    assertEquals(bitmap.toString(), mapped.toString());
+
+    long[] reversed = new long[(int) bitmap.getLongCardinality()];
+    int pos = reversed.length;
+    LongIterator it = mapped.getReverseLongIterator();
+    while (it.hasNext()) {
+      reversed[--pos] = it.next();
+    }
+    assertEquals(0, pos);
+    assertArrayEquals(bitmap.toArray(), reversed);
+
+    Roaring64Bitmap visited = new Roaring64Bitmap();
+    mapped.forEach(visited::addLong);
+    assertEquals(bitmap, visited);
+  }
+
+  @Test
+  public void testContainsRankSelect() throws IOException {
+    Roaring64Bitmap bitmap = randomBitmap(1);
+    ImmutableRoaring64Bitmap mapped = map(bitmap);
+    Random random = new Random(1);
+    long[] values = bitmap.toArray();
+    for (int i = 0; i < 10000; ++i) {
+      long present = values[random.nextInt(values.length)];
+      long probe = present + random.nextInt(100) - 50;
+      assertTrue(mapped.contains(present));
+      assertEquals(bitmap.contains(probe), mapped.contains(probe));
+      assertEquals(bitmap.rankLong(probe), mapped.rankLong(probe));
+      long j = random.nextInt(values.length);
+      assertEquals(bitmap.select(j), mapped.select(j));
+    }
+    assertEquals(values[values.length - 1], mapped.select(values.length - 1));
+    assertThrows(IllegalArgumentException.class, () -> mapped.select(values.length));
+  }
+
+  @Test
+  public void testIteratorAdvance() throws IOException {
+    Roaring64Bitmap bitmap = randomBitmap(2);
+    ImmutableRoaring64Bitmap mapped = map(bitmap);
+    Random random = new Random(2);
+    long[] values = bitmap.toArray();
+    for (int i = 0; i < 1000; ++i) {
+      long minval = values[random.nextInt(values.length)] + random.nextInt(1 << 17) - (1 << 16);
+      PeekableLongIterator expected = bitmap.getLongIteratorFrom(minval);
+      PeekableLongIterator actual = mapped.getLongIteratorFrom(minval);
+      for (int k = 0; k < 10 && expected.hasNext(); ++k) {
+        assertTrue(actual.hasNext());
+        assertEquals(expected.next(), actual.next());
+      }
+    }
+    PeekableLongIterator it = mapped.getLongIterator();
+    it.advanceIfNeeded(bitmap.last());
+    assertEquals(bitmap.last(), it.next());
+    assertFalse(it.hasNext());
+    it = mapped.getLongIterator();
+    it.advanceIfNeeded(bitmap.last() + 1);
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testBinaryOperations() throws IOException {
+    Roaring64Bitmap left = randomBitmap(3);
+    Roaring64Bitmap right = randomBitmap(4);
+    right.or(Roaring64Bitmap.and(left, randomBitmap(5)));
+    ImmutableRoaring64Bitmap mappedLeft = map(left);
+    ImmutableRoaring64Bitmap mappedRight = map(right);
+    assertEquals(
+        Roaring64Bitmap.and(left, right), ImmutableRoaring64Bitmap.and(mappedLeft, mappedRight));
+    assertEquals(
+        Roaring64Bitmap.or(left, right), ImmutableRoaring64Bitmap.or(mappedLeft, mappedRight));
+    assertEquals(
+        Roaring64Bitmap.xor(left, right), ImmutableRoaring64Bitmap.xor(mappedLeft, mappedRight));
+    assertEquals(
+        Roaring64Bitmap.andNot(left, right),
+        ImmutableRoaring64Bitmap.andNot(mappedLeft, mappedRight));
+    assertEquals(
+        Roaring64Bitmap.andCardinality(left, right),
+        ImmutableRoaring64Bitmap.andCardinality(mappedLeft, mappedRight));
+    assertEquals(
+        Roaring64Bitmap.intersects(left, right),
+        ImmutableRoaring64Bitmap.intersects(mappedLeft, mappedRight));
+    assertFalse(
+        ImmutableRoaring64Bitmap.intersects(
+            mappedLeft, map(Roaring64Bitmap.andNot(right, left))));
+  }
+
+  @Test
+  public void testLimit() throws IOException {
+    Roaring64Bitmap bitmap = randomBitmap(6);
+    ImmutableRoaring64Bitmap mapped = map(bitmap);
+    long[] values = bitmap.toArray();
+    long[] limits = {0, 1, 1000, values.length / 2, values.length, values.length + 1};
+    for (long limit : limits) {
+      Roaring64Bitmap limited = mapped.limit(limit);
+      long expected = Math.min(limit, values.length);
+      assertEquals(expected, limited.getLongCardinality());
+      if (expected > 0) {
+        assertEquals(values[(int) expected - 1], limited.last());
+      }
+    }
+  }
+
+  @Test
+  public void testSerializeAndOffset() throws IOException {
+    Roaring64Bitmap bitmap = randomBitmap(7);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(42);
+    bitmap.serialize(out);
+    out.writeInt(43);
+    out.flush();
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    buffer.position(4);
+    ImmutableRoaring64Bitmap mapped = new ImmutableRoaring64Bitmap(buffer);
+    assertEquals(4, buffer.position());
+    assertEquals(bitmap, mapped.toRoaring64Bitmap());
+    buffer.position(buffer.position() + (int) mapped.serializedSizeInBytes());
+    assertEquals(43, buffer.getInt());
+
+    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    mapped.serialize(new DataOutputStream(copy));
+    Roaring64Bitmap deserialized = new Roaring64Bitmap();
+    deserialized.deserialize(new DataInputStream(new ByteArrayInputStream(copy.toByteArray())));
+    assertEquals(bitmap, deserialized);
+  }
+}
@@ -20,6 +20,7 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
+import java.util.stream.LongStream;
 
 public class TestRoaring64Bitmap {
 
@@ -2633,4 +2634,194 @@ public class TestRoaring64Bitmap {
   public void testEmptyRoaring64BitmapClonesWithoutException() {
     assertEquals(new Roaring64Bitmap(), new Roaring64Bitmap().clone());
   }
+
+  @Test
+  public void testCardinalityOperations() {
+    Random random = new Random(1234);
+    long[] highs = {0L, 1L << 32, 1L << 48, Long.MIN_VALUE, -1L << 16};
+    for (int i = 0; i < 20; ++i) {
+      Roaring64Bitmap x1 = new Roaring64Bitmap();
+      Roaring64Bitmap x2 = new Roaring64Bitmap();
+      for (long high : highs) {
+        for (int j = random.nextInt(3) * 3000; j > 0; --j) {
+          x1.addLong(high + random.nextInt(1 << 17));
+        }
+        for (int j = random.nextInt(3) * 3000; j > 0; --j) {
+          x2.addLong(high + random.nextInt(1 << 17));
+        }
+      }
+      if (i % 2 == 0) {
+        x1.runOptimize();
+      }
+      long cardinality1 = x1.getLongCardinality();
+      long cardinality2 = x2.getLongCardinality();
+      long and = Roaring64Bitmap.and(x1, x2).getLongCardinality();
+      long or = Roaring64Bitmap.or(x1, x2).getLongCardinality();
+      long xor = Roaring64Bitmap.xor(x1, x2).getLongCardinality();
+      long andNot = Roaring64Bitmap.andNot(x1, x2).getLongCardinality();
+      assertEquals(or, Roaring64Bitmap.orCardinality(x1, x2));
+      assertEquals(xor, Roaring64Bitmap.xorCardinality(x1, x2));
+      assertEquals(andNot, Roaring64Bitmap.andNotCardinality(x1, x2));
+      assertEquals(cardinality2 - and, Roaring64Bitmap.andNotCardinality(x2, x1));
+      assertEquals(or == 0 ? 1D : (double) and / or, Roaring64Bitmap.jaccardIndex(x1, x2));
+      assertEquals(
+          or == 0 ? 1D : 2D * and / (cardinality1 + cardinality2),
+          Roaring64Bitmap.diceCoefficient(x1, x2));
+      assertEquals(
+          cardinality1 == 0 ? 1D : (double) and / cardinality1,
+          Roaring64Bitmap.containment(x1, x2));
+      // the operands are not modified
+      assertEquals(cardinality1, x1.getLongCardinality());
+      assertEquals(cardinality2, x2.getLongCardinality());
+    }
+  }
+
+  @Test
+  public void testSimilarityOfEmptyBitmaps() {
+    Roaring64Bitmap empty = new Roaring64Bitmap();
+    Roaring64Bitmap bitmap = Roaring64Bitmap.bitmapOf(1, -1);
+    assertEquals(1D, Roaring64Bitmap.jaccardIndex(empty, new Roaring64Bitmap()));
+    assertEquals(1D, Roaring64Bitmap.diceCoefficient(empty, new Roaring64Bitmap()));
+    assertEquals(1D, Roaring64Bitmap.containment(empty, bitmap));
+    assertEquals(0D, Roaring64Bitmap.containment(bitmap, empty));
+    assertEquals(0D, Roaring64Bitmap.jaccardIndex(empty, bitmap));
+    assertEquals(1D, Roaring64Bitmap.jaccardIndex(bitmap, bitmap));
+    assertEquals(2, Roaring64Bitmap.andNotCardinality(bitmap, empty));
+    assertEquals(0, Roaring64Bitmap.andNotCardinality(empty, bitmap));
+  }
+
+  @Test
+  public void testBatchContains() {
+    Random random = new Random(4321);
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    long[] highs = {0L, 1L << 32, 1L << 48, Long.MIN_VALUE, -1L << 16};
+    for (long high : highs) {
+      for (int i = 0; i < 3000; ++i) {
+        bitmap.addLong(high + random.nextInt(1 << 17));
+      }
+    }
+    bitmap.addRange(5L << 40, (5L << 40) + 100_000);
+    bitmap.runOptimize();
+    long[] probes = new long[20_000];
+    for (int i = 0; i < probes.length; ++i) {
+      long high = highs[random.nextInt(highs.length)];
+      probes[i] = i % 10 == 0 ? random.nextLong() : high + random.nextInt(1 << 17);
+    }
+    long[] sorted =
+        LongStream.of(probes)
+            .boxed()
+            .sorted(Long::compareUnsigned)
+            .mapToLong(Long::longValue)
+            .toArray();
+    for (long[] values : new long[][] {probes, sorted, new long[0]}) {
+      boolean[] expected = new boolean[values.length];
+      LongStream.Builder filtered = LongStream.builder();
+      for (int i = 0; i < values.length; ++i) {
+        expected[i] = bitmap.contains(values[i]);
+        if (expected[i]) {
+          filtered.add(values[i]);
+        }
+      }
+      boolean[] out = new boolean[values.length];
+      bitmap.contains(values, out);
+      assertArrayEquals(expected, out);
+      long[] contained = filtered.build().toArray();
+      assertArrayEquals(contained, bitmap.filter(values));
+      assertEquals(contained.length, bitmap.countContained(values));
+    }
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.contains(new long[] {1}, new boolean[0]));
+  }
+
+  @Test
+  public void testBatchRankAndSelect() {
+    Random random = new Random(8765);
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    long[] highs = {0L, 1L << 32, 1L << 48, Long.MIN_VALUE, -1L << 16};
+    for (long high : highs) {
+      for (int i = 0; i < 3000; ++i) {
+        bitmap.addLong(high + random.nextInt(1 << 17));
+      }
+    }
+    bitmap.addRange(5L << 40, (5L << 40) + 100_000);
+    bitmap.runOptimize();
+    long cardinality = bitmap.getLongCardinality();
+    long[] probes = new long[5_000];
+    long[] ranks = new long[5_000];
+    for (int i = 0; i < probes.length; ++i) {
+      long high = highs[random.nextInt(highs.length)];
+      probes[i] = i % 10 == 0 ? random.nextLong() : high + random.nextInt(1 << 17);
+      ranks[i] = (long) (random.nextDouble() * cardinality);
+    }
+    long[] sortedProbes =
+        LongStream.of(probes)
+            .boxed()
+            .sorted(Long::compareUnsigned)
+            .mapToLong(Long::longValue)
+            .toArray();
+    for (long[] values : new long[][] {probes, sortedProbes, new long[0]}) {
+      long[] out = new long[values.length];
+      bitmap.rank(values, out);
+      assertArrayEquals(LongStream.of(values).map(bitmap::rankLong).toArray(), out);
+    }
+    for (long[] values : new long[][] {ranks, LongStream.of(ranks).sorted().toArray()}) {
+      long[] out = new long[values.length];
+      bitmap.select(values, out);
+      assertArrayEquals(LongStream.of(values).map(bitmap::select).toArray(), out);
+    }
+    long[] all = new long[(int) cardinality];
+    bitmap.select(LongStream.range(0, cardinality).toArray(), all);
+    assertArrayEquals(bitmap.toArray(), all);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> bitmap.select(new long[] {0, cardinality}, new long[2]));
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.select(new long[] {-1}, new long[1]));
+    assertThrows(
+        IllegalArgumentException.class, () -> bitmap.rank(new long[] {1}, new long[0]));
+  }
+
+  @Test
+  public void testSplit() {
+    Random random = new Random(1234);
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    for (int i = 0; i < 50; ++i) {
+      long base = (random.nextLong() >>> 16) << 16;
+      for (int j = random.nextInt(5_000); j >= 0; --j) {
+        bitmap.addLong(base + random.nextInt(1 << 16));
+      }
+    }
+    bitmap.addRange(5L << 40, (5L << 40) + 500_000);
+    bitmap.runOptimize();
+    long[] values = bitmap.toArray();
+    for (int parts : new int[] {1, 2, 3, 7, 100, 1_000}) {
+      List<Roaring64Bitmap> split = bitmap.split(parts);
+      assertTrue(split.size() <= parts);
+      assertTrue(split.size() > 1 || parts == 1);
+      int position = 0;
+      long previous = 0;
+      for (Roaring64Bitmap part : split) {
+        assertFalse(part.isEmpty());
+        // the parts do not cut containers
+        if (position > 0) {
+          assertNotEquals(previous >>> 16, part.first() >>> 16);
+        }
+        for (long value : part.toArray()) {
+          assertEquals(values[position++], value);
+        }
+        previous = part.last();
+      }
+      assertEquals(values.length, position);
+    }
+    // the parts hold about the same number of values
+    List<Roaring64Bitmap> halves = bitmap.split(2);
+    assertTrue(
+        Math.abs(halves.get(0).getLongCardinality() - halves.get(1).getLongCardinality())
+            <= 2 * (1 << 16));
+    // the parts are independent of the bitmap
+    halves.get(0).removeLong(values[0]);
+    assertTrue(bitmap.contains(values[0]));
+    assertTrue(new Roaring64Bitmap().split(4).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> bitmap.split(0));
+  }
 }
@@ -0,0 +1,163 @@
+package org.roaringbitmap.longlong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.roaringbitmap.longlong.Roaring64BitmapWriter.navigableMapWriter;
+import static org.roaringbitmap.longlong.Roaring64BitmapWriter.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class TestRoaring64BitmapWriter {
+
+  public static Stream<Arguments> params() {
+    return Stream.of(
+        Arguments.of(writer()),
+        Arguments.of(writer().optimiseForArrays()),
+        Arguments.of(writer().optimiseForRuns()),
+        Arguments.of(writer().constantMemory()),
+        Arguments.of(writer().runCompress(false)),
+        Arguments.of(writer().constantMemory().runCompress(false)),
+        Arguments.of(writer().expectedDensity(0.001)),
+        Arguments.of(writer().expectedDensity(0.1)),
+        Arguments.of(writer().expectedDensity(0.6)),
+        Arguments.of(navigableMapWriter()),
+        Arguments.of(navigableMapWriter().signedLongs(true)),
+        Arguments.of(navigableMapWriter().optimiseForRuns()),
+        Arguments.of(navigableMapWriter().constantMemory()),
+        Arguments.of(navigableMapWriter().runCompress(false)),
+        Arguments.of(navigableMapWriter().expectedDensity(0.1)),
+        Arguments.of(navigableMapWriter().signedLongs(true).expectedDensity(0.6)));
+  }
+
+  // sorted in the order of the bitmap: unsigned, unless the writer builds a signed map
+  private static long[] sortedValues(
+      Random random, Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    long[] highs = {0L, 1L, 1L << 16, 1L << 32, 5L << 40, Long.MIN_VALUE >>> 16, -1L >>> 16};
+    // an empty bitmap of the right order, filled without the writer
+    LongBitmapDataProvider bitmap = supplier.get().getUnderlying();
+    for (long high : highs) {
+      int count = random.nextInt(3) == 0 ? 20000 : 100;
+      for (int i = 0; i < count; ++i) {
+        bitmap.addLong((high << 16) + random.nextInt(1 << 16));
+      }
+    }
+    return bitmap.toArray();
+  }
+
+  private static void assertContent(long[] expected, LongBitmapDataProvider bitmap) {
+    assertArrayEquals(expected, bitmap.toArray());
+    assertEquals(expected.length, bitmap.getLongCardinality());
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void addInOrder(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    Random random = new Random(0);
+    for (int i = 0; i < 5; ++i) {
+      long[] values = sortedValues(random, supplier);
+      Roaring64BitmapWriter<?> writer = supplier.get();
+      for (long value : values) {
+        writer.add(value);
+      }
+      assertContent(values, writer.get());
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void addManyInOrder(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    long[] values = sortedValues(new Random(1), supplier);
+    Roaring64BitmapWriter<?> writer = supplier.get();
+    writer.addMany(values);
+    assertContent(values, writer.get());
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void addOutOfOrder(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    long[] values = sortedValues(new Random(2), supplier);
+    Roaring64BitmapWriter<?> writer = supplier.get();
+    // the second half first, then the first half, then everything again
+    writer.addMany(Arrays.copyOfRange(values, values.length / 2, values.length));
+    writer.addMany(Arrays.copyOf(values, values.length / 2));
+    writer.addMany(values);
+    assertContent(values, writer.get());
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void flushInTheMiddleOfAContainer(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    Roaring64BitmapWriter<?> writer = supplier.get();
+    writer.add(1L << 32);
+    writer.add((1L << 32) + 10);
+    writer.flush();
+    assertContent(new long[] {1L << 32, (1L << 32) + 10}, writer.getUnderlying());
+    writer.add((1L << 32) + 5);
+    writer.add((1L << 32) + 20);
+    writer.add(2L << 32);
+    assertContent(
+        new long[] {1L << 32, (1L << 32) + 5, (1L << 32) + 10, (1L << 32) + 20, 2L << 32},
+        writer.get());
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void addRanges(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    Roaring64BitmapWriter<?> writer = supplier.get();
+    long start = (3L << 32) - 10;
+    writer.add(5L);
+    writer.add(start, start + 100_000);
+    // values within and after the range
+    writer.add(start + 50_000);
+    writer.add(start + 100_000);
+    writer.add(start + 200_000);
+    writer.add(7L);
+    LongBitmapDataProvider bitmap = writer.get();
+    assertEquals(100_004, bitmap.getLongCardinality());
+    assertTrue(bitmap.contains(5L));
+    assertTrue(bitmap.contains(7L));
+    assertTrue(bitmap.contains(start));
+    assertTrue(bitmap.contains(start + 99_999));
+    assertTrue(bitmap.contains(start + 100_000));
+    assertTrue(bitmap.contains(start + 200_000));
+  }
+
+  @ParameterizedTest
+  @MethodSource("params")
+  public void reset(Supplier<? extends Roaring64BitmapWriter<?>> supplier) {
+    Roaring64BitmapWriter<?> writer = supplier.get();
+    writer.add(-1L);
+    writer.add(1L << 40);
+    LongBitmapDataProvider first = writer.get();
+    writer.reset();
+    writer.add(42L);
+    writer.add(1L << 40);
+    assertContent(new long[] {42L, 1L << 40}, writer.get());
+    assertEquals(2, first.getLongCardinality());
+    assertTrue(first.contains(-1L));
+  }
+
+  @Test
+  public void signedOrderOfNavigableMaps() {
+    Roaring64BitmapWriter<Roaring64NavigableMap> writer =
+        navigableMapWriter().signedLongs(true).get();
+    writer.addMany(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE);
+    assertContent(new long[] {Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE}, writer.get());
+  }
+
+  @Test
+  public void invalidDensity() {
+    assertThrows(IllegalArgumentException.class, () -> writer().expectedDensity(1.0));
+    assertThrows(IllegalArgumentException.class, () -> navigableMapWriter().expectedDensity(-1));
+  }
+}
@@ -0,0 +1,135 @@
+package org.roaringbitmap.longlong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestRoaring64FastAggregation {
+
+  // values spread over a few high keys, some of them negative, in all kinds of containers
+  private static Roaring64Bitmap randomBitmap(Random random) {
+    long[] highs = {0L, 1L, 1L << 40, Long.MIN_VALUE >>> 16, -1L >>> 16};
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    for (long high : highs) {
+      long base = high << 16;
+      switch (random.nextInt(4)) {
+        case 0:
+          for (int i = 0; i < 100; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        case 1:
+          for (int i = 0; i < 10000; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        case 2:
+          long start = base + random.nextInt(1 << 15);
+          bitmap.addRange(start, start + random.nextInt(1 << 15) + 1);
+          break;
+        default:
+          // no container for this high key
+      }
+    }
+    bitmap.runOptimize();
+    return bitmap;
+  }
+
+  private static Roaring64Bitmap[] randomBitmaps(Random random, int count) {
+    Roaring64Bitmap[] bitmaps = new Roaring64Bitmap[count];
+    for (int i = 0; i < count; ++i) {
+      bitmaps[i] = randomBitmap(random);
+    }
+    return bitmaps;
+  }
+
+  private static Roaring64Bitmap naiveOr(Roaring64Bitmap... bitmaps) {
+    Roaring64Bitmap answer = new Roaring64Bitmap();
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      answer.or(bitmap);
+    }
+    return answer;
+  }
+
+  private static Roaring64Bitmap naiveXor(Roaring64Bitmap... bitmaps) {
+    Roaring64Bitmap answer = new Roaring64Bitmap();
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      answer.xor(bitmap);
+    }
+    return answer;
+  }
+
+  private static Roaring64Bitmap naiveAnd(Roaring64Bitmap... bitmaps) {
+    Roaring64Bitmap answer = bitmaps[0];
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      answer = Roaring64Bitmap.and(answer, bitmap);
+    }
+    return answer;
+  }
+
+  @Test
+  public void testMatchesPairwiseOperations() {
+    Random random = new Random(1234);
+    for (int count = 1; count < 40; count += 3) {
+      Roaring64Bitmap[] bitmaps = randomBitmaps(random, count);
+      long[][] values = new long[count][];
+      for (int i = 0; i < count; ++i) {
+        values[i] = bitmaps[i].toArray();
+      }
+      Roaring64Bitmap or = naiveOr(bitmaps);
+      assertEquals(or, Roaring64FastAggregation.or(bitmaps));
+      assertEquals(or, Roaring64FastAggregation.or(Arrays.asList(bitmaps).iterator()));
+      assertEquals(or.getLongCardinality(), Roaring64FastAggregation.orCardinality(bitmaps));
+      assertEquals(naiveXor(bitmaps), Roaring64FastAggregation.xor(bitmaps));
+      Roaring64Bitmap and = naiveAnd(bitmaps);
+      assertEquals(and, Roaring64FastAggregation.and(bitmaps));
+      assertEquals(and.getLongCardinality(), Roaring64FastAggregation.andCardinality(bitmaps));
+      // the inputs are not modified
+      for (int i = 0; i < count; ++i) {
+        assertArrayEquals(values[i], bitmaps[i].toArray());
+      }
+    }
+  }
+
+  @Test
+  public void testOverlappingBitmaps() {
+    Random random = new Random(5678);
+    Roaring64Bitmap common = randomBitmap(random);
+    Roaring64Bitmap[] bitmaps = randomBitmaps(random, 10);
+    for (Roaring64Bitmap bitmap : bitmaps) {
+      bitmap.or(common);
+    }
+    Roaring64Bitmap and = Roaring64FastAggregation.and(bitmaps);
+    assertEquals(naiveAnd(bitmaps), and);
+    assertEquals(and.getLongCardinality(), Roaring64FastAggregation.andCardinality(bitmaps));
+    assertEquals(
+        and.getLongCardinality(), Roaring64FastAggregation.andCardinality(bitmaps[0], and));
+    // the same bitmap twice
+    assertEquals(common, Roaring64FastAggregation.or(common, common));
+    assertTrue(Roaring64FastAggregation.xor(common, common).isEmpty());
+    assertEquals(common, Roaring64FastAggregation.and(common, common));
+  }
+
+  @Test
+  public void testEmptyInputs() {
+    Roaring64Bitmap empty = new Roaring64Bitmap();
+    Roaring64Bitmap bitmap = Roaring64Bitmap.bitmapOf(1, -1, 1L << 48);
+    assertTrue(Roaring64FastAggregation.or().isEmpty());
+    assertTrue(Roaring64FastAggregation.xor().isEmpty());
+    assertTrue(Roaring64FastAggregation.and().isEmpty());
+    assertEquals(0, Roaring64FastAggregation.orCardinality());
+    assertEquals(0, Roaring64FastAggregation.andCardinality());
+    assertEquals(bitmap, Roaring64FastAggregation.or(bitmap));
+    assertEquals(bitmap, Roaring64FastAggregation.and(bitmap));
+    assertEquals(bitmap, Roaring64FastAggregation.or(empty, bitmap, empty));
+    assertEquals(bitmap, Roaring64FastAggregation.xor(empty, bitmap));
+    assertTrue(Roaring64FastAggregation.and(bitmap, empty).isEmpty());
+    assertEquals(3, Roaring64FastAggregation.orCardinality(bitmap, empty));
+    assertEquals(0, Roaring64FastAggregation.andCardinality(empty, bitmap, bitmap));
+  }
+}
@@ -41,6 +41,7 @@ import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class TestRoaring64NavigableMap {
 
@@ -2327,4 +2328,105 @@ public class TestRoaring64NavigableMap {
     assertEquals(2, rb.first());
     assertEquals(-32, rb.last());
   }
+
+  @Test
+  public void testCardinalityOperations() {
+    Random random = new Random(1234);
+    long[] highs = {0L, 1L << 32, 1L << 48, Long.MIN_VALUE, -1L << 32};
+    for (int i = 0; i < 20; ++i) {
+      Supplier<Roaring64NavigableMap> factory =
+          i % 2 == 0 ? this::newSignedBuffered : this::newDefaultCtor;
+      Roaring64NavigableMap x1 = factory.get();
+      Roaring64NavigableMap x2 = factory.get();
+      for (long high : highs) {
+        for (int j = random.nextInt(3) * 3000; j > 0; --j) {
+          x1.addLong(high + random.nextInt(1 << 17));
+        }
+        for (int j = random.nextInt(3) * 3000; j > 0; --j) {
+          x2.addLong(high + random.nextInt(1 << 17));
+        }
+      }
+      long cardinality1 = x1.getLongCardinality();
+      long cardinality2 = x2.getLongCardinality();
+      // the expected values, computed over the same values in a Roaring64Bitmap
+      Roaring64Bitmap y1 = Roaring64Bitmap.bitmapOf(x1.toArray());
+      Roaring64Bitmap y2 = Roaring64Bitmap.bitmapOf(x2.toArray());
+      long andCardinality = Roaring64Bitmap.and(y1, y2).getLongCardinality();
+      long orCardinality = Roaring64Bitmap.or(y1, y2).getLongCardinality();
+      long xorCardinality = Roaring64Bitmap.xor(y1, y2).getLongCardinality();
+      long andNotCardinality = Roaring64Bitmap.andNot(y1, y2).getLongCardinality();
+      assertEquals(andCardinality, Roaring64NavigableMap.andCardinality(x1, x2));
+      assertEquals(orCardinality, Roaring64NavigableMap.orCardinality(x1, x2));
+      assertEquals(xorCardinality, Roaring64NavigableMap.xorCardinality(x1, x2));
+      assertEquals(andNotCardinality, Roaring64NavigableMap.andNotCardinality(x1, x2));
+      assertEquals(
+          orCardinality == 0 ? 1D : (double) andCardinality / orCardinality,
+          Roaring64NavigableMap.jaccardIndex(x1, x2));
+      assertEquals(
+          orCardinality == 0 ? 1D : 2D * andCardinality / (cardinality1 + cardinality2),
+          Roaring64NavigableMap.diceCoefficient(x1, x2));
+      assertEquals(
+          cardinality1 == 0 ? 1D : (double) andCardinality / cardinality1,
+          Roaring64NavigableMap.containment(x1, x2));
+      // the operands are not modified
+      assertEquals(cardinality1, x1.getLongCardinality());
+      assertEquals(cardinality2, x2.getLongCardinality());
+    }
+  }
+
+  @Test
+  public void testAndCardinalityOfSignedMaps() {
+    Roaring64NavigableMap x1 = new Roaring64NavigableMap(true);
+    x1.add(-1L, 0L, 1L);
+    Roaring64NavigableMap x2 = new Roaring64NavigableMap(true);
+    x2.add(0L);
+    assertEquals(1, Roaring64NavigableMap.andCardinality(x1, x2));
+    assertEquals(1D / 3, Roaring64NavigableMap.jaccardIndex(x1, x2));
+  }
+
+  @Test
+  public void testSplit() {
+    Random random = new Random(1234);
+    for (boolean signedLongs : new boolean[] {false, true}) {
+      Roaring64NavigableMap bitmap =
+          new Roaring64NavigableMap(signedLongs, new MutableRoaringBitmapSupplier());
+      // a single high holds most of the values, in many containers
+      bitmap.add(1L << 32, (1L << 32) + 1_000_000);
+      for (long high : new long[] {0, -1, 5, Integer.MIN_VALUE}) {
+        for (int i = 0; i < 1_000; ++i) {
+          bitmap.addLong(high << 32 | random.nextInt(1 << 20));
+        }
+      }
+      bitmap.runOptimize();
+      long[] values = bitmap.toArray();
+      for (int parts : new int[] {1, 2, 3, 7, 100}) {
+        List<Roaring64NavigableMap> split = bitmap.split(parts);
+        assertTrue(split.size() <= parts);
+        assertTrue(split.size() >= Math.min(parts, 7));
+        int position = 0;
+        long previous = 0;
+        for (Roaring64NavigableMap part : split) {
+          assertFalse(part.isEmpty());
+          assertEquals(signedLongs, part.getHighToBitmap().comparator() == null);
+          for (BitmapDataProvider lowBitmap : part.getHighToBitmap().values()) {
+            assertTrue(lowBitmap instanceof MutableRoaringBitmap);
+          }
+          // the parts do not cut containers
+          if (position > 0) {
+            assertNotEquals(previous >>> 16, part.first() >>> 16);
+          }
+          for (long value : part.toArray()) {
+            assertEquals(values[position++], value);
+          }
+          previous = part.last();
+        }
+        assertEquals(values.length, position);
+      }
+      // the parts are independent of the bitmap
+      bitmap.split(2).get(0).removeLong(values[0]);
+      assertTrue(bitmap.contains(values[0]));
+    }
+    assertTrue(new Roaring64NavigableMap().split(4).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> new Roaring64NavigableMap().split(0));
+  }
 }
@@ -0,0 +1,198 @@
+package org.roaringbitmap.longlong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.roaringbitmap.BitmapDataProviderSupplier;
+import org.roaringbitmap.RoaringBitmapSupplier;
+import org.roaringbitmap.buffer.MutableRoaringBitmapSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestRoaring64ParallelAggregation {
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(3);
+
+  @AfterAll
+  public static void shutdown() {
+    POOL.shutdownNow();
+  }
+
+  // values spread over a few high keys, some of them negative, in all kinds of containers
+  private static long[] randomValues(Random random) {
+    long[] highs = {0L, 1L, 1L << 16, 1L << 40, Long.MIN_VALUE >>> 16, -1L >>> 16};
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    for (long high : highs) {
+      long base = high << 16;
+      switch (random.nextInt(4)) {
+        case 0:
+          for (int i = 0; i < 100; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        case 1:
+          for (int i = 0; i < 10000; ++i) {
+            bitmap.addLong(base + random.nextInt(1 << 16));
+          }
+          break;
+        case 2:
+          long start = base + random.nextInt(1 << 15);
+          bitmap.addRange(start, start + random.nextInt(1 << 15) + 1);
+          break;
+        default:
+          // no container for this high key
+      }
+    }
+    return bitmap.toArray();
+  }
+
+  private static Roaring64Bitmap[] randomBitmaps(Random random, int count) {
+    Roaring64Bitmap[] bitmaps = new Roaring64Bitmap[count];
+    for (int i = 0; i < count; ++i) {
+      bitmaps[i] = Roaring64Bitmap.bitmapOf(randomValues(random));
+      bitmaps[i].runOptimize();
+    }
+    return bitmaps;
+  }
+
+  private static Roaring64NavigableMap[] randomMaps(
+      Random random, int count, boolean signedLongs, BitmapDataProviderSupplier supplier) {
+    Roaring64NavigableMap[] bitmaps = new Roaring64NavigableMap[count];
+    for (int i = 0; i < count; ++i) {
+      bitmaps[i] = new Roaring64NavigableMap(signedLongs, supplier);
+      bitmaps[i].add(randomValues(random));
+    }
+    return bitmaps;
+  }
+
+  @Test
+  public void testRoaring64Bitmap() {
+    Random random = new Random(1234);
+    for (int count = 1; count < 40; count += 6) {
+      Roaring64Bitmap[] bitmaps = randomBitmaps(random, count);
+      Roaring64Bitmap or = Roaring64FastAggregation.or(bitmaps);
+      Roaring64Bitmap xor = Roaring64FastAggregation.xor(bitmaps);
+      Roaring64Bitmap and = Roaring64FastAggregation.and(bitmaps);
+      assertEquals(or, Roaring64ParallelAggregation.or(bitmaps));
+      assertEquals(or, Roaring64ParallelAggregation.or(POOL, bitmaps));
+      assertEquals(xor, Roaring64ParallelAggregation.xor(bitmaps));
+      assertEquals(xor, Roaring64ParallelAggregation.xor(POOL, bitmaps));
+      assertEquals(and, Roaring64ParallelAggregation.and(bitmaps));
+      assertEquals(and, Roaring64ParallelAggregation.and(POOL, bitmaps));
+    }
+  }
+
+  @Test
+  public void testRoaring64BitmapEdgeCases() {
+    Roaring64Bitmap empty = new Roaring64Bitmap();
+    Roaring64Bitmap bitmap = Roaring64Bitmap.bitmapOf(1, -1, 1L << 48);
+    assertTrue(Roaring64ParallelAggregation.or(new Roaring64Bitmap[0]).isEmpty());
+    assertTrue(Roaring64ParallelAggregation.xor(new Roaring64Bitmap[0]).isEmpty());
+    assertTrue(Roaring64ParallelAggregation.and(new Roaring64Bitmap[0]).isEmpty());
+    assertEquals(bitmap, Roaring64ParallelAggregation.and(bitmap));
+    assertTrue(Roaring64ParallelAggregation.and(bitmap, empty).isEmpty());
+    assertTrue(Roaring64ParallelAggregation.xor(bitmap, bitmap).isEmpty());
+    Roaring64Bitmap result = Roaring64ParallelAggregation.or(bitmap);
+    result.addLong(2);
+    assertArrayEquals(new long[] {1, 1L << 48, -1}, bitmap.toArray());
+  }
+
+  @Test
+  public void testRoaring64NavigableMap() {
+    Random random = new Random(5678);
+    for (BitmapDataProviderSupplier supplier :
+        new BitmapDataProviderSupplier[] {
+          new RoaringBitmapSupplier(), new MutableRoaringBitmapSupplier()
+        }) {
+      for (int count = 1; count < 40; count += 6) {
+        Roaring64NavigableMap[] bitmaps = randomMaps(random, count, false, supplier);
+        Roaring64NavigableMap or = new Roaring64NavigableMap(supplier);
+        Roaring64NavigableMap xor = new Roaring64NavigableMap(supplier);
+        Roaring64NavigableMap and = bitmaps[0];
+        for (Roaring64NavigableMap bitmap : bitmaps) {
+          or.or(bitmap);
+          xor.xor(bitmap);
+          and = Roaring64NavigableMap.and(and, bitmap);
+        }
+        assertArrayEquals(or.toArray(), Roaring64ParallelAggregation.or(bitmaps).toArray());
+        assertArrayEquals(or.toArray(), Roaring64ParallelAggregation.or(POOL, bitmaps).toArray());
+        assertArrayEquals(xor.toArray(), Roaring64ParallelAggregation.xor(bitmaps).toArray());
+        assertArrayEquals(
+            xor.toArray(), Roaring64ParallelAggregation.xor(POOL, bitmaps).toArray());
+        assertArrayEquals(and.toArray(), Roaring64ParallelAggregation.and(bitmaps).toArray());
+        assertArrayEquals(
+            and.toArray(), Roaring64ParallelAggregation.and(POOL, bitmaps).toArray());
+        assertEquals(
+            and.getLongCardinality(),
+            Roaring64ParallelAggregation.and(bitmaps).getLongCardinality());
+      }
+    }
+  }
+
+  @Test
+  public void testSignedRoaring64NavigableMap() {
+    Random random = new Random(9012);
+    for (BitmapDataProviderSupplier supplier :
+        new BitmapDataProviderSupplier[] {
+          new RoaringBitmapSupplier(), new MutableRoaringBitmapSupplier()
+        }) {
+      Roaring64NavigableMap[] bitmaps = randomMaps(random, 7, true, supplier);
+      Roaring64NavigableMap or = new Roaring64NavigableMap(true, supplier);
+      Roaring64NavigableMap xor = new Roaring64NavigableMap(true, supplier);
+      Roaring64NavigableMap and = new Roaring64NavigableMap(true, supplier);
+      and.or(bitmaps[0]);
+      for (Roaring64NavigableMap bitmap : bitmaps) {
+        or.or(bitmap);
+        xor.xor(bitmap);
+        and.and(bitmap);
+      }
+      assertArrayEquals(or.toArray(), Roaring64ParallelAggregation.or(bitmaps).toArray());
+      assertArrayEquals(xor.toArray(), Roaring64ParallelAggregation.xor(POOL, bitmaps).toArray());
+      assertArrayEquals(and.toArray(), Roaring64ParallelAggregation.and(bitmaps).toArray());
+      // the result creates its low bitmaps like the inputs
+      Roaring64NavigableMap result = Roaring64ParallelAggregation.or(bitmaps);
+      result.addLong(1L << 50);
+      Class<?> lowBitmapClass = supplier.newEmpty().getClass();
+      assertTrue(result.getHighToBitmap().values().stream().allMatch(lowBitmapClass::isInstance));
+    }
+
+    Roaring64NavigableMap x = new Roaring64NavigableMap(true);
+    x.addLong(-5);
+    x.addLong(3);
+    Roaring64NavigableMap y = new Roaring64NavigableMap(true);
+    y.addLong(7);
+    y.addLong(-9);
+    Roaring64NavigableMap union = Roaring64ParallelAggregation.or(x, y);
+    assertArrayEquals(new long[] {-9, -5, 3, 7}, union.toArray());
+    assertEquals(-9, union.first());
+    assertEquals(2, union.rankLong(-1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Roaring64ParallelAggregation.or(x, Roaring64NavigableMap.bitmapOf(1)));
+  }
+
+  @Test
+  public void testRoaring64NavigableMapEdgeCases() {
+    assertTrue(Roaring64ParallelAggregation.or(new Roaring64NavigableMap[0]).isEmpty());
+    assertTrue(Roaring64ParallelAggregation.and(new Roaring64NavigableMap[0]).isEmpty());
+    Roaring64NavigableMap heap = Roaring64NavigableMap.bitmapOf(1, 2, -1);
+    Roaring64NavigableMap buffer = new Roaring64NavigableMap(new MutableRoaringBitmapSupplier());
+    buffer.addLong(2);
+    buffer.addLong(-1);
+    assertThrows(
+        UnsupportedOperationException.class, () -> Roaring64ParallelAggregation.or(heap, buffer));
+    assertTrue(
+        Roaring64ParallelAggregation.xor(heap, Roaring64NavigableMap.bitmapOf(1, 2, -1))
+            .isEmpty());
+    assertArrayEquals(
+        new long[] {2, -1},
+        Roaring64ParallelAggregation.and(heap, Roaring64NavigableMap.bitmapOf(2, 3, -1))
+            .toArray());
+  }
+}